@@ -0,0 +1,133 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.test.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.pwsafe.lib.file.Owner;
+import org.pwsafe.lib.file.PwsPassword;
+import org.pwsafe.lib.file.PwsRecord;
+
+import com.jefftharris.passwdsafe.file.PasswdFileData;
+import com.jefftharris.passwdsafe.file.PasswdFileExport;
+import com.jefftharris.passwdsafe.file.PasswdFileUri;
+
+import android.net.Uri;
+import android.test.AndroidTestCase;
+import android.test.MoreAsserts;
+
+/**
+ * Tests for the PasswdFileExport class
+ */
+public class PasswdFileExportTest extends AndroidTestCase
+{
+    /** Test the quoting of CSV fields */
+    public void testCsvQuoting() throws IOException
+    {
+        PasswdFileData fileData = createFileData();
+        addRecord("Work", "a,b", "say \"hi\"", "p\"w,d", "line1\r\nline2",
+                  fileData);
+        addRecord(null, " padded ", "plain", "\"", null, fileData);
+
+        for (boolean parallel: new boolean[] { false, true }) {
+            String csv = export(fileData, PasswdFileExport.Format.CSV,
+                                parallel);
+            MoreAsserts.assertContainsRegex(
+                    "^Group,Title,Username,Password,URL,Email,Notes,", csv);
+            assertTrue(csv, csv.contains(
+                    "\r\nWork,\"a,b\",\"say \"\"hi\"\"\",\"p\"\"w,d\",,," +
+                    "\"line1\r\nline2\","));
+            assertTrue(csv, csv.contains(
+                    "\r\n,\" padded \",plain,\"\"\"\",,,,"));
+            assertTrue(csv, csv.endsWith("\r\n"));
+        }
+    }
+
+
+    /** Test splitting the end of a CDATA section in XML fields */
+    public void testXmlCdata() throws IOException
+    {
+        PasswdFileData fileData = createFileData();
+        addRecord("a]]>b", "]]>", "user]]", "pw]]>", "x]]]>y", fileData);
+        addRecord(null, "short", "u", "]]", null, fileData);
+        addRecord(null, "ctrl", "u", "a\u0001b\u0000c", null, fileData);
+
+        for (boolean parallel: new boolean[] { false, true }) {
+            String xml = export(fileData, PasswdFileExport.Format.XML,
+                                parallel);
+            assertTrue(xml, xml.startsWith("<?xml "));
+            assertTrue(xml, xml.endsWith("</passwordsafe>\n"));
+            assertTrue(xml, xml.contains(
+                    "<group><![CDATA[a]]]]><![CDATA[>b]]></group>"));
+            assertTrue(xml, xml.contains(
+                    "<title><![CDATA[]]]]><![CDATA[>]]></title>"));
+            assertTrue(xml, xml.contains(
+                    "<username><![CDATA[user]]]]></username>"));
+            assertTrue(xml, xml.contains(
+                    "<password><![CDATA[pw]]]]><![CDATA[>]]></password>"));
+            assertTrue(xml, xml.contains(
+                    "<notes><![CDATA[x]]]]]><![CDATA[>y]]></notes>"));
+            assertTrue(xml, xml.contains(
+                    "<password><![CDATA[]]]]></password>"));
+            assertTrue(xml, xml.contains(
+                    "<password><![CDATA[abc]]></password>"));
+        }
+    }
+
+
+    /** Export a file to a string */
+    private static String export(PasswdFileData fileData,
+                                 PasswdFileExport.Format format,
+                                 boolean parallel)
+            throws IOException
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        PasswdFileExport export =
+                new PasswdFileExport(fileData, format, parallel, null);
+        assertEquals(fileData.getRecords().size(), export.export(os));
+        return os.toString("UTF-8");
+    }
+
+
+    /** Create an empty file to export */
+    private PasswdFileData createFileData() throws IOException
+    {
+        File file = new File(getContext().getCacheDir(), "exporttest.psafe3");
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        PasswdFileUri uri =
+                new PasswdFileUri.Creator(Uri.fromFile(file), getContext())
+                        .finishCreate();
+        PasswdFileData fileData = new PasswdFileData(uri);
+        Owner<PwsPassword> passwd = new Owner<>(new PwsPassword("test"));
+        try {
+            fileData.createNewFile(passwd.pass(), getContext());
+        } finally {
+            passwd.close();
+        }
+        return fileData;
+    }
+
+
+    /** Add a record to the file */
+    private static PwsRecord addRecord(String group, String title,
+                                       String user, String passwd,
+                                       String notes, PasswdFileData fileData)
+    {
+        PwsRecord rec = fileData.createRecord();
+        fileData.setGroup(group, rec);
+        fileData.setTitle(title, rec);
+        fileData.setUsername(user, rec);
+        fileData.setPassword(null, passwd, rec);
+        fileData.setNotes(notes, rec);
+        fileData.addRecord(rec);
+        return rec;
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.test.file;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.pwsafe.lib.exception.InvalidPassphraseException;
+import org.pwsafe.lib.file.Owner;
+import org.pwsafe.lib.file.PwsPassword;
+
+import com.jefftharris.passwdsafe.file.PasswdFileData;
+import com.jefftharris.passwdsafe.file.PasswdFileExport;
+import com.jefftharris.passwdsafe.file.PasswdFileImport;
+import com.jefftharris.passwdsafe.file.PasswdFileUri;
+
+import android.net.Uri;
+import android.test.AndroidTestCase;
+import android.text.TextUtils;
+
+/**
+ * Tests for the PasswdFileImport class
+ */
+public class PasswdFileImportTest extends AndroidTestCase
+{
+    /** Test importing a CSV export */
+    public void testCsvRoundTrip() throws IOException
+    {
+        List<PasswdFileImport.Entry> entries = createEntries("\r\n");
+        for (boolean parallel: new boolean[] { false, true }) {
+            String csv = exportEntries(entries, PasswdFileExport.Format.CSV,
+                                       parallel);
+            PasswdFileImport.Source source =
+                    new PasswdFileImport.CsvSource(new StringReader(csv));
+            assertEntries(entries, source);
+            source = PasswdFileImport.openSource(new StringReader(csv));
+            assertTrue(source instanceof PasswdFileImport.CsvSource);
+            assertEntries(entries, source);
+            assertImport(entries, csv, parallel);
+        }
+    }
+
+
+    /** Test importing an XML export */
+    public void testXmlRoundTrip() throws IOException
+    {
+        // XML parsers normalize the line ends in text to a newline
+        List<PasswdFileImport.Entry> entries = createEntries("\n");
+        for (boolean parallel: new boolean[] { false, true }) {
+            String xml = exportEntries(entries, PasswdFileExport.Format.XML,
+                                       parallel);
+            PasswdFileImport.Source source =
+                    new PasswdFileImport.XmlSource(new StringReader(xml));
+            assertEntries(entries, source);
+            source = PasswdFileImport.openSource(new StringReader(xml));
+            assertTrue(source instanceof PasswdFileImport.XmlSource);
+            assertEntries(entries, source);
+            assertImport(entries, xml, parallel);
+        }
+    }
+
+
+    /** Test importing the records of another password file */
+    public void testFileRoundTrip() throws Exception
+    {
+        // The notes of a file's records are read with newlines
+        List<PasswdFileImport.Entry> entries = createEntries("\n");
+        PasswdFileData srcFileData = createFileData("importfile.psafe3");
+        new PasswdFileImport(srcFileData, false, null).importRecords(
+                new ListSource(entries));
+        srcFileData.save(getContext());
+        PasswdFileUri srcUri = srcFileData.getUri();
+        srcFileData.close(null);
+
+        File srcFile = new File(getContext().getCacheDir(),
+                                "importfile.psafe3");
+        InputStream is = new BufferedInputStream(new FileInputStream(srcFile));
+        try {
+            assertTrue(PasswdFileImport.isV3File(is));
+        } finally {
+            is.close();
+        }
+        String csv = exportEntries(entries, PasswdFileExport.Format.CSV,
+                                   false);
+        assertFalse(PasswdFileImport.isV3File(
+                new ByteArrayInputStream(csv.getBytes("UTF-8"))));
+
+        PasswdFileImport.FileSource source = openFileSource(srcUri, "test");
+        try {
+            assertEntries(entries, source);
+        } finally {
+            source.close();
+        }
+
+        PasswdFileData fileData = createFileData("importdst.psafe3");
+        source = openFileSource(srcUri, "test");
+        try {
+            PasswdFileImport.Result result =
+                    new PasswdFileImport(fileData, true, null)
+                            .importRecords(source);
+            assertEquals(entries.size(), result.itsNumRecords);
+        } finally {
+            source.close();
+        }
+        assertEquals(entries.size(), fileData.getRecords().size());
+
+        try {
+            openFileSource(srcUri, "wrong").close();
+            fail("Opened with a wrong password");
+        } catch (InvalidPassphraseException e) {
+            // Expected
+        }
+    }
+
+
+    /** Test importing an empty source */
+    public void testImportEmpty() throws IOException
+    {
+        PasswdFileData fileData = createFileData("importtest.psafe3");
+        PasswdFileImport.Result result =
+                new PasswdFileImport(fileData, false, null).importRecords(
+                        new ListSource(
+                                new ArrayList<PasswdFileImport.Entry>()));
+        assertEquals(0, result.itsNumRecords);
+        assertEquals(0, fileData.getRecords().size());
+
+        assertNull(new PasswdFileImport.CsvSource(new StringReader(""))
+                           .next());
+    }
+
+
+    /** Create the entries to export, with the given line end in the notes */
+    private static List<PasswdFileImport.Entry> createEntries(String lineEnd)
+    {
+        List<PasswdFileImport.Entry> entries = new ArrayList<>();
+        PasswdFileImport.Entry entry =
+                createEntry("Work", "a,b", "say \"hi\"", "p\"w,d",
+                            "line1" + lineEnd + "line2", 1400000000000L);
+        entry.itsUrl = "http://example.com/?a=1,b=2";
+        entry.itsEmail = "user@example.com";
+        entries.add(entry);
+        entries.add(createEntry(null, " padded ", "\"\"", "a\"\"b",
+                                "\"quoted\", " + lineEnd + "\"\"",
+                                1410000000000L));
+        entries.add(createEntry("a]]>b", "]]>", "user]]", "pw]]>",
+                                "x]]]>y" + lineEnd + "]]>", 1420000000000L));
+        entries.add(createEntry(null, "plain", null, null, null,
+                                1430000000000L));
+        return entries;
+    }
+
+
+    /** Create an entry with dates from the given time */
+    private static PasswdFileImport.Entry createEntry(String group,
+                                                      String title,
+                                                      String user,
+                                                      String passwd,
+                                                      String notes,
+                                                      long time)
+    {
+        PasswdFileImport.Entry entry = new PasswdFileImport.Entry();
+        entry.itsGroup = group;
+        entry.itsTitle = title;
+        entry.itsUsername = user;
+        entry.itsPassword = passwd;
+        entry.itsNotes = notes;
+        entry.itsCreationTime = new Date(time);
+        entry.itsPasswdModTime = new Date(time + 60 * 1000L);
+        entry.itsLastModTime = new Date(time + 120 * 1000L);
+        entry.itsPasswdExpiry = new Date(time + 24 * 3600 * 1000L);
+        return entry;
+    }
+
+
+    /** Import the entries into a file and export it to a string */
+    private String exportEntries(List<PasswdFileImport.Entry> entries,
+                                 PasswdFileExport.Format format,
+                                 boolean parallel)
+            throws IOException
+    {
+        PasswdFileData fileData = createFileData("importsrc.psafe3");
+        PasswdFileImport.Result result =
+                new PasswdFileImport(fileData, parallel, null)
+                        .importRecords(new ListSource(entries));
+        assertEquals(entries.size(), result.itsNumRecords);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        PasswdFileExport export =
+                new PasswdFileExport(fileData, format, parallel, null);
+        assertEquals(entries.size(), export.export(os));
+        return os.toString("UTF-8");
+    }
+
+
+    /** Import an export into a new file and check its records */
+    private void assertImport(List<PasswdFileImport.Entry> entries,
+                              String data, boolean parallel)
+            throws IOException
+    {
+        PasswdFileData fileData = createFileData("importdst.psafe3");
+        PasswdFileImport.Result result =
+                new PasswdFileImport(fileData, parallel, null)
+                        .importRecords(PasswdFileImport.openSource(
+                                new StringReader(data)));
+        assertEquals(entries.size(), result.itsNumRecords);
+        assertTrue(result.getRecordsPerSec() >= 0);
+        assertEquals(entries.size(), fileData.getRecords().size());
+
+        String exported = exportEntries(entries, PasswdFileExport.Format.CSV,
+                                        parallel);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new PasswdFileExport(fileData, PasswdFileExport.Format.CSV,
+                             parallel, null).export(os);
+        assertEquals(exported, os.toString("UTF-8"));
+    }
+
+
+    /** Check that a source reads the expected entries */
+    private static void assertEntries(List<PasswdFileImport.Entry> expected,
+                                      PasswdFileImport.Source source)
+            throws IOException
+    {
+        for (PasswdFileImport.Entry exp: expected) {
+            PasswdFileImport.Entry entry = source.next();
+            assertNotNull(exp.itsTitle, entry);
+            assertField(exp.itsGroup, entry.itsGroup);
+            assertField(exp.itsTitle, entry.itsTitle);
+            assertField(exp.itsUsername, entry.itsUsername);
+            assertField(exp.itsPassword, entry.itsPassword);
+            assertField(exp.itsUrl, entry.itsUrl);
+            assertField(exp.itsEmail, entry.itsEmail);
+            assertField(exp.itsNotes, entry.itsNotes);
+            assertEquals(exp.itsCreationTime, entry.itsCreationTime);
+            assertEquals(exp.itsPasswdModTime, entry.itsPasswdModTime);
+            assertEquals(exp.itsLastModTime, entry.itsLastModTime);
+            assertEquals(exp.itsPasswdExpiry, entry.itsPasswdExpiry);
+        }
+        assertNull(source.next());
+    }
+
+
+    /** Check a field where a missing and empty value are the same */
+    private static void assertField(String expected, String value)
+    {
+        if (TextUtils.isEmpty(expected)) {
+            assertTrue(value, TextUtils.isEmpty(value));
+        } else {
+            assertEquals(expected, value);
+        }
+    }
+
+
+    /** Open a password file as a source with a password */
+    private PasswdFileImport.FileSource openFileSource(PasswdFileUri uri,
+                                                       String password)
+            throws Exception
+    {
+        Owner<PwsPassword> passwd = new Owner<>(new PwsPassword(password));
+        try {
+            return PasswdFileImport.FileSource.open(uri, passwd.pass(),
+                                                    getContext());
+        } finally {
+            passwd.close();
+        }
+    }
+
+
+    /** Create an empty file to import into */
+    private PasswdFileData createFileData(String name) throws IOException
+    {
+        File file = new File(getContext().getCacheDir(), name);
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        PasswdFileUri uri =
+                new PasswdFileUri.Creator(Uri.fromFile(file), getContext())
+                        .finishCreate();
+        PasswdFileData fileData = new PasswdFileData(uri);
+        Owner<PwsPassword> passwd = new Owner<>(new PwsPassword("test"));
+        try {
+            fileData.createNewFile(passwd.pass(), getContext());
+        } finally {
+            passwd.close();
+        }
+        return fileData;
+    }
+
+
+    /** A source of entries from a list */
+    private static final class ListSource implements PasswdFileImport.Source
+    {
+        private final Iterator<PasswdFileImport.Entry> itsIter;
+
+        /** Constructor */
+        public ListSource(List<PasswdFileImport.Entry> entries)
+        {
+            itsIter = entries.iterator();
+        }
+
+        @Override
+        public PasswdFileImport.Entry next()
+        {
+            return itsIter.hasNext() ? itsIter.next() : null;
+        }
+    }
+}
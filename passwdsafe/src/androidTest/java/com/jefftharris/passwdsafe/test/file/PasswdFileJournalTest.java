@@ -0,0 +1,271 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.test.file;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.pwsafe.lib.file.Owner;
+import org.pwsafe.lib.file.PwsFileStorage;
+import org.pwsafe.lib.file.PwsPassword;
+import org.pwsafe.lib.file.PwsRecord;
+
+import com.jefftharris.passwdsafe.Preferences;
+import com.jefftharris.passwdsafe.file.PasswdFileData;
+import com.jefftharris.passwdsafe.file.PasswdFileUri;
+
+import android.net.Uri;
+import android.test.AndroidTestCase;
+import android.text.TextUtils;
+
+/**
+ * Tests for the journal of changes to a V3 file
+ */
+public class PasswdFileJournalTest extends AndroidTestCase
+{
+    private File itsFile;
+    private File itsJournalFile;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        itsFile = new File(getContext().getCacheDir(), "journaltest.psafe3");
+        itsJournalFile = PwsFileStorage.getJournalFile(itsFile);
+        deleteFiles();
+        setJournalPref(false);
+    }
+
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        Preferences.getSharedPrefs(getContext()).edit()
+                   .remove(Preferences.PREF_FILE_JOURNAL).commit();
+        deleteFiles();
+        super.tearDown();
+    }
+
+
+    /** Test appending changes to the journal without rewriting the file */
+    public void testAppend() throws Exception
+    {
+        PasswdFileData fileData = createFileData();
+        addRecord("A", fileData);
+        fileData.save(getContext());
+        assertFalse(itsJournalFile.exists());
+        byte[] saved = readFile(itsFile);
+
+        setJournalPref(true);
+        addRecord("B", fileData);
+        fileData.save(getContext());
+        assertTrue(itsJournalFile.exists());
+        long journalLen = itsJournalFile.length();
+        assertTrue(journalLen > 0);
+        assertTrue(Arrays.equals(saved, readFile(itsFile)));
+
+        addRecord("C", fileData);
+        fileData.save(getContext());
+        assertTrue(itsJournalFile.length() > journalLen);
+        assertTrue(Arrays.equals(saved, readFile(itsFile)));
+        fileData.close(null);
+    }
+
+
+    /** Test replaying the journal when the file is opened */
+    public void testReplay() throws Exception
+    {
+        PasswdFileData fileData = createFileData();
+        PwsRecord recA = addRecord("A", fileData);
+        addRecord("B", fileData);
+        fileData.save(getContext());
+
+        setJournalPref(true);
+        addRecord("C", fileData);
+        fileData.removeRecord(recA, getContext());
+        fileData.save(getContext());
+        fileData.close(null);
+        assertTrue(itsJournalFile.exists());
+
+        fileData = openFileData();
+        assertEquals("B, C", getTitles(fileData));
+        fileData.close(null);
+        assertTrue(itsJournalFile.exists());
+
+        // Without the journal, the file has the records as last saved
+        assertTrue(itsJournalFile.delete());
+        fileData = openFileData();
+        assertEquals("A, B", getTitles(fileData));
+        fileData.close(null);
+    }
+
+
+    /** Test that a journal for another version of the file is rejected */
+    public void testBinding() throws Exception
+    {
+        PasswdFileData fileData = createFileData();
+        addRecord("A", fileData);
+        fileData.save(getContext());
+
+        setJournalPref(true);
+        PwsRecord recB = addRecord("B", fileData);
+        fileData.save(getContext());
+        byte[] journal = readFile(itsJournalFile);
+
+        // A full save writes a new salt and IV, and removes the journal
+        setJournalPref(false);
+        fileData.removeRecord(recB, getContext());
+        fileData.save(getContext());
+        assertFalse(itsJournalFile.exists());
+        fileData.close(null);
+
+        writeFile(itsJournalFile, journal);
+        setJournalPref(true);
+        fileData = openFileData();
+        assertEquals("A", getTitles(fileData));
+        assertFalse(itsJournalFile.exists());
+        fileData.close(null);
+    }
+
+
+    /** Test compacting the journal when the file is closed */
+    public void testCompact() throws Exception
+    {
+        PasswdFileData fileData = createFileData();
+        addRecord("A", fileData);
+        fileData.save(getContext());
+
+        setJournalPref(true);
+        addRecord("B", fileData);
+        fileData.save(getContext());
+        byte[] saved = readFile(itsFile);
+
+        // Changes which aren't saved aren't compacted
+        addRecord("C", fileData);
+        fileData.close(getContext());
+
+        // The open waits for the compaction
+        fileData = openFileData();
+        assertFalse(itsJournalFile.exists());
+        assertFalse(Arrays.equals(saved, readFile(itsFile)));
+        assertEquals("A, B", getTitles(fileData));
+        fileData.close(null);
+    }
+
+
+    /** Set whether changes are saved to the journal */
+    private void setJournalPref(boolean journal)
+    {
+        Preferences.getSharedPrefs(getContext()).edit()
+                   .putBoolean(Preferences.PREF_FILE_JOURNAL, journal)
+                   .commit();
+    }
+
+
+    /** Create the empty file */
+    private PasswdFileData createFileData() throws IOException
+    {
+        PasswdFileData fileData = new PasswdFileData(getFileUri());
+        Owner<PwsPassword> passwd = new Owner<>(new PwsPassword("test"));
+        try {
+            fileData.createNewFile(passwd.pass(), getContext());
+        } finally {
+            passwd.close();
+        }
+        return fileData;
+    }
+
+
+    /** Open the file */
+    private PasswdFileData openFileData() throws Exception
+    {
+        PasswdFileData fileData = new PasswdFileData(getFileUri());
+        Owner<PwsPassword> passwd = new Owner<>(new PwsPassword("test"));
+        try {
+            fileData.load(passwd.pass(), false, getContext());
+        } finally {
+            passwd.close();
+        }
+        return fileData;
+    }
+
+
+    /** Get the URI of the file */
+    private PasswdFileUri getFileUri()
+    {
+        return new PasswdFileUri.Creator(Uri.fromFile(itsFile), getContext())
+                .finishCreate();
+    }
+
+
+    /** Add a record to the file */
+    private static PwsRecord addRecord(String title, PasswdFileData fileData)
+    {
+        PwsRecord rec = fileData.createRecord();
+        fileData.setTitle(title, rec);
+        fileData.setPassword(null, "passwd" + title, rec);
+        fileData.addRecord(rec);
+        return rec;
+    }
+
+
+    /** Get the sorted titles of the file's records */
+    private static String getTitles(PasswdFileData fileData)
+    {
+        List<String> titles = new ArrayList<>();
+        for (PwsRecord rec: fileData.getRecords()) {
+            titles.add(fileData.getTitle(rec));
+        }
+        Collections.sort(titles);
+        return TextUtils.join(", ", titles);
+    }
+
+
+    /** Delete the file and its journal */
+    private void deleteFiles()
+    {
+        //noinspection ResultOfMethodCallIgnored
+        itsFile.delete();
+        //noinspection ResultOfMethodCallIgnored
+        itsJournalFile.delete();
+    }
+
+
+    /** Read the contents of a file */
+    @SuppressWarnings("TryFinallyCanBeTryWithResources")
+    private static byte[] readFile(File file) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            byte[] data = new byte[(int)raf.length()];
+            raf.readFully(data);
+            return data;
+        } finally {
+            raf.close();
+        }
+    }
+
+
+    /** Write the contents of a file */
+    @SuppressWarnings("TryFinallyCanBeTryWithResources")
+    private static void writeFile(File file, byte[] data) throws IOException
+    {
+        FileOutputStream os = new FileOutputStream(file);
+        try {
+            os.write(data);
+        } finally {
+            os.close();
+        }
+    }
+}
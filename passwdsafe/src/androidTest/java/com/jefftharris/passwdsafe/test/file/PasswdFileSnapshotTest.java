@@ -0,0 +1,238 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.test.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.pwsafe.lib.file.Owner;
+import org.pwsafe.lib.file.PwsFileV3;
+import org.pwsafe.lib.file.PwsPassword;
+import org.pwsafe.lib.file.PwsRecord;
+
+import com.jefftharris.passwdsafe.Preferences;
+import com.jefftharris.passwdsafe.file.PasswdFileData;
+import com.jefftharris.passwdsafe.file.PasswdFileUri;
+
+import android.net.Uri;
+import android.test.AndroidTestCase;
+import android.text.TextUtils;
+
+/**
+ * Tests for saving snapshots of a V3 file
+ */
+public class PasswdFileSnapshotTest extends AndroidTestCase
+{
+    /** Length of the file header before the encrypted header record */
+    private static final int FILE_HEADER_LENGTH = 152;
+
+    private File itsFile;
+    private boolean itsIsIncrementalSave;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        itsFile = new File(getContext().getCacheDir(), "snapshottest.psafe3");
+        //noinspection ResultOfMethodCallIgnored
+        itsFile.delete();
+        itsIsIncrementalSave = PwsFileV3.isIncrementalSave();
+        PwsFileV3.setIncrementalSave(true);
+        Preferences.getSharedPrefs(getContext()).edit()
+                   .putBoolean(Preferences.PREF_FILE_JOURNAL, false)
+                   .commit();
+    }
+
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        PwsFileV3.setIncrementalSave(itsIsIncrementalSave);
+        Preferences.getSharedPrefs(getContext()).edit()
+                   .remove(Preferences.PREF_FILE_JOURNAL).commit();
+        //noinspection ResultOfMethodCallIgnored
+        itsFile.delete();
+        super.tearDown();
+    }
+
+
+    /** Test capturing a snapshot, writing it, and reopening the file */
+    public void testRoundTrip() throws Exception
+    {
+        PasswdFileData fileData = createFileData();
+        addRecord("A", fileData);
+        addRecord("B", fileData);
+        PasswdFileData.PendingSave save = fileData.prepareSave(getContext());
+        assertNotNull(save);
+        save.save(getContext());
+        fileData.close(null);
+
+        fileData = openFileData();
+        assertEquals("A, B", getTitles(fileData));
+        for (PwsRecord rec: fileData.getRecords()) {
+            String title = fileData.getTitle(rec);
+            assertEquals("passwd" + title, fileData.getPassword(rec));
+        }
+        fileData.close(null);
+    }
+
+
+    /** Test that changes after a snapshot is captured aren't written */
+    public void testChangeDuringSave() throws Exception
+    {
+        PasswdFileData fileData = createFileData();
+        PwsRecord recA = addRecord("A", fileData);
+        addRecord("B", fileData);
+        fileData.save(getContext());
+
+        fileData.setTitle("A2", recA);
+        PasswdFileData.PendingSave save = fileData.prepareSave(getContext());
+        assertNotNull(save);
+        // The file is changed while the snapshot is written
+        fileData.setTitle("A3", recA);
+        addRecord("C", fileData);
+        save.save(getContext());
+        assertEquals("A3, B, C", getTitles(fileData));
+
+        PasswdFileData saved = openFileData();
+        assertEquals("A2, B", getTitles(saved));
+        saved.close(null);
+
+        // The next snapshot has the later changes
+        fileData.save(getContext());
+        fileData.close(null);
+        saved = openFileData();
+        assertEquals("A3, B, C", getTitles(saved));
+        saved.close(null);
+    }
+
+
+    /**
+     * Test that a snapshot reuses the ciphertext of the records unchanged
+     * since the last saved snapshot
+     */
+    public void testDiff() throws Exception
+    {
+        PasswdFileData fileData = createFileData();
+        addRecord("A", fileData);
+        addRecord("B", fileData);
+        PwsRecord recC = addRecord("C", fileData);
+        fileData.save(getContext());
+        byte[] saved = readFile(itsFile);
+
+        // Only the ciphertext from the changed record on is rewritten
+        fileData.setTitle("C2", recC);
+        fileData.save(getContext());
+        byte[] incremental = readFile(itsFile);
+        int prefixLen = getCommonPrefixLength(saved, incremental);
+        assertTrue(prefixLen > FILE_HEADER_LENGTH);
+        assertTrue(prefixLen < incremental.length);
+
+        // A save with new key material rewrites the whole file
+        PwsFileV3.setIncrementalSave(false);
+        fileData.setTitle("C3", recC);
+        fileData.save(getContext());
+        byte[] full = readFile(itsFile);
+        assertTrue(getCommonPrefixLength(incremental, full) <
+                   FILE_HEADER_LENGTH);
+        fileData.close(null);
+
+        PasswdFileData reopened = openFileData();
+        assertEquals("A, B, C3", getTitles(reopened));
+        reopened.close(null);
+    }
+
+
+    /** Create the empty file */
+    private PasswdFileData createFileData() throws IOException
+    {
+        PasswdFileData fileData = new PasswdFileData(getFileUri());
+        Owner<PwsPassword> passwd = new Owner<>(new PwsPassword("test"));
+        try {
+            fileData.createNewFile(passwd.pass(), getContext());
+        } finally {
+            passwd.close();
+        }
+        return fileData;
+    }
+
+
+    /** Open the file */
+    private PasswdFileData openFileData() throws Exception
+    {
+        PasswdFileData fileData = new PasswdFileData(getFileUri());
+        Owner<PwsPassword> passwd = new Owner<>(new PwsPassword("test"));
+        try {
+            fileData.load(passwd.pass(), false, getContext());
+        } finally {
+            passwd.close();
+        }
+        return fileData;
+    }
+
+
+    /** Get the URI of the file */
+    private PasswdFileUri getFileUri()
+    {
+        return new PasswdFileUri.Creator(Uri.fromFile(itsFile), getContext())
+                .finishCreate();
+    }
+
+
+    /** Add a record to the file */
+    private static PwsRecord addRecord(String title, PasswdFileData fileData)
+    {
+        PwsRecord rec = fileData.createRecord();
+        fileData.setTitle(title, rec);
+        fileData.setPassword(null, "passwd" + title, rec);
+        fileData.addRecord(rec);
+        return rec;
+    }
+
+
+    /** Get the sorted titles of the file's records */
+    private static String getTitles(PasswdFileData fileData)
+    {
+        List<String> titles = new ArrayList<>();
+        for (PwsRecord rec: fileData.getRecords()) {
+            titles.add(fileData.getTitle(rec));
+        }
+        Collections.sort(titles);
+        return TextUtils.join(", ", titles);
+    }
+
+
+    /** Get the length of the bytes the same at the start of two arrays */
+    private static int getCommonPrefixLength(byte[] a, byte[] b)
+    {
+        int len = 0;
+        while ((len < a.length) && (len < b.length) && (a[len] == b[len])) {
+            ++len;
+        }
+        return len;
+    }
+
+
+    /** Read the contents of a file */
+    @SuppressWarnings("TryFinallyCanBeTryWithResources")
+    private static byte[] readFile(File file) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            byte[] data = new byte[(int)raf.length()];
+            raf.readFully(data);
+            return data;
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -8,8 +8,10 @@
 package com.jefftharris.passwdsafe.test.file;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import android.annotation.SuppressLint;
 import android.test.AndroidTestCase;
@@ -545,6 +547,51 @@ public class PasswdPolicyTest extends AndroidTestCase
         doTestPasswdGen(PasswdPolicy.Type.PRONOUNCEABLE);
     }
 
+    /** Test generating a batch of passwords */
+    public void testPasswdGenBatch()
+    {
+        final int ALL_CHARS = PasswdPolicy.FLAG_USE_LOWERCASE |
+                              PasswdPolicy.FLAG_USE_UPPERCASE |
+                              PasswdPolicy.FLAG_USE_DIGITS |
+                              PasswdPolicy.FLAG_USE_SYMBOLS;
+        PasswdPolicy[] policies = new PasswdPolicy[] {
+            new PasswdPolicy("", PasswdPolicy.Location.DEFAULT,
+                             ALL_CHARS, 16, 2, 3, 4, 5, null),
+            new PasswdPolicy("", PasswdPolicy.Location.DEFAULT,
+                             ALL_CHARS | PasswdPolicy.FLAG_USE_EASY_VISION,
+                             16, 1, 1, 1, 1, null),
+            new PasswdPolicy("", PasswdPolicy.Location.DEFAULT,
+                             PasswdPolicy.FLAG_USE_DIGITS |
+                             PasswdPolicy.FLAG_USE_SYMBOLS,
+                             16, 0, 0, 8, 8, "#$"),
+            new PasswdPolicy("", PasswdPolicy.Location.DEFAULT,
+                             PasswdPolicy.FLAG_USE_HEX_DIGITS,
+                             16, 0, 0, 0, 0, null),
+            new PasswdPolicy("", PasswdPolicy.Location.DEFAULT,
+                             PasswdPolicy.FLAG_MAKE_PRONOUNCEABLE |
+                             PasswdPolicy.FLAG_USE_LOWERCASE |
+                             PasswdPolicy.FLAG_USE_UPPERCASE,
+                             16, 0, 0, 0, 0, null) };
+
+        final int COUNT = 200;
+        for (PasswdPolicy policy: policies) {
+            PasswdPolicy.Batch batch = policy.generateBatch(COUNT);
+            assertEquals(COUNT, batch.itsPasswords.size());
+            assertTrue(batch.itsEntropy > 0.0);
+            assertEquals(policy.estimateEntropy(), batch.itsEntropy);
+
+            Set<String> unique = new HashSet<>();
+            for (String passwd: batch.itsPasswords) {
+                assertEquals(policy.getLength(), passwd.length());
+                assertTrue(passwd, policy.checkPassword(passwd));
+                unique.add(passwd);
+            }
+            assertEquals(COUNT, unique.size());
+        }
+
+        MoreAsserts.assertEmpty(policies[0].generateBatch(0).itsPasswords);
+    }
+
     /** Check a bad header policy */
     private static void doTestBadHdrPolicy(String policyStr, String exMsg)
     {
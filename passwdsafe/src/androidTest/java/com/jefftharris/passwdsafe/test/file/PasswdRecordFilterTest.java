@@ -7,14 +7,33 @@
  */
 package com.jefftharris.passwdsafe.test.file;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.regex.Pattern;
 
+import org.pwsafe.lib.file.Owner;
+import org.pwsafe.lib.file.PwsPassword;
+import org.pwsafe.lib.file.PwsRecord;
+
+import com.jefftharris.passwdsafe.file.PasswdFileData;
+import com.jefftharris.passwdsafe.file.PasswdFileUri;
+import com.jefftharris.passwdsafe.file.PasswdPolicy;
 import com.jefftharris.passwdsafe.file.PasswdRecordFilter;
+import com.jefftharris.passwdsafe.file.PasswdRecordQuery;
+import com.jefftharris.passwdsafe.file.PasswdRecordSearchIndex;
 import com.jefftharris.passwdsafe.lib.Utils;
 
+import android.net.Uri;
 import android.os.Parcel;
+import android.text.TextUtils;
 import android.test.AndroidTestCase;
+import android.test.MoreAsserts;
 
 /**
  * Tests for the PasswdRecordFilter class
@@ -55,6 +74,359 @@ public class PasswdRecordFilterTest extends AndroidTestCase
     }
 
 
+    /** Test parcelling a password audit filter */
+    public void testAuditParcel()
+    {
+        PasswdRecordFilter filter =
+            new PasswdRecordFilter(PasswdRecordFilter.AuditFilter.REUSED,
+                                   PasswdRecordFilter.OPTS_DEFAULT);
+        doParcelTest(filter, "Reused passwords");
+
+        filter = new PasswdRecordFilter(PasswdRecordFilter.AuditFilter.ANY,
+                                        PasswdRecordFilter.OPTS_NO_ALIAS);
+        doParcelTest(filter, "Passwords with issues");
+    }
+
+
+    /** Test filtering records by their password audit */
+    public void testAuditFilter() throws IOException
+    {
+        final String REUSED_PASSWD = "Tr0ub4dor&3xyzQ!longer";
+        final String STRONG_PASSWD = "H7#kq9!Zp2@xLm4$Vb8^";
+        PasswdFileData fileData = createFileData();
+        PwsRecord reused1 = addRecord("reused1", REUSED_PASSWD, fileData);
+        PwsRecord reused2 = addRecord("reused2", REUSED_PASSWD, fileData);
+        PwsRecord weak = addRecord("weak", "abc", fileData);
+        PwsRecord strong = addRecord("strong", STRONG_PASSWD, fileData);
+        PwsRecord policy = fileData.createRecord();
+        fileData.setTitle("policy", policy);
+        fileData.setPasswdPolicy(
+                new PasswdPolicy("", PasswdPolicy.Location.RECORD,
+                                 PasswdPolicy.FLAG_USE_HEX_DIGITS,
+                                 16, 0, 0, 0, 0, null), policy);
+        fileData.setPassword(null, "notHex!Strong#Pass99z", policy);
+        fileData.addRecord(policy);
+
+        // Nothing matches before the audit
+        assertEquals("", filterRecords(PasswdRecordFilter.AuditFilter.ANY,
+                                       fileData));
+
+        fileData.getPasswdAudit().audit(fileData);
+        assertTrue(fileData.getPasswdAudit().isAudited());
+        assertEquals("reused1, reused2",
+                     filterRecords(PasswdRecordFilter.AuditFilter.REUSED,
+                                   fileData));
+        assertEquals("weak",
+                     filterRecords(PasswdRecordFilter.AuditFilter.WEAK,
+                                   fileData));
+        assertEquals("policy",
+                     filterRecords(PasswdRecordFilter.AuditFilter.POLICY,
+                                   fileData));
+        assertEquals("policy, reused1, reused2, weak",
+                     filterRecords(PasswdRecordFilter.AuditFilter.ANY,
+                                   fileData));
+
+        PasswdRecordFilter filter =
+                new PasswdRecordFilter(PasswdRecordFilter.AuditFilter.ANY,
+                                       PasswdRecordFilter.OPTS_DEFAULT);
+        assertEquals("Reused",
+                     filter.filterRecord(reused1, fileData, getContext()));
+        assertEquals("Weak",
+                     filter.filterRecord(weak, fileData, getContext()));
+        assertNull(filter.filterRecord(strong, fileData, getContext()));
+
+        // Added, removed, and changed records update the audit
+        addRecord("copy", STRONG_PASSWD, fileData);
+        assertEquals("copy, reused1, reused2, strong",
+                     filterRecords(PasswdRecordFilter.AuditFilter.REUSED,
+                                   fileData));
+
+        assertTrue(fileData.removeRecord(reused2, getContext()));
+        assertEquals("copy, strong",
+                     filterRecords(PasswdRecordFilter.AuditFilter.REUSED,
+                                   fileData));
+
+        fileData.setPassword("abc", "Qw9!zX7@mN3#kL5$", weak);
+        assertEquals("", filterRecords(PasswdRecordFilter.AuditFilter.WEAK,
+                                       fileData));
+    }
+
+
+    /** Test whether queries use the structured syntax */
+    public void testQueryStructured()
+    {
+        assertTrue(PasswdRecordQuery.isStructured("group:Work"));
+        assertTrue(PasswdRecordQuery.isStructured("vpn title:~vpn"));
+        assertTrue(PasswdRecordQuery.isStructured("username:alice"));
+        assertTrue(PasswdRecordQuery.isStructured("has:url"));
+        assertTrue(PasswdRecordQuery.isStructured("-is:alias"));
+        assertTrue(PasswdRecordQuery.isStructured("expires<30d"));
+        assertTrue(PasswdRecordQuery.isStructured("notes:\"a b\""));
+
+        assertFalse(PasswdRecordQuery.isStructured("vpn"));
+        assertFalse(PasswdRecordQuery.isStructured("http://example.com"));
+        assertFalse(PasswdRecordQuery.isStructured("foo:bar"));
+        assertFalse(PasswdRecordQuery.isStructured("expiry:2016"));
+        assertFalse(PasswdRecordQuery.isStructured("has:foo"));
+        assertFalse(PasswdRecordQuery.isStructured("is:foo"));
+        assertFalse(PasswdRecordQuery.isStructured("\"title:x\""));
+    }
+
+
+    /** Test filtering records with structured queries */
+    public void testQueryFilter() throws IOException
+    {
+        PasswdFileData fileData = createFileData();
+        addRecord("Work VPN", "Work", "alice", "https://vpn.example.com",
+                  null, fileData);
+        addRecord("Work Mail", "Work.Mail", "bob", "https://mail.example.com",
+                  null, fileData);
+        addRecord("Workshop", "Workshop", "alice", null, null, fileData);
+        addRecord("Home Bank", "Home", "Alice", "https://bank.example.org",
+                  "pin in the safe", fileData);
+        addRecord("Gmail", null, "carol", "https://mail.google.com",
+                  null, fileData);
+
+        assertEquals("Work Mail, Work VPN",
+                     queryRecords("group:Work", false, fileData));
+        assertEquals("Work Mail, Work VPN",
+                     queryRecords("group:work", false, fileData));
+        assertEquals("", queryRecords("group:work", true, fileData));
+        assertEquals("Work Mail", queryRecords("group:Work.Mail", false,
+                                               fileData));
+        assertEquals("Workshop",
+                     queryRecords("-group:Work group:Workshop", false,
+                                  fileData));
+
+        assertEquals("Home Bank, Work VPN, Workshop",
+                     queryRecords("user:alice", false, fileData));
+        assertEquals("Work VPN, Workshop",
+                     queryRecords("user:=alice", true, fileData));
+        assertEquals("Work VPN, Workshop",
+                     queryRecords("user:ali -username:=Alice", true,
+                                  fileData));
+        assertEquals("Home Bank",
+                     queryRecords("url:example.org", false, fileData));
+        assertEquals("Gmail, Work Mail",
+                     queryRecords("url:MAIL", false, fileData));
+        assertEquals("Work Mail, Work VPN",
+                     queryRecords("title:~^work\\s", false, fileData));
+        assertEquals("Home Bank",
+                     queryRecords("has:url -group:Work -title:gmail", false,
+                                  fileData));
+        assertEquals("Home Bank",
+                     queryRecords("safe has:notes", false, fileData));
+        assertEquals("Work Mail",
+                     queryRecords("group:Work user:bob", false, fileData));
+        assertEquals("Home Bank",
+                     queryRecords("title:\"home bank\"", false, fileData));
+        assertEquals("", queryRecords("-is:normal", false, fileData));
+        assertEquals("", queryRecords("user:zzzz", false, fileData));
+        assertEquals("", queryRecords("is:expired", false, fileData));
+
+        // Index terms limit the candidates
+        assertEquals(1, PasswdRecordQuery.parse("url:example.org", false)
+                                         .getCandidates(fileData).size());
+        MoreAsserts.assertEmpty(
+                PasswdRecordQuery.parse("user:zzzz", false)
+                                 .getCandidates(fileData));
+        assertEquals(3, PasswdRecordQuery.parse("group:Work", false)
+                                         .getCandidates(fileData).size());
+        assertEquals(fileData.getRecords().size(),
+                     PasswdRecordQuery.parse("-group:Work", false)
+                                      .getCandidates(fileData).size());
+
+        // Changed records are found from the updated indexes
+        PwsRecord rec = fileData.getRecords().get(0);
+        String title = fileData.getTitle(rec);
+        fileData.setUsername("dave", rec);
+        fileData.setGroup("Other", rec);
+        assertEquals(title, queryRecords("user:dave group:Other", false,
+                                         fileData));
+    }
+
+
+    /** Test parsing invalid queries */
+    public void testQueryInvalid()
+    {
+        for (String query: new String[] { "has:foo", "is:foo title:vpn",
+                                          "title:~[", "expires<3x",
+                                          "expires>d", "user:", "" }) {
+            try {
+                PasswdRecordQuery.parse(query, false);
+                fail(query);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+
+    /** Test parcelling a fuzzy search filter */
+    public void testFuzzyParcel()
+    {
+        PasswdRecordFilter filter = PasswdRecordFilter.createFuzzyFilter(
+                "gmial", PasswdRecordFilter.OPTS_DEFAULT);
+        doParcelTest(filter, "gmial");
+    }
+
+
+    /** Test the ranks and edit distances of fuzzy searches */
+    public void testFuzzySearch() throws IOException
+    {
+        PasswdFileData fileData = createFileData();
+        PwsRecord gmail = addRecord("Gmail", null, null, null, null,
+                                    fileData);
+        PwsRecord bank = addRecord("Bank", null, "gmail.user", null, null,
+                                   fileData);
+        PwsRecord backup = addRecord("Gmial Backup", null, null, null, null,
+                                     fileData);
+        PwsRecord shop = addRecord("Shop", null, null, "https://gmail.com",
+                                   null, fileData);
+        addRecord("Mailbox", null, null, null, null, fileData);
+
+        // An exact match ranks first, then a swap of two letters in the
+        // title, user, and URL in order
+        PasswdRecordSearchIndex index = fileData.getSearchIndex();
+        assertEquals(Arrays.asList(backup, gmail, bank, shop),
+                     index.search("gmial", 10));
+        assertEquals(Arrays.asList(backup, gmail),
+                     index.search("GMIAL ", 2));
+        MoreAsserts.assertEmpty(index.search("gmial", 0));
+        MoreAsserts.assertEmpty(index.search("  ", 10));
+
+        // Short searches must match exactly, and longer ones may have more
+        // edits
+        assertEquals(Arrays.asList(bank), index.search("ban", 10));
+        MoreAsserts.assertEmpty(index.search("bnk", 10));
+        assertEquals(Arrays.asList(bank), index.search("bnak", 10));
+        MoreAsserts.assertEmpty(index.search("bxnxk", 10));
+        assertEquals(Arrays.asList(backup),
+                     index.search("gmail bakcup", 10));
+        assertEquals(Arrays.asList(backup),
+                     index.search("gmal backp", 10));
+        MoreAsserts.assertEmpty(index.search("gmxil bxkcxp", 10));
+
+        // The filter ranks its candidates
+        PasswdRecordFilter filter = PasswdRecordFilter.createFuzzyFilter(
+                "gmial", PasswdRecordFilter.OPTS_DEFAULT);
+        assertEquals("Bank, Gmail, Gmial Backup, Shop",
+                     filterRecords(filter, fileData));
+        assertEquals(1, filter.getRank(backup));
+        assertEquals(2, filter.getRank(gmail));
+        assertEquals(3, filter.getRank(bank));
+        assertEquals(4, filter.getRank(shop));
+
+        // Changed, removed, and added records update the index in place
+        fileData.setUsername("other", bank);
+        fileData.setTitle("Mail", gmail);
+        assertTrue(fileData.removeRecord(shop, getContext()));
+        PwsRecord gmail2 = addRecord("Gmail 2", null, null, null, null,
+                                     fileData);
+        assertSame(index, fileData.getSearchIndex());
+        assertEquals(Arrays.asList(backup, gmail2),
+                     index.search("gmial", 10));
+        assertEquals("Gmail 2, Gmial Backup",
+                     filterRecords(filter, fileData));
+        assertEquals(2, filter.getRank(gmail2));
+        assertEquals(0, filter.getRank(bank));
+        assertEquals(Arrays.asList(bank), index.search("other", 10));
+    }
+
+
+    /** Create an empty file for filtering records */
+    private PasswdFileData createFileData() throws IOException
+    {
+        File file = new File(getContext().getCacheDir(), "filtertest.psafe3");
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        PasswdFileUri uri =
+                new PasswdFileUri.Creator(Uri.fromFile(file), getContext())
+                        .finishCreate();
+        PasswdFileData fileData = new PasswdFileData(uri);
+        Owner<PwsPassword> passwd = new Owner<>(new PwsPassword("test"));
+        try {
+            fileData.createNewFile(passwd.pass(), getContext());
+        } finally {
+            passwd.close();
+        }
+        return fileData;
+    }
+
+
+    /** Add a record to the file */
+    private static PwsRecord addRecord(String title, String passwd,
+                                       PasswdFileData fileData)
+    {
+        PwsRecord rec = fileData.createRecord();
+        fileData.setTitle(title, rec);
+        fileData.setPassword(null, passwd, rec);
+        fileData.addRecord(rec);
+        return rec;
+    }
+
+
+    /** Add a record with text fields to the file */
+    private static PwsRecord addRecord(String title, String group,
+                                       String user, String url, String notes,
+                                       PasswdFileData fileData)
+    {
+        PwsRecord rec = fileData.createRecord();
+        fileData.setTitle(title, rec);
+        fileData.setGroup(group, rec);
+        fileData.setUsername(user, rec);
+        fileData.setURL(url, rec);
+        fileData.setNotes(notes, rec);
+        fileData.addRecord(rec);
+        return rec;
+    }
+
+
+    /** Get the titles of the records matching an audit filter */
+    private String filterRecords(PasswdRecordFilter.AuditFilter auditFilter,
+                                 PasswdFileData fileData)
+    {
+        return filterRecords(
+                new PasswdRecordFilter(auditFilter,
+                                       PasswdRecordFilter.OPTS_DEFAULT),
+                fileData);
+    }
+
+
+    /** Get the titles of the records matching a query */
+    private String queryRecords(String query, boolean caseSensitive,
+                                PasswdFileData fileData)
+    {
+        assertTrue(query, PasswdRecordQuery.isStructured(query));
+        return filterRecords(
+                new PasswdRecordFilter(
+                        PasswdRecordQuery.parse(query, caseSensitive),
+                        PasswdRecordFilter.OPTS_DEFAULT),
+                fileData);
+    }
+
+
+    /**
+     * Get the sorted titles of the records matching a filter, checking that
+     * each is one of the filter's candidates
+     */
+    private String filterRecords(PasswdRecordFilter filter,
+                                 PasswdFileData fileData)
+    {
+        Collection<PwsRecord> candidates =
+                filter.getCandidateRecords(fileData);
+        List<String> titles = new ArrayList<>();
+        for (PwsRecord rec: fileData.getRecords()) {
+            if (filter.filterRecord(rec, fileData, getContext()) != null) {
+                assertTrue(fileData.getTitle(rec), candidates.contains(rec));
+                titles.add(fileData.getTitle(rec));
+            }
+        }
+        Collections.sort(titles);
+        return TextUtils.join(", ", titles);
+    }
+
+
     /** Test a parceled filter */
     private void doParcelTest(PasswdRecordFilter filter,
                               String expectedToString)
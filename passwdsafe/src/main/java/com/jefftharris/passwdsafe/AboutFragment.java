@@ -102,7 +102,7 @@ public class AboutFragment extends Fragment
         itsListener.updateViewAbout();
 
         final ObjectHolder<Boolean> called = new ObjectHolder<>(false);
-        itsListener.useFileData(new PasswdFileDataUser()
+        itsListener.useFileDataForRead(new PasswdFileDataUser()
         {
             @Override
             public void useFileData(@NonNull PasswdFileData fileData)
@@ -29,6 +29,9 @@ public abstract class AbstractPasswdSafeFileDataFragment
         /** Use the file data */
         void useFileData(PasswdFileDataUser user);
 
+        /** Use the file data without changing it */
+        void useFileDataForRead(PasswdFileDataUser user);
+
         /** Is the navigation drawer closed */
         boolean isNavDrawerClosed();
     }
@@ -82,4 +85,14 @@ public abstract class AbstractPasswdSafeFileDataFragment
             itsListener.useFileData(user);
         }
     }
+
+    /**
+     * Use the file data without changing it
+     */
+    protected final void useFileDataForRead(PasswdFileDataUser user)
+    {
+        if (isAdded() && itsListener != null) {
+            itsListener.useFileDataForRead(user);
+        }
+    }
 }
@@ -18,6 +18,7 @@ import android.content.SharedPreferences;
 import android.os.SystemClock;
 import android.util.Log;
 
+import com.jefftharris.passwdsafe.file.PasswdFileCache;
 import com.jefftharris.passwdsafe.lib.PasswdSafeUtil;
 import com.jefftharris.passwdsafe.pref.FileTimeoutPref;
 
@@ -95,10 +96,13 @@ public class FileTimeoutReceiver extends BroadcastReceiver
     public void onReceive(Context ctx, Intent intent)
     {
         boolean close = false;
+        boolean keepCache = false;
         switch (intent.getAction()) {
         case PasswdSafeApp.FILE_TIMEOUT_INTENT: {
             Log.i(TAG, "File timeout");
             close = true;
+            keepCache = Preferences.getFileReopenCachePref(
+                    Preferences.getSharedPrefs(ctx));
             break;
         }
         case Intent.ACTION_SCREEN_OFF: {
@@ -110,6 +114,11 @@ public class FileTimeoutReceiver extends BroadcastReceiver
         }
         }
         if (close) {
+            // With fast reopen, the records of a file closed from a timeout
+            // are kept until the cache expires or the screen turns off
+            if (!keepCache) {
+                PasswdFileCache.lock();
+            }
             itsActivity.finish();
         }
     }
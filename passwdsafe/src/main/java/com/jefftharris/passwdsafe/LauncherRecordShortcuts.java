@@ -33,6 +33,7 @@ import com.jefftharris.passwdsafe.view.PasswdRecordListData;
 import org.pwsafe.lib.file.PwsRecord;
 
 import java.util.List;
+import java.util.regex.Pattern;
 
 public class LauncherRecordShortcuts extends AppCompatActivity
         implements PasswdSafeListFragment.Listener,
@@ -102,8 +103,8 @@ public class LauncherRecordShortcuts extends AppCompatActivity
             options |= PasswdRecordFilter.OPTS_NO_SHORTCUT;
         }
         if (options != PasswdRecordFilter.OPTS_DEFAULT) {
-            itsFileDataView.setRecordFilter(new PasswdRecordFilter(null,
-                                                                   options));
+            itsFileDataView.setRecordFilter(
+                    new PasswdRecordFilter((Pattern)null, options));
         }
 
         if (savedInstanceState == null) {
@@ -122,7 +123,7 @@ public class LauncherRecordShortcuts extends AppCompatActivity
 
         itsFileDataView.clearFileData();
         final ObjectHolder<String> fileTitle = new ObjectHolder<>();
-        PasswdSafeFileDataFragment.useOpenFileData(
+        PasswdSafeFileDataFragment.useOpenFileDataForRead(
                 new PasswdFileDataUser()
                 {
                     @Override
@@ -163,14 +164,16 @@ public class LauncherRecordShortcuts extends AppCompatActivity
     public void onSharedPreferenceChanged(SharedPreferences prefs, String key)
     {
         if (itsFileDataView.handleSharedPreferenceChanged(prefs, key)) {
-            PasswdSafeFileDataFragment.useOpenFileData(new PasswdFileDataUser()
-            {
-                @Override
-                public void useFileData(@NonNull PasswdFileData fileData)
-                {
-                    itsFileDataView.refreshFileData(fileData);
-                }
-            });
+            PasswdSafeFileDataFragment.useOpenFileDataForRead(
+                    new PasswdFileDataUser()
+                    {
+                        @Override
+                        public void useFileData(
+                                @NonNull PasswdFileData fileData)
+                        {
+                            itsFileDataView.refreshFileData(fileData);
+                        }
+                    });
         }
     }
 
@@ -233,7 +236,7 @@ public class LauncherRecordShortcuts extends AppCompatActivity
         switch (itsMode) {
         case SHORTCUT: {
             final ObjectHolder<Pair<Uri, String>> rc = new ObjectHolder<>();
-            PasswdSafeFileDataFragment.useOpenFileData(
+            PasswdSafeFileDataFragment.useOpenFileDataForRead(
                     new PasswdFileDataUser()
                     {
                         @Override
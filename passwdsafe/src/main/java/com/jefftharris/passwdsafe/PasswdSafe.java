@@ -7,6 +7,7 @@
  */
 package com.jefftharris.passwdsafe;
 
+import android.app.Activity;
 import android.app.SearchManager;
 import android.content.Context;
 import android.content.DialogInterface;
@@ -34,24 +35,37 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.jefftharris.passwdsafe.file.PasswdFileData;
+import com.jefftharris.passwdsafe.file.PasswdFileExport;
+import com.jefftharris.passwdsafe.file.PasswdFileImport;
 import com.jefftharris.passwdsafe.file.PasswdFileDataUser;
 import com.jefftharris.passwdsafe.file.PasswdFileUri;
+import com.jefftharris.passwdsafe.file.PasswdExpiration;
 import com.jefftharris.passwdsafe.file.PasswdRecord;
 import com.jefftharris.passwdsafe.file.PasswdRecordFilter;
 import com.jefftharris.passwdsafe.lib.ApiCompat;
+import com.jefftharris.passwdsafe.lib.DocumentsContractCompat;
 import com.jefftharris.passwdsafe.lib.PasswdSafeUtil;
 import com.jefftharris.passwdsafe.lib.view.GuiUtils;
 import com.jefftharris.passwdsafe.lib.view.ProgressFragment;
 import com.jefftharris.passwdsafe.lib.ObjectHolder;
 import com.jefftharris.passwdsafe.view.ConfirmPromptDialog;
 import com.jefftharris.passwdsafe.view.CopyField;
+import com.jefftharris.passwdsafe.view.ImportPasswordDialog;
 import com.jefftharris.passwdsafe.view.PasswdFileDataView;
 import com.jefftharris.passwdsafe.view.PasswdLocation;
 import com.jefftharris.passwdsafe.view.PasswdRecordListData;
 
+import org.pwsafe.lib.exception.InvalidPassphraseException;
+import org.pwsafe.lib.file.Owner;
+import org.pwsafe.lib.file.PwsPassword;
 import org.pwsafe.lib.file.PwsRecord;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Date;
 import java.util.List;
@@ -64,6 +78,7 @@ public class PasswdSafe extends AppCompatActivity
                    AboutFragment.Listener,
                    View.OnClickListener,
                    ConfirmPromptDialog.Listener,
+                   ImportPasswordDialog.Listener,
                    PasswdSafeChangePasswordFragment.Listener,
                    PasswdSafeEditRecordFragment.Listener,
                    PasswdSafeExpirationsFragment.Listener,
@@ -141,7 +156,11 @@ public class PasswdSafe extends AppCompatActivity
         /** Delete a file */
         DELETE_FILE,
         /** Delete a record */
-        DELETE_RECORD
+        DELETE_RECORD,
+        /** Export the records unencrypted */
+        EXPORT_RECORDS,
+        /** Rotate expired passwords */
+        ROTATE_PASSWORDS
     }
 
     /** Fragment holding the open file data */
@@ -172,6 +191,12 @@ public class PasswdSafe extends AppCompatActivity
     /** Currently running task */
     private AbstractTask itsCurrTask = null;
 
+    /** Progress bar shown while tasks continue in the background */
+    private View itsBackgroundProgress;
+
+    /** Number of tasks continuing in the background */
+    private int itsNumBackgroundTasks = 0;
+
     /** Used to store the last screen title */
     private CharSequence itsTitle;
 
@@ -193,6 +218,7 @@ public class PasswdSafe extends AppCompatActivity
     private static final String STATE_EXPIRY_VISIBLE = "expiryVisible";
 
     private static final String CONFIRM_ARG_ACTION = "action";
+    private static final String CONFIRM_ARG_FORMAT = "format";
     private static final String CONFIRM_ARG_LOCATION = "location";
     private static final String CONFIRM_ARG_RECORD = "record";
 
@@ -204,6 +230,13 @@ public class PasswdSafe extends AppCompatActivity
     private static final int MENU_BIT_PROTECT_ALL = 5;
     private static final int MENU_BIT_HAS_SEARCH = 6;
     private static final int MENU_BIT_HAS_CLOSE = 7;
+    private static final int MENU_BIT_HAS_FILE_EXPORT = 8;
+    private static final int MENU_BIT_HAS_FILE_IMPORT = 9;
+    private static final int MENU_BIT_HAS_FILE_ROTATE = 10;
+
+    private static final int EXPORT_XML_REQUEST = 0;
+    private static final int EXPORT_CSV_REQUEST = 1;
+    private static final int IMPORT_REQUEST = 2;
 
     private static final String TAG = "PasswdSafe";
 
@@ -235,6 +268,7 @@ public class PasswdSafe extends AppCompatActivity
         assert expiryClearBtn != null;
         expiryClearBtn.setOnClickListener(this);
         itsExpiry = (TextView)findViewById(R.id.expiry);
+        itsBackgroundProgress = findViewById(R.id.background_progress);
 
         FragmentManager fragMgr = getSupportFragmentManager();
         itsFileDataFrag = (PasswdSafeFileDataFragment)
@@ -290,7 +324,7 @@ public class PasswdSafe extends AppCompatActivity
         case Intent.ACTION_VIEW: {
             final Uri openUri = PasswdSafeApp.getOpenUriFromIntent(intent);
             final ObjectHolder<Boolean> reopen = new ObjectHolder<>(true);
-            itsFileDataFrag.useFileData(new PasswdFileDataUser()
+            itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
             {
                 @Override
                 public void useFileData(@NonNull PasswdFileData fileData)
@@ -390,7 +424,7 @@ public class PasswdSafe extends AppCompatActivity
         final BitSet options = new BitSet();
         options.set(MENU_BIT_HAS_CLOSE);
 
-        itsFileDataFrag.useFileData(new PasswdFileDataUser()
+        itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
         {
             @Override
             public void useFileData(@NonNull PasswdFileData fileData)
@@ -408,11 +442,19 @@ public class PasswdSafe extends AppCompatActivity
                         options.set(MENU_BIT_HAS_FILE_PROTECT, true);
                         options.set(MENU_BIT_PROTECT_ALL,
                                     itsLocation.getGroups().isEmpty());
+                        options.set(MENU_BIT_HAS_FILE_ROTATE,
+                                    fileData.isV3());
                     }
                     if (fileData.canDelete()) {
                         options.set(MENU_BIT_HAS_FILE_OPS, true);
                         options.set(MENU_BIT_HAS_FILE_DELETE, true);
                     }
+                    if (ApiCompat.SDK_VERSION >= ApiCompat.SDK_KITKAT) {
+                        options.set(MENU_BIT_HAS_FILE_OPS, true);
+                        options.set(MENU_BIT_HAS_FILE_EXPORT, true);
+                        options.set(MENU_BIT_HAS_FILE_IMPORT,
+                                    fileEditable && fileData.isV3());
+                    }
                     break;
                 }
                 case VIEW_RECORD: {
@@ -477,6 +519,26 @@ public class PasswdSafe extends AppCompatActivity
             if (item != null) {
                 item.setEnabled(options.get(MENU_BIT_HAS_FILE_DELETE));
             }
+
+            item = menu.findItem(R.id.menu_file_rotate_passwords);
+            if (item != null) {
+                item.setVisible(options.get(MENU_BIT_HAS_FILE_ROTATE));
+            }
+
+            item = menu.findItem(R.id.menu_file_import);
+            if (item != null) {
+                item.setVisible(options.get(MENU_BIT_HAS_FILE_IMPORT));
+            }
+
+            boolean hasExport = options.get(MENU_BIT_HAS_FILE_EXPORT);
+            item = menu.findItem(R.id.menu_file_export_xml);
+            if (item != null) {
+                item.setVisible(hasExport);
+            }
+            item = menu.findItem(R.id.menu_file_export_csv);
+            if (item != null) {
+                item.setVisible(hasExport);
+            }
         }
 
         item = menu.findItem(R.id.menu_search);
@@ -521,7 +583,7 @@ public class PasswdSafe extends AppCompatActivity
         }
         case R.id.menu_file_delete: {
             final ObjectHolder<String> uriName = new ObjectHolder<>();
-            itsFileDataFrag.useFileData(new PasswdFileDataUser()
+            itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
             {
                 @Override
                 public void useFileData(@NonNull PasswdFileData fileData)
@@ -550,12 +612,80 @@ public class PasswdSafe extends AppCompatActivity
             protectRecords(false);
             return true;
         }
+        case R.id.menu_file_audit_passwords: {
+            itsCurrTask = new AuditTask(this);
+            itsCurrTask.execute();
+            return true;
+        }
+        case R.id.menu_file_rotate_passwords: {
+            Bundle confirmArgs = new Bundle();
+            confirmArgs.putString(CONFIRM_ARG_ACTION,
+                                  ConfirmAction.ROTATE_PASSWORDS.name());
+            ConfirmPromptDialog dialog = ConfirmPromptDialog.newInstance(
+                    getString(R.string.rotate_expired_passwords),
+                    getString(R.string.rotate_expired_passwords_msg),
+                    getString(R.string.rotate), confirmArgs);
+            dialog.show(getSupportFragmentManager(), "Rotate passwords");
+            return true;
+        }
+        case R.id.menu_file_import: {
+            Intent openIntent = new Intent(
+                    DocumentsContractCompat.INTENT_ACTION_OPEN_DOCUMENT);
+            openIntent.addCategory(Intent.CATEGORY_OPENABLE);
+            openIntent.setType("*/*");
+            startActivityForResult(openIntent, IMPORT_REQUEST);
+            return true;
+        }
+        case R.id.menu_file_export_xml: {
+            confirmExport(PasswdFileExport.Format.XML, R.string.export_xml);
+            return true;
+        }
+        case R.id.menu_file_export_csv: {
+            confirmExport(PasswdFileExport.Format.CSV, R.string.export_csv);
+            return true;
+        }
         default: {
             return super.onOptionsItemSelected(item);
         }
         }
     }
 
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode,
+                                    Intent data)
+    {
+        switch (requestCode) {
+        case EXPORT_XML_REQUEST:
+        case EXPORT_CSV_REQUEST: {
+            if ((resultCode != Activity.RESULT_OK) || (data == null) ||
+                (data.getData() == null)) {
+                break;
+            }
+            itsCurrTask = new ExportTask(
+                    data.getData(),
+                    (requestCode == EXPORT_XML_REQUEST) ?
+                            PasswdFileExport.Format.XML :
+                            PasswdFileExport.Format.CSV,
+                    this);
+            itsCurrTask.execute();
+            break;
+        }
+        case IMPORT_REQUEST: {
+            if ((resultCode != Activity.RESULT_OK) || (data == null) ||
+                (data.getData() == null)) {
+                break;
+            }
+            itsCurrTask = new ImportTask(data.getData(), null, this);
+            itsCurrTask.execute();
+            break;
+        }
+        default: {
+            super.onActivityResult(requestCode, resultCode, data);
+            break;
+        }
+        }
+    }
+
     @Override
     public void onBackPressed()
     {
@@ -779,7 +909,7 @@ public class PasswdSafe extends AppCompatActivity
         }
 
         final ObjectHolder<String> copyStr = new ObjectHolder<>();
-        itsFileDataFrag.useFileData(new PasswdFileDataUser()
+        itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
         {
             @Override
             public void useFileData(@NonNull PasswdFileData fileData)
@@ -846,6 +976,15 @@ public class PasswdSafe extends AppCompatActivity
         itsFileDataFrag.useFileData(user);
     }
 
+    /**
+     * Use the file data without changing it
+     */
+    @Override
+    public void useFileDataForRead(PasswdFileDataUser user)
+    {
+        itsFileDataFrag.useFileDataForRead(user);
+    }
+
     @Override
     public void editRecord(PasswdLocation location)
     {
@@ -1012,7 +1151,7 @@ public class PasswdSafe extends AppCompatActivity
         }
         case DELETE_FILE: {
             final ObjectHolder<PasswdFileUri> uri = new ObjectHolder<>();
-            itsFileDataFrag.useFileData(new PasswdFileDataUser()
+            itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
             {
                 @Override
                 public void useFileData(@NonNull PasswdFileData fileData)
@@ -1052,6 +1191,31 @@ public class PasswdSafe extends AppCompatActivity
             }
             break;
         }
+        case EXPORT_RECORDS: {
+            PasswdFileExport.Format format;
+            try {
+                format = PasswdFileExport.Format.valueOf(
+                        confirmArgs.getString(CONFIRM_ARG_FORMAT));
+            } catch (Exception e) {
+                break;
+            }
+            switch (format) {
+            case XML: {
+                startExport(EXPORT_XML_REQUEST, "text/xml", ".xml");
+                break;
+            }
+            case CSV: {
+                startExport(EXPORT_CSV_REQUEST, "text/csv", ".csv");
+                break;
+            }
+            }
+            break;
+        }
+        case ROTATE_PASSWORDS: {
+            itsCurrTask = new RotateTask(this);
+            itsCurrTask.execute();
+            break;
+        }
         }
     }
 
@@ -1060,6 +1224,14 @@ public class PasswdSafe extends AppCompatActivity
     {
     }
 
+    @Override
+    public void handleImportPassword(Uri importUri,
+                                     Owner<PwsPassword>.Param passwd)
+    {
+        itsCurrTask = new ImportTask(importUri, passwd, this);
+        itsCurrTask.execute();
+    }
+
     /**
      * Set the record filter from a query string
      */
@@ -1106,7 +1278,7 @@ public class PasswdSafe extends AppCompatActivity
     private boolean isFileOpen()
     {
         final ObjectHolder<Boolean> isOpen = new ObjectHolder<>(false);
-        itsFileDataFrag.useFileData(new PasswdFileDataUser()
+        itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
         {
             @Override
             public void useFileData(@NonNull PasswdFileData fileData)
@@ -1212,7 +1384,7 @@ public class PasswdSafe extends AppCompatActivity
 
         if (save) {
             final ObjectHolder<String> fileId = new ObjectHolder<>("");
-            itsFileDataFrag.useFileData(new PasswdFileDataUser()
+            itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
             {
                 @Override
                 public void useFileData(@NonNull PasswdFileData fileData)
@@ -1437,7 +1609,7 @@ public class PasswdSafe extends AppCompatActivity
             String groups = itsLocation.getGroupPath();
             if (TextUtils.isEmpty(groups)) {
                 final ObjectHolder<String> fileNameVal = new ObjectHolder<>();
-                itsFileDataFrag.useFileData(new PasswdFileDataUser()
+                itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
                 {
                     @Override
                     public void useFileData(@NonNull PasswdFileData fileData)
@@ -1472,7 +1644,7 @@ public class PasswdSafe extends AppCompatActivity
                     PasswdSafeNavDrawerFragment.Mode.RECORDS_SINGLE;
             fileTimeoutPaused = false;
             itsTitle = null;
-            itsFileDataFrag.useFileData(new PasswdFileDataUser()
+            itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
             {
                 @Override
                 public void useFileData(@NonNull PasswdFileData fileData)
@@ -1492,7 +1664,7 @@ public class PasswdSafe extends AppCompatActivity
         case EDIT_RECORD: {
             drawerMode = PasswdSafeNavDrawerFragment.Mode.RECORDS_ACTION;
             itsTitle = null;
-            itsFileDataFrag.useFileData(new PasswdFileDataUser()
+            itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
             {
                 @Override
                 public void useFileData(@NonNull PasswdFileData fileData)
@@ -1592,6 +1764,54 @@ public class PasswdSafe extends AppCompatActivity
         }
     }
 
+    /**
+     * Confirm exporting the records unencrypted before choosing the document
+     * to write
+     */
+    private void confirmExport(PasswdFileExport.Format format, int titleId)
+    {
+        Bundle confirmArgs = new Bundle();
+        confirmArgs.putString(CONFIRM_ARG_ACTION,
+                              ConfirmAction.EXPORT_RECORDS.name());
+        confirmArgs.putString(CONFIRM_ARG_FORMAT, format.name());
+        ConfirmPromptDialog dialog = ConfirmPromptDialog.newInstance(
+                getString(titleId), getString(R.string.export_records_msg),
+                getString(R.string.export), confirmArgs);
+        dialog.show(getSupportFragmentManager(), "Export records");
+    }
+
+    /**
+     * Start exporting the file by choosing the document to write
+     */
+    private void startExport(int requestCode, String mimeType, String ext)
+    {
+        final ObjectHolder<String> fileName = new ObjectHolder<>();
+        itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
+        {
+            @Override
+            public void useFileData(@NonNull PasswdFileData fileData)
+            {
+                fileName.set(fileData.getUri().getIdentifier(PasswdSafe.this,
+                                                              true));
+            }
+        });
+        if (fileName.get() == null) {
+            return;
+        }
+
+        String title = fileName.get();
+        int extPos = title.lastIndexOf('.');
+        if (extPos > 0) {
+            title = title.substring(0, extPos);
+        }
+        Intent createIntent = new Intent(
+                DocumentsContractCompat.INTENT_ACTION_CREATE_DOCUMENT);
+        createIntent.addCategory(Intent.CATEGORY_OPENABLE);
+        createIntent.setType(mimeType);
+        createIntent.putExtra(Intent.EXTRA_TITLE, title + ext);
+        startActivityForResult(createIntent, requestCode);
+    }
+
     /**
      * Restore the action bar from the nav drawer
      */
@@ -1604,12 +1824,22 @@ public class PasswdSafe extends AppCompatActivity
         }
     }
 
+    /**
+     * Update the progress bar when a task starts or stops running in the
+     * background
+     */
+    private void setBackgroundTaskRunning(boolean running)
+    {
+        itsNumBackgroundTasks += running ? 1 : -1;
+        GuiUtils.setVisible(itsBackgroundProgress, itsNumBackgroundTasks > 0);
+    }
+
     /**
      * Task to save a file in the background
      */
     private final class SaveTask extends AbstractTask
     {
-        private final Runnable itsPostSaveRun;
+        private Runnable itsPostSaveRun;
 
         /**
          * Constructor
@@ -1624,14 +1854,15 @@ public class PasswdSafe extends AppCompatActivity
         protected final void handleDoInBackground() throws Exception
         {
             final ObjectHolder<Exception> ex = new ObjectHolder<>();
+            final ObjectHolder<PasswdFileData.PendingSave> pendingSave =
+                    new ObjectHolder<>();
             itsFileDataFrag.useFileData(new PasswdFileDataUser()
             {
                 @Override
                 public void useFileData(@NonNull PasswdFileData fileData)
                 {
                     try {
-                        fileData.save(getContext());
-                        PasswdSafeUtil.dbginfo(TAG, "SaveTask finished");
+                        pendingSave.set(fileData.prepareSave(getContext()));
                     } catch (Exception e) {
                         ex.set(e);
                     }
@@ -1641,13 +1872,37 @@ public class PasswdSafe extends AppCompatActivity
             if (e != null) {
                 throw e;
             }
+
+            // Write the snapshot of the file without blocking its users
+            PasswdFileData.PendingSave save = pendingSave.get();
+            if (save != null) {
+                continueInBackground();
+                save.save(getContext());
+            }
+            PasswdSafeUtil.dbginfo(TAG, "SaveTask finished");
+        }
+
+        @Override
+        protected final void handleContinueInBackground()
+        {
+            runPostSave();
         }
 
         @Override
         protected final void handlePostExecute()
         {
-            if (itsPostSaveRun != null) {
-                itsPostSaveRun.run();
+            runPostSave();
+        }
+
+        /**
+         * Run the action after the save once, when the user can continue
+         */
+        private void runPostSave()
+        {
+            Runnable postSaveRun = itsPostSaveRun;
+            itsPostSaveRun = null;
+            if (postSaveRun != null) {
+                postSaveRun.run();
             }
         }
 
@@ -1701,6 +1956,325 @@ public class PasswdSafe extends AppCompatActivity
         }
     }
 
+    /**
+     * Task to audit the file's passwords in the background
+     */
+    private final class AuditTask extends AbstractTask
+    {
+        /**
+         * Constructor
+         */
+        public AuditTask(Context ctx)
+        {
+            super(ctx.getString(R.string.auditing_passwords), ctx);
+        }
+
+        @Override
+        protected void handleDoInBackground() throws Exception
+        {
+            itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
+            {
+                @Override
+                public void useFileData(@NonNull PasswdFileData fileData)
+                {
+                    fileData.getPasswdAudit().audit(fileData);
+                }
+            });
+        }
+
+        @Override
+        protected void handlePostExecute()
+        {
+            setRecordFilter(new PasswdRecordFilter(
+                    PasswdRecordFilter.AuditFilter.ANY,
+                    PasswdRecordFilter.OPTS_DEFAULT));
+        }
+    }
+
+    /**
+     * Task to generate new passwords for the expired records in the
+     * background
+     */
+    private final class RotateTask extends AbstractTask
+    {
+        private int itsNumRotated = 0;
+
+        /**
+         * Constructor
+         */
+        public RotateTask(Context ctx)
+        {
+            super(ctx.getString(R.string.rotating_passwords), ctx);
+        }
+
+        @Override
+        protected void handleDoInBackground() throws Exception
+        {
+            final PasswdSafeApp app = (PasswdSafeApp)getApplication();
+            final ObjectHolder<Exception> ex = new ObjectHolder<>();
+            itsFileDataFrag.useFileData(new PasswdFileDataUser()
+            {
+                @Override
+                public void useFileData(@NonNull PasswdFileData fileData)
+                {
+                    long now = System.currentTimeMillis();
+                    List<PwsRecord> expired = new ArrayList<>();
+                    for (PwsRecord rec: fileData.getRecords()) {
+                        PasswdRecord passwdRec = fileData.getPasswdRecord(rec);
+                        PasswdExpiration expiry = (passwdRec != null) ?
+                                passwdRec.getPasswdExpiry() : null;
+                        if ((expiry != null) &&
+                            (expiry.itsExpiration.getTime() <= now)) {
+                            expired.add(rec);
+                        }
+                    }
+                    try {
+                        itsNumRotated = fileData.rotatePasswords(
+                                expired, app.getDefaultPasswdPolicy(),
+                                getContext());
+                    } catch (Exception e) {
+                        ex.set(e);
+                    }
+                }
+            });
+            Exception e = ex.get();
+            if (e != null) {
+                throw e;
+            }
+        }
+
+        @Override
+        protected void handlePostExecute()
+        {
+            Toast.makeText(PasswdSafe.this,
+                           getResources().getQuantityString(
+                                   R.plurals.rotated_passwords,
+                                   itsNumRotated, itsNumRotated),
+                           Toast.LENGTH_SHORT).show();
+            if (itsNumRotated > 0) {
+                itsFileDataFrag.refreshFileData();
+            }
+        }
+    }
+
+    /**
+     * Task to export the file's records in the background
+     */
+    private final class ExportTask extends AbstractTask
+    {
+        private final Uri itsExportUri;
+        private final PasswdFileExport.Format itsFormat;
+        private int itsNumExported = 0;
+
+        /**
+         * Constructor
+         */
+        public ExportTask(Uri exportUri, PasswdFileExport.Format format,
+                          Context ctx)
+        {
+            super(ctx.getString(R.string.exporting), ctx);
+            itsExportUri = exportUri;
+            itsFormat = format;
+        }
+
+        @Override
+        protected void handleDoInBackground() throws Exception
+        {
+            final ObjectHolder<Exception> ex = new ObjectHolder<>();
+            itsFileDataFrag.useFileDataForRead(new PasswdFileDataUser()
+            {
+                @Override
+                public void useFileData(@NonNull PasswdFileData fileData)
+                {
+                    try {
+                        itsNumExported = export(fileData);
+                    } catch (Exception e) {
+                        ex.set(e);
+                    }
+                }
+            });
+            Exception e = ex.get();
+            if (e != null) {
+                throw e;
+            }
+        }
+
+        @Override
+        protected void handlePostExecute()
+        {
+            Toast.makeText(PasswdSafe.this,
+                           getResources().getQuantityString(
+                                   R.plurals.exported_records,
+                                   itsNumExported, itsNumExported),
+                           Toast.LENGTH_SHORT).show();
+        }
+
+        /**
+         * Export the file's records to the chosen document
+         */
+        @SuppressWarnings("TryFinallyCanBeTryWithResources")
+        private int export(PasswdFileData fileData) throws IOException
+        {
+            OutputStream os = getContext().getContentResolver()
+                                          .openOutputStream(itsExportUri);
+            if (os == null) {
+                throw new IOException("Unable to open " + itsExportUri);
+            }
+            try {
+                PasswdFileExport export =
+                        new PasswdFileExport(fileData, itsFormat, true, null);
+                return export.export(os);
+            } finally {
+                os.close();
+            }
+        }
+    }
+
+    /**
+     * Task to import records into the file in the background
+     */
+    private final class ImportTask extends AbstractTask
+    {
+        private final Uri itsImportUri;
+        private final Owner<PwsPassword> itsPassword;
+        private final PasswdFileUri.Creator itsUriCreator;
+        private PasswdFileImport.Result itsResult;
+        private boolean itsIsPasswdFile = false;
+        private boolean itsIsInvalidPassword = false;
+
+        /**
+         * Constructor
+         * @param passwd The password of a password file to import; null to
+         *               import an export
+         */
+        public ImportTask(Uri importUri, Owner<PwsPassword>.Param passwd,
+                          Context ctx)
+        {
+            super(ctx.getString(R.string.importing), ctx);
+            itsImportUri = importUri;
+            if (passwd != null) {
+                itsPassword = passwd.use();
+                itsUriCreator =
+                        new PasswdFileUri.Creator(importUri, getContext());
+                itsUriCreator.onPreExecute();
+            } else {
+                itsPassword = null;
+                itsUriCreator = null;
+            }
+        }
+
+        @Override
+        protected void handleDoInBackground() throws Exception
+        {
+            InputStream is = null;
+            PasswdFileImport.FileSource fileSource = null;
+            try {
+                final PasswdFileImport.Source source;
+                if (itsPassword != null) {
+                    // Open the file to import before using the open file, as
+                    // its password is stretched
+                    fileSource = openFileSource();
+                    if (fileSource == null) {
+                        return;
+                    }
+                    source = fileSource;
+                } else {
+                    is = getContext().getContentResolver()
+                                     .openInputStream(itsImportUri);
+                    if (is == null) {
+                        throw new IOException("Unable to open " +
+                                              itsImportUri);
+                    }
+                    is = new BufferedInputStream(is);
+                    if (PasswdFileImport.isV3File(is)) {
+                        itsIsPasswdFile = true;
+                        return;
+                    }
+                    source = PasswdFileImport.openSource(
+                            new InputStreamReader(is, "UTF-8"));
+                }
+
+                final ObjectHolder<Exception> ex = new ObjectHolder<>();
+                itsFileDataFrag.useFileData(new PasswdFileDataUser()
+                {
+                    @Override
+                    public void useFileData(@NonNull PasswdFileData fileData)
+                    {
+                        try {
+                            PasswdFileImport fileImport =
+                                    new PasswdFileImport(fileData, true, null);
+                            itsResult = fileImport.importRecords(source);
+                        } catch (Exception e) {
+                            ex.set(e);
+                        }
+                    }
+                });
+                Exception e = ex.get();
+                if (e != null) {
+                    throw e;
+                }
+            } finally {
+                if (is != null) {
+                    is.close();
+                }
+                if (fileSource != null) {
+                    fileSource.close();
+                }
+                if (itsPassword != null) {
+                    itsPassword.close();
+                }
+            }
+        }
+
+        @Override
+        protected void handlePostExecute()
+        {
+            if (itsIsPasswdFile || itsIsInvalidPassword) {
+                if (itsIsInvalidPassword) {
+                    Toast.makeText(PasswdSafe.this, R.string.invalid_password,
+                                   Toast.LENGTH_SHORT).show();
+                }
+                ImportPasswordDialog dialog =
+                        ImportPasswordDialog.newInstance(itsImportUri);
+                dialog.show(getSupportFragmentManager(), "Import password");
+                return;
+            }
+            if (itsResult == null) {
+                return;
+            }
+            int numImported = itsResult.itsNumRecords;
+            Toast.makeText(PasswdSafe.this,
+                           getResources().getQuantityString(
+                                   R.plurals.imported_records, numImported,
+                                   numImported, itsResult.getRecordsPerSec()),
+                           Toast.LENGTH_SHORT).show();
+            if (numImported > 0) {
+                finishEdit(true, false, null, null, null);
+            }
+        }
+
+        /**
+         * Open the chosen password file read-only with its password
+         * @return The source of the file's records; null if the password is
+         * invalid
+         */
+        private PasswdFileImport.FileSource openFileSource() throws Exception
+        {
+            PasswdFileUri uri = itsUriCreator.finishCreate();
+            if (uri == null) {
+                throw new IOException(getContext().getString(
+                        R.string.file_not_found_perm_denied));
+            }
+            try {
+                return PasswdFileImport.FileSource.open(
+                        uri, itsPassword.pass(), getContext());
+            } catch (InvalidPassphraseException e) {
+                itsIsInvalidPassword = true;
+                return null;
+            }
+        }
+    }
+
     /**
      * Abstract task for background operations
      */
@@ -1708,6 +2282,7 @@ public class PasswdSafe extends AppCompatActivity
     {
         private final Context itsContext;
         private final ProgressFragment itsProgressFrag;
+        private boolean itsIsInBackground = false;
         private final AsyncTask<Void, Void, Object> itsTask =
                 new AsyncTask<Void, Void, Object>()
                 {
@@ -1761,13 +2336,44 @@ public class PasswdSafe extends AppCompatActivity
             handlePostExecute(null);
         }
 
+        /**
+         * Continue the task in the background without blocking the user.
+         * Called from the background thread.  The progress dialog is
+         * replaced by the progress bar for background tasks.
+         */
+        protected final void continueInBackground()
+        {
+            runOnUiThread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if (itsTask.isCancelled() || itsIsInBackground) {
+                        return;
+                    }
+                    itsIsInBackground = true;
+                    itsProgressFrag.dismiss();
+                    setBackgroundTaskRunning(true);
+                    handleContinueInBackground();
+                }
+            });
+        }
+
         /**
          * Handle the result of executing the task
          */
         private void handlePostExecute(Object result)
         {
             itsProgressFrag.dismiss();
-            itsCurrTask = null;
+            if (itsIsInBackground) {
+                itsIsInBackground = false;
+                setBackgroundTaskRunning(false);
+            }
+            // Another task may have started while this one was in the
+            // background
+            if (itsCurrTask == this) {
+                itsCurrTask = null;
+            }
 
             if (result instanceof Exception) {
                 Exception e = (Exception)result;
@@ -1783,6 +2389,14 @@ public class PasswdSafe extends AppCompatActivity
          */
         protected abstract void handleDoInBackground() throws Exception;
 
+        /**
+         * Execute a task in the main thread when the task continues in the
+         * background
+         */
+        protected void handleContinueInBackground()
+        {
+        }
+
         /**
          * Execute a task in the main thread after the background operation
          * completes successfully
@@ -8,19 +8,26 @@
 package com.jefftharris.passwdsafe;
 
 import org.pwsafe.lib.file.PwsFile;
+import org.pwsafe.lib.file.PwsFileV3;
+import org.pwsafe.lib.file.PwsOpenTrace;
 
 import android.app.Activity;
 import android.app.AlarmManager;
 import android.app.Application;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.net.Uri;
 import android.text.TextUtils;
 
+import com.jefftharris.passwdsafe.file.PasswdFileCache;
 import com.jefftharris.passwdsafe.file.PasswdFileUri;
 import com.jefftharris.passwdsafe.file.PasswdPolicy;
 import com.jefftharris.passwdsafe.file.PasswdRecordFilter;
+import com.jefftharris.passwdsafe.file.PublicSuffixList;
+import com.jefftharris.passwdsafe.file.Trigram;
 import com.jefftharris.passwdsafe.lib.PasswdSafeUtil;
 
 public class PasswdSafeApp extends Application
@@ -61,6 +68,8 @@ public class PasswdSafeApp extends Application
     {
         super.onCreate();
         SharedPreferences prefs = Preferences.getSharedPrefs(this);
+        Trigram.setAssets(getAssets());
+        PublicSuffixList.setAssets(getAssets());
 
         AlarmManager alarmMgr =
                 (AlarmManager)getSystemService(Context.ALARM_SERVICE);
@@ -70,6 +79,17 @@ public class PasswdSafeApp extends Application
 
         prefs.registerOnSharedPreferenceChangeListener(this);
 
+        // Don't keep the records of a closed file once the screen is off
+        registerReceiver(new BroadcastReceiver()
+        {
+            @Override
+            public void onReceive(Context context, Intent intent)
+            {
+                PasswdSafeUtil.dbginfo(TAG, "Screen off, clear file cache");
+                PasswdFileCache.clear();
+            }
+        }, new IntentFilter(Intent.ACTION_SCREEN_OFF));
+
         // Move the fileDirPref from the FileList class to the preferences
         String dirPrefName = "dir";
         SharedPreferences fileListPrefs = getSharedPreferences("FileList",
@@ -90,11 +110,32 @@ public class PasswdSafeApp extends Application
         Preferences.upgradeDefaultFilePref(prefs);
 
         setPasswordEncodingPref(prefs);
+        setIncrementalSavePref(prefs);
+        setOpenTracePref(prefs);
         setPasswordDefaultSymsPref(prefs);
         itsDefaultPasswdPolicy = Preferences.getDefPasswdPolicyPref(prefs,
                                                                     this);
     }
 
+    @Override
+    public void onTrimMemory(int level)
+    {
+        super.onTrimMemory(level);
+        // Keep the cache when the UI is only hidden, such as when switching
+        // to the sync app, so the file can be reopened quickly
+        if ((level >= TRIM_MEMORY_RUNNING_LOW) &&
+            (level != TRIM_MEMORY_UI_HIDDEN)) {
+            PasswdFileCache.clear();
+        }
+    }
+
+    @Override
+    public void onLowMemory()
+    {
+        super.onLowMemory();
+        PasswdFileCache.clear();
+    }
+
     /* (non-Javadoc)
      * @see android.content.SharedPreferences.OnSharedPreferenceChangeListener#onSharedPreferenceChanged(android.content.SharedPreferences, java.lang.String)
      */
@@ -108,6 +149,20 @@ public class PasswdSafeApp extends Application
             setPasswordEncodingPref(prefs);
             break;
         }
+        case Preferences.PREF_FILE_INCREMENTAL_SAVE: {
+            setIncrementalSavePref(prefs);
+            break;
+        }
+        case Preferences.PREF_FILE_REOPEN_CACHE: {
+            if (!Preferences.getFileReopenCachePref(prefs)) {
+                PasswdFileCache.clear();
+            }
+            break;
+        }
+        case Preferences.PREF_FILE_OPEN_TRACE: {
+            setOpenTracePref(prefs);
+            break;
+        }
         case Preferences.PREF_PASSWD_DEFAULT_SYMS: {
             setPasswordDefaultSymsPref(prefs);
             break;
@@ -217,6 +272,23 @@ public class PasswdSafeApp extends Application
         PwsFile.setPasswordEncoding(Preferences.getPasswordEncodingPref(prefs));
     }
 
+    /** Set whether V3 files are saved incrementally from user preferences */
+    private static void setIncrementalSavePref(SharedPreferences prefs)
+    {
+        PwsFileV3.setIncrementalSave(
+                Preferences.getFileIncrementalSavePref(prefs));
+    }
+
+    /** Set whether file opens are traced from user preferences */
+    private static void setOpenTracePref(SharedPreferences prefs)
+    {
+        boolean trace = Preferences.getFileOpenTracePref(prefs);
+        PwsOpenTrace.setEnabled(trace);
+        if (!trace) {
+            PwsOpenTrace.clear();
+        }
+    }
+
     /** Set the default password policy symbols from user preferences */
     private static void setPasswordDefaultSymsPref(SharedPreferences prefs)
     {
@@ -111,7 +111,7 @@ public class PasswdSafeChangePasswordFragment
     public void onResume()
     {
         super.onResume();
-        useFileData(new PasswdFileDataUser()
+        useFileDataForRead(new PasswdFileDataUser()
         {
             @Override
             public void useFileData(@NonNull PasswdFileData fileData)
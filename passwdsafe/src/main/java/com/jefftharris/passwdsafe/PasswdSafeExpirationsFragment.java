@@ -183,7 +183,7 @@ public class PasswdSafeExpirationsFragment
     private void refresh()
     {
         final ObjectHolder<Pair<Boolean, Boolean>> rc = new ObjectHolder<>();
-        getListener().useFileData(new PasswdFileDataUser()
+        getListener().useFileDataForRead(new PasswdFileDataUser()
         {
             @Override
             public void useFileData(@NonNull PasswdFileData fileData)
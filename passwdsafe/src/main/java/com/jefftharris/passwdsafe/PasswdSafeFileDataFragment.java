@@ -115,6 +115,16 @@ public class PasswdSafeFileDataFragment extends Fragment
         useOpenFileData(user);
     }
 
+    /**
+     * Use the password file data without changing it.  Other readers may use
+     * the data at the same time, so only the accesses allowed by a read
+     * {@link PasswdFileToken} may be made.
+     */
+    public void useFileDataForRead(PasswdFileDataUser user)
+    {
+        useOpenFileDataForRead(user);
+    }
+
     /** Get the view of the password file data */
     public @NonNull PasswdFileDataView getFileDataView()
     {
@@ -128,7 +138,7 @@ public class PasswdSafeFileDataFragment extends Fragment
         try {
             if (itsFileData != null) {
                 itsFileDataView.clearFileData();
-                itsFileData.close();
+                itsFileData.close(getContext());
                 if (itsIsCloseClearClipboard) {
                     PasswdSafeUtil.copyToClipboard("", getContext());
                 }
@@ -144,7 +154,7 @@ public class PasswdSafeFileDataFragment extends Fragment
     /** Refresh the password file data */
     public void refreshFileData()
     {
-        PasswdFileToken token = acquireFileData();
+        PasswdFileToken token = acquireFileData(true);
         try {
             itsFileDataView.refreshFileData(token.getFileData());
         } finally {
@@ -166,7 +176,36 @@ public class PasswdSafeFileDataFragment extends Fragment
      */
     public static void useOpenFileData(PasswdFileDataUser user)
     {
-        PasswdFileToken token = acquireFileData();
+        doUseOpenFileData(user, false);
+    }
+
+    /**
+     * Use the global open password file data without changing it
+     */
+    public static void useOpenFileDataForRead(PasswdFileDataUser user)
+    {
+        doUseOpenFileData(user, true);
+    }
+
+    /** Get the last viewed record */
+    public static @Nullable String getLastViewedRecord()
+    {
+        return itsLastViewedRecord;
+    }
+
+    /** Set the last viewed record, e.g. when picked from the keyboard */
+    public static void setLastViewedRecord(@Nullable String uuid)
+    {
+        itsLastViewedRecord = uuid;
+    }
+
+    /**
+     * Use the global open password file data with a read or exclusive token
+     */
+    private static void doUseOpenFileData(PasswdFileDataUser user,
+                                          boolean readOnly)
+    {
+        PasswdFileToken token = acquireFileData(readOnly);
         try {
             PasswdFileData fileData = token.getFileData();
             if (fileData != null) {
@@ -177,16 +216,17 @@ public class PasswdSafeFileDataFragment extends Fragment
         }
     }
 
-    /** Get the last viewed record */
-    public static @Nullable String getLastViewedRecord()
+    /** Acquire the exclusive file data token */
+    private static @NonNull @CheckResult
+    PasswdFileToken acquireFileData()
     {
-        return itsLastViewedRecord;
+        return acquireFileData(false);
     }
 
     /** Acquire the file data token */
     private static @NonNull @CheckResult
-    PasswdFileToken acquireFileData()
+    PasswdFileToken acquireFileData(boolean readOnly)
     {
-        return new PasswdFileToken(itsFileData);
+        return new PasswdFileToken(itsFileData, readOnly);
     }
 }
@@ -7,6 +7,8 @@
  */
 package com.jefftharris.passwdsafe;
 
+import java.util.Arrays;
+
 import org.pwsafe.lib.file.PwsRecord;
 
 import android.annotation.SuppressLint;
@@ -22,6 +24,7 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.InputType;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.Window;
 import android.view.inputmethod.EditorInfo;
 import android.view.inputmethod.InputConnection;
@@ -57,6 +60,10 @@ public class PasswdSafeIME extends InputMethodService
     public static final int PASSWDSAFE_KEY = -201;
     public static final int KEYBOARD_NEXT_KEY = -202;
     public static final int KEYBOARD_CHOOSE_KEY = -203;
+    public static final int FIND_KEY = -204;
+
+    /** Number of records shown when finding a record */
+    private static final int NUM_PICKS = 4;
 
     private static boolean itsResetKeyboard = false;
 
@@ -68,6 +75,15 @@ public class PasswdSafeIME extends InputMethodService
     private PasswdSafeIMEKeyboard itsCurrKeyboard;
     private TextView itsRecord;
     private View itsPasswordWarning;
+    private View itsRecordPicker;
+    private TextView itsRecordPickerPrefix;
+    private final TextView[] itsPickViews = new TextView[NUM_PICKS];
+    private final PwsRecord[] itsPicks = new PwsRecord[NUM_PICKS];
+    private int itsNumPicks = 0;
+    private final StringBuilder itsPickPrefix = new StringBuilder();
+    private char[] itsPickPrefixChars = new char[32];
+    private final PasswdFileDataUser itsPicksUser = new PicksUser();
+    private boolean itsIsPicking = false;
     private boolean itsAllowPassword = false;
     private boolean itsIsPasswordField = false;
     private long itsLastShiftTime = Long.MIN_VALUE;
@@ -108,6 +124,20 @@ public class PasswdSafeIME extends InputMethodService
         itsRecord.setOnClickListener(this);
         itsPasswordWarning = view.findViewById(R.id.password_warning);
 
+        itsRecordPicker = view.findViewById(R.id.record_picker);
+        itsRecordPickerPrefix =
+                (TextView)view.findViewById(R.id.record_picker_prefix);
+        for (int i = 0; i < itsPickViews.length; ++i) {
+            TextView pick = (TextView)getLayoutInflater().inflate(
+                    R.layout.input_method_pick, (ViewGroup)itsRecordPicker,
+                    false);
+            pick.setOnClickListener(this);
+            pick.setTag(i);
+            ((ViewGroup)itsRecordPicker).addView(pick);
+            itsPickViews[i] = pick;
+        }
+        itsIsPicking = false;
+
         return view;
     }
 
@@ -127,6 +157,7 @@ public class PasswdSafeIME extends InputMethodService
     public void onStartInputView(EditorInfo info, boolean restarting)
     {
         super.onStartInputView(info, restarting);
+        setPicking(false);
         refresh(null);
 
         itsIsPasswordField = false;
@@ -208,6 +239,13 @@ public class PasswdSafeIME extends InputMethodService
             openPasswdSafe();
             break;
         }
+        default: {
+            Object pick = v.getTag();
+            if (pick instanceof Integer) {
+                pickRecord((Integer)pick);
+            }
+            break;
+        }
         }
     }
 
@@ -264,6 +302,9 @@ public class PasswdSafeIME extends InputMethodService
         if (conn == null) {
             return;
         }
+        if (itsIsPicking && onPickKeyPress(keycode)) {
+            return;
+        }
 
         switch (keycode) {
         case PASSWORD_KEY: {
@@ -346,6 +387,11 @@ public class PasswdSafeIME extends InputMethodService
             openPasswdSafe();
             break;
         }
+        case FIND_KEY: {
+            setPicking(true);
+            setKeyboard(itsQwertyKeyboard);
+            break;
+        }
         case KEYBOARD_NEXT_KEY: {
             InputMethodManager inputMgr =
                     (InputMethodManager)getSystemService(INPUT_METHOD_SERVICE);
@@ -372,6 +418,7 @@ public class PasswdSafeIME extends InputMethodService
                 itsSymbolsKeyboard.setShifted(false);
             } else if ((current == itsSymbolsKeyboard) ||
                        (current == itsSymbolsShiftKeyboard)) {
+                setPicking(false);
                 setKeyboard(itsPasswdSafeKeyboard);
             }
             break;
@@ -416,6 +463,111 @@ public class PasswdSafeIME extends InputMethodService
         }
     }
 
+    /**
+     * Handle a press of a keyboard key while finding a record.  Characters
+     * are added to the prefix rather than sent to the editor.
+     * @return Whether the key was handled
+     */
+    private boolean onPickKeyPress(int keycode)
+    {
+        switch (keycode) {
+        case Keyboard.KEYCODE_DELETE: {
+            if (itsPickPrefix.length() > 0) {
+                itsPickPrefix.setLength(itsPickPrefix.length() - 1);
+                updatePicks();
+            }
+            return true;
+        }
+        case ENTER_KEY: {
+            if (itsNumPicks > 0) {
+                pickRecord(0);
+            } else {
+                setPicking(false);
+                setKeyboard(itsPasswdSafeKeyboard);
+            }
+            return true;
+        }
+        default: {
+            if (keycode < ' ') {
+                return false;
+            }
+            itsPickPrefix.append((char)keycode);
+            updatePicks();
+            return true;
+        }
+        }
+    }
+
+    /**
+     * Start or stop finding a record
+     */
+    private void setPicking(boolean picking)
+    {
+        itsIsPicking = picking;
+        itsPickPrefix.setLength(0);
+        GuiUtils.setVisible(itsRecordPicker, picking);
+        if (picking) {
+            updatePicks();
+        } else {
+            Arrays.fill(itsPicks, null);
+            itsNumPicks = 0;
+        }
+    }
+
+    /**
+     * Update the records shown for the prefix being found.  The prefix,
+     * records, and callback are reused so a keystroke doesn't allocate
+     * beyond the file data token.
+     */
+    private void updatePicks()
+    {
+        int len = itsPickPrefix.length();
+        if (len > itsPickPrefixChars.length) {
+            itsPickPrefixChars = new char[len * 2];
+        }
+        itsPickPrefix.getChars(0, len, itsPickPrefixChars, 0);
+        itsRecordPickerPrefix.setText(itsPickPrefixChars, 0, len);
+
+        Arrays.fill(itsPicks, null);
+        itsNumPicks = 0;
+        PasswdSafeFileDataFragment.useOpenFileDataForRead(itsPicksUser);
+        for (int i = 0; i < itsPickViews.length; ++i) {
+            GuiUtils.setVisible(itsPickViews[i], i < itsNumPicks);
+        }
+    }
+
+    /**
+     * Use a record found from its prefix
+     */
+    private void pickRecord(int pick)
+    {
+        final PwsRecord rec = (pick < itsNumPicks) ? itsPicks[pick] : null;
+        if (rec == null) {
+            return;
+        }
+        final ObjectHolder<String> uuid = new ObjectHolder<>();
+        PasswdSafeFileDataFragment.useOpenFileDataForRead(new PasswdFileDataUser()
+        {
+            @Override
+            public void useFileData(@NonNull PasswdFileData fileData)
+            {
+                if (fileData.getPasswdRecord(rec) != null) {
+                    uuid.set(fileData.getUUID(rec));
+                }
+            }
+        });
+        if (uuid.get() == null) {
+            // The record was removed since it was found
+            updatePicks();
+            return;
+        }
+
+        PasswdSafeFileDataFragment.setLastViewedRecord(uuid.get());
+        setPicking(false);
+        setKeyboard(itsPasswdSafeKeyboard);
+        refresh(null);
+    }
+
     /**
      * Set the current keyboard
      */
@@ -450,7 +602,7 @@ public class PasswdSafeIME extends InputMethodService
     private void refresh(@Nullable final RefreshUser user)
     {
         final ObjectHolder<Pair<String, String>> labels = new ObjectHolder<>();
-        PasswdSafeFileDataFragment.useOpenFileData(new PasswdFileDataUser()
+        PasswdSafeFileDataFragment.useOpenFileDataForRead(new PasswdFileDataUser()
         {
             @Override
             public void useFileData(@NonNull PasswdFileData fileData)
@@ -530,6 +682,22 @@ public class PasswdSafeIME extends InputMethodService
                      @Nullable PwsRecord rec);
     }
 
+    /**
+     * User of the file data to find the records for the prefix
+     */
+    private final class PicksUser implements PasswdFileDataUser
+    {
+        @Override
+        public void useFileData(@NonNull PasswdFileData fileData)
+        {
+            itsNumPicks = fileData.getPrefixIndex().find(itsPickPrefix,
+                                                         itsPicks);
+            for (int i = 0; i < itsNumPicks; ++i) {
+                itsPickViews[i].setText(fileData.getTitle(itsPicks[i]));
+            }
+        }
+    }
+
     /**
      * The listener for keyboard events
      */
@@ -30,14 +30,17 @@ import com.jefftharris.passwdsafe.lib.view.GuiUtils;
 import com.jefftharris.passwdsafe.view.CopyField;
 import com.jefftharris.passwdsafe.view.PasswdLocation;
 import com.jefftharris.passwdsafe.view.PasswdRecordListData;
+import com.jefftharris.passwdsafe.view.PasswdRecordListDiff;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  *  Fragment showing lists of items from a PasswdSafe file
  */
 public class PasswdSafeListFragment extends ListFragment
-        implements LoaderManager.LoaderCallbacks<List<PasswdRecordListData>>,
+        implements LoaderManager.LoaderCallbacks<
+                           PasswdSafeListFragment.ItemLoadResult>,
                    View.OnClickListener
 {
     /** Mode for which items are shown from the file */
@@ -288,9 +291,9 @@ public class PasswdSafeListFragment extends ListFragment
             return;
         }
 
-        LoaderManager lm = getLoaderManager();
-        lm.destroyLoader(0);
-        lm.restartLoader(0, null, this);
+        // Restart without destroying the loader so the list isn't reset
+        // before the changes from the new items are applied
+        getLoaderManager().restartLoader(0, null, this);
 
         boolean groupVisible = false;
         switch (itsMode) {
@@ -323,9 +326,10 @@ public class PasswdSafeListFragment extends ListFragment
      * @see android.support.v4.app.LoaderManager.LoaderCallbacks#onCreateLoader(int, android.os.Bundle)
      */
     @Override
-    public Loader<List<PasswdRecordListData>> onCreateLoader(int id, Bundle args)
+    public Loader<ItemLoadResult> onCreateLoader(int id, Bundle args)
     {
-        return new ItemLoader(itsMode, itsListener, getActivity());
+        return new ItemLoader(itsMode, itsListener, itsAdapter.getItems(),
+                              itsAdapter.getVersion(), getActivity());
     }
 
 
@@ -333,12 +337,13 @@ public class PasswdSafeListFragment extends ListFragment
      * @see android.support.v4.app.LoaderManager.LoaderCallbacks#onLoadFinished(android.support.v4.content.Loader, java.lang.Object)
      */
     @Override
-    public void onLoadFinished(Loader<List<PasswdRecordListData>> loader,
-                               List<PasswdRecordListData> data)
+    public void onLoadFinished(Loader<ItemLoadResult> loader,
+                               ItemLoadResult result)
     {
-        int selPos = itsAdapter.setData(
-                data,
-                itsIsContents ? itsSelectedRecord : itsLocation.getRecord());
+        int selPos = itsAdapter.updateData(
+                result,
+                itsIsContents ? itsSelectedRecord : itsLocation.getRecord(),
+                (getView() != null) ? getListView() : null);
         if (isResumed()) {
             ListView list = getListView();
             if (selPos != -1) {
@@ -360,7 +365,7 @@ public class PasswdSafeListFragment extends ListFragment
      * @see android.support.v4.app.LoaderManager.LoaderCallbacks#onLoaderReset(android.support.v4.content.Loader)
      */
     @Override
-    public void onLoaderReset(Loader<List<PasswdRecordListData>> loader)
+    public void onLoaderReset(Loader<ItemLoadResult> loader)
     {
         onLoadFinished(loader, null);
     }
@@ -372,38 +377,99 @@ public class PasswdSafeListFragment extends ListFragment
     {
         private final LayoutInflater itsInflater;
         private final boolean itsIsContents;
+        private final List<PasswdRecordListData> itsItems;
+        private Object itsVersion = new Object();
 
         /** Constructor */
         public ItemListAdapter(boolean isContents, Context context)
         {
-            super(context, R.layout.passwdsafe_list_item, android.R.id.text1);
+            this(isContents, context, new ArrayList<PasswdRecordListData>());
+        }
+
+        /** Constructor with the list backing the adapter */
+        private ItemListAdapter(boolean isContents, Context context,
+                                List<PasswdRecordListData> items)
+        {
+            super(context, R.layout.passwdsafe_list_item, android.R.id.text1,
+                  items);
             itsInflater = (LayoutInflater)context.getSystemService(
                     Context.LAYOUT_INFLATER_SERVICE);
             itsIsContents = isContents;
+            itsItems = items;
         }
 
-        /** Set the list data */
-        public int setData(List<PasswdRecordListData> data,
-                           String selectedRecord)
+        /** Get a copy of the items for comparing in a background thread */
+        public List<PasswdRecordListData> getItems()
         {
-            int selectedPos = -1;
-            setNotifyOnChange(false);
-            clear();
-            if (data != null) {
-                int idx = 0;
-                for (PasswdRecordListData item: data) {
-                    add(item);
-                    if ((selectedRecord != null) &&
-                        TextUtils.equals(item.itsUuid, selectedRecord)) {
-                        selectedPos = idx;
+            return new ArrayList<>(itsItems);
+        }
+
+        /** Get the version of the items which changes when they change */
+        public Object getVersion()
+        {
+            return itsVersion;
+        }
+
+        /**
+         * Update the list data from loaded items.  The changes are applied
+         * to the current items if they were computed against them.  When
+         * only the contents of items changed, the visible rows are updated
+         * in place rather than rebuilding the whole list.
+         * @param list The list showing the items; null if not shown
+         * @return The position of the selected record; -1 if not found
+         */
+        public int updateData(ItemLoadResult result, String selectedRecord,
+                              ListView list)
+        {
+            if ((result == null) || (result.itsDiff == null) ||
+                (result.itsVersion != itsVersion)) {
+                setData((result != null) ? result.itsItems : null);
+            } else if (!result.itsDiff.isEmpty()) {
+                result.itsDiff.apply(itsItems);
+                itsVersion = new Object();
+                if ((list != null) && result.itsDiff.isChangesOnly()) {
+                    updateRows(result.itsDiff, list);
+                } else {
+                    notifyDataSetChanged();
+                }
+            }
+
+            if (selectedRecord != null) {
+                for (int i = 0; i < itsItems.size(); ++i) {
+                    if (TextUtils.equals(itsItems.get(i).itsUuid,
+                                         selectedRecord)) {
+                        return i;
                     }
-                    ++idx;
                 }
             }
+            return -1;
+        }
 
-            setNotifyOnChange(true);
+        /**
+         * Update the visible rows for changed items.  Rows which are not
+         * visible are bound from the changed items when next shown.
+         */
+        private void updateRows(PasswdRecordListDiff diff, ListView list)
+        {
+            int firstPos =
+                    list.getFirstVisiblePosition() - list.getHeaderViewsCount();
+            for (PasswdRecordListDiff.Op op: diff.getOps()) {
+                View row = list.getChildAt(op.itsPos - firstPos);
+                if (row != null) {
+                    getView(op.itsPos, row, list);
+                }
+            }
+        }
+
+        /** Set the list data */
+        private void setData(List<PasswdRecordListData> data)
+        {
+            itsItems.clear();
+            if (data != null) {
+                itsItems.addAll(data);
+            }
+            itsVersion = new Object();
             notifyDataSetChanged();
-            return selectedPos;
         }
 
         /* (non-Javadoc)
@@ -496,20 +562,44 @@ public class PasswdSafeListFragment extends ListFragment
     }
 
 
+    /** Result of loading the file items */
+    protected static final class ItemLoadResult
+    {
+        public final List<PasswdRecordListData> itsItems;
+        public final PasswdRecordListDiff itsDiff;
+        public final Object itsVersion;
+
+        /** Constructor */
+        public ItemLoadResult(List<PasswdRecordListData> items,
+                              PasswdRecordListDiff diff,
+                              Object version)
+        {
+            itsItems = items;
+            itsDiff = diff;
+            itsVersion = version;
+        }
+    }
+
+
     /** Loader for file items */
-    private static class ItemLoader
-            extends AsyncTaskLoader<List<PasswdRecordListData>>
+    private static class ItemLoader extends AsyncTaskLoader<ItemLoadResult>
     {
         private final Mode itsMode;
         private final Listener itsActListener;
+        private final List<PasswdRecordListData> itsPrevItems;
+        private final Object itsPrevVersion;
 
         /** Constructor */
         public ItemLoader(Mode mode, Listener actListener,
+                          List<PasswdRecordListData> prevItems,
+                          Object prevVersion,
                           Context context)
         {
             super(context);
             itsMode = mode;
             itsActListener = actListener;
+            itsPrevItems = prevItems;
+            itsPrevVersion = prevVersion;
         }
 
         /** Handle when the loader is started */
@@ -523,7 +613,7 @@ public class PasswdSafeListFragment extends ListFragment
          * @see android.support.v4.content.AsyncTaskLoader#loadInBackground()
          */
         @Override
-        public List<PasswdRecordListData> loadInBackground()
+        public ItemLoadResult loadInBackground()
         {
             boolean incRecords = false;
             boolean incGroups = false;
@@ -545,8 +635,14 @@ public class PasswdSafeListFragment extends ListFragment
                 break;
             }
             }
-            return itsActListener.getBackgroundRecordItems(incRecords,
-                                                           incGroups);
+            List<PasswdRecordListData> items =
+                    itsActListener.getBackgroundRecordItems(incRecords,
+                                                            incGroups);
+            PasswdRecordListDiff diff = null;
+            if (items != null) {
+                diff = PasswdRecordListDiff.compute(itsPrevItems, items);
+            }
+            return new ItemLoadResult(items, diff, itsPrevVersion);
         }
     }
 }
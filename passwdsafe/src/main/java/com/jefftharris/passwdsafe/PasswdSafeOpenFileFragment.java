@@ -12,6 +12,7 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.database.SQLException;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.CountDownTimer;
@@ -841,13 +842,19 @@ public class PasswdSafeOpenFileFragment
         {
             PasswdFileData fileData =
                     new PasswdFileData(getPasswdFileUri());
+            String encoding = getPasswordEncodingHint();
             try {
                 fileData.setYubikey(itsIsYubikey);
+                fileData.setPasswordEncodingHint(encoding);
                 fileData.load(itsPassword.pass(), itsItsIsReadOnly,
                               getActivity());
             } catch (Exception e) {
                 return new OpenResult(null, null, e);
             }
+            String openEncoding = fileData.getOpenPasswordEncoding();
+            if ((openEncoding != null) && !openEncoding.equals(encoding)) {
+                setPasswordEncodingHint(openEncoding);
+            }
 
             Exception keygenError = null;
             switch (itsSaveChange) {
@@ -877,6 +884,39 @@ public class PasswdSafeOpenFileFragment
             openTaskFinished(data);
             itsPassword.close();
         }
+
+        /**
+         * Get the password encoding which last opened the file from the
+         * recent files
+         */
+        private String getPasswordEncodingHint()
+        {
+            RecentFilesDb recentFilesDb = new RecentFilesDb(getActivity());
+            try {
+                return recentFilesDb.getPasswordEncoding(getFileUri());
+            } catch (SQLException e) {
+                Log.e(TAG, "Error getting password encoding", e);
+                return null;
+            } finally {
+                recentFilesDb.close();
+            }
+        }
+
+        /**
+         * Save the password encoding which opened the file in the recent
+         * files
+         */
+        private void setPasswordEncodingHint(String encoding)
+        {
+            RecentFilesDb recentFilesDb = new RecentFilesDb(getActivity());
+            try {
+                recentFilesDb.setPasswordEncoding(getFileUri(), encoding);
+            } catch (SQLException e) {
+                Log.e(TAG, "Error saving password encoding", e);
+            } finally {
+                recentFilesDb.close();
+            }
+        }
     }
 
     /**
@@ -286,7 +286,7 @@ public class PasswdSafePolicyListFragment extends ListFragment
 
         itsHdrPolicies = null;
         itsIsFileReadonly = true;
-        itsListener.useFileData(new PasswdFileDataUser()
+        itsListener.useFileDataForRead(new PasswdFileDataUser()
         {
             @Override
             public void useFileData(@NonNull PasswdFileData fileData)
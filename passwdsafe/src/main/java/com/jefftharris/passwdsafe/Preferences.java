@@ -47,6 +47,22 @@ public class Preferences
     private static final FileBackupPref PREF_FILE_BACKUP_DEF =
         FileBackupPref.BACKUP_1;
 
+    public static final String PREF_FILE_JOURNAL = "fileJournalPref";
+    public static final boolean PREF_FILE_JOURNAL_DEF = false;
+
+    public static final String PREF_FILE_INCREMENTAL_SAVE =
+            "fileIncrementalSavePref";
+    public static final boolean PREF_FILE_INCREMENTAL_SAVE_DEF = false;
+
+    public static final String PREF_FILE_REOPEN_CACHE = "fileReopenCachePref";
+    public static final boolean PREF_FILE_REOPEN_CACHE_DEF = false;
+
+    public static final String PREF_FILE_OPEN_TRACE = "fileOpenTracePref";
+    public static final boolean PREF_FILE_OPEN_TRACE_DEF = false;
+
+    public static final String PREF_FILE_OPEN_TRACE_COPY =
+            "fileOpenTraceCopyPref";
+
     public static final String PREF_FILE_CLOSE_CLEAR_CLIPBOARD =
         "fileCloseClearClipboardPref";
     public static final boolean PREF_FILE_CLOSE_CLEAR_CLIPBOARD_DEF = true;
@@ -93,6 +109,8 @@ public class Preferences
     public static final String PREF_SEARCH_CASE_SENSITIVE =
         "searchCaseSensitivePref";
     public static final boolean PREF_SEARCH_CASE_SENSITIVE_DEF = false;
+    public static final String PREF_SEARCH_FUZZY = "searchFuzzyPref";
+    public static final boolean PREF_SEARCH_FUZZY_DEF = false;
     public static final String PREF_SEARCH_REGEX = "searchRegexPref";
     public static final boolean PREF_SEARCH_REGEX_DEF = false;
 
@@ -166,6 +184,33 @@ public class Preferences
         }
     }
 
+    /** Get the preference to journal edits instead of saving the whole file */
+    public static boolean getFileJournalPref(SharedPreferences prefs)
+    {
+        return prefs.getBoolean(PREF_FILE_JOURNAL, PREF_FILE_JOURNAL_DEF);
+    }
+
+    /** Get the preference to only re-encrypt changed records when saving */
+    public static boolean getFileIncrementalSavePref(SharedPreferences prefs)
+    {
+        return prefs.getBoolean(PREF_FILE_INCREMENTAL_SAVE,
+                                PREF_FILE_INCREMENTAL_SAVE_DEF);
+    }
+
+    /** Get the preference to keep a closed file's records for a reopen */
+    public static boolean getFileReopenCachePref(SharedPreferences prefs)
+    {
+        return prefs.getBoolean(PREF_FILE_REOPEN_CACHE,
+                                PREF_FILE_REOPEN_CACHE_DEF);
+    }
+
+    /** Get the preference to record the time of each phase of file opens */
+    public static boolean getFileOpenTracePref(SharedPreferences prefs)
+    {
+        return prefs.getBoolean(PREF_FILE_OPEN_TRACE,
+                                PREF_FILE_OPEN_TRACE_DEF);
+    }
+
     public static boolean getFileCloseClearClipboardPref(SharedPreferences prefs)
     {
         return prefs.getBoolean(PREF_FILE_CLOSE_CLEAR_CLIPBOARD,
@@ -414,6 +459,11 @@ public class Preferences
                                 PREF_SEARCH_CASE_SENSITIVE_DEF);
     }
 
+    public static boolean getSearchFuzzyPref(SharedPreferences prefs)
+    {
+        return prefs.getBoolean(PREF_SEARCH_FUZZY, PREF_SEARCH_FUZZY_DEF);
+    }
+
     public static boolean getSearchRegexPref(SharedPreferences prefs)
     {
         return prefs.getBoolean(PREF_SEARCH_REGEX, PREF_SEARCH_REGEX_DEF);
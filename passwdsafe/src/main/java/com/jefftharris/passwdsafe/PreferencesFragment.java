@@ -27,6 +27,7 @@ import android.util.Log;
 import com.jefftharris.passwdsafe.file.PasswdFileUri;
 import com.jefftharris.passwdsafe.file.PasswdPolicy;
 import com.jefftharris.passwdsafe.lib.ApiCompat;
+import com.jefftharris.passwdsafe.lib.PasswdSafeUtil;
 import com.jefftharris.passwdsafe.pref.FileBackupPref;
 import com.jefftharris.passwdsafe.pref.FileTimeoutPref;
 import com.jefftharris.passwdsafe.pref.PasswdExpiryNotifPref;
@@ -34,8 +35,10 @@ import com.jefftharris.passwdsafe.pref.RecordSortOrderPref;
 import com.jefftharris.passwdsafe.view.ConfirmPromptDialog;
 
 import org.pwsafe.lib.file.PwsFile;
+import org.pwsafe.lib.file.PwsOpenTrace;
 
 import java.io.File;
+import java.util.Collection;
 
 /**
  * Fragment for PasswdSafe preferences
@@ -123,10 +126,15 @@ public class PreferencesFragment extends PreferenceFragmentCompat
         itsFileBackupPref.setEntryValues(FileBackupPref.getValues());
         onSharedPreferenceChanged(prefs, Preferences.PREF_FILE_BACKUP);
 
+        Preference openTraceCopyPref =
+                findPreference(Preferences.PREF_FILE_OPEN_TRACE_COPY);
+        openTraceCopyPref.setOnPreferenceClickListener(this);
+
         itsPasswdEncPref = (ListPreference)
                 findPreference(Preferences.PREF_PASSWD_ENC);
-        String[] charsets =  PwsFile.ALL_PASSWORD_CHARSETS.toArray(
-                new String[PwsFile.ALL_PASSWORD_CHARSETS.size()]);
+        Collection<String> allCharsets = PwsFile.getAllPasswordCharsets();
+        String[] charsets =
+                allCharsets.toArray(new String[allCharsets.size()]);
         itsPasswdEncPref.setEntries(charsets);
         itsPasswdEncPref.setEntryValues(charsets);
         itsPasswdEncPref.setDefaultValue(Preferences.PREF_PASSWD_ENC_DEF);
@@ -267,6 +275,10 @@ public class PreferencesFragment extends PreferenceFragmentCompat
             startActivityForResult(intent, REQUEST_DEFAULT_FILE);
             return true;
         }
+        case Preferences.PREF_FILE_OPEN_TRACE_COPY: {
+            PasswdSafeUtil.copyToClipboard(PwsOpenTrace.dump(), getContext());
+            return true;
+        }
         case Preferences.PREF_PASSWD_CLEAR_ALL_NOTIFS: {
             Activity act = getActivity();
             PasswdSafeApp app = (PasswdSafeApp)act.getApplication();
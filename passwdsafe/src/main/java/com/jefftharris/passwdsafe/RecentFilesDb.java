@@ -33,11 +33,15 @@ public final class RecentFilesDb extends SQLiteOpenHelper
     public static final String DB_COL_FILES_TITLE = "title";
     public static final String DB_COL_FILES_URI = "uri";
     public static final String DB_COL_FILES_DATE = "date";
+    public static final String DB_COL_FILES_PASSWD_ENC = "passwd_enc";
 
     private static final String[] QUERY_COLUMNS = new String[] {
             DB_COL_FILES_ID, DB_COL_FILES_TITLE,
             DB_COL_FILES_URI, DB_COL_FILES_DATE };
 
+    private static final String[] PASSWD_ENC_COLUMNS = new String[] {
+            DB_COL_FILES_PASSWD_ENC };
+
     public static final int QUERY_COL_ID = 0;
     public static final int QUERY_COL_TITLE = 1;
     public static final int QUERY_COL_URI = 2;
@@ -52,7 +56,7 @@ public final class RecentFilesDb extends SQLiteOpenHelper
     private static final String ORDER_BY_DATE = DB_COL_FILES_DATE + " DESC";
 
     private static final String DB_NAME = "recent_files.db";
-    private static final int DB_VERSION = 1;
+    private static final int DB_VERSION = 2;
 
     /** Constructor */
     public RecentFilesDb(Context context)
@@ -123,6 +127,48 @@ public final class RecentFilesDb extends SQLiteOpenHelper
     }
 
 
+    /**
+     * Get the password encoding which last opened the file
+     * @return The encoding; null if not known
+     */
+    public String getPasswordEncoding(Uri uri) throws SQLException
+    {
+        SQLiteDatabase db = getReadableDatabase();
+        Cursor cursor = db.query(DB_TABLE_FILES, PASSWD_ENC_COLUMNS,
+                                 WHERE_BY_URI, new String[]{ uri.toString() },
+                                 null, null, null);
+        try {
+            if (cursor.moveToFirst()) {
+                return cursor.getString(0);
+            }
+        } finally {
+            cursor.close();
+        }
+        return null;
+    }
+
+
+    /**
+     * Set the password encoding which opened the file.  Only files in the
+     * recent files list are updated.
+     */
+    public void setPasswordEncoding(Uri uri, String encoding)
+            throws SQLException
+    {
+        SQLiteDatabase db = getWritableDatabase();
+        try {
+            db.beginTransaction();
+            ContentValues values = new ContentValues();
+            values.put(DB_COL_FILES_PASSWD_ENC, encoding);
+            db.update(DB_TABLE_FILES, values, WHERE_BY_URI,
+                      new String[] { uri.toString() });
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+
     /** Delete a recent file with the given uri */
     public void removeUri(Uri permUri) throws SQLException
     {
@@ -185,12 +231,18 @@ public final class RecentFilesDb extends SQLiteOpenHelper
                    DB_COL_FILES_ID + " INTEGER PRIMARY KEY," +
                    DB_COL_FILES_TITLE + " TEXT NOT NULL, " +
                    DB_COL_FILES_URI + " TEXT NOT NULL, " +
-                   DB_COL_FILES_DATE + " INTEGER NOT NULL" +
+                   DB_COL_FILES_DATE + " INTEGER NOT NULL, " +
+                   DB_COL_FILES_PASSWD_ENC + " TEXT" +
                    ");");
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion)
     {
+        if (oldVersion < 2) {
+            PasswdSafeUtil.dbginfo(TAG, "Upgrade to v2");
+            db.execSQL("ALTER TABLE " + DB_TABLE_FILES + " ADD COLUMN " +
+                       DB_COL_FILES_PASSWD_ENC + " TEXT;");
+        }
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (©) 2012 Jeff Harris <jefftharris@gmail.com>
+ * Copyright (©) 2012-2016 Jeff Harris <jefftharris@gmail.com>
  * All rights reserved. Use of the code is allowed under the
  * Artistic License 2.0 terms, as specified in the LICENSE file
  * distributed with this code, or available from
@@ -8,7 +8,10 @@
 package com.jefftharris.passwdsafe.file;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 
 /**
@@ -47,10 +50,23 @@ public class HeaderPasswdPolicies
         {
             ++itsUseCount;
         }
+
+        /** Change the number of records referencing this policy */
+        private void addUseCount(int delta)
+        {
+            itsUseCount += delta;
+        }
     }
 
     private final TreeMap<String, HdrPolicy> itsPolicies = new TreeMap<>();
 
+    /**
+     * The number of records referencing each policy name, including names
+     * not in the header, so the use counts can be kept when the header's
+     * policies change
+     */
+    private final Map<String, Integer> itsRecordUseCounts = new HashMap<>();
+
     /** Default constructor */
     public HeaderPasswdPolicies()
     {
@@ -65,20 +81,54 @@ public class HeaderPasswdPolicies
                 itsPolicies.put(policy.getName(), new HdrPolicy(policy));
             }
         }
+        // Records with the same policy fields share a policy, so count the
+        // uses of each policy before counting by name
+        Map<PasswdPolicy, int[]> policyUses = new IdentityHashMap<>();
         for (PasswdRecord rec: recs) {
             PasswdPolicy recPolicy = rec.getPasswdPolicy();
-            if ((recPolicy != null) &&
-                (recPolicy.getLocation() ==
-                 PasswdPolicy.Location.RECORD_NAME)) {
-                HeaderPasswdPolicies.HdrPolicy hdrPolicy =
-                    itsPolicies.get(recPolicy.getName());
-                if (hdrPolicy != null) {
-                    hdrPolicy.incUseCount();
+            if (recPolicy == null) {
+                continue;
+            }
+            int[] uses = policyUses.get(recPolicy);
+            if (uses == null) {
+                uses = new int[1];
+                policyUses.put(recPolicy, uses);
+            }
+            ++uses[0];
+        }
+        for (Map.Entry<PasswdPolicy, int[]> entry: policyUses.entrySet()) {
+            addRecordUse(entry.getKey(), entry.getValue()[0]);
+        }
+    }
+
+    /**
+     * Constructor for new header policies keeping the use counts of the
+     * records from the previous policies
+     */
+    public HeaderPasswdPolicies(HeaderPasswdPolicies prev,
+                                List<PasswdPolicy> policies)
+    {
+        itsRecordUseCounts.putAll(prev.itsRecordUseCounts);
+        if (policies != null) {
+            for (PasswdPolicy policy: policies) {
+                HdrPolicy hdrPolicy = new HdrPolicy(policy);
+                Integer useCount = itsRecordUseCounts.get(policy.getName());
+                if (useCount != null) {
+                    hdrPolicy.addUseCount(useCount);
                 }
+                itsPolicies.put(policy.getName(), hdrPolicy);
             }
         }
     }
 
+    /** Update the use counts for a change in a record's policy */
+    public void recordPolicyChanged(PasswdPolicy oldPolicy,
+                                    PasswdPolicy newPolicy)
+    {
+        addRecordUse(oldPolicy, -1);
+        addRecordUse(newPolicy, 1);
+    }
+
     /** Get the named password policy */
     public PasswdPolicy getPasswdPolicy(String name)
     {
@@ -111,4 +161,26 @@ public class HeaderPasswdPolicies
     {
         return itsPolicies.values();
     }
+
+    /** Add to the use count of a record's policy if it is a named policy */
+    private void addRecordUse(PasswdPolicy recPolicy, int delta)
+    {
+        if ((recPolicy == null) ||
+            (recPolicy.getLocation() != PasswdPolicy.Location.RECORD_NAME)) {
+            return;
+        }
+        String name = recPolicy.getName();
+        Integer useCount = itsRecordUseCounts.get(name);
+        int newCount = ((useCount != null) ? useCount : 0) + delta;
+        if (newCount > 0) {
+            itsRecordUseCounts.put(name, newCount);
+        } else {
+            itsRecordUseCounts.remove(name);
+        }
+
+        HdrPolicy hdrPolicy = itsPolicies.get(name);
+        if (hdrPolicy != null) {
+            hdrPolicy.addUseCount(delta);
+        }
+    }
 }
@@ -0,0 +1,424 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.file;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.pwsafe.lib.file.PwsRecord;
+
+import android.text.TextUtils;
+
+/**
+ * The PasswdAudit class finds reused, weak, and policy-violating passwords
+ * in a file.  Passwords are compared by their HMAC-SHA256 under a random key
+ * kept only for the life of the audit, so the results never hold a password
+ * or an unkeyed hash of one.  Passwords are audited one at a time from a
+ * reused buffer which is cleared after each.  Unsealing a password field
+ * is serialized on the file's cipher, so a full audit reads the passwords on
+ * the calling thread rather than splitting them among workers which would
+ * each hold a password.  After a full audit, the file data updates the
+ * results of added, removed, and changed records.
+ */
+public final class PasswdAudit
+{
+    /** The password is used by another record */
+    public static final int ISSUE_REUSED =      1 << 0;
+    /** The password's estimated entropy is too low */
+    public static final int ISSUE_WEAK =        1 << 1;
+    /** The password doesn't meet the record's policy */
+    public static final int ISSUE_POLICY =      1 << 2;
+
+    /** Estimated entropy, in bits, below which a password is weak */
+    public static final double WEAK_ENTROPY = 50.0;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int KEY_LEN = 32;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** The keyed fingerprint of a password */
+    private static final class Fingerprint
+    {
+        private final byte[] itsMac;
+        private final int itsHash;
+
+        /** Constructor */
+        private Fingerprint(byte[] mac)
+        {
+            itsMac = mac;
+            itsHash = Arrays.hashCode(mac);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return (o instanceof Fingerprint) &&
+                   Arrays.equals(itsMac, ((Fingerprint)o).itsMac);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return itsHash;
+        }
+    }
+
+    /** The audit of a record's password */
+    private static final class Result
+    {
+        public final PwsRecord itsRecord;
+        /** Fingerprint of the password; null if the password is empty */
+        public final Fingerprint itsFingerprint;
+        public final double itsEntropy;
+        public final boolean itsIsPolicyViolated;
+
+        /** Constructor */
+        public Result(PwsRecord rec, Fingerprint fingerprint, double entropy,
+                      boolean policyViolated)
+        {
+            itsRecord = rec;
+            itsFingerprint = fingerprint;
+            itsEntropy = entropy;
+            itsIsPolicyViolated = policyViolated;
+        }
+    }
+
+    /** Auditor of passwords one at a time.  An auditor is not thread safe. */
+    private static final class Auditor
+    {
+        private final Mac itsMac;
+        private char[] itsPasswd = new char[64];
+
+        /** Constructor */
+        public Auditor(byte[] key)
+        {
+            try {
+                itsMac = Mac.getInstance(MAC_ALGORITHM);
+                itsMac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(
+                        "Error creating " + MAC_ALGORITHM, e);
+            }
+        }
+
+        /**
+         * Audit a record's password
+         * @return The result; null if the record doesn't have its own
+         * password
+         */
+        public Result audit(PwsRecord rec, PasswdFileData fileData)
+        {
+            PasswdRecord passwdRec = fileData.getPasswdRecord(rec);
+            if ((passwdRec == null) ||
+                (passwdRec.getType() != PasswdRecord.Type.NORMAL)) {
+                return null;
+            }
+
+            // The sealed field only gives the password as a string, so it
+            // is copied to the buffer and the string is dropped at once
+            int len;
+            {
+                String passwd = fileData.getPassword(rec);
+                if (TextUtils.isEmpty(passwd)) {
+                    return new Result(rec, null, 0.0, false);
+                }
+                len = passwd.length();
+                if (len > itsPasswd.length) {
+                    clear();
+                    itsPasswd = new char[len];
+                }
+                passwd.getChars(0, len, itsPasswd, 0);
+            }
+
+            try {
+                ByteBuffer bytes =
+                        UTF8.encode(CharBuffer.wrap(itsPasswd, 0, len));
+                itsMac.update(bytes.array(), bytes.arrayOffset(),
+                              bytes.limit());
+                Arrays.fill(bytes.array(), (byte)0);
+                Fingerprint fingerprint = new Fingerprint(itsMac.doFinal());
+
+                CharSequence passwd = CharBuffer.wrap(itsPasswd, 0, len);
+                PasswdPolicy policy = getPolicy(passwdRec, fileData);
+                boolean policyViolated =
+                        (policy != null) && !policy.checkPassword(passwd);
+                return new Result(rec, fingerprint, estimateEntropy(passwd),
+                                  policyViolated);
+            } finally {
+                Arrays.fill(itsPasswd, 0, len, '\0');
+            }
+        }
+
+        /** Clear the password buffer */
+        private void clear()
+        {
+            Arrays.fill(itsPasswd, '\0');
+        }
+    }
+
+    private byte[] itsKey;
+    private boolean itsIsAudited = false;
+    private Auditor itsAuditor;
+    private final Map<PwsRecord, Result> itsResults =
+            new IdentityHashMap<>();
+    private final Map<Fingerprint, Integer> itsFingerprintCounts =
+            new HashMap<>();
+
+    /**
+     * Audit the passwords of all of the records.  Must be called while the
+     * file data is used for reading.  The results are unchanged if the
+     * thread is interrupted.
+     */
+    public void audit(PasswdFileData fileData)
+    {
+        List<PwsRecord> recs = fileData.getRecords();
+        List<Result> results = new ArrayList<>(recs.size());
+        Auditor auditor = new Auditor(getKey());
+        for (PwsRecord rec: recs) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            Result result = auditor.audit(rec, fileData);
+            if (result != null) {
+                results.add(result);
+            }
+        }
+
+        synchronized (this) {
+            itsResults.clear();
+            itsFingerprintCounts.clear();
+            for (Result result: results) {
+                addResult(result);
+            }
+            itsIsAudited = true;
+        }
+    }
+
+    /** Get whether the records were audited */
+    public synchronized boolean isAudited()
+    {
+        return itsIsAudited;
+    }
+
+    /**
+     * Get the issues found with a record's password
+     * @return The ISSUE_ flags; 0 if none or the record wasn't audited
+     */
+    public synchronized int getIssues(PwsRecord rec)
+    {
+        Result result = itsResults.get(rec);
+        if (result == null) {
+            return 0;
+        }
+        int issues = 0;
+        if ((result.itsFingerprint != null) &&
+            (itsFingerprintCounts.get(result.itsFingerprint) > 1)) {
+            issues |= ISSUE_REUSED;
+        }
+        if (result.itsEntropy < WEAK_ENTROPY) {
+            issues |= ISSUE_WEAK;
+        }
+        if (result.itsIsPolicyViolated) {
+            issues |= ISSUE_POLICY;
+        }
+        return issues;
+    }
+
+    /** Get the number of audited records with any of the given issues */
+    public synchronized int getNumRecords(int issues)
+    {
+        int num = 0;
+        for (PwsRecord rec: itsResults.keySet()) {
+            if ((getIssues(rec) & issues) != 0) {
+                ++num;
+            }
+        }
+        return num;
+    }
+
+    /** Update the audit of a record whose password or policy changed */
+    public synchronized void recordChanged(PwsRecord rec,
+                                           PasswdFileData fileData)
+    {
+        if (!itsIsAudited) {
+            return;
+        }
+        removeResult(itsResults.get(rec));
+        addResult(getAuditor().audit(rec, fileData));
+    }
+
+    /**
+     * Update the audit for records added to the file or whose passwords
+     * changed
+     */
+    public synchronized void recordsAdded(Iterable<PwsRecord> recs,
+                                          PasswdFileData fileData)
+    {
+        if (!itsIsAudited) {
+            return;
+        }
+        Auditor auditor = getAuditor();
+        for (PwsRecord rec: recs) {
+            removeResult(itsResults.get(rec));
+            addResult(auditor.audit(rec, fileData));
+        }
+    }
+
+    /** Update the audit for a record removed from the file */
+    public synchronized void recordRemoved(PwsRecord rec)
+    {
+        removeResult(itsResults.get(rec));
+    }
+
+    /** Update the audit of records using a named policy from the header */
+    public synchronized void hdrPoliciesChanged(PasswdFileData fileData)
+    {
+        if (!itsIsAudited) {
+            return;
+        }
+        for (PwsRecord rec: new ArrayList<>(itsResults.keySet())) {
+            PasswdRecord passwdRec = fileData.getPasswdRecord(rec);
+            PasswdPolicy policy =
+                    (passwdRec != null) ? passwdRec.getPasswdPolicy() : null;
+            if ((policy != null) &&
+                (policy.getLocation() == PasswdPolicy.Location.RECORD_NAME)) {
+                recordChanged(rec, fileData);
+            }
+        }
+    }
+
+    /** Clear the results and the key */
+    public synchronized void clear()
+    {
+        itsResults.clear();
+        itsFingerprintCounts.clear();
+        itsIsAudited = false;
+        itsAuditor = null;
+        if (itsKey != null) {
+            Arrays.fill(itsKey, (byte)0);
+            itsKey = null;
+        }
+    }
+
+    /**
+     * Estimate the entropy, in bits, of a password from the kinds of
+     * characters it uses.  A character repeating or following in sequence
+     * from the one before it adds a single bit.
+     */
+    public static double estimateEntropy(CharSequence passwd)
+    {
+        boolean lower = false;
+        boolean upper = false;
+        boolean digit = false;
+        boolean symbol = false;
+        boolean other = false;
+        for (int i = 0; i < passwd.length(); ++i) {
+            char c = passwd.charAt(i);
+            if ((c >= 'a') && (c <= 'z')) {
+                lower = true;
+            } else if ((c >= 'A') && (c <= 'Z')) {
+                upper = true;
+            } else if ((c >= '0') && (c <= '9')) {
+                digit = true;
+            } else if ((c > ' ') && (c < 0x7f)) {
+                symbol = true;
+            } else {
+                other = true;
+            }
+        }
+        int poolSize = (lower ? 26 : 0) + (upper ? 26 : 0) +
+                       (digit ? 10 : 0) + (symbol ? 32 : 0) +
+                       (other ? 100 : 0);
+        if (poolSize == 0) {
+            return 0.0;
+        }
+
+        double charBits = Math.log(poolSize) / Math.log(2);
+        double entropy = 0.0;
+        for (int i = 0; i < passwd.length(); ++i) {
+            int diff = (i > 0) ? (passwd.charAt(i) - passwd.charAt(i - 1)) : 2;
+            entropy += (Math.abs(diff) <= 1) ? 1.0 : charBits;
+        }
+        return entropy;
+    }
+
+    /** Get the policy a record's password should meet */
+    private static PasswdPolicy getPolicy(PasswdRecord passwdRec,
+                                          PasswdFileData fileData)
+    {
+        PasswdPolicy policy = passwdRec.getPasswdPolicy();
+        if ((policy != null) &&
+            (policy.getLocation() == PasswdPolicy.Location.RECORD_NAME)) {
+            policy = fileData.getHdrPasswdPolicies().getPasswdPolicy(
+                    policy.getName());
+        }
+        return policy;
+    }
+
+    /** Get the session key, creating it if needed */
+    private synchronized byte[] getKey()
+    {
+        if (itsKey == null) {
+            itsKey = new byte[KEY_LEN];
+            new SecureRandom().nextBytes(itsKey);
+        }
+        return itsKey;
+    }
+
+    /** Get the auditor for updates of single records */
+    private Auditor getAuditor()
+    {
+        if (itsAuditor == null) {
+            itsAuditor = new Auditor(getKey());
+        }
+        return itsAuditor;
+    }
+
+    /** Add a result and count its fingerprint */
+    private void addResult(Result result)
+    {
+        if (result == null) {
+            return;
+        }
+        itsResults.put(result.itsRecord, result);
+        if (result.itsFingerprint != null) {
+            Integer count = itsFingerprintCounts.get(result.itsFingerprint);
+            itsFingerprintCounts.put(result.itsFingerprint,
+                                     (count == null) ? 1 : count + 1);
+        }
+    }
+
+    /** Remove a result and its count of its fingerprint */
+    private void removeResult(Result result)
+    {
+        if (result == null) {
+            return;
+        }
+        itsResults.remove(result.itsRecord);
+        if (result.itsFingerprint != null) {
+            Integer count = itsFingerprintCounts.get(result.itsFingerprint);
+            if ((count == null) || (count <= 1)) {
+                itsFingerprintCounts.remove(result.itsFingerprint);
+            } else {
+                itsFingerprintCounts.put(result.itsFingerprint, count - 1);
+            }
+        }
+    }
+}
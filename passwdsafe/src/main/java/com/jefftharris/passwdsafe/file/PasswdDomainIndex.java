@@ -0,0 +1,285 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.file;
+
+import java.net.IDN;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.pwsafe.lib.file.PwsRecord;
+
+/**
+ * The PasswdDomainIndex class indexes records by the host of their URLs to
+ * find the records for a site.  The hosts are kept in a trie of their
+ * labels from the top-level domain down, so "www.example.com" is at
+ * com → example → www.
+ * <p>
+ * A host matches the records with the same host first, then those of its
+ * parent domains, nearest first, and then the rest of the records within
+ * its registrable domain, e.g. "mail.example.com" for "www.example.com".
+ * Records in a different registrable domain never match, so
+ * "example.co.uk" doesn't match "other.co.uk", and a public suffix or an
+ * address only matches the records with the same host.
+ */
+public final class PasswdDomainIndex
+{
+    /** A node for a label in the trie */
+    private static final class Node
+    {
+        private Map<String, Node> itsChildren;
+        private List<PwsRecord> itsRecords;
+
+        /** Get a child node; null if not present */
+        public Node getChild(String label)
+        {
+            return (itsChildren != null) ? itsChildren.get(label) : null;
+        }
+
+        /** Get a child node, adding it if not present */
+        public Node addChild(String label)
+        {
+            if (itsChildren == null) {
+                itsChildren = new HashMap<>();
+            }
+            Node child = itsChildren.get(label);
+            if (child == null) {
+                child = new Node();
+                itsChildren.put(label, child);
+            }
+            return child;
+        }
+
+        /** Add the records of the node and its children except one child */
+        public void addSubtreeRecords(Node skip, List<PwsRecord> recs)
+        {
+            if (this == skip) {
+                return;
+            }
+            if (itsRecords != null) {
+                recs.addAll(itsRecords);
+            }
+            if (itsChildren != null) {
+                for (Node child: itsChildren.values()) {
+                    child.addSubtreeRecords(skip, recs);
+                }
+            }
+        }
+    }
+
+    private final Node itsRoot = new Node();
+    /** The labels of each indexed record's host */
+    private final Map<PwsRecord, String[]> itsRecordHosts =
+            new IdentityHashMap<>();
+
+    /** Constructor */
+    public PasswdDomainIndex(PasswdFileData fileData)
+    {
+        for (PwsRecord rec: fileData.getRecords()) {
+            addRecord(rec, fileData.getURL(rec));
+        }
+    }
+
+    /**
+     * Find the records for a host
+     * @param host The host or a URL containing it
+     * @return The matching records from the closest match
+     */
+    public List<PwsRecord> findByHost(String host)
+    {
+        String[] labels = getHostLabels(host);
+        if (labels == null) {
+            return Collections.emptyList();
+        }
+        int domainLabels = isAddress(labels) ? 0 :
+                           PublicSuffixList.getRegistrableLabels(labels);
+        if (domainLabels == 0) {
+            Node node = itsRoot;
+            for (int i = labels.length - 1; (node != null) && (i >= 0); --i) {
+                node = node.getChild(labels[i]);
+            }
+            if ((node == null) || (node.itsRecords == null)) {
+                return Collections.emptyList();
+            }
+            return new ArrayList<>(node.itsRecords);
+        }
+
+        // Walk down from the top-level domain, remembering the nodes from
+        // the registrable domain on
+        Node[] path = new Node[labels.length + 1];
+        path[0] = itsRoot;
+        int depth = 0;
+        while (depth < labels.length) {
+            Node child =
+                    path[depth].getChild(labels[labels.length - depth - 1]);
+            if (child == null) {
+                break;
+            }
+            path[++depth] = child;
+        }
+        if (depth < domainLabels) {
+            return Collections.emptyList();
+        }
+
+        List<PwsRecord> recs = new ArrayList<>();
+        for (int i = depth; i >= domainLabels; --i) {
+            if (path[i].itsRecords != null) {
+                recs.addAll(path[i].itsRecords);
+            }
+        }
+
+        // Add the other records within the registrable domain
+        for (int i = depth; i >= domainLabels; --i) {
+            Node node = path[i];
+            if (node.itsChildren == null) {
+                continue;
+            }
+            Node skip = (i < depth) ? path[i + 1] : null;
+            for (Node child: node.itsChildren.values()) {
+                child.addSubtreeRecords(skip, recs);
+            }
+        }
+        return recs;
+    }
+
+    /** Update the index for a record whose URL changed */
+    public void recordChanged(PwsRecord rec, String url)
+    {
+        removeRecord(rec);
+        addRecord(rec, url);
+    }
+
+    /** Add a record to the index */
+    private void addRecord(PwsRecord rec, String url)
+    {
+        String[] labels = getHostLabels(url);
+        if (labels == null) {
+            return;
+        }
+        Node node = itsRoot;
+        for (int i = labels.length - 1; i >= 0; --i) {
+            node = node.addChild(labels[i]);
+        }
+        if (node.itsRecords == null) {
+            node.itsRecords = new ArrayList<>(1);
+        }
+        node.itsRecords.add(rec);
+        itsRecordHosts.put(rec, labels);
+    }
+
+    /** Remove a record from the index */
+    private void removeRecord(PwsRecord rec)
+    {
+        String[] labels = itsRecordHosts.remove(rec);
+        if (labels == null) {
+            return;
+        }
+        Node node = itsRoot;
+        for (int i = labels.length - 1; (node != null) && (i >= 0); --i) {
+            node = node.getChild(labels[i]);
+        }
+        if ((node != null) && (node.itsRecords != null)) {
+            for (int i = 0; i < node.itsRecords.size(); ++i) {
+                if (node.itsRecords.get(i) == rec) {
+                    node.itsRecords.remove(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the labels of the host in a URL, e.g. "www", "example", "com" for
+     * "https://user@www.example.com:8080/login"
+     * @return The lower-case labels; null if the URL has no host
+     */
+    public static String[] getHostLabels(String url)
+    {
+        if (url == null) {
+            return null;
+        }
+        String host = url.trim();
+        int pos = host.indexOf("://");
+        if (pos >= 0) {
+            host = host.substring(pos + 3);
+        }
+        int end = host.length();
+        for (int i = 0; i < end; ++i) {
+            switch (host.charAt(i)) {
+            case '/':
+            case '?':
+            case '#':
+            case '\\': {
+                end = i;
+                break;
+            }
+            }
+        }
+        host = host.substring(host.lastIndexOf('@', end - 1) + 1, end);
+
+        if (host.startsWith("[")) {
+            // IPv6 address
+            pos = host.indexOf(']');
+            if (pos < 0) {
+                return null;
+            }
+            return new String[] {
+                    host.substring(0, pos + 1).toLowerCase(Locale.US) };
+        }
+        pos = host.indexOf(':');
+        if (pos >= 0) {
+            host = host.substring(0, pos);
+        }
+        while (host.endsWith(".")) {
+            host = host.substring(0, host.length() - 1);
+        }
+        if (host.length() == 0) {
+            return null;
+        }
+
+        host = host.toLowerCase(Locale.US);
+        if (host.contains("xn--")) {
+            try {
+                host = IDN.toUnicode(host, IDN.ALLOW_UNASSIGNED);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        String[] labels = host.split("\\.", -1);
+        for (String label: labels) {
+            if ((label.length() == 0) || (label.indexOf(' ') >= 0)) {
+                return null;
+            }
+        }
+        return labels;
+    }
+
+    /** Is the host an address rather than a name */
+    private static boolean isAddress(String[] labels)
+    {
+        if (labels[0].startsWith("[")) {
+            return true;
+        }
+        if (labels.length != 4) {
+            return false;
+        }
+        for (String label: labels) {
+            for (int i = 0; i < label.length(); ++i) {
+                char c = label.charAt(i);
+                if ((c < '0') || (c > '9')) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
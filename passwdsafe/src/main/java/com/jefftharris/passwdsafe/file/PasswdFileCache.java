@@ -0,0 +1,99 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.file;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.format.DateUtils;
+
+import com.jefftharris.passwdsafe.lib.PasswdSafeUtil;
+
+/**
+ * The PasswdFileCache class keeps the records of the most recently closed
+ * file for a short time so a reopen of the unchanged file can skip
+ * decrypting and indexing the records.  The cache is cleared when the
+ * screen turns off and when the system is low on memory, but not when the
+ * app is only hidden.
+ */
+public final class PasswdFileCache
+{
+    private static final long CACHE_TIMEOUT = 3 * DateUtils.MINUTE_IN_MILLIS;
+
+    private static PasswdFileData itsFileData;
+    private static boolean itsIsLocked = false;
+    private static Handler itsHandler;
+
+    private static final Runnable itsExpireRunnable = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            PasswdSafeUtil.dbginfo(TAG, "expired");
+            clear();
+        }
+    };
+
+    private static final String TAG = "PasswdFileCache";
+
+    /**
+     * Cache the data of a closed file.  The data is disposed if the cache is
+     * locked.
+     */
+    static synchronized void put(PasswdFileData fileData)
+    {
+        clear();
+        if (itsIsLocked) {
+            fileData.disposeCached();
+            return;
+        }
+        itsFileData = fileData;
+        if (itsHandler == null) {
+            itsHandler = new Handler(Looper.getMainLooper());
+        }
+        itsHandler.postDelayed(itsExpireRunnable, CACHE_TIMEOUT);
+        PasswdSafeUtil.dbginfo(TAG, "put %s", fileData.getUri());
+    }
+
+    /**
+     * Take the cached data for a file.  The caller owns the returned data.
+     * @return The cached data; null if the file is not cached
+     */
+    static synchronized PasswdFileData take(PasswdFileUri uri)
+    {
+        itsIsLocked = false;
+        if ((itsFileData == null) || !uri.equals(itsFileData.getUri())) {
+            return null;
+        }
+        PasswdFileData fileData = itsFileData;
+        itsFileData = null;
+        itsHandler.removeCallbacks(itsExpireRunnable);
+        return fileData;
+    }
+
+    /**
+     * Clear the cache and don't cache closed files until a file is opened
+     * again, e.g. when a file is closed from a timeout
+     */
+    public static synchronized void lock()
+    {
+        itsIsLocked = true;
+        clear();
+    }
+
+    /** Clear the cache */
+    public static synchronized void clear()
+    {
+        if (itsHandler != null) {
+            itsHandler.removeCallbacks(itsExpireRunnable);
+        }
+        if (itsFileData != null) {
+            itsFileData.disposeCached();
+            itsFileData = null;
+        }
+    }
+}
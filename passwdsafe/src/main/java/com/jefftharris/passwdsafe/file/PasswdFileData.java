@@ -8,9 +8,12 @@
 package com.jefftharris.passwdsafe.file;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Date;
 import java.util.HashMap;
@@ -35,6 +38,7 @@ import org.pwsafe.lib.file.PwsFileV1;
 import org.pwsafe.lib.file.PwsFileV2;
 import org.pwsafe.lib.file.PwsFileV3;
 import org.pwsafe.lib.file.PwsIntegerField;
+import org.pwsafe.lib.file.PwsOpenTrace;
 import org.pwsafe.lib.file.PwsPasswdField;
 import org.pwsafe.lib.file.PwsPasswdUnicodeField;
 import org.pwsafe.lib.file.PwsPassword;
@@ -50,12 +54,14 @@ import org.pwsafe.lib.file.PwsUUIDField;
 import org.pwsafe.lib.file.PwsUnknownField;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.os.AsyncTask;
 import android.os.Build;
 import android.text.TextUtils;
 import android.text.format.DateUtils;
 import android.util.Log;
 
+import com.jefftharris.passwdsafe.Preferences;
 import com.jefftharris.passwdsafe.R;
 import com.jefftharris.passwdsafe.lib.PasswdSafeUtil;
 import com.jefftharris.passwdsafe.util.Pair;
@@ -65,22 +71,77 @@ public class PasswdFileData
 {
     private PasswdFileUri itsUri;
     private PwsFile itsPwsFile;
-    private final HashMap<String, PwsRecord> itsRecordsByUUID = new HashMap<>();
-    private final Map<PwsRecord, PasswdRecord> itsPasswdRecords =
+    private HashMap<String, PwsRecord> itsRecordsByUUID = new HashMap<>();
+    private Map<PwsRecord, PasswdRecord> itsPasswdRecords =
         new IdentityHashMap<>();
-    private final ArrayList<PwsRecord> itsRecords = new ArrayList<>();
+    private ArrayList<PwsRecord> itsRecords = new ArrayList<>();
     private HeaderPasswdPolicies itsHdrPolicies = new HeaderPasswdPolicies();
+    private PasswdAudit itsAudit = new PasswdAudit();
+    private PasswdRecordSearchIndex itsSearchIndex;
+    private PasswdDomainIndex itsDomainIndex;
+    private PasswdRecordPrefixIndex itsPrefixIndex;
+    private final PasswdPolicy.RecordPolicyCache itsRecordPolicies =
+            new PasswdPolicy.RecordPolicyCache();
     private boolean itsIsOpenReadOnly = false;
     private boolean itsIsYubikey = false;
+    private String itsPasswordEncodingHint = null;
+    private int itsTraceOpenId = 0;
 
     private static final List<PasswdFileDataObserver> itsObservers =
             new ArrayList<>();
 
+    /**
+     * Lock held while a file's storage is rewritten by a save or the
+     * compaction of its journal, and while a file is read when opened, so a
+     * file is never read while being rewritten
+     */
+    private static final Object itsStorageLock = new Object();
+    /** Number of journal compactions started, guarded by the storage lock */
+    private static int itsNumPendingCompactions = 0;
+
     private static final String TAG = "PasswdFileData";
 
     private static final int FIELD_UNSUPPORTED = -1;
     private static final int FIELD_NOT_PRESENT = -2;
 
+    /**
+     * A save of a snapshot of the file's records.  The snapshot is written
+     * without the file token, so the file can be used during the save.
+     */
+    public static final class PendingSave
+    {
+        private final PasswdFileData itsFileData;
+        private final PwsFileV3 itsPwsFile;
+        private final PwsFileV3.Snapshot itsSnapshot;
+
+        /** Constructor */
+        private PendingSave(PasswdFileData fileData, PwsFileV3 pwsFile,
+                            PwsFileV3.Snapshot snapshot)
+        {
+            itsFileData = fileData;
+            itsPwsFile = pwsFile;
+            itsSnapshot = snapshot;
+        }
+
+        /** Write the snapshot to the file */
+        public void save(Context context)
+            throws IOException, ConcurrentModificationException
+        {
+            // Saves share the storage's save helper
+            synchronized (itsStorageLock) {
+                PwsStorage storage = itsPwsFile.getStorage();
+                try {
+                    storage.setSaveHelper(
+                            new PasswdFileUri.SaveHelper(context));
+                    itsPwsFile.saveSnapshot(itsSnapshot);
+                } finally {
+                    storage.setSaveHelper(null);
+                }
+            }
+            notifyObservers(itsFileData);
+        }
+    }
+
     public PasswdFileData(PasswdFileUri uri)
     {
         itsUri = uri;
@@ -91,13 +152,50 @@ public class PasswdFileData
             throws IOException, EndOfFileException, InvalidPassphraseException,
                    UnsupportedFileVersionException
     {
-        itsIsOpenReadOnly = readonly;
-        itsPwsFile = itsUri.load(passwd, context);
+        long start = PwsOpenTrace.startOpen();
+        itsTraceOpenId = PwsOpenTrace.getOpenId();
+        String traceDetail = "failed";
+        try {
+            itsIsOpenReadOnly = readonly;
+            // Wait for saves and journal compactions to finish
+            synchronized (itsStorageLock) {
+                while (itsNumPendingCompactions > 0) {
+                    try {
+                        itsStorageLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Open interrupted");
+                    }
+                }
+                if (loadCached(passwd, context)) {
+                    itsPwsFile.setReadOnly(
+                            itsIsOpenReadOnly || !itsUri.isWritable().first);
+                    notifyObservers(this);
+                    PasswdSafeUtil.dbginfo(TAG, "file loaded from cache");
+                    traceDetail = "cached";
+                    return;
+                }
+                itsPwsFile = itsUri.load(passwd, itsPasswordEncodingHint,
+                                         context);
+            }
 
-        if (itsIsOpenReadOnly || !itsUri.isWritable().first) {
-            itsPwsFile.setReadOnly(true);
+            if (itsIsOpenReadOnly || !itsUri.isWritable().first) {
+                itsPwsFile.setReadOnly(true);
+            }
+            finishOpenFile();
+            traceDetail = "v" + itsPwsFile.getFileVersionMajor();
+        } finally {
+            PwsOpenTrace.endOpen(start, 0, itsRecords.size(), traceDetail);
         }
-        finishOpenFile();
+    }
+
+    /**
+     * Get the id of the traced open of the file for probes after the open
+     * @return The open id; 0 if the open was not traced
+     */
+    public int getTraceOpenId()
+    {
+        return itsTraceOpenId;
     }
 
     public void createNewFile(Owner<PwsPassword>.Param passwd, Context context)
@@ -111,18 +209,40 @@ public class PasswdFileData
     public void save(Context context)
         throws IOException, ConcurrentModificationException
     {
-        if (itsPwsFile != null) {
-            for (int idx = 0; idx < itsRecords.size(); ++idx) {
-                PwsRecord rec = itsRecords.get(idx);
-                if (rec.isModified()) {
-                    PasswdSafeUtil.dbginfo(TAG, "Updating idx: %d", idx);
-                    itsPwsFile.set(idx, rec);
-                    rec.resetModified();
-                }
+        PendingSave pendingSave = prepareSave(context);
+        if (pendingSave != null) {
+            pendingSave.save(context);
+        }
+    }
+
+    /**
+     * Prepare to save the file.  Changes are written to the file's journal
+     * when possible.  Otherwise, a snapshot of the records is taken which
+     * can be saved without the file token while the file is used.
+     * @return The save to finish; null if the file was saved
+     */
+    public PendingSave prepareSave(Context context)
+        throws IOException, ConcurrentModificationException
+    {
+        if (itsPwsFile == null) {
+            return null;
+        }
+        for (int idx = 0; idx < itsRecords.size(); ++idx) {
+            PwsRecord rec = itsRecords.get(idx);
+            if (rec.isModified()) {
+                PasswdSafeUtil.dbginfo(TAG, "Updating idx: %d", idx);
+                itsPwsFile.set(idx, rec);
+                rec.resetModified();
             }
+        }
 
+        // An incremental save requires an unchanged header record
+        if (!(itsPwsFile instanceof PwsFileV3) ||
+            !((PwsFileV3)itsPwsFile).canSaveIncremental()) {
             setSaveHdrFields(context);
+        }
 
+        if (!(itsPwsFile instanceof PwsFileV3)) {
             PwsStorage storage = itsPwsFile.getStorage();
             try {
                 storage.setSaveHelper(new PasswdFileUri.SaveHelper(context));
@@ -131,14 +251,110 @@ public class PasswdFileData
             } finally {
                 storage.setSaveHelper(null);
             }
+            return null;
+        }
+
+        if (saveJournal(context)) {
+            notifyObservers(this);
+            return null;
+        }
+        PwsFileV3 pwsFile = (PwsFileV3)itsPwsFile;
+        return new PendingSave(this, pwsFile, pwsFile.createSnapshot());
+    }
+
+    /**
+     * Close the file.  Changes in the file's journal are compacted into the
+     * file in the background.  The compaction writes the file as last saved
+     * with the journal's changes, so changes which weren't saved are
+     * discarded.  The file isn't read by an open until the compaction
+     * finishes.
+     */
+    public void close(Context context)
+    {
+        final PwsFile pwsFile = itsPwsFile;
+        boolean compact = (context != null) && !pwsFile.isReadOnly() &&
+                          (pwsFile instanceof PwsFileV3) &&
+                          ((PwsFileV3)pwsFile).hasJournalChanges();
+        if (!compact && (context != null) &&
+            (pwsFile instanceof PwsFileV3) && !pwsFile.isModified() &&
+            (((PwsFileV3)pwsFile).getFingerprint() != null) &&
+            Preferences.getFileReopenCachePref(
+                    Preferences.getSharedPrefs(context))) {
+            PasswdFileData cached = new PasswdFileData(itsUri);
+            cached.takeFileData(this);
+            PasswdFileCache.put(cached);
+            return;
+        }
+        itsUri = null;
+        itsPwsFile = null;
+        itsAudit.clear();
+        itsPrefixIndex = null;
+        itsSearchIndex = null;
+        indexRecords();
+
+        if (!compact) {
+            pwsFile.dispose();
+            return;
+        }
+
+        synchronized (itsStorageLock) {
+            ++itsNumPendingCompactions;
         }
+        final Context appCtx = context.getApplicationContext();
+        AsyncTask<Void, Void, Void> compactTask =
+            new AsyncTask<Void, Void, Void>()
+            {
+                @Override
+                protected Void doInBackground(Void... params)
+                {
+                    synchronized (itsStorageLock) {
+                        try {
+                            compactJournal((PwsFileV3)pwsFile, appCtx);
+                            PasswdSafeUtil.dbginfo(TAG, "journal compacted");
+                        } catch (Exception e) {
+                            Log.e(TAG, "Error compacting journal", e);
+                        } finally {
+                            pwsFile.dispose();
+                            --itsNumPendingCompactions;
+                            itsStorageLock.notifyAll();
+                        }
+                    }
+                    return null;
+                }
+            };
+        compactTask.execute();
     }
 
-    public void close()
+    /**
+     * Write the file as last saved with the changes from its journal.  The
+     * journal is removed once its changes are saved.
+     */
+    private static void compactJournal(PwsFileV3 pwsFile, Context context)
+            throws EndOfFileException, IOException,
+                   UnsupportedFileVersionException
     {
+        PwsFileV3 journaled = pwsFile.loadJournaled();
+        PwsStorage storage = journaled.getStorage();
+        try {
+            storage.setSaveHelper(new PasswdFileUri.SaveHelper(context));
+            journaled.save();
+        } finally {
+            storage.setSaveHelper(null);
+            journaled.dispose();
+        }
+    }
+
+    /** Dispose the data of a file which was cached after being closed */
+    void disposeCached()
+    {
+        if (itsPwsFile != null) {
+            itsPwsFile.dispose();
+        }
         itsUri = null;
-        itsPwsFile.dispose();
         itsPwsFile = null;
+        itsAudit.clear();
+        itsPrefixIndex = null;
+        itsSearchIndex = null;
         indexRecords();
     }
 
@@ -177,9 +393,62 @@ public class PasswdFileData
         if (itsPwsFile != null) {
             itsPwsFile.add(rec);
             indexRecords();
+            if (itsPrefixIndex != null) {
+                itsPrefixIndex.recordChanged(rec, this);
+            }
+            if (itsSearchIndex != null) {
+                itsSearchIndex.recordChanged(rec, this);
+            }
+            itsAudit.recordsAdded(Collections.singletonList(rec), this);
         }
     }
 
+    /**
+     * Add records to the file in one batch.  The records are indexed and the
+     * observers notified once for the whole batch.
+     */
+    public final void addRecords(Collection<PwsRecord> recs)
+    {
+        if ((itsPwsFile == null) || recs.isEmpty()) {
+            return;
+        }
+        for (PwsRecord rec: recs) {
+            itsPwsFile.add(rec);
+        }
+        itsPrefixIndex = null;
+        itsSearchIndex = null;
+        indexRecords();
+        itsAudit.recordsAdded(recs, this);
+        notifyObservers(this);
+    }
+
+    /**
+     * Create a V3 record from an imported entry without adding it to the
+     * file.  The file isn't changed, so records may be created from
+     * multiple threads.
+     */
+    final PwsRecord createImportRecord(PasswdFileImport.Entry entry)
+    {
+        PwsRecord rec = itsPwsFile.newRecord();
+        setImportField(entry.itsGroup, PwsRecordV3.GROUP, rec);
+        setImportField(entry.itsTitle, PwsRecordV3.TITLE, rec);
+        setImportField(entry.itsUsername, PwsRecordV3.USERNAME, rec);
+        setImportField(entry.itsUrl, PwsRecordV3.URL, rec);
+        setImportField(entry.itsEmail, PwsRecordV3.EMAIL, rec);
+        setImportField(entry.itsNotes, PwsRecordV3.NOTES, rec);
+        if (!TextUtils.isEmpty(entry.itsPassword)) {
+            rec.setField(new PwsPasswdUnicodeField(
+                    PwsRecordV3.PASSWORD, entry.itsPassword, itsPwsFile));
+        }
+        setImportTime(entry.itsCreationTime, PwsRecordV3.CREATION_TIME, rec);
+        setImportTime(entry.itsPasswdModTime, PwsRecordV3.PASSWORD_MOD_TIME,
+                      rec);
+        setImportTime(entry.itsLastModTime, PwsRecordV3.LAST_MOD_TIME, rec);
+        setImportTime(entry.itsPasswdExpiry, PwsRecordV3.PASSWORD_LIFETIME,
+                      rec);
+        return rec;
+    }
+
     public final boolean removeRecord(PwsRecord rec, Context context)
     {
         int errMsg = 0;
@@ -211,6 +480,13 @@ public class PasswdFileData
                     boolean rc = itsPwsFile.removeRecord(i);
                     if (rc) {
                         indexRecords();
+                        if (itsPrefixIndex != null) {
+                            itsPrefixIndex.removeRecord(r);
+                        }
+                        if (itsSearchIndex != null) {
+                            itsSearchIndex.removeRecord(r);
+                        }
+                        itsAudit.recordRemoved(r);
                     } else {
                         errMsg = R.string.record_not_found;
                     }
@@ -254,6 +530,14 @@ public class PasswdFileData
         itsIsYubikey = yubikey;
     }
 
+    /**
+     * Set the password encoding to try first when opening the file
+     */
+    public final void setPasswordEncodingHint(String encoding)
+    {
+        itsPasswordEncodingHint = encoding;
+    }
+
     public final boolean canEdit()
     {
         return !itsIsOpenReadOnly &&
@@ -317,6 +601,7 @@ public class PasswdFileData
     public final void setGroup(String str, PwsRecord rec)
     {
         setField(str, rec, PwsRecordV3.GROUP);
+        updatePrefixIndex(rec);
     }
 
     /**
@@ -369,6 +654,113 @@ public class PasswdFileData
 
     public final void setPassword(String oldPasswd, String newPasswd,
                                   PwsRecord rec)
+    {
+        setPasswordFields(oldPasswd, newPasswd, false, rec);
+
+        // Update PasswdRecord and indexes if the record exists
+        reindexRecord(rec);
+    }
+
+    /**
+     * Update the indexes for a record whose password, policy, or expiration
+     * changed without rebuilding the indexes of the other records
+     */
+    public final void reindexRecord(PwsRecord rec)
+    {
+        PasswdRecord passwdRec = getPasswdRecord(rec);
+        if (passwdRec == null) {
+            return;
+        }
+
+        PwsRecord oldRef = passwdRec.getRef();
+        if (oldRef != null) {
+            PasswdRecord oldPasswdRec = getPasswdRecord(oldRef);
+            oldPasswdRec.removeRefToRecord(rec);
+        }
+        passwdRec.passwordChanged(this);
+        PwsRecord newRef = passwdRec.getRef();
+        if (newRef != null) {
+            PasswdRecord newPasswdRec = getPasswdRecord(newRef);
+            newPasswdRec.addRefToRecord(rec);
+        }
+
+        reindexPasswdPolicy(passwdRec);
+        passwdRec.passwdExpiryChanged(this);
+        itsAudit.recordChanged(rec, this);
+    }
+
+    /**
+     * Generate new passwords for normal records from their policies.  Each
+     * old password is added to the record's history, a recurring
+     * expiration is restarted, and a fixed expiration date is kept.  The
+     * records are indexed and the file saved once after all of the
+     * passwords are changed.
+     * @param recs The records to change, e.g. those whose passwords expired
+     * @param defPolicy The policy for records without a policy
+     * @return The number of records changed
+     */
+    public final int rotatePasswords(Collection<PwsRecord> recs,
+                                     PasswdPolicy defPolicy, Context context)
+        throws IOException, ConcurrentModificationException
+    {
+        if (itsPwsFile == null) {
+            return 0;
+        }
+        // Group the records by policy so each policy generates one batch
+        Map<PasswdPolicy, List<PwsRecord>> policyRecs =
+            new IdentityHashMap<>();
+        for (PwsRecord rec: recs) {
+            PasswdRecord passwdRec = getPasswdRecord(rec);
+            if ((passwdRec == null) ||
+                (passwdRec.getType() != PasswdRecord.Type.NORMAL)) {
+                continue;
+            }
+
+            PasswdPolicy policy = passwdRec.getPasswdPolicy();
+            if ((policy != null) &&
+                (policy.getLocation() == PasswdPolicy.Location.RECORD_NAME)) {
+                policy = itsHdrPolicies.getPasswdPolicy(policy.getName());
+            }
+            if (policy == null) {
+                policy = defPolicy;
+            }
+            List<PwsRecord> policyList = policyRecs.get(policy);
+            if (policyList == null) {
+                policyList = new ArrayList<>();
+                policyRecs.put(policy, policyList);
+            }
+            policyList.add(rec);
+        }
+
+        List<PwsRecord> changed = new ArrayList<>();
+        for (Map.Entry<PasswdPolicy, List<PwsRecord>> entry:
+                policyRecs.entrySet()) {
+            List<PwsRecord> policyList = entry.getValue();
+            PasswdPolicy.Batch batch =
+                entry.getKey().generateBatch(policyList.size());
+            for (int i = 0; i < policyList.size(); ++i) {
+                PwsRecord rec = policyList.get(i);
+                setPasswordFields(getPassword(rec),
+                                  batch.itsPasswords.get(i), true, rec);
+                changed.add(rec);
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            indexRecords();
+            itsAudit.recordsAdded(changed, this);
+            save(context);
+        }
+        return changed.size();
+    }
+
+    /**
+     * Set the password fields of a record, updating its history and
+     * expiration.  A recurring expiration is restarted; a fixed expiration
+     * date is kept if keepFixedExpiry is set, and cleared otherwise.
+     */
+    private void setPasswordFields(String oldPasswd, String newPasswd,
+                                   boolean keepFixedExpiry, PwsRecord rec)
     {
         PasswdHistory history = getPasswdHistory(rec);
         if ((history != null) && !TextUtils.isEmpty(oldPasswd)) {
@@ -382,29 +774,14 @@ public class PasswdFileData
         setField(newPasswd, rec, PwsRecordV3.PASSWORD);
 
         PasswdExpiration expiry = getPasswdExpiry(rec);
-        Date expTime = null;
         if ((expiry != null) && expiry.itsIsRecurring &&
             (expiry.itsInterval > 0)) {
             long exp = System.currentTimeMillis();
             exp += (long)expiry.itsInterval * DateUtils.DAY_IN_MILLIS;
-            expTime = new Date(exp);
-        }
-        setField(expTime, rec, PwsRecordV3.PASSWORD_LIFETIME, false);
-
-        // Update PasswdRecord and indexes if the record exists
-        PasswdRecord passwdRec = getPasswdRecord(rec);
-        if (passwdRec != null) {
-            PwsRecord oldRef = passwdRec.getRef();
-            if (oldRef != null) {
-                PasswdRecord oldPasswdRec = getPasswdRecord(oldRef);
-                oldPasswdRec.removeRefToRecord(rec);
-            }
-            passwdRec.passwordChanged(this);
-            PwsRecord newRef = passwdRec.getRef();
-            if (newRef != null) {
-                PasswdRecord newPasswdRec = getPasswdRecord(newRef);
-                newPasswdRec.addRefToRecord(rec);
-            }
+            setField(new Date(exp), rec, PwsRecordV3.PASSWORD_LIFETIME,
+                     false);
+        } else if (!keepFixedExpiry) {
+            setField(null, rec, PwsRecordV3.PASSWORD_LIFETIME, false);
         }
     }
 
@@ -479,7 +856,7 @@ public class PasswdFileData
     /** Get the password policy contained in a record */
     public final PasswdPolicy getPasswdPolicy(PwsRecord rec)
     {
-        return PasswdPolicy.parseRecordPolicy(
+        return itsRecordPolicies.get(
             getField(rec, PwsRecordV3.PASSWORD_POLICY_NAME),
             getField(rec, PwsRecordV3.PASSWORD_POLICY),
             getField(rec, PwsRecordV3.OWN_PASSWORD_SYMBOLS));
@@ -519,6 +896,8 @@ public class PasswdFileData
     public final void setTitle(String str, PwsRecord rec)
     {
         setField(str, rec, PwsRecordV3.TITLE);
+        updatePrefixIndex(rec);
+        updateSearchIndex(rec);
     }
 
     public final String getUsername(PwsRecord rec)
@@ -529,6 +908,8 @@ public class PasswdFileData
     public final void setUsername(String str, PwsRecord rec)
     {
         setField(str, rec, PwsRecordV3.USERNAME);
+        updatePrefixIndex(rec);
+        updateSearchIndex(rec);
     }
 
     public final String getURL(PwsRecord rec)
@@ -539,6 +920,10 @@ public class PasswdFileData
     public final void setURL(String str, PwsRecord rec)
     {
         setField(str, rec, PwsRecordV3.URL);
+        if ((itsDomainIndex != null) && itsPasswdRecords.containsKey(rec)) {
+            itsDomainIndex.recordChanged(rec, getURL(rec));
+        }
+        updateSearchIndex(rec);
     }
 
     public final String getUUID(PwsRecord rec)
@@ -592,6 +977,49 @@ public class PasswdFileData
     }
 
 
+    /** Get the audit of the passwords in the file */
+    public PasswdAudit getPasswdAudit()
+    {
+        return itsAudit;
+    }
+
+    /**
+     * Find the records whose URLs are for a host
+     * @param host The host or a URL containing it
+     * @return The matching records from the closest match
+     */
+    public List<PwsRecord> findByHost(String host)
+    {
+        if (itsDomainIndex == null) {
+            return new ArrayList<>();
+        }
+        return itsDomainIndex.findByHost(host);
+    }
+
+    /**
+     * Get the index to find records by the prefixes of their titles, users,
+     * and groups, building it on first use
+     */
+    public synchronized PasswdRecordPrefixIndex getPrefixIndex()
+    {
+        if (itsPrefixIndex == null) {
+            itsPrefixIndex = new PasswdRecordPrefixIndex(this);
+        }
+        return itsPrefixIndex;
+    }
+
+    /**
+     * Get the index for fuzzy searches of the records, building it on first
+     * use
+     */
+    public synchronized PasswdRecordSearchIndex getSearchIndex()
+    {
+        if (itsSearchIndex == null) {
+            itsSearchIndex = new PasswdRecordSearchIndex(this);
+        }
+        return itsSearchIndex;
+    }
+
     /** Get the named password policies from the file header */
     public HeaderPasswdPolicies getHdrPasswdPolicies()
     {
@@ -627,11 +1055,10 @@ public class PasswdFileData
                                        getId(rec.getRecord()));
 
                 setPasswdPolicyImpl(recPolicy, rec.getRecord(), false);
+                reindexPasswdPolicy(rec);
             }
-            indexRecords();
-        } else {
-            indexPasswdPolicies();
         }
+        updateHdrPasswdPolicies();
     }
 
     private static int hexBytesToInt(byte[] bytes, int pos, int len)
@@ -689,9 +1116,9 @@ public class PasswdFileData
         if (index) {
             PasswdRecord passwdRec = getPasswdRecord(rec);
             if (passwdRec != null) {
-                passwdRec.passwdPolicyChanged(this);
+                reindexPasswdPolicy(passwdRec);
+                itsAudit.recordChanged(rec, this);
             }
-            indexPasswdPolicies();
         }
     }
 
@@ -1187,6 +1614,38 @@ public class PasswdFileData
         }
     }
 
+    /** Update the prefix index after a record's title, user, or group */
+    private void updatePrefixIndex(PwsRecord rec)
+    {
+        if ((itsPrefixIndex != null) && itsPasswdRecords.containsKey(rec)) {
+            itsPrefixIndex.recordChanged(rec, this);
+        }
+    }
+
+    /** Update the search index after a record's title, user, or URL */
+    private void updateSearchIndex(PwsRecord rec)
+    {
+        if ((itsSearchIndex != null) && itsPasswdRecords.containsKey(rec)) {
+            itsSearchIndex.recordChanged(rec, this);
+        }
+    }
+
+    /** Set a string field of an imported record if not empty */
+    private static void setImportField(String str, int fieldId, PwsRecord rec)
+    {
+        if (!TextUtils.isEmpty(str)) {
+            rec.setField(new PwsStringUnicodeField(fieldId, str));
+        }
+    }
+
+    /** Set a time field of an imported record if present */
+    private static void setImportTime(Date date, int fieldId, PwsRecord rec)
+    {
+        if ((date != null) && (date.getTime() != 0)) {
+            rec.setField(new PwsTimeField(fieldId, date));
+        }
+    }
+
     private static void setOrRemoveField(PwsField field, int fieldId,
                                          PwsRecord rec)
     {
@@ -1197,6 +1656,87 @@ public class PasswdFileData
         }
     }
 
+    /**
+     * Save the changes to the file's journal if enabled
+     * @return true if saved to the journal; false if the file must be saved
+     */
+    private boolean saveJournal(Context context)
+        throws IOException
+    {
+        if (!(itsPwsFile instanceof PwsFileV3)) {
+            return false;
+        }
+        SharedPreferences prefs = Preferences.getSharedPrefs(context);
+        if (!Preferences.getFileJournalPref(prefs)) {
+            return false;
+        }
+        boolean journaled = ((PwsFileV3)itsPwsFile).saveJournal();
+        PasswdSafeUtil.dbginfo(TAG, "save journaled: %b", journaled);
+        return journaled;
+    }
+
+    /**
+     * Use the cached records of the file if the file is unchanged since it
+     * was closed and the password matches
+     * @return true if the cached records are used; false if the file must
+     * be loaded
+     */
+    private boolean loadCached(Owner<PwsPassword>.Param passwd,
+                               Context context)
+    {
+        PasswdFileData cached = PasswdFileCache.take(itsUri);
+        if (cached == null) {
+            return false;
+        }
+
+        boolean useCached = false;
+        try {
+            byte[] fingerprint = itsUri.readFingerprint(context);
+            PwsFileV3 cachedFile = (PwsFileV3)cached.itsPwsFile;
+            useCached = (fingerprint != null) &&
+                        Arrays.equals(fingerprint,
+                                      cachedFile.getFingerprint()) &&
+                        cachedFile.checkPassphrase(passwd);
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading fingerprint", e);
+        }
+        PasswdSafeUtil.dbginfo(TAG, "loadCached: %b", useCached);
+
+        if (useCached) {
+            takeFileData(cached);
+        } else {
+            cached.disposeCached();
+        }
+        return useCached;
+    }
+
+    /**
+     * Take the file and its indexed records from another file data
+     */
+    private void takeFileData(PasswdFileData fileData)
+    {
+        itsPwsFile = fileData.itsPwsFile;
+        itsRecords = fileData.itsRecords;
+        itsRecordsByUUID = fileData.itsRecordsByUUID;
+        itsPasswdRecords = fileData.itsPasswdRecords;
+        itsHdrPolicies = fileData.itsHdrPolicies;
+        itsAudit = fileData.itsAudit;
+        itsDomainIndex = fileData.itsDomainIndex;
+        itsSearchIndex = fileData.itsSearchIndex;
+        itsPrefixIndex = fileData.itsPrefixIndex;
+
+        fileData.itsUri = null;
+        fileData.itsPwsFile = null;
+        fileData.itsRecords = new ArrayList<>();
+        fileData.itsRecordsByUUID = new HashMap<>();
+        fileData.itsPasswdRecords = new IdentityHashMap<>();
+        fileData.itsHdrPolicies = new HeaderPasswdPolicies();
+        fileData.itsAudit = new PasswdAudit();
+        fileData.itsDomainIndex = null;
+        fileData.itsSearchIndex = null;
+        fileData.itsPrefixIndex = null;
+    }
+
     private void finishOpenFile()
     {
         indexRecords();
@@ -1206,9 +1746,11 @@ public class PasswdFileData
 
     private void indexRecords()
     {
+        long start = PwsOpenTrace.start();
         itsRecords.clear();
         itsRecordsByUUID.clear();
         itsPasswdRecords.clear();
+        itsRecordPolicies.clear();
         if (itsPwsFile != null) {
             itsRecords.ensureCapacity(itsPwsFile.getRecordCount());
             Iterator<PwsRecord> recIter = itsPwsFile.getRecords();
@@ -1244,6 +1786,9 @@ public class PasswdFileData
                 referencedRecord.addRefToRecord(passwdRec.getRecord());
             }
         }
+        itsDomainIndex = new PasswdDomainIndex(this);
+        PwsOpenTrace.end(PwsOpenTrace.Phase.INDEX_RECORDS, start,
+                         0, itsRecords.size(), null);
 
         indexPasswdPolicies();
     }
@@ -1251,11 +1796,40 @@ public class PasswdFileData
     /** Index the password policies */
     private void indexPasswdPolicies()
     {
+        long start = PwsOpenTrace.start();
         List<PasswdPolicy> hdrPolicies =
             PasswdPolicy.parseHdrPolicies(
                 getHdrField(PwsRecordV3.HEADER_NAMED_PASSWORD_POLICIES));
         itsHdrPolicies = new HeaderPasswdPolicies(itsPasswdRecords.values(),
                                                   hdrPolicies);
+        PwsOpenTrace.end(PwsOpenTrace.Phase.INDEX_POLICIES, start,
+                         0, (hdrPolicies != null) ? hdrPolicies.size() : 0,
+                         null);
+    }
+
+    /**
+     * Update the header policies after the header field changed, keeping
+     * the use counts of the records
+     */
+    private void updateHdrPasswdPolicies()
+    {
+        List<PasswdPolicy> hdrPolicies =
+            PasswdPolicy.parseHdrPolicies(
+                getHdrField(PwsRecordV3.HEADER_NAMED_PASSWORD_POLICIES));
+        itsHdrPolicies = new HeaderPasswdPolicies(itsHdrPolicies, hdrPolicies);
+        itsAudit.hdrPoliciesChanged(this);
+    }
+
+    /**
+     * Update a record's policy and the use counts of the header policies
+     * after the record's policy fields changed
+     */
+    private void reindexPasswdPolicy(PasswdRecord passwdRec)
+    {
+        PasswdPolicy oldPolicy = passwdRec.getPasswdPolicy();
+        passwdRec.passwdPolicyChanged(this);
+        itsHdrPolicies.recordPolicyChanged(oldPolicy,
+                                           passwdRec.getPasswdPolicy());
     }
 
 
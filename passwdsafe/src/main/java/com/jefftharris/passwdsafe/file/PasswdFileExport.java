@@ -0,0 +1,551 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.file;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.pwsafe.lib.file.PwsRecord;
+
+/**
+ * The PasswdFileExport class writes the records of a file as Password Safe
+ * XML or as CSV.  The records are written in batches so the memory used
+ * doesn't grow with the number of records.
+ * <p>
+ * The fields of a batch other than the passwords may be encoded in
+ * parallel.  Each password is then copied into a reused buffer on the
+ * writing thread, written, and cleared.
+ */
+public final class PasswdFileExport
+{
+    /** Export format */
+    public enum Format
+    {
+        /** The XML format of Password Safe */
+        XML,
+        /** Comma separated values with a header row */
+        CSV
+    }
+
+    /** Listener for the progress of an export */
+    public interface ProgressListener
+    {
+        /** Called after each batch of records is written */
+        void exportProgress(int numExported, int numRecords);
+    }
+
+    /** A record with its fields encoded around its password */
+    private static final class EncodedRecord
+    {
+        public String itsBeforePasswd;
+        public String itsAfterPasswd;
+    }
+
+    private static final int BATCH_SIZE = 256;
+    private static final String CSV_HEADER =
+            "Group,Title,Username,Password,URL,Email,Notes," +
+            "Created,Password Modified,Modified,Password Expires\r\n";
+    private static final String CDATA_END = "]]>";
+
+    private final PasswdFileData itsFileData;
+    private final Format itsFormat;
+    private final boolean itsIsParallel;
+    private final ProgressListener itsListener;
+    private char[] itsPasswd = new char[64];
+
+    /**
+     * Constructor
+     * @param fileData The file to export
+     * @param format The format to write
+     * @param parallel Whether to encode the fields on all cores
+     * @param listener The optional progress listener
+     */
+    public PasswdFileExport(PasswdFileData fileData, Format format,
+                            boolean parallel, ProgressListener listener)
+    {
+        itsFileData = fileData;
+        itsFormat = format;
+        itsIsParallel = parallel;
+        itsListener = listener;
+    }
+
+    /**
+     * Export the records.  The stream is flushed but not closed.
+     * @return The number of records exported
+     */
+    public int export(OutputStream os) throws IOException
+    {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));
+        List<PwsRecord> recs = itsFileData.getRecords();
+        int numRecs = recs.size();
+        int numThreads = itsIsParallel ?
+                Math.min(Runtime.getRuntime().availableProcessors(),
+                         (numRecs + BATCH_SIZE - 1) / BATCH_SIZE) : 1;
+        ExecutorService executor = (numThreads > 1) ?
+                Executors.newFixedThreadPool(numThreads) : null;
+        try {
+            writeHeader(writer);
+            EncodedRecord[] batch = new EncodedRecord[BATCH_SIZE];
+            for (int i = 0; i < batch.length; ++i) {
+                batch[i] = new EncodedRecord();
+            }
+            for (int start = 0; start < numRecs; start += BATCH_SIZE) {
+                int end = Math.min(start + BATCH_SIZE, numRecs);
+                encodeBatch(recs, start, end, batch, executor, numThreads);
+                for (int i = start; i < end; ++i) {
+                    EncodedRecord encoded = batch[i - start];
+                    writer.write(encoded.itsBeforePasswd);
+                    writePasswd(recs.get(i), writer);
+                    writer.write(encoded.itsAfterPasswd);
+                    encoded.itsBeforePasswd = null;
+                    encoded.itsAfterPasswd = null;
+                }
+                if (itsListener != null) {
+                    itsListener.exportProgress(end, numRecs);
+                }
+            }
+            writeFooter(writer);
+            writer.flush();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            Arrays.fill(itsPasswd, '\0');
+        }
+        return numRecs;
+    }
+
+    /** Encode the fields of a batch of records */
+    private void encodeBatch(final List<PwsRecord> recs, int start, int end,
+                             final EncodedRecord[] batch,
+                             ExecutorService executor, int numThreads)
+            throws IOException
+    {
+        if (executor == null) {
+            encodeRecords(recs, start, start, end, batch);
+            return;
+        }
+
+        final int batchStart = start;
+        int chunkSize = (end - start + numThreads - 1) / numThreads;
+        List<Future<Void>> chunks = new ArrayList<>(numThreads);
+        for (int chunkStart = start; chunkStart < end;
+             chunkStart += chunkSize) {
+            final int from = chunkStart;
+            final int to = Math.min(chunkStart + chunkSize, end);
+            chunks.add(executor.submit(new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    encodeRecords(recs, batchStart, from, to, batch);
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (Future<Void> chunk: chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IOException("Error exporting records", cause);
+        }
+    }
+
+    /** Encode the fields of a range of records in a batch */
+    private void encodeRecords(List<PwsRecord> recs, int batchStart,
+                               int from, int to, EncodedRecord[] batch)
+    {
+        SimpleDateFormat dateFmt = new SimpleDateFormat(
+                (itsFormat == Format.XML) ?
+                        "yyyy-MM-dd'T'HH:mm:ss" : "yyyy/MM/dd HH:mm:ss",
+                Locale.US);
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; ++i) {
+            EncodedRecord encoded = batch[i - batchStart];
+            PwsRecord rec = recs.get(i);
+            switch (itsFormat) {
+            case XML: {
+                encodeXml(rec, i + 1, dateFmt, sb, encoded);
+                break;
+            }
+            case CSV: {
+                encodeCsv(rec, dateFmt, sb, encoded);
+                break;
+            }
+            }
+        }
+    }
+
+    /** Encode the fields of a record in the XML format */
+    private void encodeXml(PwsRecord rec, int id, SimpleDateFormat dateFmt,
+                           StringBuilder sb, EncodedRecord encoded)
+    {
+        PasswdFileData fileData = itsFileData;
+        PasswdRecord passwdRec = fileData.getPasswdRecord(rec);
+        boolean normal = (passwdRec == null) ||
+                         (passwdRec.getType() == PasswdRecord.Type.NORMAL);
+
+        sb.setLength(0);
+        sb.append("\t<entry id=\"").append(id)
+          .append("\" normal=\"").append(normal).append("\">\n");
+        appendXmlField("group", fileData.getGroup(rec), sb);
+        appendXmlField("title", fileData.getTitle(rec), sb);
+        appendXmlField("username", fileData.getUsername(rec), sb);
+        sb.append("\t\t<password><![CDATA[");
+        encoded.itsBeforePasswd = sb.toString();
+
+        sb.setLength(0);
+        sb.append("]]></password>\n");
+        appendXmlField("url", fileData.getURL(rec), sb);
+        appendXmlField("notes", fileData.getNotes(rec), sb);
+        String uuid = fileData.getUUID(rec);
+        if (uuid != null) {
+            appendXmlField("uuid", uuid.replaceAll("[{}-]", ""), sb);
+        }
+        appendXmlDate("ctimex", fileData.getCreationTime(rec), dateFmt, sb);
+        PasswdExpiration expiry = fileData.getPasswdExpiry(rec);
+        if (expiry != null) {
+            appendXmlDate("xtimex", expiry.itsExpiration, dateFmt, sb);
+        }
+        appendXmlDate("pmtimex", fileData.getPasswdLastModTime(rec),
+                      dateFmt, sb);
+        appendXmlDate("rmtimex", fileData.getLastModTime(rec), dateFmt, sb);
+        if ((expiry != null) && expiry.itsIsRecurring) {
+            sb.append("\t\t<xtime_interval>").append(expiry.itsInterval)
+              .append("</xtime_interval>\n");
+        }
+        PasswdHistory history = fileData.getPasswdHistory(rec);
+        if (history != null) {
+            List<PasswdHistory.Entry> passwds = history.getPasswds();
+            sb.append("\t\t<pwhistory>\n")
+              .append("\t\t\t<status>").append(history.isEnabled() ? 1 : 0)
+              .append("</status>\n")
+              .append("\t\t\t<max>").append(history.getMaxSize())
+              .append("</max>\n")
+              .append("\t\t\t<num>").append(passwds.size())
+              .append("</num>\n");
+            if (!passwds.isEmpty()) {
+                sb.append("\t\t\t<history_entries>\n");
+                for (int i = 0; i < passwds.size(); ++i) {
+                    PasswdHistory.Entry entry = passwds.get(i);
+                    sb.append("\t\t\t\t<history_entry num=\"").append(i + 1)
+                      .append("\">\n\t\t\t\t\t<changedx>")
+                      .append(dateFmt.format(entry.getDate()))
+                      .append("</changedx>\n\t\t\t\t\t<oldpassword>");
+                    appendCdata(entry.getPasswd(), sb);
+                    sb.append("</oldpassword>\n\t\t\t\t</history_entry>\n");
+                }
+                sb.append("\t\t\t</history_entries>\n");
+            }
+            sb.append("\t\t</pwhistory>\n");
+        }
+        appendXmlField("email", fileData.getEmail(rec), sb);
+        sb.append("\t</entry>\n");
+        encoded.itsAfterPasswd = sb.toString();
+    }
+
+    /** Encode the fields of a record in the CSV format */
+    private void encodeCsv(PwsRecord rec, SimpleDateFormat dateFmt,
+                           StringBuilder sb, EncodedRecord encoded)
+    {
+        PasswdFileData fileData = itsFileData;
+        sb.setLength(0);
+        appendCsvField(fileData.getGroup(rec), sb);
+        sb.append(',');
+        appendCsvField(fileData.getTitle(rec), sb);
+        sb.append(',');
+        appendCsvField(fileData.getUsername(rec), sb);
+        sb.append(',');
+        encoded.itsBeforePasswd = sb.toString();
+
+        sb.setLength(0);
+        sb.append(',');
+        appendCsvField(fileData.getURL(rec), sb);
+        sb.append(',');
+        appendCsvField(fileData.getEmail(rec), sb);
+        sb.append(',');
+        appendCsvField(fileData.getNotes(rec), sb);
+        sb.append(',');
+        appendCsvDate(fileData.getCreationTime(rec), dateFmt, sb);
+        sb.append(',');
+        appendCsvDate(fileData.getPasswdLastModTime(rec), dateFmt, sb);
+        sb.append(',');
+        appendCsvDate(fileData.getLastModTime(rec), dateFmt, sb);
+        sb.append(',');
+        PasswdExpiration expiry = fileData.getPasswdExpiry(rec);
+        appendCsvDate((expiry != null) ? expiry.itsExpiration : null,
+                      dateFmt, sb);
+        sb.append("\r\n");
+        encoded.itsAfterPasswd = sb.toString();
+    }
+
+    /** Write the password of a record through the reused buffer */
+    private void writePasswd(PwsRecord rec, Writer writer) throws IOException
+    {
+        String passwd = itsFileData.getPassword(rec);
+        if (passwd == null) {
+            return;
+        }
+        int len = passwd.length();
+        if (len > itsPasswd.length) {
+            Arrays.fill(itsPasswd, '\0');
+            itsPasswd = new char[Math.max(len, itsPasswd.length * 2)];
+        }
+        passwd.getChars(0, len, itsPasswd, 0);
+        try {
+            switch (itsFormat) {
+            case XML: {
+                writeCdata(itsPasswd, len, writer);
+                break;
+            }
+            case CSV: {
+                writeCsvField(itsPasswd, len, writer);
+                break;
+            }
+            }
+        } finally {
+            Arrays.fill(itsPasswd, 0, len, '\0');
+        }
+    }
+
+    /** Write the start of the export */
+    private void writeHeader(Writer writer) throws IOException
+    {
+        switch (itsFormat) {
+        case XML: {
+            SimpleDateFormat dateFmt =
+                    new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" " +
+                         "standalone=\"yes\"?>\n");
+            writer.write("<passwordsafe delimiter=\"&#187;\" " +
+                         "ExportTimeStamp=\"" + dateFmt.format(new Date()) +
+                         "\" xmlns:xsi=\"" +
+                         "http://www.w3.org/2001/XMLSchema-instance\" " +
+                         "xsi:noNamespaceSchemaLocation=\"pwsafe.xsd\">\n");
+            break;
+        }
+        case CSV: {
+            writer.write(CSV_HEADER);
+            break;
+        }
+        }
+    }
+
+    /** Write the end of the export */
+    private void writeFooter(Writer writer) throws IOException
+    {
+        switch (itsFormat) {
+        case XML: {
+            writer.write("</passwordsafe>\n");
+            break;
+        }
+        case CSV: {
+            break;
+        }
+        }
+    }
+
+    /** Append an XML element for a field if not empty */
+    private static void appendXmlField(String name, String value,
+                                       StringBuilder sb)
+    {
+        if ((value == null) || (value.length() == 0)) {
+            return;
+        }
+        sb.append("\t\t<").append(name).append('>');
+        appendCdata(value, sb);
+        sb.append("</").append(name).append(">\n");
+    }
+
+    /** Append an XML element for a date if not null */
+    private static void appendXmlDate(String name, Date date,
+                                      SimpleDateFormat dateFmt,
+                                      StringBuilder sb)
+    {
+        if (date == null) {
+            return;
+        }
+        sb.append("\t\t<").append(name).append('>')
+          .append(dateFmt.format(date))
+          .append("</").append(name).append(">\n");
+    }
+
+    /**
+     * Append a CDATA section for a value.  The end of a section in the value
+     * is split across two sections, and characters not allowed in XML are
+     * dropped.
+     */
+    private static void appendCdata(String value, StringBuilder sb)
+    {
+        sb.append("<![CDATA[");
+        int len = value.length();
+        for (int i = 0; i < len; ++i) {
+            char c = value.charAt(i);
+            if (!isXmlChar(c)) {
+                continue;
+            }
+            if (value.startsWith(CDATA_END, i)) {
+                sb.append("]]]]><![CDATA[>");
+                i += CDATA_END.length() - 1;
+                continue;
+            }
+            sb.append(c);
+        }
+        sb.append("]]>");
+    }
+
+    /** Write the contents of a CDATA section from a buffer */
+    private static void writeCdata(char[] value, int len, Writer writer)
+            throws IOException
+    {
+        int start = 0;
+        for (int i = 0; i < len; ++i) {
+            char c = value[i];
+            boolean isEnd = (c == ']') && (i + 2 < len) &&
+                            (value[i + 1] == ']') && (value[i + 2] == '>');
+            if (!isEnd && isXmlChar(c)) {
+                continue;
+            }
+            writer.write(value, start, i - start);
+            if (isEnd) {
+                writer.write("]]]]><![CDATA[>");
+                i += CDATA_END.length() - 1;
+            }
+            start = i + 1;
+        }
+        writer.write(value, start, len - start);
+    }
+
+    /** Is a character allowed in an XML document */
+    private static boolean isXmlChar(char c)
+    {
+        return (c >= 0x20) ? (c != 0xFFFE) && (c != 0xFFFF) :
+               (c == '\t') || (c == '\n') || (c == '\r');
+    }
+
+    /**
+     * Append a CSV field, quoting it if it has a separator, quote, newline,
+     * or surrounding space
+     */
+    private static void appendCsvField(String value, StringBuilder sb)
+    {
+        if (value == null) {
+            return;
+        }
+        int len = value.length();
+        if (!needsCsvQuotes(value, len)) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < len; ++i) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    /** Append a CSV field for a date if not null */
+    private static void appendCsvDate(Date date, SimpleDateFormat dateFmt,
+                                      StringBuilder sb)
+    {
+        if (date != null) {
+            sb.append(dateFmt.format(date));
+        }
+    }
+
+    /** Write a CSV field from a buffer */
+    private static void writeCsvField(char[] value, int len, Writer writer)
+            throws IOException
+    {
+        if (!needsCsvQuotes(value, len)) {
+            writer.write(value, 0, len);
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < len; ++i) {
+            if (value[i] == '"') {
+                writer.write(value, start, i + 1 - start);
+                start = i;
+            }
+        }
+        writer.write(value, start, len - start);
+        writer.write('"');
+    }
+
+    /** Does a CSV field need quotes */
+    private static boolean needsCsvQuotes(CharSequence value, int len)
+    {
+        if (len == 0) {
+            return false;
+        }
+        if ((value.charAt(0) == ' ') || (value.charAt(len - 1) == ' ')) {
+            return true;
+        }
+        for (int i = 0; i < len; ++i) {
+            switch (value.charAt(i)) {
+            case ',':
+            case '"':
+            case '\r':
+            case '\n': {
+                return true;
+            }
+            }
+        }
+        return false;
+    }
+
+    /** Does a CSV field in a buffer need quotes */
+    private static boolean needsCsvQuotes(char[] value, int len)
+    {
+        if (len == 0) {
+            return false;
+        }
+        if ((value[0] == ' ') || (value[len - 1] == ' ')) {
+            return true;
+        }
+        for (int i = 0; i < len; ++i) {
+            switch (value[i]) {
+            case ',':
+            case '"':
+            case '\r':
+            case '\n': {
+                return true;
+            }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,638 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.file;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.pwsafe.lib.exception.EndOfFileException;
+import org.pwsafe.lib.exception.InvalidPassphraseException;
+import org.pwsafe.lib.exception.UnsupportedFileVersionException;
+import org.pwsafe.lib.file.Owner;
+import org.pwsafe.lib.file.PwsFileV3;
+import org.pwsafe.lib.file.PwsPassword;
+import org.pwsafe.lib.file.PwsRecord;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import android.content.Context;
+import android.util.Xml;
+
+import com.jefftharris.passwdsafe.lib.PasswdSafeUtil;
+
+/**
+ * The PasswdFileImport class adds the entries from another source, such as
+ * a CSV or XML export or another password file, to a V3 file as new
+ * records.
+ * <p>
+ * The entries are read from the source in batches, and the records for a
+ * batch may be created in parallel.  All of the records are then added to
+ * the file at once, so the file's records are indexed and its observers
+ * notified only once.
+ */
+public final class PasswdFileImport
+{
+    /** An entry to import */
+    public static final class Entry
+    {
+        public String itsGroup;
+        public String itsTitle;
+        public String itsUsername;
+        public String itsPassword;
+        public String itsUrl;
+        public String itsEmail;
+        public String itsNotes;
+        public Date itsCreationTime;
+        public Date itsPasswdModTime;
+        public Date itsLastModTime;
+        public Date itsPasswdExpiry;
+    }
+
+    /** A source of entries to import */
+    public interface Source
+    {
+        /**
+         * Read the next entry
+         * @return The entry; null at the end of the source
+         */
+        Entry next() throws IOException;
+    }
+
+    /** Listener for the progress of an import */
+    public interface ProgressListener
+    {
+        /** Called after each batch of records is created */
+        void importProgress(int numImported);
+    }
+
+    /** The result of an import */
+    public static final class Result
+    {
+        public final int itsNumRecords;
+        public final long itsElapsedMs;
+
+        /** Constructor */
+        private Result(int numRecords, long elapsedMs)
+        {
+            itsNumRecords = numRecords;
+            itsElapsedMs = elapsedMs;
+        }
+
+        /** Get the number of records imported per second */
+        public long getRecordsPerSec()
+        {
+            return (itsElapsedMs > 0) ?
+                   (itsNumRecords * 1000L) / itsElapsedMs : itsNumRecords;
+        }
+    }
+
+    private static final int BATCH_SIZE = 256;
+    private static final String TAG = "PasswdFileImport";
+
+    private final PasswdFileData itsFileData;
+    private final boolean itsIsParallel;
+    private final ProgressListener itsListener;
+
+    /**
+     * Constructor
+     * @param fileData The file to add the records to
+     * @param parallel Whether to create the records on all cores
+     * @param listener The optional progress listener
+     */
+    public PasswdFileImport(PasswdFileData fileData, boolean parallel,
+                            ProgressListener listener)
+    {
+        itsFileData = fileData;
+        itsIsParallel = parallel;
+        itsListener = listener;
+    }
+
+    /**
+     * Import the entries from a source.  The file is unchanged if reading
+     * the source fails.
+     */
+    public Result importRecords(Source source) throws IOException
+    {
+        if (!itsFileData.isV3() || !itsFileData.canEdit()) {
+            throw new IOException("Records can only be imported into an " +
+                                  "editable V3 file");
+        }
+
+        long start = System.currentTimeMillis();
+        int numThreads =
+                itsIsParallel ? Runtime.getRuntime().availableProcessors() : 1;
+        ExecutorService executor = (numThreads > 1) ?
+                Executors.newFixedThreadPool(numThreads) : null;
+        List<PwsRecord> recs = new ArrayList<>();
+        try {
+            Entry[] batch = new Entry[BATCH_SIZE];
+            PwsRecord[] batchRecs = new PwsRecord[BATCH_SIZE];
+            while (true) {
+                int numEntries = 0;
+                while (numEntries < BATCH_SIZE) {
+                    Entry entry = source.next();
+                    if (entry == null) {
+                        break;
+                    }
+                    batch[numEntries++] = entry;
+                }
+                if (numEntries == 0) {
+                    break;
+                }
+
+                createRecords(batch, numEntries, batchRecs, executor,
+                              numThreads);
+                for (int i = 0; i < numEntries; ++i) {
+                    recs.add(batchRecs[i]);
+                    batch[i] = null;
+                    batchRecs[i] = null;
+                }
+                if (itsListener != null) {
+                    itsListener.importProgress(recs.size());
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        itsFileData.addRecords(recs);
+        Result result = new Result(recs.size(),
+                                   System.currentTimeMillis() - start);
+        PasswdSafeUtil.dbginfo(TAG, "Imported %d records in %d ms, %d/sec",
+                               result.itsNumRecords, result.itsElapsedMs,
+                               result.getRecordsPerSec());
+        return result;
+    }
+
+    /**
+     * Open a source for a CSV or XML export.  The format is chosen from the
+     * first character of the data.
+     */
+    public static Source openSource(Reader reader) throws IOException
+    {
+        BufferedReader bufReader = new BufferedReader(reader);
+        bufReader.mark(1024);
+        int c;
+        int numRead = 0;
+        do {
+            c = bufReader.read();
+        } while ((c != -1) && (++numRead < 1024) &&
+                 (Character.isWhitespace(c) || (c == '\uFEFF')));
+        bufReader.reset();
+        if (c == '<') {
+            return new XmlSource(bufReader);
+        }
+        return new CsvSource(bufReader);
+    }
+
+    /**
+     * Check whether data is a V3 password file rather than an export.  The
+     * stream must support mark and reset, and it's reset to its start.
+     */
+    public static boolean isV3File(InputStream is) throws IOException
+    {
+        byte[] tag = new byte[PwsFileV3.ID_STRING.length];
+        is.mark(tag.length);
+        int len = 0;
+        try {
+            int num;
+            while ((len < tag.length) &&
+                   ((num = is.read(tag, len, tag.length - len)) != -1)) {
+                len += num;
+            }
+        } finally {
+            is.reset();
+        }
+        return (len == tag.length) && Arrays.equals(tag, PwsFileV3.ID_STRING);
+    }
+
+    /** Create the records for a batch of entries */
+    private void createRecords(final Entry[] entries, int numEntries,
+                               final PwsRecord[] recs,
+                               ExecutorService executor, int numThreads)
+            throws IOException
+    {
+        if (executor == null) {
+            for (int i = 0; i < numEntries; ++i) {
+                recs[i] = itsFileData.createImportRecord(entries[i]);
+            }
+            return;
+        }
+
+        int chunkSize = (numEntries + numThreads - 1) / numThreads;
+        List<Future<Void>> chunks = new ArrayList<>(numThreads);
+        for (int chunkStart = 0; chunkStart < numEntries;
+             chunkStart += chunkSize) {
+            final int from = chunkStart;
+            final int to = Math.min(chunkStart + chunkSize, numEntries);
+            chunks.add(executor.submit(new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    for (int i = from; i < to; ++i) {
+                        recs[i] = itsFileData.createImportRecord(entries[i]);
+                    }
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (Future<Void> chunk: chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IOException("Error importing records", cause);
+        }
+    }
+
+    /**
+     * A source of the records of another password file, such as a .psafe3
+     * file chosen to import.  The file is opened read-only with its own
+     * password and isn't shared with the open file.  Aliases and shortcuts
+     * are imported with the password of the record they refer to.
+     */
+    public static final class FileSource implements Source
+    {
+        private final PasswdFileData itsSrcFileData;
+        private int itsPos = 0;
+
+        /** Constructor */
+        private FileSource(PasswdFileData srcFileData)
+        {
+            itsSrcFileData = srcFileData;
+        }
+
+        /**
+         * Open a password file read-only as a source.  The source must be
+         * closed.
+         */
+        public static FileSource open(PasswdFileUri uri,
+                                      Owner<PwsPassword>.Param passwd,
+                                      Context context)
+                throws IOException, EndOfFileException,
+                       InvalidPassphraseException,
+                       UnsupportedFileVersionException
+        {
+            PasswdFileData fileData = new PasswdFileData(uri);
+            fileData.load(passwd, true, context);
+            return new FileSource(fileData);
+        }
+
+        @Override
+        public Entry next()
+        {
+            PasswdFileData fileData = itsSrcFileData;
+            List<PwsRecord> recs = fileData.getRecords();
+            if (itsPos >= recs.size()) {
+                return null;
+            }
+            PwsRecord rec = recs.get(itsPos++);
+            PwsRecord passwdSrc = rec;
+            PasswdRecord passwdRec = fileData.getPasswdRecord(rec);
+            if ((passwdRec != null) && (passwdRec.getRef() != null)) {
+                passwdSrc = passwdRec.getRef();
+            }
+
+            Entry entry = new Entry();
+            entry.itsGroup = fileData.getGroup(rec);
+            entry.itsTitle = fileData.getTitle(rec);
+            entry.itsUsername = fileData.getUsername(rec);
+            entry.itsPassword = fileData.getPassword(passwdSrc);
+            entry.itsUrl = fileData.getURL(rec);
+            entry.itsEmail = fileData.getEmail(rec);
+            entry.itsNotes = fileData.getNotes(rec);
+            entry.itsCreationTime = fileData.getCreationTime(rec);
+            entry.itsPasswdModTime = fileData.getPasswdLastModTime(rec);
+            entry.itsLastModTime = fileData.getLastModTime(rec);
+            PasswdExpiration expiry = fileData.getPasswdExpiry(rec);
+            if (expiry != null) {
+                entry.itsPasswdExpiry = expiry.itsExpiration;
+            }
+            return entry;
+        }
+
+        /** Close the file */
+        public void close()
+        {
+            itsSrcFileData.close(null);
+        }
+    }
+
+    /**
+     * A source of the entries in CSV data with a header row, such as written
+     * by {@link PasswdFileExport}.  The columns are found by their names in
+     * the header.
+     */
+    public static final class CsvSource implements Source
+    {
+        private final Reader itsReader;
+        private final SimpleDateFormat itsDateFmt =
+                new SimpleDateFormat("yyyy/MM/dd HH:mm:ss", Locale.US);
+        private final List<String> itsFields = new ArrayList<>();
+        private final StringBuilder itsField = new StringBuilder();
+        private final Map<String, Integer> itsColumns = new HashMap<>();
+        private boolean itsIsHeaderRead = false;
+
+        /** Constructor */
+        public CsvSource(Reader reader)
+        {
+            itsReader = (reader instanceof BufferedReader) ?
+                        reader : new BufferedReader(reader);
+        }
+
+        @Override
+        public Entry next() throws IOException
+        {
+            if (!itsIsHeaderRead) {
+                itsIsHeaderRead = true;
+                if (!readRow()) {
+                    return null;
+                }
+                for (int i = 0; i < itsFields.size(); ++i) {
+                    String name = itsFields.get(i).trim()
+                                               .toLowerCase(Locale.US);
+                    if ((i == 0) && name.startsWith("\uFEFF")) {
+                        name = name.substring(1);
+                    }
+                    itsColumns.put(name, i);
+                }
+            }
+
+            do {
+                if (!readRow()) {
+                    return null;
+                }
+            } while ((itsFields.size() == 1) && itsFields.get(0).isEmpty());
+
+            Entry entry = new Entry();
+            entry.itsGroup = getField("group");
+            entry.itsTitle = getField("title");
+            entry.itsUsername = getField("username", "user name",
+                                         "login name");
+            entry.itsPassword = getField("password");
+            entry.itsUrl = getField("url", "web site");
+            entry.itsEmail = getField("email");
+            entry.itsNotes = getField("notes", "comments");
+            entry.itsCreationTime = getDateField("created");
+            entry.itsPasswdModTime = getDateField("password modified");
+            entry.itsLastModTime = getDateField("modified");
+            entry.itsPasswdExpiry = getDateField("password expires");
+            return entry;
+        }
+
+        /** Get a field by the first of its column names in the header */
+        private String getField(String... names)
+        {
+            for (String name: names) {
+                Integer col = itsColumns.get(name);
+                if ((col != null) && (col < itsFields.size())) {
+                    return itsFields.get(col);
+                }
+            }
+            return null;
+        }
+
+        /** Get a date field; null if missing or invalid */
+        private Date getDateField(String name)
+        {
+            String str = getField(name);
+            if ((str == null) || (str.length() == 0)) {
+                return null;
+            }
+            try {
+                return itsDateFmt.parse(str);
+            } catch (ParseException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Read the fields of the next row
+         * @return Whether a row was read
+         */
+        private boolean readRow() throws IOException
+        {
+            itsFields.clear();
+            itsField.setLength(0);
+            boolean quoted = false;
+            boolean hasRow = false;
+            int c;
+            while ((c = itsReader.read()) != -1) {
+                hasRow = true;
+                if (quoted) {
+                    if (c != '"') {
+                        itsField.append((char)c);
+                        continue;
+                    }
+                    itsReader.mark(1);
+                    if (itsReader.read() == '"') {
+                        itsField.append('"');
+                    } else {
+                        itsReader.reset();
+                        quoted = false;
+                    }
+                    continue;
+                }
+
+                switch (c) {
+                case '"': {
+                    quoted = true;
+                    break;
+                }
+                case ',': {
+                    itsFields.add(itsField.toString());
+                    itsField.setLength(0);
+                    break;
+                }
+                case '\r': {
+                    itsReader.mark(1);
+                    if (itsReader.read() != '\n') {
+                        itsReader.reset();
+                    }
+                    itsFields.add(itsField.toString());
+                    return true;
+                }
+                case '\n': {
+                    itsFields.add(itsField.toString());
+                    return true;
+                }
+                default: {
+                    itsField.append((char)c);
+                    break;
+                }
+                }
+            }
+            if (hasRow) {
+                itsFields.add(itsField.toString());
+            }
+            return hasRow;
+        }
+    }
+
+    /**
+     * A source of the entries in Password Safe XML, such as written by
+     * {@link PasswdFileExport}.  The password history of the entries isn't
+     * imported.
+     */
+    public static final class XmlSource implements Source
+    {
+        private final XmlPullParser itsParser;
+        private final SimpleDateFormat itsDateFmt =
+                new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+
+        /** Constructor */
+        public XmlSource(Reader reader) throws IOException
+        {
+            itsParser = Xml.newPullParser();
+            try {
+                itsParser.setInput(reader);
+            } catch (XmlPullParserException e) {
+                throw new IOException("Error reading XML", e);
+            }
+        }
+
+        @Override
+        public Entry next() throws IOException
+        {
+            try {
+                int event;
+                while ((event = itsParser.next()) !=
+                       XmlPullParser.END_DOCUMENT) {
+                    if ((event == XmlPullParser.START_TAG) &&
+                        itsParser.getName().equals("entry")) {
+                        return readEntry();
+                    }
+                }
+                return null;
+            } catch (XmlPullParserException e) {
+                throw new IOException("Error reading XML", e);
+            }
+        }
+
+        /** Read the fields of an entry from its start tag */
+        private Entry readEntry() throws IOException, XmlPullParserException
+        {
+            Entry entry = new Entry();
+            int depth = itsParser.getDepth();
+            int event;
+            while (((event = itsParser.next()) != XmlPullParser.END_TAG) ||
+                   (itsParser.getDepth() > depth)) {
+                if (event == XmlPullParser.END_DOCUMENT) {
+                    throw new IOException("Incomplete entry in XML");
+                }
+                if ((event != XmlPullParser.START_TAG) ||
+                    (itsParser.getDepth() != depth + 1)) {
+                    continue;
+                }
+
+                String name = itsParser.getName();
+                switch (name) {
+                case "group": {
+                    entry.itsGroup = itsParser.nextText();
+                    break;
+                }
+                case "title": {
+                    entry.itsTitle = itsParser.nextText();
+                    break;
+                }
+                case "username": {
+                    entry.itsUsername = itsParser.nextText();
+                    break;
+                }
+                case "password": {
+                    entry.itsPassword = itsParser.nextText();
+                    break;
+                }
+                case "url": {
+                    entry.itsUrl = itsParser.nextText();
+                    break;
+                }
+                case "email": {
+                    entry.itsEmail = itsParser.nextText();
+                    break;
+                }
+                case "notes": {
+                    entry.itsNotes = itsParser.nextText();
+                    break;
+                }
+                case "ctimex": {
+                    entry.itsCreationTime = parseDate(itsParser.nextText());
+                    break;
+                }
+                case "pmtimex": {
+                    entry.itsPasswdModTime = parseDate(itsParser.nextText());
+                    break;
+                }
+                case "rmtimex": {
+                    entry.itsLastModTime = parseDate(itsParser.nextText());
+                    break;
+                }
+                case "xtimex": {
+                    entry.itsPasswdExpiry = parseDate(itsParser.nextText());
+                    break;
+                }
+                default: {
+                    skipElement();
+                    break;
+                }
+                }
+            }
+            return entry;
+        }
+
+        /** Skip the element at the current start tag */
+        private void skipElement() throws IOException, XmlPullParserException
+        {
+            int depth = itsParser.getDepth();
+            int event;
+            while (((event = itsParser.next()) != XmlPullParser.END_TAG) ||
+                   (itsParser.getDepth() > depth)) {
+                if (event == XmlPullParser.END_DOCUMENT) {
+                    throw new IOException("Incomplete element in XML");
+                }
+            }
+        }
+
+        /** Parse a date; null if invalid */
+        private Date parseDate(String str)
+        {
+            try {
+                return itsDateFmt.parse(str.trim());
+            } catch (ParseException e) {
+                return null;
+            }
+        }
+    }
+}
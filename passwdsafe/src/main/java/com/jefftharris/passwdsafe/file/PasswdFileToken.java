@@ -9,27 +9,53 @@ package com.jefftharris.passwdsafe.file;
 
 import android.support.annotation.Nullable;
 
-import java.util.concurrent.locks.ReentrantLock;
+import com.jefftharris.passwdsafe.lib.PasswdSafeUtil;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Token for users of a password file to enforce synchronous access
+ * Token for users of a password file to enforce synchronous access.  Any
+ * number of readers may hold a read token at once, while an exclusive token
+ * for changes and saves is held alone.
+ * <p>
+ * With a read token, only the getters of the file data, its records, and
+ * its header may be used, along with the prefix index and password audit
+ * which guard their own state.  Setting fields, adding or removing records,
+ * changing policies, and saving need the exclusive token.
  */
 public class PasswdFileToken
 {
-    private static final ReentrantLock itsLock = new ReentrantLock();
-    
+    private static final ReentrantReadWriteLock itsLock =
+            new ReentrantReadWriteLock();
+
     private final PasswdFileData itsFileData;
+    private final Lock itsHeldLock;
+
+    private static final String TAG = "PasswdFileToken";
 
     /**
-     * Constructor. The token is acquired.
+     * Constructor. The exclusive token is acquired.
      */
     public PasswdFileToken(@Nullable PasswdFileData fileData)
+    {
+        this(fileData, false);
+    }
+
+    /**
+     * Constructor. The token is acquired.
+     * @param readOnly Whether the token is only used to read the file data
+     */
+    public PasswdFileToken(@Nullable PasswdFileData fileData, boolean readOnly)
     {
         // Don't allow reentrant behavior
-        if (itsLock.isHeldByCurrentThread()) {
+        if (itsLock.isWriteLockedByCurrentThread() ||
+            (itsLock.getReadHoldCount() > 0)) {
             throw new AssertionError("PasswdFileToken lock held");
         }
-        itsLock.lock();
+        itsHeldLock = readOnly ? itsLock.readLock() : itsLock.writeLock();
+        acquire(itsHeldLock, readOnly);
         itsFileData = fileData;
     }
 
@@ -46,6 +72,21 @@ public class PasswdFileToken
      */
     public void release()
     {
-        itsLock.unlock();
+        itsHeldLock.unlock();
+    }
+
+    /**
+     * Acquire a lock, logging when the caller had to wait
+     */
+    private static void acquire(Lock lock, boolean readOnly)
+    {
+        if (!lock.tryLock()) {
+            long start = System.nanoTime();
+            lock.lock();
+            PasswdSafeUtil.dbginfo(
+                    TAG, "contended %s wait %d ms",
+                    readOnly ? "read" : "write",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
     }
 }
@@ -9,6 +9,7 @@ package com.jefftharris.passwdsafe.file;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.SimpleDateFormat;
@@ -25,6 +26,7 @@ import org.pwsafe.lib.file.Owner;
 import org.pwsafe.lib.file.PwsFile;
 import org.pwsafe.lib.file.PwsFileFactory;
 import org.pwsafe.lib.file.PwsFileStorage;
+import org.pwsafe.lib.file.PwsFileV3;
 import org.pwsafe.lib.file.PwsPassword;
 import org.pwsafe.lib.file.PwsStorage;
 import org.pwsafe.lib.file.PwsStreamStorage;
@@ -37,6 +39,7 @@ import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Environment;
+import android.os.ParcelFileDescriptor;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.provider.OpenableColumns;
@@ -229,21 +232,27 @@ public class PasswdFileUri implements Parcelable
     }
 
 
-    /** Load the password file */
-    public PwsFile load(Owner<PwsPassword>.Param passwd, Context context)
+    /**
+     * Load the password file
+     * @param encodingHint The password encoding to try first (if known)
+     */
+    public PwsFile load(Owner<PwsPassword>.Param passwd, String encodingHint,
+                        Context context)
             throws EndOfFileException, InvalidPassphraseException, IOException,
                    UnsupportedFileVersionException
     {
         switch (itsType) {
         case FILE: {
-            return PwsFileFactory.loadFile(itsFile.getAbsolutePath(), passwd);
+            return PwsFileFactory.loadFile(itsFile.getAbsolutePath(), passwd,
+                                          encodingHint);
         }
         case SYNC_PROVIDER: {
             ContentResolver cr = context.getContentResolver();
             InputStream is = cr.openInputStream(itsUri);
             String id = getIdentifier(context, false);
             PwsStorage storage = new PasswdFileSyncStorage(itsUri, id, is);
-            return PwsFileFactory.loadFromStorage(storage, passwd);
+            return PwsFileFactory.loadFromStorage(storage, passwd,
+                                                 encodingHint);
         }
         case EMAIL:
         case GENERIC_PROVIDER: {
@@ -256,7 +265,47 @@ public class PasswdFileUri implements Parcelable
             } else {
                 storage = new PwsStreamStorage(id, is);
             }
-            return PwsFileFactory.loadFromStorage(storage, passwd);
+            return PwsFileFactory.loadFromStorage(storage, passwd,
+                                                 encodingHint);
+        }
+        }
+        return null;
+    }
+
+
+    /**
+     * Read the fingerprint of the file without loading it
+     * @return The fingerprint; null if the file type doesn't support it
+     */
+    @SuppressWarnings("TryFinallyCanBeTryWithResources")
+    public byte[] readFingerprint(Context context) throws IOException
+    {
+        switch (itsType) {
+        case FILE: {
+            FileInputStream is = new FileInputStream(itsFile);
+            try {
+                return PwsFileV3.readFingerprint(is.getChannel());
+            } finally {
+                is.close();
+            }
+        }
+        case SYNC_PROVIDER:
+        case GENERIC_PROVIDER: {
+            ContentResolver cr = context.getContentResolver();
+            ParcelFileDescriptor pfd = cr.openFileDescriptor(itsUri, "r");
+            if (pfd == null) {
+                return null;
+            }
+            try {
+                FileInputStream is =
+                        new FileInputStream(pfd.getFileDescriptor());
+                return PwsFileV3.readFingerprint(is.getChannel());
+            } finally {
+                pfd.close();
+            }
+        }
+        case EMAIL: {
+            break;
         }
         }
         return null;
@@ -358,6 +407,10 @@ public class PasswdFileUri implements Parcelable
             if (!itsFile.delete()) {
                 throw new IOException("Could not delete file: " + toString());
             }
+            File journal = PwsFileStorage.getJournalFile(itsFile);
+            if (journal.exists() && !journal.delete()) {
+                Log.e(TAG, "Could not delete journal: " + journal);
+            }
             break;
         }
         case SYNC_PROVIDER: {
@@ -1,5 +1,5 @@
 /*
- * Copyright (©) 2011-2012 Jeff Harris <jefftharris@gmail.com>
+ * Copyright (©) 2011-2016 Jeff Harris <jefftharris@gmail.com>
  * All rights reserved. Use of the code is allowed under the
  * Artistic License 2.0 terms, as specified in the LICENSE file
  * distributed with this code, or available from
@@ -27,45 +27,118 @@ import com.jefftharris.passwdsafe.lib.Utils;
 import com.jefftharris.passwdsafe.lib.view.GuiUtils;
 import com.jefftharris.passwdsafe.lib.view.TypefaceUtils;
 
+/**
+ * The PasswdHistory class holds the previous passwords of a record.  Entries
+ * read from a record's history field refer to their encoding in the field
+ * and only decode their passwords when needed.  Writing the history copies
+ * the encodings of unchanged entries rather than formatting them again.
+ */
 public class PasswdHistory
 {
     public static class Entry implements Comparable<Entry>
     {
-        private final Date itsDate;
-        private final String itsPasswd;
+        /** Time of the entry in seconds */
+        private final long itsTime;
+        private Date itsDate;
+        private String itsPasswd;
+        private final int itsPasswdLen;
+        /** Field holding the entry's encoding; null if not read from one */
+        private final String itsField;
+        private final int itsFieldPos;
 
         public Entry(Date date, String passwd)
         {
+            itsTime = date.getTime() / 1000;
             itsDate = date;
             itsPasswd = passwd;
+            itsPasswdLen = passwd.length();
+            itsField = null;
+            itsFieldPos = 0;
+        }
+
+        /** Constructor for an entry encoded in a field at a position */
+        private Entry(long time, int passwdLen, String field, int fieldPos)
+        {
+            itsTime = time;
+            itsPasswdLen = passwdLen;
+            itsField = field;
+            itsFieldPos = fieldPos;
         }
 
         public Date getDate()
         {
+            if (itsDate == null) {
+                itsDate = new Date(itsTime * 1000L);
+            }
             return itsDate;
         }
 
         public String getPasswd()
         {
+            if (itsPasswd == null) {
+                int start = itsFieldPos + ENTRY_HDR_LEN;
+                itsPasswd = itsField.substring(start, start + itsPasswdLen);
+            }
             return itsPasswd;
         }
 
         public int compareTo(@NonNull Entry arg0)
         {
             // Sort descending
-            return -itsDate.compareTo(arg0.itsDate);
+            long time = getTimeMillis();
+            long argTime = arg0.getTimeMillis();
+            return (time > argTime) ? -1 : ((time == argTime) ? 0 : 1);
         }
 
         @Override
         public String toString()
         {
-            return itsPasswd + " [" + itsDate + "]";
+            return getPasswd() + " [" + getDate() + "]";
+        }
+
+        /** Get the time of the entry in milliseconds */
+        private long getTimeMillis()
+        {
+            return (itsDate != null) ? itsDate.getTime() : itsTime * 1000L;
+        }
+
+        /** Get whether the entry has the same date and password as another */
+        private boolean isSame(Entry entry)
+        {
+            if ((getTimeMillis() != entry.getTimeMillis()) ||
+                (itsPasswdLen != entry.itsPasswdLen)) {
+                return false;
+            }
+            if ((itsPasswd == null) && (entry.itsPasswd == null)) {
+                return itsField.regionMatches(
+                        itsFieldPos + ENTRY_HDR_LEN, entry.itsField,
+                        entry.itsFieldPos + ENTRY_HDR_LEN, itsPasswdLen);
+            }
+            return getPasswd().equals(entry.getPasswd());
+        }
+
+        /** Append the encoding of the entry */
+        private void encode(StringBuilder strbld)
+        {
+            if (itsField != null) {
+                strbld.append(itsField, itsFieldPos,
+                              itsFieldPos + ENTRY_HDR_LEN + itsPasswdLen);
+            } else {
+                strbld.append(String.format(Locale.US, "%08x%04x",
+                                            (int)itsTime, itsPasswdLen));
+                strbld.append(itsPasswd);
+            }
         }
     }
 
     public static final int MAX_SIZE_MIN = 0;
     public static final int MAX_SIZE_MAX = 255;
 
+    /** Length of the field's header */
+    private static final int HDR_LEN = 5;
+    /** Length of an entry's time and password length */
+    private static final int ENTRY_HDR_LEN = 12;
+
     private boolean itsIsEnabled;
     private int itsMaxSize;
     // Sorted with newest entry first
@@ -75,46 +148,44 @@ public class PasswdHistory
         throws IllegalArgumentException
     {
         int historyLen = historyStr.length();
-        if (historyLen < 5) {
+        if (historyLen < HDR_LEN) {
             throw new IllegalArgumentException(
-                "Field length (" + historyLen + ") too short: " + 5);
+                "Field length (" + historyLen + ") too short: " + HDR_LEN);
         }
 
         itsIsEnabled = historyStr.charAt(0) != '0';
-        itsMaxSize = Integer.parseInt(historyStr.substring(1, 3), 16);
+        itsMaxSize = (int)parseHex(historyStr, 1, 2);
         if (itsMaxSize > 255) {
             throw new IllegalArgumentException(
                 "Invalid max size: " + itsMaxSize);
         }
 
-        int numEntries = Integer.parseInt(historyStr.substring(3, 5), 16);
+        int numEntries = (int)parseHex(historyStr, 3, 2);
         if (numEntries > 255) {
             throw new IllegalArgumentException(
                 "Invalid numEntries: " + numEntries);
         }
 
-        int pos = 5;
+        int pos = HDR_LEN;
         while (pos < historyLen) {
-            if (pos + 12 >= historyLen) {
+            if (pos + ENTRY_HDR_LEN >= historyLen) {
                 throw new IllegalArgumentException(
                     "Field length (" + historyLen + ") too short: " +
-                    (pos + 12));
+                    (pos + ENTRY_HDR_LEN));
             }
 
-            long date = Long.parseLong(historyStr.substring(pos, pos + 8), 16);
-            int passwdLen =
-                Integer.parseInt(historyStr.substring(pos + 8, pos + 12), 16);
-            pos += 12;
+            long date = parseHex(historyStr, pos, 8);
+            int passwdLen = (int)parseHex(historyStr, pos + 8, 4);
+            int passwdPos = pos + ENTRY_HDR_LEN;
 
-            if (pos + passwdLen > historyLen) {
+            if (passwdPos + passwdLen > historyLen) {
                 throw new IllegalArgumentException(
                     "Field length (" + historyLen + ") too short: " +
-                    (pos + passwdLen));
+                    (passwdPos + passwdLen));
             }
 
-            String passwd = historyStr.substring(pos, pos + passwdLen);
-            itsPasswds.add(new Entry(new Date(date * 1000L), passwd));
-            pos += passwdLen;
+            itsPasswds.add(new Entry(date, passwdLen, historyStr, pos));
+            pos = passwdPos + passwdLen;
         }
         Collections.sort(itsPasswds);
     }
@@ -172,8 +243,15 @@ public class PasswdHistory
             if (passwdDate == null) {
                 passwdDate = new Date();
             }
-            itsPasswds.add(new Entry(passwdDate, passwd));
-            Collections.sort(itsPasswds);
+
+            // Insert after the entries at least as new to keep the order
+            Entry entry = new Entry(passwdDate, passwd);
+            int pos = 0;
+            while ((pos < itsPasswds.size()) &&
+                   (itsPasswds.get(pos).compareTo(entry) <= 0)) {
+                ++pos;
+            }
+            itsPasswds.add(pos, entry);
         }
     }
 
@@ -187,12 +265,7 @@ public class PasswdHistory
         strbld.append(str);
 
         for (Entry entry : itsPasswds) {
-            String passwd = entry.getPasswd();
-            str = String.format(Locale.US, "%08x%04x",
-                                (int)(entry.getDate().getTime() / 1000),
-                                passwd.length());
-            strbld.append(str);
-            strbld.append(passwd);
+            entry.encode(strbld);
         }
 
         return strbld.toString();
@@ -216,10 +289,7 @@ public class PasswdHistory
                 return false;
             } else {
                 for (int i = 0; i < itsPasswds.size(); ++i) {
-                    Entry e1 = itsPasswds.get(i);
-                    Entry e2 = hist.itsPasswds.get(i);
-                    if (!e1.getPasswd().equals(e2.getPasswd()) ||
-                        !e1.getDate().equals(e2.getDate())) {
+                    if (!itsPasswds.get(i).isSame(hist.itsPasswds.get(i))) {
                         return false;
                     }
                 }
@@ -228,6 +298,24 @@ public class PasswdHistory
         }
     }
 
+    /**
+     * Parse a hex number from part of a string
+     */
+    private static long parseHex(String str, int pos, int len)
+        throws IllegalArgumentException
+    {
+        long val = 0;
+        for (int i = pos; i < pos + len; ++i) {
+            int digit = Character.digit(str.charAt(i), 16);
+            if (digit < 0) {
+                throw new NumberFormatException(
+                    "Invalid hex: " + str.substring(pos, pos + len));
+            }
+            val = (val << 4) | digit;
+        }
+        return val;
+    }
+
     /**
      * Are two histories equal
      */
@@ -10,7 +10,9 @@ package com.jefftharris.passwdsafe.file;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Random;
 
@@ -104,6 +106,276 @@ public class PasswdPolicy implements Comparable<PasswdPolicy>, Parcelable
             itsPolicyStr = policyStr;
             itsOwnSymbols = ownSymbols;
         }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RecordPolicyStrs)) {
+                return false;
+            }
+            RecordPolicyStrs strs = (RecordPolicyStrs)o;
+            return TextUtils.equals(itsPolicyName, strs.itsPolicyName) &&
+                   TextUtils.equals(itsPolicyStr, strs.itsPolicyStr) &&
+                   TextUtils.equals(itsOwnSymbols, strs.itsOwnSymbols);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = (itsPolicyName != null) ? itsPolicyName.hashCode() : 0;
+            hash = 31 * hash +
+                   ((itsPolicyStr != null) ? itsPolicyStr.hashCode() : 0);
+            hash = 31 * hash +
+                   ((itsOwnSymbols != null) ? itsOwnSymbols.hashCode() : 0);
+            return hash;
+        }
+    }
+
+    /**
+     * Cache of the policies parsed from record fields.  Records with the
+     * same policy fields share one policy instance.
+     */
+    public static final class RecordPolicyCache
+    {
+        private final HashMap<RecordPolicyStrs, PasswdPolicy> itsPolicies =
+                new HashMap<>();
+
+        /** Get the policy for a record's fields, parsing it if needed */
+        public synchronized PasswdPolicy get(String policyName,
+                                             String policyStr,
+                                             String ownSymbols)
+        {
+            if ((policyName == null) && (policyStr == null)) {
+                return null;
+            }
+            RecordPolicyStrs strs =
+                    new RecordPolicyStrs(policyName, policyStr, ownSymbols);
+            PasswdPolicy policy = itsPolicies.get(strs);
+            if (policy == null) {
+                policy = parseRecordPolicy(policyName, policyStr, ownSymbols);
+                itsPolicies.put(strs, policy);
+            }
+            return policy;
+        }
+
+        /** Clear the cache */
+        public synchronized void clear()
+        {
+            itsPolicies.clear();
+        }
+    }
+
+    /** A batch of generated passwords */
+    public static class Batch
+    {
+        public final List<String> itsPasswords;
+        /** Estimated entropy, in bits, of each password */
+        public final double itsEntropy;
+
+        public Batch(List<String> passwords, double entropy)
+        {
+            itsPasswords = passwords;
+            itsEntropy = entropy;
+        }
+    }
+
+    /**
+     * A password generator for a policy.  The character pools and random
+     * sampling limits are computed once when the generator is created, and
+     * random bytes are drawn in blocks into a reused buffer.  A generator is
+     * not thread safe and should be cleared when no longer used.
+     */
+    public static final class Generator
+    {
+        private final PasswdPolicy itsPolicy;
+        private final Type itsType;
+        private final int itsLength;
+        private final char[][] itsMinPools;
+        private final int[] itsMinCounts;
+        private final int[] itsMinLimits;
+        private final char[] itsAllChars;
+        private final int itsAllLimit;
+        private final int itsNumMinChars;
+        private final BulkRandom itsBulkRandom = new BulkRandom();
+
+        /** Constructor */
+        private Generator(PasswdPolicy policy)
+        {
+            itsPolicy = policy;
+            itsType = policy.getType();
+            itsLength = policy.itsLength;
+
+            List<String> pools = new ArrayList<>(4);
+            List<Integer> counts = new ArrayList<>(4);
+            StringBuilder allchars = new StringBuilder();
+            switch (itsType) {
+            case NORMAL:
+            case EASY_TO_READ: {
+                boolean easy = (itsType == Type.EASY_TO_READ);
+                policy.addCharPool(FLAG_USE_LOWERCASE, policy.itsMinLowercase,
+                                   easy ? EASY_LOWER_CHARS : LOWER_CHARS,
+                                   pools, counts, allchars);
+                policy.addCharPool(FLAG_USE_UPPERCASE, policy.itsMinUppercase,
+                                   easy ? EASY_UPPER_CHARS : UPPER_CHARS,
+                                   pools, counts, allchars);
+                policy.addCharPool(FLAG_USE_DIGITS, policy.itsMinDigits,
+                                   easy ? EASY_DIGITS : DIGITS,
+                                   pools, counts, allchars);
+                policy.addCharPool(FLAG_USE_SYMBOLS, policy.itsMinSymbols,
+                                   policy.getSymbols(easy),
+                                   pools, counts, allchars);
+                break;
+            }
+            case HEXADECIMAL: {
+                allchars.append(HEX_DIGITS);
+                break;
+            }
+            case PRONOUNCEABLE: {
+                break;
+            }
+            }
+
+            int numPools = pools.size();
+            itsMinPools = new char[numPools][];
+            itsMinCounts = new int[numPools];
+            itsMinLimits = new int[numPools];
+            int numMinChars = 0;
+            for (int i = 0; i < numPools; ++i) {
+                itsMinPools[i] = pools.get(i).toCharArray();
+                itsMinCounts[i] = counts.get(i);
+                int poolLen = itsMinPools[i].length;
+                itsMinLimits[i] = (poolLen > 0) ?
+                                  BulkRandom.getLimit(poolLen) : 0;
+                numMinChars += itsMinCounts[i];
+            }
+            itsNumMinChars = numMinChars;
+            itsAllChars = allchars.toString().toCharArray();
+            itsAllLimit = (itsAllChars.length > 0) ?
+                          BulkRandom.getLimit(itsAllChars.length) : 0;
+        }
+
+        /** Generate a password */
+        public String generate()
+        {
+            char[] passwd = generateChars();
+            try {
+                return new String(passwd);
+            } finally {
+                Arrays.fill(passwd, '\0');
+            }
+        }
+
+        /** Generate a password into a new array owned by the caller */
+        public char[] generateChars()
+        {
+            if (itsType == Type.PRONOUNCEABLE) {
+                return itsPolicy.generatePronounceable(itsBulkRandom);
+            }
+
+            // Fill the password with the minimum number of required
+            // characters and the rest with all of the usable characters
+            char[] passwd = new char[Math.max(itsLength, itsNumMinChars)];
+            int pos = 0;
+            for (int i = 0; i < itsMinPools.length; ++i) {
+                char[] pool = itsMinPools[i];
+                if ((pool.length == 0) && (itsMinCounts[i] > 0)) {
+                    throw new IllegalArgumentException(
+                            "No characters for required policy characters");
+                }
+                for (int j = 0; j < itsMinCounts[i]; ++j) {
+                    passwd[pos++] = pool[itsBulkRandom.nextInt(
+                            pool.length, itsMinLimits[i])];
+                }
+            }
+            if (pos < passwd.length) {
+                if (itsAllChars.length == 0) {
+                    throw new IllegalArgumentException(
+                            "No characters allowed by policy");
+                }
+                for (; pos < passwd.length; ++pos) {
+                    passwd[pos] = itsAllChars[itsBulkRandom.nextInt(
+                            itsAllChars.length, itsAllLimit)];
+                }
+            }
+
+            // Shuffle the characters so the required ones are not first.
+            // Characters drawn only from the full set are already in a
+            // random order.
+            if (itsNumMinChars > 0) {
+                for (int i = passwd.length; i > 1; --i) {
+                    int rand = itsBulkRandom.nextInt(i);
+                    char c = passwd[i - 1];
+                    passwd[i - 1] = passwd[rand];
+                    passwd[rand] = c;
+                }
+            }
+            return passwd;
+        }
+
+        /** Clear the unused random bytes */
+        public void clear()
+        {
+            itsBulkRandom.clear();
+        }
+    }
+
+    /**
+     * A Random whose bits come from the policy's SecureRandom in blocks
+     * rather than one call per value
+     */
+    private static final class BulkRandom extends Random
+    {
+        private static final long RANGE = 1L << 31;
+
+        private final byte[] itsBuffer = new byte[256];
+        private int itsPos = itsBuffer.length;
+
+        /**
+         * Get the largest value from next(31) which can be used for a
+         * uniform value less than the bound
+         */
+        public static int getLimit(int bound)
+        {
+            return (int)(RANGE - (RANGE % bound) - 1);
+        }
+
+        /**
+         * Get a uniform value less than the bound, rejecting values above
+         * the limit from {@link #getLimit(int)}
+         */
+        public int nextInt(int bound, int limit)
+        {
+            int value;
+            do {
+                value = next(31);
+            } while (value > limit);
+            return value % bound;
+        }
+
+        /** Clear the buffered random bytes */
+        public void clear()
+        {
+            Arrays.fill(itsBuffer, (byte)0);
+            itsPos = itsBuffer.length;
+        }
+
+        @Override
+        protected int next(int bits)
+        {
+            if (itsPos > itsBuffer.length - 4) {
+                itsRandom.nextBytes(itsBuffer);
+                itsPos = 0;
+            }
+            int value = ((itsBuffer[itsPos] & 0xff) << 24) |
+                        ((itsBuffer[itsPos + 1] & 0xff) << 16) |
+                        ((itsBuffer[itsPos + 2] & 0xff) << 8) |
+                        (itsBuffer[itsPos + 3] & 0xff);
+            itsPos += 4;
+            return value >>> (32 - bits);
+        }
     }
 
     /** Type of policy.  String indexes must match policy_type strings. */
@@ -329,76 +601,147 @@ public class PasswdPolicy implements Comparable<PasswdPolicy>, Parcelable
     /** Generate a password */
     public String generate()
     {
-        // Fill the password with the minimum number of required
-        // characters
-        StringBuilder passwd = new StringBuilder();
-        StringBuilder allchars = new StringBuilder();
-        Type type = getType();
-        switch (type) {
-        case NORMAL: {
-            addRandomChars(FLAG_USE_LOWERCASE, itsMinLowercase,
-                           LOWER_CHARS, passwd, allchars);
-            addRandomChars(FLAG_USE_UPPERCASE, itsMinUppercase,
-                           UPPER_CHARS, passwd, allchars);
-            addRandomChars(FLAG_USE_DIGITS, itsMinDigits,
-                           DIGITS, passwd, allchars);
-
-            String syms;
-            if (itsSpecialSymbols == null) {
-                if (TextUtils.isEmpty(PREFS_DEFAULT_SYMBOLS)) {
-                    syms = SYMBOLS_DEFAULT;
-                } else {
-                    syms = PREFS_DEFAULT_SYMBOLS;
-                }
-            } else {
-                syms = itsSpecialSymbols;
+        Generator gen = createGenerator();
+        try {
+            return gen.generate();
+        } finally {
+            gen.clear();
+        }
+    }
+
+    /**
+     * Create a generator for the policy to use when generating a number of
+     * passwords
+     */
+    public Generator createGenerator()
+    {
+        return new Generator(this);
+    }
+
+    /**
+     * Generate a number of passwords.  The policy's settings are only
+     * checked once for the batch.
+     */
+    public Batch generateBatch(int count)
+    {
+        Generator gen = createGenerator();
+        try {
+            List<String> passwds = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                passwds.add(gen.generate());
             }
-            addRandomChars(FLAG_USE_SYMBOLS, itsMinSymbols,
-                           syms, passwd, allchars);
-            break;
+            return new Batch(passwds, estimateEntropy());
+        } finally {
+            gen.clear();
         }
+    }
+
+    /**
+     * Estimate the entropy, in bits, of a password generated by the policy.
+     * Required minimums, 'leet' substitutions, and other small adjustments
+     * are ignored.
+     */
+    public double estimateEntropy()
+    {
+        switch (getType()) {
+        case NORMAL:
         case EASY_TO_READ: {
-            addRandomChars(FLAG_USE_LOWERCASE, itsMinLowercase,
-                           EASY_LOWER_CHARS, passwd, allchars);
-            addRandomChars(FLAG_USE_UPPERCASE, itsMinUppercase,
-                           EASY_UPPER_CHARS, passwd, allchars);
-            addRandomChars(FLAG_USE_DIGITS, itsMinDigits,
-                           EASY_DIGITS, passwd, allchars);
-            addRandomChars(FLAG_USE_SYMBOLS, itsMinSymbols,
-                           (itsSpecialSymbols == null) ?
-                               SYMBOLS_EASY: itsSpecialSymbols,
-                           passwd, allchars);
-            break;
+            int poolSize = getCharPoolSize();
+            return (poolSize > 0) ?
+                   itsLength * Math.log(poolSize) / Math.log(2) : 0.0;
         }
         case HEXADECIMAL: {
-            allchars.append(HEX_DIGITS);
-            break;
+            return itsLength * 4.0;
         }
         case PRONOUNCEABLE: {
-            // Pronounceable generated differently
-            return generatePronounceable();
+            double entropy = TrigramSampler.get().getEntropy(itsLength);
+            if (checkFlags(FLAG_USE_LOWERCASE) &&
+                checkFlags(FLAG_USE_UPPERCASE)) {
+                // Each letter's case is random
+                entropy += itsLength;
+            }
+            return entropy;
         }
         }
+        return 0.0;
+    }
 
-        // Fill the rest with all of the usable characters
-        int allLen = allchars.length();
-        for (int i = passwd.length(); i < itsLength; ++i) {
-            int rand = itsRandom.nextInt(allLen);
-            passwd.append(allchars.charAt(rand));
+    /**
+     * Check whether a password meets the policy.  The password must be at
+     * least the policy's length, use only characters the policy allows, and
+     * have the policy's minimum number of each kind of character.
+     */
+    public boolean checkPassword(CharSequence passwd)
+    {
+        if (passwd.length() < itsLength) {
+            return false;
         }
-
-        // Shuffle the characters
-        for (int i = passwd.length(); i > 1; --i) {
-            int rand = itsRandom.nextInt(i);
-            char c = passwd.charAt(i - 1);
-            passwd.setCharAt(i - 1, passwd.charAt(rand));
-            passwd.setCharAt(rand, c);
+        switch (getType()) {
+        case NORMAL:
+        case EASY_TO_READ: {
+            boolean easy = (getType() == Type.EASY_TO_READ);
+            int[] flags = { FLAG_USE_LOWERCASE, FLAG_USE_UPPERCASE,
+                            FLAG_USE_DIGITS, FLAG_USE_SYMBOLS };
+            String[] pools = { easy ? EASY_LOWER_CHARS : LOWER_CHARS,
+                               easy ? EASY_UPPER_CHARS : UPPER_CHARS,
+                               easy ? EASY_DIGITS : DIGITS,
+                               getSymbols(easy) };
+            int[] mins = { itsMinLowercase, itsMinUppercase,
+                           itsMinDigits, itsMinSymbols };
+            int[] counts = new int[flags.length];
+            for (int i = 0; i < passwd.length(); ++i) {
+                char c = passwd.charAt(i);
+                int pool = 0;
+                while ((pool < flags.length) &&
+                       (!checkFlags(flags[pool]) ||
+                        (pools[pool].indexOf(c) < 0))) {
+                    ++pool;
+                }
+                if (pool == flags.length) {
+                    return false;
+                }
+                ++counts[pool];
+            }
+            for (int pool = 0; pool < flags.length; ++pool) {
+                if (checkFlags(flags[pool]) && (counts[pool] < mins[pool])) {
+                    return false;
+                }
+            }
+            return true;
         }
-
-        return passwd.toString();
+        case HEXADECIMAL: {
+            for (int i = 0; i < passwd.length(); ++i) {
+                if (Character.digit(passwd.charAt(i), 16) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        case PRONOUNCEABLE: {
+            for (int i = 0; i < passwd.length(); ++i) {
+                char c = passwd.charAt(i);
+                boolean allowed;
+                if ((c >= 'a') && (c <= 'z')) {
+                    allowed = checkFlags(FLAG_USE_LOWERCASE) ||
+                              !checkFlags(FLAG_USE_UPPERCASE);
+                } else if ((c >= 'A') && (c <= 'Z')) {
+                    allowed = checkFlags(FLAG_USE_UPPERCASE);
+                } else if (DIGITS.indexOf(c) >= 0) {
+                    allowed = checkFlags(FLAG_USE_DIGITS);
+                } else {
+                    allowed = checkFlags(FLAG_USE_SYMBOLS) &&
+                              (SYMBOLS_PRONOUNCE.indexOf(c) >= 0);
+                }
+                if (!allowed) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        }
+        return true;
     }
 
-
     /** Convert the object to a string */
     @Override
     public String toString()
@@ -711,7 +1054,7 @@ public class PasswdPolicy implements Comparable<PasswdPolicy>, Parcelable
     }
 
     /** Generate a pronounceable password */
-    private String generatePronounceable()
+    private char[] generatePronounceable(Random random)
     {
         // Pronounceable passwords generation code copied from
         // CPasswordCharPool::MakePronounceable from Password Safe project
@@ -721,13 +1064,9 @@ public class PasswdPolicy implements Comparable<PasswdPolicy>, Parcelable
          * http://www.multicians.org/thvv/tvvtools.html
          * Thanks to Tom Van Vleck, Morrie Gasser, and Dan Edwards.
          */
-        int c1, c2, c3;  /* array indices */
-        int sumfreq;      /* total frequencies[c1][c2][*] */
-        int ranno;        /* random number in [0,sumfreq] */
-        int sum;          /* running total of frequencies */
-        int nchar;        /* number of chars in password so far */
-
+        TrigramSampler sampler = TrigramSampler.get();
         char[] password = new char[itsLength];
+        int nchar = 0;
 
         /* Pick a random starting point. */
         /* (This cheats a little; the statistics for three-letter
@@ -735,60 +1074,19 @@ public class PasswdPolicy implements Comparable<PasswdPolicy>, Parcelable
            for the general population.  For example, this code happily
            generates "mmitify" even though no word in my dictionary
            begins with mmi. So what.) */
-        sumfreq = Trigram.SIGMA;  // sigma calculated by loadtris
-        ranno = itsRandom.nextInt(sumfreq+1); // Weight by sum of frequencies
-        sum = 0;
-        nchar = 0;
-        for (c1 = 0; c1 < 26; c1++) {
-            for (c2 = 0; c2 < 26; c2++) {
-                for (c3 = 0; c3 < 26; c3++) {
-                    sum += Trigram.TRIS[c1][c2][c3];
-                    if (sum > ranno) { // Pick first value
-                        if (itsLength > 0) {
-                            password[0] = LOWER_CHARS.charAt(c1);
-                            ++nchar;
-                            if (itsLength > 1) {
-                                password[1] = LOWER_CHARS.charAt(c2);
-                                ++nchar;
-                                if (itsLength > 2) {
-                                    password[2] = LOWER_CHARS.charAt(c3);
-                                    ++nchar;
-                                }
-                            }
-                        }
-                        c1 = c2 = c3 = 26; // Break all loops.
-                    } // if sum
-                } // for c3
-            } // for c2
-        } // for c1
+        int start = sampler.sampleStart(random);
+        int[] startChars = { start / (26 * 26), (start / 26) % 26, start % 26 };
+        for (; (nchar < itsLength) && (nchar < startChars.length); ++nchar) {
+            password[nchar] = LOWER_CHARS.charAt(startChars[nchar]);
+        }
 
         /* Do a random walk. */
         while (nchar < itsLength) {
-            c1 = password[nchar-2] - 'a'; // Take the last 2 chars
-            c2 = password[nchar-1] - 'a'; // .. and find the next one.
-            sumfreq = 0;
-            for (c3 = 0; c3 < 26; c3++) {
-                sumfreq += Trigram.TRIS[c1][c2][c3];
-            }
-            /* Note that sum < duos[c1][c2] because
-             duos counts all digraphs, not just those
-             in a trigraph. We want sum. */
-            /* Choose a continuation. */
-            if (sumfreq == 0) { // If there is no possible extension..
-                ranno = 0;
-            } else {
-                 // Weight by sum of frequencies
-                ranno = itsRandom.nextInt(sumfreq+1);
-            }
-            sum = 0;
-            for (c3 = 0; c3 < 26; c3++) {
-                sum += Trigram.TRIS[c1][c2][c3];
-                if (sum > ranno) {
-                    password[nchar++] = LOWER_CHARS.charAt(c3);
-                    break;
-                }
-            } // for c3
-        } // while nchar
+            int c1 = password[nchar-2] - 'a'; // Take the last 2 chars
+            int c2 = password[nchar-1] - 'a'; // .. and find the next one.
+            int c3 = sampler.sampleNext(c1, c2, random);
+            password[nchar++] = LOWER_CHARS.charAt(c3);
+        }
 
         /*
          * password now has an all-lowercase pronounceable password
@@ -816,10 +1114,10 @@ public class PasswdPolicy implements Comparable<PasswdPolicy>, Parcelable
                 // choose how many to replace (not too many, but at least one)
                 int rn = 1;
                 if (sclen > 1) {
-                    rn += itsRandom.nextInt(sclen - 1)/2;
+                    rn += random.nextInt(sclen - 1)/2;
                 }
                 // replace some of them
-                Collections.shuffle(sc, itsRandom);
+                Collections.shuffle(sc, random);
                 for (int i = 0; i < rn; ++i) {
                     int pwIdx = sc.get(i);
                     int leetIdx = password[pwIdx] - 'a';
@@ -828,7 +1126,7 @@ public class PasswdPolicy implements Comparable<PasswdPolicy>, Parcelable
 
                     // if both substitutions possible, select one randomly
                     if ((digsub != 0) && (symsub != 0) &&
-                        itsRandom.nextBoolean()) {
+                        random.nextBoolean()) {
                         digsub = 0;
                     }
                     password[pwIdx] = (digsub != 0) ? digsub : symsub;
@@ -848,25 +1146,58 @@ public class PasswdPolicy implements Comparable<PasswdPolicy>, Parcelable
         } else if (useLower && useUpper) { // mixed case
             for (int i = 0; i < itsLength; ++i) {
                 if (Character.isLetter(password[i]) &&
-                    itsRandom.nextBoolean()) {
+                    random.nextBoolean()) {
                     password[i] = Character.toUpperCase(password[i]);
                 }
             }
         }
 
-        return new String(password);
+        return password;
+    }
+
+    /** Get the number of characters usable by a normal or easy-to-read
+     *  password */
+    private int getCharPoolSize()
+    {
+        boolean easy = (getType() == Type.EASY_TO_READ);
+        int size = 0;
+        if (checkFlags(FLAG_USE_LOWERCASE)) {
+            size += (easy ? EASY_LOWER_CHARS : LOWER_CHARS).length();
+        }
+        if (checkFlags(FLAG_USE_UPPERCASE)) {
+            size += (easy ? EASY_UPPER_CHARS : UPPER_CHARS).length();
+        }
+        if (checkFlags(FLAG_USE_DIGITS)) {
+            size += (easy ? EASY_DIGITS : DIGITS).length();
+        }
+        if (checkFlags(FLAG_USE_SYMBOLS)) {
+            size += getSymbols(easy).length();
+        }
+        return size;
+    }
+
+    /** Get the symbols usable by a normal or easy-to-read password */
+    private String getSymbols(boolean easy)
+    {
+        if (itsSpecialSymbols != null) {
+            return itsSpecialSymbols;
+        } else if (easy) {
+            return SYMBOLS_EASY;
+        } else if (TextUtils.isEmpty(PREFS_DEFAULT_SYMBOLS)) {
+            return SYMBOLS_DEFAULT;
+        }
+        return PREFS_DEFAULT_SYMBOLS;
     }
 
-    /** Randomly add a number of characters to the password and add the
-     *  character set to the returned all list if the flags match */
-    private void addRandomChars(int flag, int numChars, String chars,
-                                StringBuilder passwd, StringBuilder allchars) {
+    /** Add a character pool with its number of required characters and add
+     *  the characters to the all list if the flags match */
+    private void addCharPool(int flag, int numChars, String chars,
+                             List<String> pools, List<Integer> counts,
+                             StringBuilder allchars)
+    {
         if (checkFlags(flag)) {
-            int charsLen = chars.length();
-            for (int i = 0; i < numChars; ++i) {
-                int rand = itsRandom.nextInt(charsLen);
-                passwd.append(chars.charAt(rand));
-            }
+            pools.add(chars);
+            counts.add(numChars);
             allchars.append(chars);
         }
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright (©) 2012 Jeff Harris <jefftharris@gmail.com>
+ * Copyright (©) 2012-2016 Jeff Harris <jefftharris@gmail.com>
  * All rights reserved. Use of the code is allowed under the
  * Artistic License 2.0 terms, as specified in the LICENSE file
  * distributed with this code, or available from
@@ -8,7 +8,11 @@
 package com.jefftharris.passwdsafe.file;
 
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,7 +33,10 @@ public final class PasswdRecordFilter implements Parcelable
     public enum Type
     {
         QUERY,
-        EXPIRATION
+        EXPIRATION,
+        AUDIT,
+        RECORD_QUERY,
+        FUZZY_QUERY
     }
 
     /** Expiration filter type */
@@ -124,6 +131,30 @@ public final class PasswdRecordFilter implements Parcelable
         }
     }
 
+    /** Password audit filter type */
+    public enum AuditFilter
+    {
+        ANY             (PasswdAudit.ISSUE_REUSED | PasswdAudit.ISSUE_WEAK |
+                         PasswdAudit.ISSUE_POLICY,
+                         R.string.password_issues),
+        REUSED          (PasswdAudit.ISSUE_REUSED,
+                         R.string.password_reused_filter),
+        WEAK            (PasswdAudit.ISSUE_WEAK,
+                         R.string.password_weak_filter),
+        POLICY          (PasswdAudit.ISSUE_POLICY,
+                         R.string.password_violates_policy_filter);
+
+        private final int itsIssues;
+        private final int itsStrId;
+
+        /** Constructor */
+        AuditFilter(int issues, int strId)
+        {
+            itsIssues = issues;
+            itsStrId = strId;
+        }
+    }
+
     /** Default options to match */
     public static final int OPTS_DEFAULT =          0;
     /** Record can not have an alias referencing it */
@@ -143,6 +174,25 @@ public final class PasswdRecordFilter implements Parcelable
     /** The expiration time to match on a record's expiration */
     private final long itsExpiryAtMillis;
 
+    /** Password audit filter type */
+    private final AuditFilter itsAuditFilter;
+
+    /** Structured query to match records */
+    private final PasswdRecordQuery itsRecordQuery;
+
+    /** Fuzzy search to rank records */
+    private final String itsFuzzyQuery;
+
+    /** Maximum number of records matched by a fuzzy search */
+    private static final int MAX_FUZZY_RESULTS = 100;
+
+    /** Search index and its version used for the fuzzy ranks */
+    private PasswdRecordSearchIndex itsFuzzyIndex;
+    private int itsFuzzyIndexVersion;
+
+    /** Records matched by the fuzzy search and their ranks from 1 */
+    private Map<PwsRecord, Integer> itsFuzzyRanks;
+
     /** Filter options */
     private final int itsOptions;
 
@@ -160,6 +210,9 @@ public final class PasswdRecordFilter implements Parcelable
         itsSearchQuery = query;
         itsExpiryFilter = ExpiryFilter.ANY;
         itsExpiryAtMillis = 0;
+        itsAuditFilter = AuditFilter.ANY;
+        itsRecordQuery = null;
+        itsFuzzyQuery = null;
         itsOptions = opts;
     }
 
@@ -170,6 +223,9 @@ public final class PasswdRecordFilter implements Parcelable
         itsSearchQuery = null;
         itsExpiryFilter = filter;
         itsExpiryAtMillis = itsExpiryFilter.getExpiryFromNow(customDate);
+        itsAuditFilter = AuditFilter.ANY;
+        itsRecordQuery = null;
+        itsFuzzyQuery = null;
         itsOptions = opts;
     }
 
@@ -180,6 +236,55 @@ public final class PasswdRecordFilter implements Parcelable
         itsSearchQuery = null;
         itsExpiryFilter = filter;
         itsExpiryAtMillis = expiryMillis;
+        itsAuditFilter = AuditFilter.ANY;
+        itsRecordQuery = null;
+        itsFuzzyQuery = null;
+        itsOptions = opts;
+    }
+
+    /** Constructor for a password audit */
+    public PasswdRecordFilter(AuditFilter filter, int opts)
+    {
+        itsType = Type.AUDIT;
+        itsSearchQuery = null;
+        itsExpiryFilter = ExpiryFilter.ANY;
+        itsExpiryAtMillis = 0;
+        itsAuditFilter = filter;
+        itsRecordQuery = null;
+        itsFuzzyQuery = null;
+        itsOptions = opts;
+    }
+
+    /** Constructor for a structured query */
+    public PasswdRecordFilter(PasswdRecordQuery query, int opts)
+    {
+        itsType = Type.RECORD_QUERY;
+        itsSearchQuery = null;
+        itsExpiryFilter = ExpiryFilter.ANY;
+        itsExpiryAtMillis = 0;
+        itsAuditFilter = AuditFilter.ANY;
+        itsRecordQuery = query;
+        itsFuzzyQuery = null;
+        itsOptions = opts;
+    }
+
+    /** Create a filter for a fuzzy search */
+    public static PasswdRecordFilter createFuzzyFilter(String fuzzyQuery,
+                                                       int opts)
+    {
+        return new PasswdRecordFilter(fuzzyQuery, opts);
+    }
+
+    /** Constructor for a fuzzy search */
+    private PasswdRecordFilter(String fuzzyQuery, int opts)
+    {
+        itsType = Type.FUZZY_QUERY;
+        itsSearchQuery = null;
+        itsExpiryFilter = ExpiryFilter.ANY;
+        itsExpiryAtMillis = 0;
+        itsAuditFilter = AuditFilter.ANY;
+        itsRecordQuery = null;
+        itsFuzzyQuery = fuzzyQuery;
         itsOptions = opts;
     }
 
@@ -208,6 +313,19 @@ public final class PasswdRecordFilter implements Parcelable
             dest.writeLong(itsExpiryAtMillis);
             break;
         }
+        case AUDIT: {
+            dest.writeString(itsAuditFilter.name());
+            break;
+        }
+        case RECORD_QUERY: {
+            dest.writeString(itsRecordQuery.getQuery());
+            dest.writeInt(itsRecordQuery.isCaseSensitive() ? 1 : 0);
+            break;
+        }
+        case FUZZY_QUERY: {
+            dest.writeString(itsFuzzyQuery);
+            break;
+        }
         }
     }
 
@@ -231,6 +349,21 @@ public final class PasswdRecordFilter implements Parcelable
                     return new PasswdRecordFilter(expFilter, expMillis,
                                                   options);
                 }
+                case AUDIT: {
+                    AuditFilter auditFilter =
+                        AuditFilter.valueOf(source.readString());
+                    return new PasswdRecordFilter(auditFilter, options);
+                }
+                case RECORD_QUERY: {
+                    String query = source.readString();
+                    boolean caseSensitive = (source.readInt() != 0);
+                    return new PasswdRecordFilter(
+                            PasswdRecordQuery.parse(query, caseSensitive),
+                            options);
+                }
+                case FUZZY_QUERY: {
+                    return createFuzzyFilter(source.readString(), options);
+                }
                 }
                 return null;
             }
@@ -289,6 +422,26 @@ public final class PasswdRecordFilter implements Parcelable
             }
             break;
         }
+        case AUDIT: {
+            int issues = fileData.getPasswdAudit().getIssues(rec) &
+                         itsAuditFilter.itsIssues;
+            if (issues != 0) {
+                queryMatch = getAuditIssuesStr(issues, ctx);
+            }
+            break;
+        }
+        case RECORD_QUERY: {
+            if (itsRecordQuery.matches(rec, fileData)) {
+                queryMatch = QUERY_MATCH;
+            }
+            break;
+        }
+        case FUZZY_QUERY: {
+            if (getFuzzyRanks(fileData).containsKey(rec)) {
+                queryMatch = QUERY_MATCH;
+            }
+            break;
+        }
         }
 
         if ((queryMatch != null) &&
@@ -328,16 +481,61 @@ public final class PasswdRecordFilter implements Parcelable
     }
 
 
+    /**
+     * Get the records which may match the filter.  A structured query
+     * limits the records from the file's indexes where it can, and a fuzzy
+     * search returns only its ranked records.
+     */
+    public final Collection<PwsRecord> getCandidateRecords(
+            PasswdFileData fileData)
+    {
+        switch (itsType) {
+        case RECORD_QUERY: {
+            return itsRecordQuery.getCandidates(fileData);
+        }
+        case FUZZY_QUERY: {
+            return getFuzzyRanks(fileData).keySet();
+        }
+        case QUERY:
+        case EXPIRATION:
+        case AUDIT: {
+            break;
+        }
+        }
+        return fileData.getRecords();
+    }
+
+
+    /**
+     * Get the rank of a record matched by a fuzzy search
+     * @return The rank from 1 for the best match; 0 if the record is not
+     * ranked
+     */
+    public final synchronized int getRank(PwsRecord rec)
+    {
+        if (itsFuzzyRanks != null) {
+            Integer rank = itsFuzzyRanks.get(rec);
+            if (rank != null) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+
     /**
      * Is the filter's type a query
      */
     public final boolean isQueryType()
     {
         switch (itsType) {
-        case QUERY: {
+        case QUERY:
+        case RECORD_QUERY:
+        case FUZZY_QUERY: {
             return true;
         }
-        case EXPIRATION: {
+        case EXPIRATION:
+        case AUDIT: {
             return false;
         }
         }
@@ -376,6 +574,16 @@ public final class PasswdRecordFilter implements Parcelable
                 return ctx.getString(R.string.password_with_expiration);
             }
             }
+            break;
+        }
+        case AUDIT: {
+            return ctx.getString(itsAuditFilter.itsStrId);
+        }
+        case RECORD_QUERY: {
+            return itsRecordQuery.getQuery();
+        }
+        case FUZZY_QUERY: {
+            return itsFuzzyQuery;
         }
         }
         return "";
@@ -407,11 +615,47 @@ public final class PasswdRecordFilter implements Parcelable
                 ((itsExpiryFilter == obj.itsExpiryFilter) &&
                  (itsExpiryAtMillis == obj.itsExpiryAtMillis));
         }
+        case AUDIT: {
+            return (itsAuditFilter == obj.itsAuditFilter);
+        }
+        case RECORD_QUERY: {
+            return
+                itsRecordQuery.getQuery().equals(
+                    obj.itsRecordQuery.getQuery()) &&
+                (itsRecordQuery.isCaseSensitive() ==
+                 obj.itsRecordQuery.isCaseSensitive());
+        }
+        case FUZZY_QUERY: {
+            return itsFuzzyQuery.equals(obj.itsFuzzyQuery);
+        }
         }
         return false;
     }
 
 
+    /**
+     * Get the records matched by the fuzzy search with their ranks,
+     * searching again if the file's search index was rebuilt or updated
+     */
+    private synchronized Map<PwsRecord, Integer> getFuzzyRanks(
+            PasswdFileData fileData)
+    {
+        PasswdRecordSearchIndex index = fileData.getSearchIndex();
+        if ((itsFuzzyRanks == null) || (itsFuzzyIndex != index) ||
+            (itsFuzzyIndexVersion != index.getVersion())) {
+            List<PwsRecord> recs = index.search(itsFuzzyQuery,
+                                                MAX_FUZZY_RESULTS);
+            itsFuzzyRanks = new IdentityHashMap<>(recs.size());
+            for (int i = 0; i < recs.size(); ++i) {
+                itsFuzzyRanks.put(recs.get(i), i + 1);
+            }
+            itsFuzzyIndex = index;
+            itsFuzzyIndexVersion = index.getVersion();
+        }
+        return itsFuzzyRanks;
+    }
+
+
     /** Does the filter have the given options */
     private boolean hasOptions(int opts)
     {
@@ -419,6 +663,29 @@ public final class PasswdRecordFilter implements Parcelable
     }
 
 
+    /** Get the description of the issues found by a password audit */
+    private static String getAuditIssuesStr(int issues, Context ctx)
+    {
+        StringBuilder str = new StringBuilder();
+        if ((issues & PasswdAudit.ISSUE_REUSED) != 0) {
+            str.append(ctx.getString(R.string.password_reused));
+        }
+        if ((issues & PasswdAudit.ISSUE_WEAK) != 0) {
+            if (str.length() > 0) {
+                str.append(", ");
+            }
+            str.append(ctx.getString(R.string.password_weak));
+        }
+        if ((issues & PasswdAudit.ISSUE_POLICY) != 0) {
+            if (str.length() > 0) {
+                str.append(", ");
+            }
+            str.append(ctx.getString(R.string.password_violates_policy));
+        }
+        return str.toString();
+    }
+
+
     /** Match a field against the search query */
     private boolean filterField(String field)
     {
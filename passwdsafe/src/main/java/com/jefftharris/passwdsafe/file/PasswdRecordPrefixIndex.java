@@ -0,0 +1,364 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.pwsafe.lib.file.PwsRecord;
+
+/**
+ * The PasswdRecordPrefixIndex class finds records by a prefix of their
+ * titles, the words in their titles, their users, or their groups for a
+ * typeahead picker.
+ * <p>
+ * The keys are kept in a trie whose nodes are stored in parallel arrays
+ * with the children of a node in a sibling list ordered by character.  A
+ * search fills the caller's array with the records of the first keys with
+ * the prefix in key order, so a search allocates nothing.  The index is
+ * updated as records are added, changed, and removed, and the nodes left
+ * without records or children are unlinked and reused.
+ */
+public final class PasswdRecordPrefixIndex
+{
+    private static final int NO_NODE = -1;
+    private static final PwsRecord[] NO_RECORDS = new PwsRecord[0];
+
+    /** Character of each node */
+    private char[] itsChars = new char[64];
+    /** First child of each node */
+    private int[] itsFirstChild = new int[64];
+    /** Next sibling of each node */
+    private int[] itsNextSibling = new int[64];
+    /** Records of the keys ending at each node */
+    private PwsRecord[][] itsRecords = new PwsRecord[64][];
+    /** Number of records of the keys ending at each node */
+    private int[] itsNumRecords = new int[64];
+    private int itsNumNodes = 0;
+    /** First unlinked node to reuse, chained by their next siblings */
+    private int itsFreeNode = NO_NODE;
+
+    /** The keys of each record */
+    private final Map<PwsRecord, String[]> itsRecordKeys =
+            new IdentityHashMap<>();
+
+    /** Constructor */
+    public PasswdRecordPrefixIndex(PasswdFileData fileData)
+    {
+        newNode('\0');
+        for (PwsRecord rec: fileData.getRecords()) {
+            addRecord(rec, fileData);
+        }
+    }
+
+    /**
+     * Find the records with a key starting with a prefix
+     * @param prefix The prefix
+     * @param results The array to fill with the records, each once
+     * @return The number of records found, at most the size of the array
+     */
+    public int find(CharSequence prefix, PwsRecord[] results)
+    {
+        int node = 0;
+        for (int i = 0; (node != NO_NODE) && (i < prefix.length()); ++i) {
+            node = getChild(node, Character.toLowerCase(prefix.charAt(i)));
+        }
+        if (node == NO_NODE) {
+            return 0;
+        }
+        return collect(node, results, 0);
+    }
+
+    /**
+     * Find all of the records with a key starting with a prefix
+     * @return The records, each once, in key order
+     */
+    public List<PwsRecord> findAll(CharSequence prefix)
+    {
+        List<PwsRecord> results = new ArrayList<>();
+        int node = 0;
+        for (int i = 0; (node != NO_NODE) && (i < prefix.length()); ++i) {
+            node = getChild(node, Character.toLowerCase(prefix.charAt(i)));
+        }
+        if (node != NO_NODE) {
+            collectAll(node, results,
+                       Collections.newSetFromMap(
+                               new IdentityHashMap<PwsRecord, Boolean>()));
+        }
+        return results;
+    }
+
+    /** Update the index for a record which was added or changed */
+    public void recordChanged(PwsRecord rec, PasswdFileData fileData)
+    {
+        removeRecord(rec);
+        addRecord(rec, fileData);
+    }
+
+    /** Remove a record from the index */
+    public void removeRecord(PwsRecord rec)
+    {
+        String[] keys = itsRecordKeys.remove(rec);
+        if (keys == null) {
+            return;
+        }
+        for (String key: keys) {
+            int[] path = new int[key.length() + 1];
+            int node = 0;
+            for (int i = 0; (node != NO_NODE) && (i < key.length()); ++i) {
+                node = getChild(node, key.charAt(i));
+                path[i + 1] = node;
+            }
+            if (node == NO_NODE) {
+                continue;
+            }
+            PwsRecord[] recs = itsRecords[node];
+            int numRecs = itsNumRecords[node];
+            for (int i = 0; i < numRecs; ++i) {
+                if (recs[i] == rec) {
+                    System.arraycopy(recs, i + 1, recs, i, numRecs - i - 1);
+                    recs[--itsNumRecords[node]] = null;
+                    break;
+                }
+            }
+
+            // Unlink the emptied nodes up the path
+            for (int i = key.length(); i > 0; --i) {
+                node = path[i];
+                if ((itsNumRecords[node] != 0) ||
+                    (itsFirstChild[node] != NO_NODE)) {
+                    break;
+                }
+                removeChild(path[i - 1], node);
+            }
+        }
+    }
+
+    /** Add a record to the index */
+    private void addRecord(PwsRecord rec, PasswdFileData fileData)
+    {
+        List<String> keys = new ArrayList<>();
+        String title = fileData.getTitle(rec);
+        if (title != null) {
+            // Index the title and each of its words after the first
+            addKey(title, keys);
+            for (int i = 1; i < title.length(); ++i) {
+                if (!Character.isLetterOrDigit(title.charAt(i - 1)) &&
+                    Character.isLetterOrDigit(title.charAt(i))) {
+                    addKey(title.substring(i), keys);
+                }
+            }
+        }
+        addKey(fileData.getUsername(rec), keys);
+        String group = fileData.getGroup(rec);
+        if (group != null) {
+            addKey(group, keys);
+            ArrayList<String> groups = new ArrayList<>();
+            PasswdFileData.splitGroup(group, groups);
+            if (groups.size() > 1) {
+                for (String g: groups) {
+                    addKey(g, keys);
+                }
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        for (String key: keys) {
+            int node = 0;
+            for (int i = 0; i < key.length(); ++i) {
+                node = addChild(node, key.charAt(i));
+            }
+            PwsRecord[] recs = itsRecords[node];
+            int numRecs = itsNumRecords[node];
+            if (numRecs == recs.length) {
+                PwsRecord[] newRecs = new PwsRecord[Math.max(2, numRecs * 2)];
+                System.arraycopy(recs, 0, newRecs, 0, numRecs);
+                itsRecords[node] = recs = newRecs;
+            }
+            recs[itsNumRecords[node]++] = rec;
+        }
+        itsRecordKeys.put(rec, keys.toArray(new String[keys.size()]));
+    }
+
+    /**
+     * Collect the records under a node in key order
+     * @return The number of records in the results
+     */
+    private int collect(int node, PwsRecord[] results, int numResults)
+    {
+        PwsRecord[] recs = itsRecords[node];
+        for (int i = 0;
+             (i < itsNumRecords[node]) && (numResults < results.length);
+             ++i) {
+            if (!contains(results, numResults, recs[i])) {
+                results[numResults++] = recs[i];
+            }
+        }
+        for (int child = itsFirstChild[node];
+             (child != NO_NODE) && (numResults < results.length);
+             child = itsNextSibling[child]) {
+            numResults = collect(child, results, numResults);
+        }
+        return numResults;
+    }
+
+    /** Collect all of the records under a node in key order */
+    private void collectAll(int node, List<PwsRecord> results,
+                            Set<PwsRecord> seen)
+    {
+        PwsRecord[] recs = itsRecords[node];
+        for (int i = 0; i < itsNumRecords[node]; ++i) {
+            if (seen.add(recs[i])) {
+                results.add(recs[i]);
+            }
+        }
+        for (int child = itsFirstChild[node]; child != NO_NODE;
+             child = itsNextSibling[child]) {
+            collectAll(child, results, seen);
+        }
+    }
+
+    /** Get the child of a node with a character; NO_NODE if none */
+    private int getChild(int node, char c)
+    {
+        int child = itsFirstChild[node];
+        while ((child != NO_NODE) && (itsChars[child] < c)) {
+            child = itsNextSibling[child];
+        }
+        return ((child != NO_NODE) && (itsChars[child] == c)) ?
+                child : NO_NODE;
+    }
+
+    /** Get the child of a node with a character, adding it if needed */
+    private int addChild(int node, char c)
+    {
+        int prev = NO_NODE;
+        int child = itsFirstChild[node];
+        while ((child != NO_NODE) && (itsChars[child] < c)) {
+            prev = child;
+            child = itsNextSibling[child];
+        }
+        if ((child != NO_NODE) && (itsChars[child] == c)) {
+            return child;
+        }
+
+        int newChild = newNode(c);
+        itsNextSibling[newChild] = child;
+        if (prev == NO_NODE) {
+            itsFirstChild[node] = newChild;
+        } else {
+            itsNextSibling[prev] = newChild;
+        }
+        return newChild;
+    }
+
+    /** Unlink a child from its parent and free it for reuse */
+    private void removeChild(int node, int child)
+    {
+        int prev = NO_NODE;
+        int curr = itsFirstChild[node];
+        while ((curr != NO_NODE) && (curr != child)) {
+            prev = curr;
+            curr = itsNextSibling[curr];
+        }
+        if (curr == NO_NODE) {
+            return;
+        }
+        if (prev == NO_NODE) {
+            itsFirstChild[node] = itsNextSibling[child];
+        } else {
+            itsNextSibling[prev] = itsNextSibling[child];
+        }
+        itsRecords[child] = NO_RECORDS;
+        itsNextSibling[child] = itsFreeNode;
+        itsFreeNode = child;
+    }
+
+    /** Add a new node, reusing a freed one if possible */
+    private int newNode(char c)
+    {
+        if (itsFreeNode != NO_NODE) {
+            int node = itsFreeNode;
+            itsFreeNode = itsNextSibling[node];
+            initNode(node, c);
+            return node;
+        }
+        if (itsNumNodes == itsChars.length) {
+            int size = itsNumNodes * 2;
+            char[] chars = new char[size];
+            System.arraycopy(itsChars, 0, chars, 0, itsNumNodes);
+            itsChars = chars;
+            itsFirstChild = grow(itsFirstChild, size);
+            itsNextSibling = grow(itsNextSibling, size);
+            itsNumRecords = grow(itsNumRecords, size);
+            PwsRecord[][] recs = new PwsRecord[size][];
+            System.arraycopy(itsRecords, 0, recs, 0, itsNumNodes);
+            itsRecords = recs;
+        }
+        int node = itsNumNodes++;
+        initNode(node, c);
+        return node;
+    }
+
+    /** Initialize a node without children or records */
+    private void initNode(int node, char c)
+    {
+        itsChars[node] = c;
+        itsFirstChild[node] = NO_NODE;
+        itsNextSibling[node] = NO_NODE;
+        itsRecords[node] = NO_RECORDS;
+        itsNumRecords[node] = 0;
+    }
+
+    /** Add the normalized form of a key if not empty */
+    private static void addKey(String key, List<String> keys)
+    {
+        if (key == null) {
+            return;
+        }
+        key = key.trim();
+        if (key.length() == 0) {
+            return;
+        }
+        int len = key.length();
+        char[] folded = new char[len];
+        for (int i = 0; i < len; ++i) {
+            folded[i] = Character.toLowerCase(key.charAt(i));
+        }
+        String normKey = new String(folded);
+        if (!keys.contains(normKey)) {
+            keys.add(normKey);
+        }
+    }
+
+    /** Is a record in the first entries of an array */
+    private static boolean contains(PwsRecord[] recs, int numRecs,
+                                    PwsRecord rec)
+    {
+        for (int i = 0; i < numRecs; ++i) {
+            if (recs[i] == rec) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Grow an array to a size */
+    private static int[] grow(int[] array, int size)
+    {
+        int[] newArray = new int[size];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+}
@@ -0,0 +1,818 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.file;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.pwsafe.lib.file.PwsRecord;
+
+/**
+ * The PasswdRecordQuery class is a structured query for records.  A query is
+ * a list of terms separated by spaces, all of which must match a record:
+ * <pre>
+ *     word             A title, user, URL, email, or notes containing word
+ *     field:value      The field contains the value
+ *     field:=value     The field is the value
+ *     field:~regex     The field matches the regex
+ *     group:name       The record is in the group or one of its subgroups
+ *     has:field        The field is not empty
+ *     is:kind          alias, shortcut, normal, expired, or protected
+ *     expires&lt;30d     The password expires within 30 days (d, w, m, y)
+ *     expires&gt;30d     The password expires after 30 days
+ *     -term            The term does not match
+ * </pre>
+ * The fields are title, user, url, email, notes, group, and uuid.  Values
+ * with spaces are quoted.  The query is parsed once into terms ordered so
+ * that the cheapest and most selective are checked first.  A term on the
+ * UUID, group, or expiration, or on the title, user, or URL with at least
+ * three characters, limits the records checked to those found from the
+ * file's UUID map, prefix index, expirations, or search index.
+ */
+public final class PasswdRecordQuery
+{
+    /** A field of a record in a query */
+    private enum Field
+    {
+        TITLE       ("title"),
+        USER        ("user"),
+        URL         ("url"),
+        EMAIL       ("email"),
+        NOTES       ("notes"),
+        GROUP       ("group"),
+        UUID        ("uuid"),
+        EXPIRY      ("expiry"),
+        POLICY      ("policy"),
+        HISTORY     ("history");
+
+        private final String itsName;
+
+        /** Constructor */
+        Field(String name)
+        {
+            itsName = name;
+        }
+
+        /** Get the field's value in a record */
+        public String getValue(PwsRecord rec, PasswdFileData fileData)
+        {
+            switch (this) {
+            case TITLE: {
+                return fileData.getTitle(rec);
+            }
+            case USER: {
+                return fileData.getUsername(rec);
+            }
+            case URL: {
+                return fileData.getURL(rec);
+            }
+            case EMAIL: {
+                return fileData.getEmail(rec);
+            }
+            case NOTES: {
+                return fileData.getNotes(rec);
+            }
+            case GROUP: {
+                return fileData.getGroup(rec);
+            }
+            case UUID: {
+                return fileData.getUUID(rec);
+            }
+            case EXPIRY:
+            case POLICY:
+            case HISTORY: {
+                break;
+            }
+            }
+            return null;
+        }
+
+        /** Find a field from its name in a query */
+        public static Field fromName(String name)
+        {
+            if (name.equals("username")) {
+                return USER;
+            }
+            for (Field field: values()) {
+                if (field.itsName.equals(name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** The fields matched by a word without a field */
+    private static final Field[] WORD_FIELDS =
+            { Field.TITLE, Field.USER, Field.URL, Field.EMAIL, Field.NOTES };
+
+    /** Relative costs of checking terms */
+    private static final int COST_UUID = 0;
+    private static final int COST_RECORD = 1;
+    private static final int COST_FIELD = 2;
+    private static final int COST_TEXT = 3;
+    private static final int COST_REGEX = 4;
+
+    /** A term of a query */
+    private static abstract class Term
+    {
+        private final boolean itsIsNegated;
+        private final int itsCost;
+
+        /** Constructor */
+        protected Term(boolean negated, int cost)
+        {
+            itsIsNegated = negated;
+            itsCost = cost;
+        }
+
+        /** Get whether a record matches the term */
+        public final boolean matches(PwsRecord rec, PasswdRecord passwdRec,
+                                     PasswdFileData fileData)
+        {
+            return test(rec, passwdRec, fileData) != itsIsNegated;
+        }
+
+        /**
+         * Get the records which may match the term from the file's indexes
+         * @return The records; null if the term can't use an index
+         */
+        public Collection<PwsRecord> getCandidates(PasswdFileData fileData)
+        {
+            return null;
+        }
+
+        /** Test whether a record matches the term before any negation */
+        protected abstract boolean test(PwsRecord rec, PasswdRecord passwdRec,
+                                        PasswdFileData fileData);
+    }
+
+    /** A term matching text in fields */
+    private static final class TextTerm extends Term
+    {
+        private final Field[] itsFields;
+        private final String itsValue;
+        private final boolean itsIsExact;
+        private final boolean itsIsCaseSensitive;
+
+        /** Constructor */
+        public TextTerm(boolean negated, Field[] fields, String value,
+                        boolean exact, boolean caseSensitive)
+        {
+            super(negated, (fields.length == 1) ? COST_FIELD : COST_TEXT);
+            itsFields = fields;
+            itsValue = value;
+            itsIsExact = exact;
+            itsIsCaseSensitive = caseSensitive;
+        }
+
+        @Override
+        public Collection<PwsRecord> getCandidates(PasswdFileData fileData)
+        {
+            if (itsFields.length != 1) {
+                return null;
+            }
+            switch (itsFields[0]) {
+            case TITLE:
+            case USER:
+            case URL: {
+                return fileData.getSearchIndex().findContaining(itsValue);
+            }
+            default: {
+                break;
+            }
+            }
+            return null;
+        }
+
+        @Override
+        protected boolean test(PwsRecord rec, PasswdRecord passwdRec,
+                               PasswdFileData fileData)
+        {
+            for (Field field: itsFields) {
+                String str = field.getValue(rec, fileData);
+                if (str == null) {
+                    continue;
+                }
+                if (itsIsExact) {
+                    if (itsIsCaseSensitive ? str.equals(itsValue) :
+                        str.equalsIgnoreCase(itsValue)) {
+                        return true;
+                    }
+                } else if (contains(str, itsValue, itsIsCaseSensitive)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** A term matching a regex in a field */
+    private static final class RegexTerm extends Term
+    {
+        private final Field itsField;
+        private final Pattern itsPattern;
+
+        /** Constructor */
+        public RegexTerm(boolean negated, Field field, Pattern pattern)
+        {
+            super(negated, COST_REGEX);
+            itsField = field;
+            itsPattern = pattern;
+        }
+
+        @Override
+        protected boolean test(PwsRecord rec, PasswdRecord passwdRec,
+                               PasswdFileData fileData)
+        {
+            String str = itsField.getValue(rec, fileData);
+            return (str != null) && itsPattern.matcher(str).find();
+        }
+    }
+
+    /** A term matching a group and its subgroups */
+    private static final class GroupTerm extends Term
+    {
+        private final String itsGroup;
+        private final boolean itsIsCaseSensitive;
+
+        /** Constructor */
+        public GroupTerm(boolean negated, String group, boolean caseSensitive)
+        {
+            super(negated, COST_FIELD);
+            itsGroup = group;
+            itsIsCaseSensitive = caseSensitive;
+        }
+
+        @Override
+        public Collection<PwsRecord> getCandidates(PasswdFileData fileData)
+        {
+            // The prefix index trims its keys
+            if (Character.isWhitespace(itsGroup.charAt(0))) {
+                return null;
+            }
+            return fileData.getPrefixIndex().findAll(itsGroup);
+        }
+
+        @Override
+        protected boolean test(PwsRecord rec, PasswdRecord passwdRec,
+                               PasswdFileData fileData)
+        {
+            String group = fileData.getGroup(rec);
+            if ((group == null) || (group.length() < itsGroup.length()) ||
+                !group.regionMatches(!itsIsCaseSensitive, 0,
+                                     itsGroup, 0, itsGroup.length())) {
+                return false;
+            }
+            return (group.length() == itsGroup.length()) ||
+                   (group.charAt(itsGroup.length()) == '.');
+        }
+    }
+
+    /** A term matching a record by its UUID */
+    private static final class UuidTerm extends Term
+    {
+        private final String itsUuid;
+
+        /** Constructor */
+        public UuidTerm(boolean negated, String uuid)
+        {
+            super(negated, COST_UUID);
+            itsUuid = uuid;
+        }
+
+        @Override
+        public Collection<PwsRecord> getCandidates(PasswdFileData fileData)
+        {
+            PwsRecord rec = fileData.getRecord(itsUuid);
+            return (rec != null) ? Collections.singletonList(rec) :
+                   Collections.<PwsRecord>emptyList();
+        }
+
+        @Override
+        protected boolean test(PwsRecord rec, PasswdRecord passwdRec,
+                               PasswdFileData fileData)
+        {
+            return itsUuid.equalsIgnoreCase(fileData.getUUID(rec));
+        }
+    }
+
+    /** A term matching a record with a non-empty field */
+    private static final class HasTerm extends Term
+    {
+        private final Field itsField;
+
+        /** Constructor */
+        public HasTerm(boolean negated, Field field)
+        {
+            super(negated, (field == Field.EXPIRY) ? COST_RECORD : COST_FIELD);
+            itsField = field;
+        }
+
+        @Override
+        public Collection<PwsRecord> getCandidates(PasswdFileData fileData)
+        {
+            return (itsField == Field.EXPIRY) ?
+                   getExpiryCandidates(fileData, Long.MAX_VALUE) : null;
+        }
+
+        @Override
+        protected boolean test(PwsRecord rec, PasswdRecord passwdRec,
+                               PasswdFileData fileData)
+        {
+            switch (itsField) {
+            case EXPIRY: {
+                return passwdRec.getPasswdExpiry() != null;
+            }
+            case POLICY: {
+                return passwdRec.getPasswdPolicy() != null;
+            }
+            case HISTORY: {
+                PasswdHistory history = fileData.getPasswdHistory(rec);
+                return (history != null) && !history.getPasswds().isEmpty();
+            }
+            default: {
+                String str = itsField.getValue(rec, fileData);
+                return (str != null) && (str.length() > 0);
+            }
+            }
+        }
+    }
+
+    /** Kind of record for an is: term */
+    private enum Kind
+    {
+        ALIAS,
+        SHORTCUT,
+        NORMAL,
+        EXPIRED,
+        PROTECTED;
+
+        /** Find a kind from its name in a query */
+        public static Kind fromName(String name)
+        {
+            for (Kind kind: values()) {
+                if (kind.name().equalsIgnoreCase(name)) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** A term matching a kind of record */
+    private static final class IsTerm extends Term
+    {
+        private final Kind itsKind;
+        private final long itsNow;
+
+        /** Constructor */
+        public IsTerm(boolean negated, Kind kind, long now)
+        {
+            super(negated, COST_RECORD);
+            itsKind = kind;
+            itsNow = now;
+        }
+
+        @Override
+        public Collection<PwsRecord> getCandidates(PasswdFileData fileData)
+        {
+            return (itsKind == Kind.EXPIRED) ?
+                   getExpiryCandidates(fileData, itsNow) : null;
+        }
+
+        @Override
+        protected boolean test(PwsRecord rec, PasswdRecord passwdRec,
+                               PasswdFileData fileData)
+        {
+            switch (itsKind) {
+            case ALIAS: {
+                return passwdRec.getType() == PasswdRecord.Type.ALIAS;
+            }
+            case SHORTCUT: {
+                return passwdRec.getType() == PasswdRecord.Type.SHORTCUT;
+            }
+            case NORMAL: {
+                return passwdRec.getType() == PasswdRecord.Type.NORMAL;
+            }
+            case EXPIRED: {
+                PasswdExpiration expiry = passwdRec.getPasswdExpiry();
+                return (expiry != null) &&
+                       (expiry.itsExpiration.getTime() < itsNow);
+            }
+            case PROTECTED: {
+                return fileData.isProtected(rec);
+            }
+            }
+            return false;
+        }
+    }
+
+    /** A term matching when a password expires */
+    private static final class ExpiresTerm extends Term
+    {
+        private final boolean itsIsBefore;
+        private final long itsExpiry;
+
+        /** Constructor */
+        public ExpiresTerm(boolean negated, boolean before, long expiry)
+        {
+            super(negated, COST_RECORD);
+            itsIsBefore = before;
+            itsExpiry = expiry;
+        }
+
+        @Override
+        public Collection<PwsRecord> getCandidates(PasswdFileData fileData)
+        {
+            return getExpiryCandidates(fileData,
+                                       itsIsBefore ? itsExpiry :
+                                       Long.MAX_VALUE);
+        }
+
+        @Override
+        protected boolean test(PwsRecord rec, PasswdRecord passwdRec,
+                               PasswdFileData fileData)
+        {
+            PasswdExpiration expiry = passwdRec.getPasswdExpiry();
+            if (expiry == null) {
+                return false;
+            }
+            long expire = expiry.itsExpiration.getTime();
+            return itsIsBefore ? (expire < itsExpiry) : (expire >= itsExpiry);
+        }
+    }
+
+    private final String itsQuery;
+    private final boolean itsIsCaseSensitive;
+    private final List<Term> itsTerms;
+
+    /** Constructor */
+    private PasswdRecordQuery(String query, boolean caseSensitive,
+                              List<Term> terms)
+    {
+        itsQuery = query;
+        itsIsCaseSensitive = caseSensitive;
+        itsTerms = terms;
+    }
+
+    /**
+     * Get whether a query string uses the structured syntax rather than
+     * being a single search pattern.  A query is structured if it has a term
+     * with a known field, has: field, is: kind, or expiration.
+     */
+    public static boolean isStructured(String query)
+    {
+        for (String token: tokenize(query)) {
+            if (token.startsWith("-")) {
+                token = token.substring(1);
+            }
+            if (token.startsWith("expires<") || token.startsWith("expires>")) {
+                return true;
+            }
+            int colon = token.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = token.substring(0, colon);
+            String value = unquote(token.substring(colon + 1));
+            switch (name) {
+            case "has": {
+                if (Field.fromName(value) != null) {
+                    return true;
+                }
+                break;
+            }
+            case "is": {
+                if (Kind.fromName(value) != null) {
+                    return true;
+                }
+                break;
+            }
+            default: {
+                Field field = Field.fromName(name);
+                if ((field != null) && isTextField(field)) {
+                    return true;
+                }
+                break;
+            }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse a query
+     * @throws IllegalArgumentException if the query is invalid
+     */
+    public static PasswdRecordQuery parse(String query, boolean caseSensitive)
+            throws IllegalArgumentException
+    {
+        long now = System.currentTimeMillis();
+        List<Term> terms = new ArrayList<>();
+        for (String token: tokenize(query)) {
+            boolean negated = false;
+            if ((token.length() > 1) && token.startsWith("-")) {
+                negated = true;
+                token = token.substring(1);
+            }
+            terms.add(parseTerm(token, negated, caseSensitive, now));
+        }
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Empty query");
+        }
+
+        // Check the cheapest terms first; the sort keeps the query's order
+        // for terms of the same cost
+        Collections.sort(terms, new Comparator<Term>()
+        {
+            @Override
+            public int compare(Term lhs, Term rhs)
+            {
+                return (lhs.itsCost < rhs.itsCost) ? -1 :
+                       ((lhs.itsCost == rhs.itsCost) ? 0 : 1);
+            }
+        });
+        return new PasswdRecordQuery(query, caseSensitive, terms);
+    }
+
+    /** Get the query string */
+    public String getQuery()
+    {
+        return itsQuery;
+    }
+
+    /** Get whether text in the query is matched with case */
+    public boolean isCaseSensitive()
+    {
+        return itsIsCaseSensitive;
+    }
+
+    /**
+     * Get the records which may match the query.  The smallest set of
+     * records from the indexes for the query's terms is used, or all of the
+     * records if no term can use an index.
+     */
+    public Collection<PwsRecord> getCandidates(PasswdFileData fileData)
+    {
+        Collection<PwsRecord> candidates = null;
+        for (Term term: itsTerms) {
+            if (term.itsIsNegated) {
+                continue;
+            }
+            Collection<PwsRecord> termCandidates =
+                    term.getCandidates(fileData);
+            if ((termCandidates != null) &&
+                ((candidates == null) ||
+                 (termCandidates.size() < candidates.size()))) {
+                candidates = termCandidates;
+            }
+        }
+        return (candidates != null) ? candidates : fileData.getRecords();
+    }
+
+    /** Get whether a record matches the query */
+    public boolean matches(PwsRecord rec, PasswdFileData fileData)
+    {
+        PasswdRecord passwdRec = fileData.getPasswdRecord(rec);
+        if (passwdRec == null) {
+            return false;
+        }
+        for (Term term: itsTerms) {
+            if (!term.matches(rec, passwdRec, fileData)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Parse a term of a query */
+    private static Term parseTerm(String token, boolean negated,
+                                  boolean caseSensitive, long now)
+            throws IllegalArgumentException
+    {
+        if (token.startsWith("expires<") || token.startsWith("expires>")) {
+            boolean before = (token.charAt(7) == '<');
+            long expiry = parseInterval(token.substring(8), now);
+            return new ExpiresTerm(negated, before, expiry);
+        }
+
+        int colon = token.indexOf(':');
+        if (colon <= 0) {
+            return new TextTerm(negated, WORD_FIELDS, unquote(token),
+                                false, caseSensitive);
+        }
+        String name = token.substring(0, colon);
+        String value = unquote(token.substring(colon + 1));
+        switch (name) {
+        case "has": {
+            Field field = Field.fromName(value);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field: " + value);
+            }
+            return new HasTerm(negated, field);
+        }
+        case "is": {
+            Kind kind = Kind.fromName(value);
+            if (kind == null) {
+                throw new IllegalArgumentException(
+                        "Unknown record kind: " + value);
+            }
+            return new IsTerm(negated, kind, now);
+        }
+        }
+
+        Field field = Field.fromName(name);
+        if ((field == null) || !isTextField(field)) {
+            // Not a query field, so match the whole token as a word
+            return new TextTerm(negated, WORD_FIELDS, unquote(token),
+                                false, caseSensitive);
+        }
+        if (value.startsWith("~")) {
+            try {
+                Pattern pattern = Pattern.compile(
+                        value.substring(1),
+                        caseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
+                return new RegexTerm(negated, field, pattern);
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException(
+                        "Invalid regex: " + value.substring(1), e);
+            }
+        }
+        boolean exact = value.startsWith("=");
+        if (exact) {
+            value = value.substring(1);
+        }
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing value for " + name);
+        }
+        switch (field) {
+        case GROUP: {
+            if (!exact) {
+                return new GroupTerm(negated, value, caseSensitive);
+            }
+            break;
+        }
+        case UUID: {
+            return new UuidTerm(negated, value);
+        }
+        default: {
+            break;
+        }
+        }
+        return new TextTerm(negated, new Field[] { field }, value,
+                            exact, caseSensitive);
+    }
+
+    /** Get whether a field has a text value in a record */
+    private static boolean isTextField(Field field)
+    {
+        switch (field) {
+        case TITLE:
+        case USER:
+        case URL:
+        case EMAIL:
+        case NOTES:
+        case GROUP:
+        case UUID: {
+            return true;
+        }
+        case EXPIRY:
+        case POLICY:
+        case HISTORY: {
+            break;
+        }
+        }
+        return false;
+    }
+
+    /**
+     * Parse an interval from now such as 30d
+     * @return The time at the end of the interval
+     */
+    private static long parseInterval(String interval, long now)
+            throws IllegalArgumentException
+    {
+        int len = interval.length();
+        if (len < 2) {
+            throw new IllegalArgumentException("Invalid interval: " + interval);
+        }
+        int num;
+        try {
+            num = Integer.parseInt(interval.substring(0, len - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "Invalid interval: " + interval, e);
+        }
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(now);
+        switch (interval.charAt(len - 1)) {
+        case 'd': {
+            cal.add(Calendar.DAY_OF_MONTH, num);
+            break;
+        }
+        case 'w': {
+            cal.add(Calendar.WEEK_OF_YEAR, num);
+            break;
+        }
+        case 'm': {
+            cal.add(Calendar.MONTH, num);
+            break;
+        }
+        case 'y': {
+            cal.add(Calendar.YEAR, num);
+            break;
+        }
+        default: {
+            throw new IllegalArgumentException(
+                    "Invalid interval: " + interval);
+        }
+        }
+        return cal.getTimeInMillis();
+    }
+
+    /** Get the records whose passwords expire before a time */
+    private static Collection<PwsRecord> getExpiryCandidates(
+            PasswdFileData fileData, long expiryBefore)
+    {
+        List<PwsRecord> recs = new ArrayList<>();
+        for (PasswdRecord passwdRec: fileData.getPasswdRecords()) {
+            PasswdExpiration expiry = passwdRec.getPasswdExpiry();
+            if ((expiry != null) &&
+                (expiry.itsExpiration.getTime() < expiryBefore)) {
+                recs.add(passwdRec.getRecord());
+            }
+        }
+        return recs;
+    }
+
+    /** Split a query into tokens at spaces outside of quotes */
+    private static List<String> tokenize(String query)
+    {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < query.length(); ++i) {
+            char c = query.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                token.append(c);
+            } else if (!quoted && Character.isWhitespace(c)) {
+                if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+            } else {
+                token.append(c);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    /** Remove the quotes around a value */
+    private static String unquote(String value)
+    {
+        int len = value.length();
+        int start = 0;
+        while ((start < len) && ((value.charAt(start) == '=') ||
+                                 (value.charAt(start) == '~'))) {
+            ++start;
+        }
+        if ((len - start >= 2) && (value.charAt(start) == '"') &&
+            (value.charAt(len - 1) == '"')) {
+            return value.substring(0, start) +
+                   value.substring(start + 1, len - 1);
+        }
+        return value;
+    }
+
+    /** Get whether a string contains a value */
+    private static boolean contains(String str, String value,
+                                    boolean caseSensitive)
+    {
+        if (caseSensitive) {
+            return str.contains(value);
+        }
+        int valueLen = value.length();
+        for (int i = 0; i + valueLen <= str.length(); ++i) {
+            if (str.regionMatches(true, i, value, 0, valueLen)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
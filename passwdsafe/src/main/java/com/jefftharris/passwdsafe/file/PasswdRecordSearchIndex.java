@@ -0,0 +1,456 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.file;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.pwsafe.lib.file.PwsRecord;
+
+/**
+ * The PasswdRecordSearchIndex class finds records whose titles, users, or
+ * URLs nearly contain a search, such as "gmial" for "gmail".  A search
+ * matches a field when some part of the field is within a few edits of it,
+ * counting a swap of two letters as one edit.
+ * <p>
+ * The index maps each trigram of the case-folded fields to the records
+ * containing it.  A part of a field within d edits of a search must contain
+ * all but 4d of the search's distinct trigrams, and all but d of its
+ * distinct characters, so only fields with enough of both are checked for
+ * their edit distance.  The best matches are kept in a bounded heap.  The
+ * index also finds the records whose fields may contain a value for the
+ * text terms of a {@link PasswdRecordQuery}.  The index is updated as
+ * records are added, changed, and removed.
+ */
+public final class PasswdRecordSearchIndex
+{
+    /** Fields in the index, in order of their rank when matched */
+    private static final int FIELD_TITLE = 0;
+    private static final int FIELD_USER = 1;
+    private static final int FIELD_URL = 2;
+    private static final int NUM_FIELDS = 3;
+
+    /** Most trigrams lost by each edit, including a swap */
+    private static final int TRIGRAMS_PER_EDIT = 4;
+
+    /** A matched record */
+    private static final class Match
+    {
+        public final int itsRecordIdx;
+        public final int itsScore;
+
+        /** Constructor */
+        public Match(int recordIdx, int score)
+        {
+            itsRecordIdx = recordIdx;
+            itsScore = score;
+        }
+    }
+
+    /** Comparator for matches from best to worst */
+    private static final Comparator<Match> BEST_FIRST =
+            new Comparator<Match>()
+            {
+                @Override
+                public int compare(Match lhs, Match rhs)
+                {
+                    if (lhs.itsScore != rhs.itsScore) {
+                        return (lhs.itsScore < rhs.itsScore) ? -1 : 1;
+                    }
+                    return (lhs.itsRecordIdx < rhs.itsRecordIdx) ? -1 :
+                           ((lhs.itsRecordIdx == rhs.itsRecordIdx) ? 0 : 1);
+                }
+            };
+
+    /** A growable sorted list of record indexes */
+    private static final class Postings
+    {
+        private int[] itsRecordIdxs = new int[4];
+        private int itsSize = 0;
+
+        /** Add a record if not already present */
+        public void add(int recordIdx)
+        {
+            int pos = Arrays.binarySearch(itsRecordIdxs, 0, itsSize,
+                                          recordIdx);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (itsSize == itsRecordIdxs.length) {
+                int[] idxs = new int[itsSize * 2];
+                System.arraycopy(itsRecordIdxs, 0, idxs, 0, itsSize);
+                itsRecordIdxs = idxs;
+            }
+            System.arraycopy(itsRecordIdxs, pos, itsRecordIdxs, pos + 1,
+                             itsSize - pos);
+            itsRecordIdxs[pos] = recordIdx;
+            ++itsSize;
+        }
+
+        /** Remove a record if present */
+        public void remove(int recordIdx)
+        {
+            int pos = Arrays.binarySearch(itsRecordIdxs, 0, itsSize,
+                                          recordIdx);
+            if (pos >= 0) {
+                System.arraycopy(itsRecordIdxs, pos + 1, itsRecordIdxs, pos,
+                                 itsSize - pos - 1);
+                --itsSize;
+            }
+        }
+
+        /** Get whether the postings have a record */
+        public boolean contains(int recordIdx)
+        {
+            return Arrays.binarySearch(itsRecordIdxs, 0, itsSize,
+                                       recordIdx) >= 0;
+        }
+    }
+
+    /** Records by index; null for a removed record */
+    private final List<PwsRecord> itsRecords = new ArrayList<>();
+    /** Case-folded fields of each record; a field may be null */
+    private final List<String[]> itsFields = new ArrayList<>();
+    /** Bit sets of the characters in each field */
+    private final List<long[]> itsFieldChars = new ArrayList<>();
+    private final Map<PwsRecord, Integer> itsRecordIdxs =
+            new IdentityHashMap<>();
+    private final Map<Long, Postings> itsPostings = new HashMap<>();
+    private int itsVersion = 0;
+
+    /** Constructor */
+    public PasswdRecordSearchIndex(PasswdFileData fileData)
+    {
+        for (PwsRecord rec: fileData.getRecords()) {
+            recordChanged(rec, fileData);
+        }
+    }
+
+    /** Get the version of the index, which changes as records are updated */
+    public int getVersion()
+    {
+        return itsVersion;
+    }
+
+    /** Update the index for a record which was added or changed */
+    public void recordChanged(PwsRecord rec, PasswdFileData fileData)
+    {
+        ++itsVersion;
+        Integer idx = itsRecordIdxs.get(rec);
+        int recordIdx;
+        if (idx != null) {
+            recordIdx = idx;
+            updatePostings(recordIdx, false);
+        } else {
+            recordIdx = itsRecords.size();
+            itsRecords.add(rec);
+            itsFields.add(null);
+            itsFieldChars.add(null);
+            itsRecordIdxs.put(rec, recordIdx);
+        }
+
+        String[] fields = new String[NUM_FIELDS];
+        fields[FIELD_TITLE] = fold(fileData.getTitle(rec));
+        fields[FIELD_USER] = fold(fileData.getUsername(rec));
+        fields[FIELD_URL] = fold(fileData.getURL(rec));
+        long[] fieldChars = new long[NUM_FIELDS];
+        for (int field = 0; field < NUM_FIELDS; ++field) {
+            fieldChars[field] = getChars(fields[field]);
+        }
+        itsFields.set(recordIdx, fields);
+        itsFieldChars.set(recordIdx, fieldChars);
+        updatePostings(recordIdx, true);
+    }
+
+    /** Remove a record from the index */
+    public void removeRecord(PwsRecord rec)
+    {
+        Integer idx = itsRecordIdxs.remove(rec);
+        if (idx == null) {
+            return;
+        }
+        ++itsVersion;
+        updatePostings(idx, false);
+        itsRecords.set(idx, null);
+        itsFields.set(idx, null);
+        itsFieldChars.set(idx, null);
+    }
+
+    /**
+     * Search for records nearly matching a string
+     * @param search The search string
+     * @param maxResults The maximum number of records to return
+     * @return The matched records from best to worst
+     */
+    public List<PwsRecord> search(String search, int maxResults)
+    {
+        String query = fold(search.trim());
+        int queryLen = (query != null) ? query.length() : 0;
+        if ((queryLen == 0) || (maxResults <= 0)) {
+            return Collections.emptyList();
+        }
+        int maxEdits = getMaxEdits(queryLen);
+        long queryChars = getChars(query);
+        int minChars = Long.bitCount(queryChars) - maxEdits;
+
+        // Count the search's trigrams in each record to skip records which
+        // can't be close enough
+        Set<Long> trigrams = new HashSet<>();
+        for (int pos = 0; pos + 3 <= queryLen; ++pos) {
+            trigrams.add(getTrigram(query, pos));
+        }
+        int minTrigrams = trigrams.size() - TRIGRAMS_PER_EDIT * maxEdits;
+        int[] counts = null;
+        if (minTrigrams > 0) {
+            counts = new int[itsRecords.size()];
+            for (Long trigram: trigrams) {
+                Postings postings = itsPostings.get(trigram);
+                if (postings == null) {
+                    continue;
+                }
+                for (int i = 0; i < postings.itsSize; ++i) {
+                    ++counts[postings.itsRecordIdxs[i]];
+                }
+            }
+        }
+
+        // Keep the best matches with the worst on the top of the heap
+        PriorityQueue<Match> best = new PriorityQueue<>(
+                Math.min(maxResults, 64), Collections.reverseOrder(BEST_FIRST));
+        int[][] rows = new int[3][queryLen + 1];
+        for (int i = 0; i < itsRecords.size(); ++i) {
+            String[] fields = itsFields.get(i);
+            if ((fields == null) ||
+                ((counts != null) && (counts[i] < minTrigrams))) {
+                continue;
+            }
+            int score = Integer.MAX_VALUE;
+            long[] fieldChars = itsFieldChars.get(i);
+            for (int field = 0; field < NUM_FIELDS; ++field) {
+                if ((fields[field] == null) ||
+                    (Long.bitCount(fieldChars[field] & queryChars) <
+                     minChars)) {
+                    continue;
+                }
+                int edits = getSubstringEdits(query, fields[field],
+                                              maxEdits, rows);
+                if (edits <= maxEdits) {
+                    score = Math.min(score, edits * NUM_FIELDS + field);
+                }
+            }
+            if (score == Integer.MAX_VALUE) {
+                continue;
+            }
+
+            Match match = new Match(i, score);
+            if (best.size() < maxResults) {
+                best.add(match);
+            } else if (BEST_FIRST.compare(match, best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(best);
+        Collections.sort(matches, BEST_FIRST);
+        List<PwsRecord> recs = new ArrayList<>(matches.size());
+        for (Match match: matches) {
+            recs.add(itsRecords.get(match.itsRecordIdx));
+        }
+        return recs;
+    }
+
+    /**
+     * Find the records whose titles, users, or URLs may contain a value,
+     * ignoring case.  The records are those with all of the value's
+     * trigrams in their fields.
+     * @return The records; null if the value is too short to have a trigram
+     */
+    public List<PwsRecord> findContaining(String value)
+    {
+        String folded = fold(value);
+        if (folded.length() < 3) {
+            return null;
+        }
+        List<Postings> valuePostings = new ArrayList<>();
+        Postings rarest = null;
+        for (int pos = 0; pos + 3 <= folded.length(); ++pos) {
+            Postings postings = itsPostings.get(getTrigram(folded, pos));
+            if (postings == null) {
+                return Collections.emptyList();
+            }
+            valuePostings.add(postings);
+            if ((rarest == null) || (postings.itsSize < rarest.itsSize)) {
+                rarest = postings;
+            }
+        }
+
+        // Check the records of the rarest trigram for the others
+        List<PwsRecord> recs = new ArrayList<>();
+        for (int i = 0; i < rarest.itsSize; ++i) {
+            int recordIdx = rarest.itsRecordIdxs[i];
+            boolean matches = true;
+            for (Postings postings: valuePostings) {
+                if ((postings != rarest) && !postings.contains(recordIdx)) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                recs.add(itsRecords.get(recordIdx));
+            }
+        }
+        return recs;
+    }
+
+    /** Add or remove a record in the postings of its fields' trigrams */
+    private void updatePostings(int recordIdx, boolean add)
+    {
+        for (String field: itsFields.get(recordIdx)) {
+            if (field == null) {
+                continue;
+            }
+            for (int pos = 0; pos + 3 <= field.length(); ++pos) {
+                Long trigram = getTrigram(field, pos);
+                Postings postings = itsPostings.get(trigram);
+                if (add) {
+                    if (postings == null) {
+                        postings = new Postings();
+                        itsPostings.put(trigram, postings);
+                    }
+                    postings.add(recordIdx);
+                } else if (postings != null) {
+                    postings.remove(recordIdx);
+                    if (postings.itsSize == 0) {
+                        itsPostings.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Get the number of edits allowed for a search of a length */
+    private static int getMaxEdits(int len)
+    {
+        if (len < 4) {
+            return 0;
+        } else if (len < 8) {
+            return 1;
+        }
+        return 2;
+    }
+
+    /**
+     * Get the fewest edits, counting a swap of adjacent characters as one,
+     * between the query and any part of the text
+     * @return The number of edits; more than maxEdits if there are more
+     */
+    private static int getSubstringEdits(String query, String text,
+                                         int maxEdits, int[][] rows)
+    {
+        int queryLen = query.length();
+        int[] prev2 = rows[0];
+        int[] prev = rows[1];
+        int[] curr = rows[2];
+        for (int i = 0; i <= queryLen; ++i) {
+            prev[i] = i;
+        }
+
+        // A match may start anywhere in the text, so the first row is zero.
+        // Only the cells up to one past the last one within maxEdits are
+        // computed; the cell after them is set to more than maxEdits.
+        int best = prev[queryLen];
+        int last = Math.min(maxEdits, queryLen);
+        for (int j = 1; j <= text.length(); ++j) {
+            char tc = text.charAt(j - 1);
+            int lim = Math.min(last + 1, queryLen);
+            curr[0] = 0;
+            for (int i = 1; i <= lim; ++i) {
+                char qc = query.charAt(i - 1);
+                int edits = prev[i - 1] + ((qc == tc) ? 0 : 1);
+                edits = Math.min(edits, prev[i] + 1);
+                edits = Math.min(edits, curr[i - 1] + 1);
+                if ((i > 1) && (j > 1) &&
+                    (qc == text.charAt(j - 2)) &&
+                    (query.charAt(i - 2) == tc)) {
+                    edits = Math.min(edits, prev2[i - 2] + 1);
+                }
+                curr[i] = edits;
+            }
+            if (lim < queryLen) {
+                curr[lim + 1] = maxEdits + 1;
+            } else {
+                best = Math.min(best, curr[queryLen]);
+                if (best == 0) {
+                    break;
+                }
+            }
+            last = lim;
+            while (curr[last] > maxEdits) {
+                --last;
+            }
+
+            int[] tmp = prev2;
+            prev2 = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return best;
+    }
+
+    /** Get the key of the trigram at a position */
+    private static Long getTrigram(String str, int pos)
+    {
+        return ((long)str.charAt(pos) << 32) |
+               ((long)str.charAt(pos + 1) << 16) |
+               str.charAt(pos + 2);
+    }
+
+    /**
+     * Get the bit set of the characters in a string.  Characters sharing a
+     * bit only make the set larger.
+     */
+    private static long getChars(String str)
+    {
+        long chars = 0;
+        if (str != null) {
+            for (int i = 0; i < str.length(); ++i) {
+                chars |= 1L << (str.charAt(i) & 63);
+            }
+        }
+        return chars;
+    }
+
+    /**
+     * Fold the case of a field.  Characters equal ignoring case as in
+     * String.regionMatches fold to the same character.
+     */
+    private static String fold(String field)
+    {
+        if (field == null) {
+            return null;
+        }
+        int len = field.length();
+        char[] folded = new char[len];
+        for (int i = 0; i < len; ++i) {
+            folded[i] = Character.toLowerCase(
+                    Character.toUpperCase(field.charAt(i)));
+        }
+        return new String(folded);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.file;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.HashSet;
+import java.util.Set;
+
+import android.content.res.AssetManager;
+import android.util.Log;
+
+/**
+ * The PublicSuffixList class finds the registrable domain of a host, e.g.
+ * "example.co.uk" for "www.example.co.uk", from the rules of the public
+ * suffix list.
+ * <p>
+ * The rules are stored in the public_suffix_list.dat asset, one per
+ * line in the list's own format, and are loaded on first use.  Without the
+ * asset, the last label of a host is its public suffix.
+ */
+public final class PublicSuffixList
+{
+    private static final String ASSET = "public_suffix_list.dat";
+    private static final String TAG = "PublicSuffixList";
+
+    private static AssetManager itsAssets;
+
+    /** Holder of the rules loaded on first use */
+    private static final class Rules
+    {
+        public static final Set<String> itsRules = new HashSet<>();
+        /** Suffixes of wildcard rules, without the leading "*." */
+        public static final Set<String> itsWildcards = new HashSet<>();
+        /** Exception rules, without the leading "!" */
+        public static final Set<String> itsExceptions = new HashSet<>();
+
+        static {
+            try {
+                load();
+            } catch (IOException e) {
+                Log.e(TAG, "Error loading public suffixes", e);
+                itsRules.clear();
+                itsWildcards.clear();
+                itsExceptions.clear();
+            }
+        }
+    }
+
+    /** Constructor */
+    private PublicSuffixList()
+    {
+    }
+
+    /**
+     * Set the assets from which the rules are loaded, such as the
+     * application's assets when it is created
+     */
+    public static synchronized void setAssets(AssetManager assets)
+    {
+        itsAssets = assets;
+    }
+
+    /**
+     * Get the number of labels at the end of a host which form its
+     * registrable domain
+     * @param labels The host's lower-case labels, e.g. "www", "example",
+     *               "com"
+     * @return The number of labels in the registrable domain; 0 if the host
+     * is itself a public suffix
+     */
+    public static int getRegistrableLabels(String[] labels)
+    {
+        int suffixLabels = getPublicSuffixLabels(labels);
+        return (suffixLabels < labels.length) ? suffixLabels + 1 : 0;
+    }
+
+    /**
+     * Get the number of labels at the end of a host which form its public
+     * suffix
+     */
+    private static int getPublicSuffixLabels(String[] labels)
+    {
+        // Check from the longest suffix so the most specific rule wins
+        for (int i = 0; i < labels.length; ++i) {
+            String suffix = join(labels, i);
+            if (Rules.itsExceptions.contains(suffix)) {
+                return labels.length - i - 1;
+            }
+            if (Rules.itsRules.contains(suffix) ||
+                ((i + 1 < labels.length) &&
+                 Rules.itsWildcards.contains(join(labels, i + 1)))) {
+                return labels.length - i;
+            }
+        }
+        return 1;
+    }
+
+    /** Join the labels of a host from a starting label */
+    private static String join(String[] labels, int start)
+    {
+        StringBuilder str = new StringBuilder(labels[start]);
+        for (int i = start + 1; i < labels.length; ++i) {
+            str.append('.').append(labels[i]);
+        }
+        return str.toString();
+    }
+
+    /** Load the rules from the asset */
+    @SuppressWarnings("TryFinallyCanBeTryWithResources")
+    private static void load() throws IOException
+    {
+        AssetManager assets;
+        synchronized (PublicSuffixList.class) {
+            assets = itsAssets;
+        }
+        if (assets == null) {
+            throw new IOException("No assets for " + ASSET);
+        }
+        InputStream is = assets.open(ASSET, AssetManager.ACCESS_STREAMING);
+        BufferedReader reader =
+                new BufferedReader(new InputStreamReader(is, "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if ((line.length() == 0) || line.startsWith("//")) {
+                    continue;
+                }
+                if (line.startsWith("!")) {
+                    Rules.itsExceptions.add(line.substring(1));
+                } else if (line.startsWith("*.")) {
+                    Rules.itsWildcards.add(line.substring(2));
+                } else {
+                    Rules.itsRules.add(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.file;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The TrigramSampler class picks letters for pronounceable passwords from
+ * cumulative frequency tables built once from the {@link Trigram} data
+ * when first used
+ */
+public final class TrigramSampler
+{
+    private static final int NUM_LETTERS = 26;
+    private static final int NUM_DIGRAMS = NUM_LETTERS * NUM_LETTERS;
+    private static final int NUM_TRIGRAMS = Trigram.NUM_TRIGRAMS;
+
+    /** Cumulative frequencies of all trigrams */
+    private final int[] itsStartSums = new int[NUM_TRIGRAMS];
+
+    /**
+     * Cumulative frequencies of the letter following each digram.  The row
+     * for a digram starts at digram * 26.
+     */
+    private final int[] itsNextSums = new int[NUM_TRIGRAMS];
+
+    /** Entropies, in bits, of the first one, two, and three letters */
+    private final double[] itsStartEntropies = new double[3];
+
+    /** Average entropy, in bits, of each letter after the first three */
+    private final double itsNextEntropy;
+
+    private static TrigramSampler itsSampler;
+
+    /** Get the sampler, building it on first use */
+    public static synchronized TrigramSampler get()
+    {
+        if (itsSampler == null) {
+            try {
+                itsSampler = new TrigramSampler(Trigram.loadFrequencies());
+            } catch (IOException e) {
+                throw new IllegalStateException("Error loading trigrams", e);
+            }
+        }
+        return itsSampler;
+    }
+
+    /** Constructor */
+    private TrigramSampler(short[] freqs)
+    {
+        int[] letterFreqs = new int[NUM_LETTERS];
+        int[] digramFreqs = new int[NUM_DIGRAMS];
+        int startSum = 0;
+        for (int c1 = 0; c1 < NUM_LETTERS; ++c1) {
+            for (int c2 = 0; c2 < NUM_LETTERS; ++c2) {
+                int digram = c1 * NUM_LETTERS + c2;
+                int rowSum = 0;
+                for (int c3 = 0; c3 < NUM_LETTERS; ++c3) {
+                    int idx = digram * NUM_LETTERS + c3;
+                    int freq = freqs[idx];
+                    startSum += freq;
+                    rowSum += freq;
+                    itsStartSums[idx] = startSum;
+                    itsNextSums[idx] = rowSum;
+                }
+                letterFreqs[c1] += rowSum;
+                digramFreqs[digram] = rowSum;
+            }
+        }
+
+        itsStartEntropies[0] = entropy(letterFreqs, startSum);
+        itsStartEntropies[1] = entropy(digramFreqs, startSum);
+        itsStartEntropies[2] = 0.0;
+        double nextEntropy = 0.0;
+        int[] row = new int[NUM_LETTERS];
+        for (int digram = 0; digram < NUM_DIGRAMS; ++digram) {
+            int rowSum = 0;
+            for (int c3 = 0; c3 < NUM_LETTERS; ++c3) {
+                int freq = freqs[digram * NUM_LETTERS + c3];
+                row[c3] = freq;
+                rowSum += freq;
+                if (freq > 0) {
+                    double p = (double)freq / startSum;
+                    itsStartEntropies[2] -= p * log2(p);
+                }
+            }
+            if (rowSum > 0) {
+                // Weight each digram's entropy by how often it occurs
+                nextEntropy +=
+                        ((double)rowSum / startSum) * entropy(row, rowSum);
+            }
+        }
+        itsNextEntropy = nextEntropy;
+    }
+
+    /**
+     * Pick a random trigram weighted by frequency
+     * @return The trigram as c1 * 676 + c2 * 26 + c3
+     */
+    public int sampleStart(Random random)
+    {
+        int ranno = random.nextInt(itsStartSums[NUM_TRIGRAMS - 1]);
+        return search(itsStartSums, 0, NUM_TRIGRAMS, ranno);
+    }
+
+    /**
+     * Pick a random letter to follow two letters weighted by frequency.
+     * A digram with no known continuation is followed by a letter weighted
+     * by its frequency at the start of a trigram.
+     * @return The letter index
+     */
+    public int sampleNext(int c1, int c2, Random random)
+    {
+        int start = (c1 * NUM_LETTERS + c2) * NUM_LETTERS;
+        int rowSum = itsNextSums[start + NUM_LETTERS - 1];
+        if (rowSum == 0) {
+            return sampleStart(random) / NUM_DIGRAMS;
+        }
+        int ranno = random.nextInt(rowSum);
+        return search(itsNextSums, start, start + NUM_LETTERS, ranno) - start;
+    }
+
+    /**
+     * Estimate the entropy, in bits, of a lowercase pronounceable password
+     * of the given length
+     */
+    public double getEntropy(int length)
+    {
+        if (length <= 0) {
+            return 0.0;
+        } else if (length <= 3) {
+            return itsStartEntropies[length - 1];
+        }
+        return itsStartEntropies[2] + (length - 3) * itsNextEntropy;
+    }
+
+    /**
+     * Find the first index in [from, to) whose cumulative sum is greater
+     * than the value
+     */
+    private static int search(int[] sums, int from, int to, int value)
+    {
+        int low = from;
+        int high = to - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sums[mid] > value) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /** Compute the entropy, in bits, of a frequency distribution */
+    private static double entropy(int[] freqs, int total)
+    {
+        double entropy = 0.0;
+        for (int freq: freqs) {
+            if (freq > 0) {
+                double p = (double)freq / total;
+                entropy -= p * log2(p);
+            }
+        }
+        return entropy;
+    }
+
+    /** Compute the base 2 logarithm */
+    private static double log2(double x)
+    {
+        return Math.log(x) / Math.log(2);
+    }
+}
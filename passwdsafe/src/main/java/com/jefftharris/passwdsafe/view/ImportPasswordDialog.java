@@ -0,0 +1,105 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.view;
+
+import android.annotation.SuppressLint;
+import android.app.Dialog;
+import android.content.DialogInterface;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.v4.app.DialogFragment;
+import android.support.v7.app.AlertDialog;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.TextView;
+
+import com.jefftharris.passwdsafe.R;
+import com.jefftharris.passwdsafe.lib.view.AbstractDialogClickListener;
+import com.jefftharris.passwdsafe.lib.view.GuiUtils;
+
+import org.pwsafe.lib.file.Owner;
+import org.pwsafe.lib.file.PwsPassword;
+
+/**
+ * Dialog to enter the password of a password file to import
+ */
+public class ImportPasswordDialog extends DialogFragment
+{
+    /**
+     * Listener interface for the owning activity
+     */
+    public interface Listener
+    {
+        /** Handle the password entered for a file to import */
+        void handleImportPassword(Uri importUri,
+                                  Owner<PwsPassword>.Param passwd);
+    }
+
+    /**
+     * Create a new instance
+     */
+    public static ImportPasswordDialog newInstance(Uri importUri)
+    {
+        ImportPasswordDialog dialog = new ImportPasswordDialog();
+        Bundle args = new Bundle();
+        args.putParcelable("uri", importUri);
+        dialog.setArguments(args);
+        return dialog;
+    }
+
+    @Override
+    public @NonNull Dialog onCreateDialog(Bundle savedInstanceState)
+    {
+        LayoutInflater factory = LayoutInflater.from(getContext());
+        @SuppressLint("InflateParams")
+        final View view = factory.inflate(R.layout.import_password, null);
+        AbstractDialogClickListener dlgClick =
+                new AbstractDialogClickListener()
+                {
+                    @Override
+                    public void onOkClicked(DialogInterface dialog)
+                    {
+                        EditText passwdEdit = (EditText)
+                                view.findViewById(R.id.import_password);
+                        Uri importUri = getArguments().getParcelable("uri");
+                        Owner<PwsPassword> passwd = new Owner<>(
+                                new PwsPassword(passwdEdit.getText()));
+                        try {
+                            ((Listener)getActivity()).handleImportPassword(
+                                    importUri, passwd.pass());
+                        } finally {
+                            passwd.close();
+                        }
+                    }
+                };
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(getContext())
+                .setTitle(R.string.import_records)
+                .setView(view)
+                .setPositiveButton(R.string.ok, dlgClick)
+                .setNegativeButton(R.string.cancel, dlgClick)
+                .setOnCancelListener(dlgClick);
+        final AlertDialog alertDialog = builder.create();
+        TextView tv = (TextView)view.findViewById(R.id.import_password);
+        GuiUtils.setupFormKeyboard(tv, tv, getContext(), new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Button btn = alertDialog.getButton(AlertDialog.BUTTON_POSITIVE);
+                if (btn.isEnabled()) {
+                    btn.performClick();
+                }
+            }
+        });
+        return alertDialog;
+    }
+}
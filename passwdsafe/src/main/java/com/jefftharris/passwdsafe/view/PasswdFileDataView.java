@@ -20,13 +20,16 @@ import com.jefftharris.passwdsafe.file.PasswdExpiration;
 import com.jefftharris.passwdsafe.file.PasswdFileData;
 import com.jefftharris.passwdsafe.file.PasswdRecord;
 import com.jefftharris.passwdsafe.file.PasswdRecordFilter;
+import com.jefftharris.passwdsafe.file.PasswdRecordQuery;
 import com.jefftharris.passwdsafe.lib.PasswdSafeUtil;
 import com.jefftharris.passwdsafe.pref.PasswdExpiryNotifPref;
 import com.jefftharris.passwdsafe.pref.RecordSortOrderPref;
 
+import org.pwsafe.lib.file.PwsOpenTrace;
 import org.pwsafe.lib.file.PwsRecord;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -63,6 +66,8 @@ public class PasswdFileDataView
             Preferences.PREF_SEARCH_CASE_SENSITIVE_DEF;
     private boolean itsIsSearchRegex =
             Preferences.PREF_SEARCH_REGEX_DEF;
+    private boolean itsIsSearchFuzzy =
+            Preferences.PREF_SEARCH_FUZZY_DEF;
     private RecordSortOrderPref itsRecordSortOrder =
             Preferences.PREF_RECORD_SORT_ORDER_DEF;
     private PasswdExpiryNotifPref itsExpiryNotifPref =
@@ -92,6 +97,7 @@ public class PasswdFileDataView
         itsIsSearchCaseSensitive =
                 Preferences.getSearchCaseSensitivePref(prefs);
         itsIsSearchRegex = Preferences.getSearchRegexPref(prefs);
+        itsIsSearchFuzzy = Preferences.getSearchFuzzyPref(prefs);
         itsRecordSortOrder = Preferences.getRecordSortOrderPref(prefs);
         itsExpiryNotifPref = Preferences.getPasswdExpiryNotifPref(prefs);
 
@@ -143,6 +149,11 @@ public class PasswdFileDataView
             rebuildSearch = true;
             break;
         }
+        case Preferences.PREF_SEARCH_FUZZY: {
+            itsIsSearchFuzzy = Preferences.getSearchFuzzyPref(prefs);
+            rebuildSearch = true;
+            break;
+        }
         case Preferences.PREF_RECORD_SORT_ORDER: {
             itsRecordSortOrder = Preferences.getRecordSortOrderPref(prefs);
             rebuild = true;
@@ -187,9 +198,13 @@ public class PasswdFileDataView
      */
     public synchronized void setFileData(PasswdFileData fileData)
     {
+        int openId = (fileData != null) ? fileData.getTraceOpenId() : 0;
+        long start = PwsOpenTrace.start(openId);
         itsCurrGroups.clear();
         itsIsExpiryChanged = true;
         rebuildView(fileData);
+        PwsOpenTrace.end(PwsOpenTrace.Phase.VIEW_BUILD, openId, start,
+                         0, itsRootNode.getNumRecords(), null);
     }
 
     /**
@@ -202,7 +217,8 @@ public class PasswdFileDataView
     }
 
     /**
-     * Get records
+     * Get records.  The items of a group are sorted when the group is first
+     * used after the view is rebuilt.
      */
     public synchronized List<PasswdRecordListData> getRecords(
             boolean incRecords,
@@ -213,35 +229,22 @@ public class PasswdFileDataView
             return records;
         }
 
-        if (incGroups) {
-            Map<String, GroupNode> entryGroups = itsCurrGroupNode.getGroups();
-            if (entryGroups != null) {
-                for (Map.Entry<String, GroupNode> entry:
-                        entryGroups.entrySet()) {
-                    int items = entry.getValue().getNumRecords();
-                    String str = itsContext.getResources().getQuantityString(
-                            R.plurals.group_items, items, items);
-
-                    records.add(new PasswdRecordListData(
-                            entry.getKey(), str, null,
-                            null, itsFolderIcon, false));
-                }
-            }
+        List<PasswdRecordListData> sortedItems =
+                itsCurrGroupNode.getSortedItems();
+        if (sortedItems == null) {
+            sortedItems = sortGroupItems(itsCurrGroupNode);
+            itsCurrGroupNode.setSortedItems(sortedItems);
         }
 
-        if (incRecords) {
-            List<MatchPwsRecord> entryRecs = itsCurrGroupNode.getRecords();
-            if (entryRecs != null) {
-                for (MatchPwsRecord rec: entryRecs) {
-                    records.add(createListData(rec));
+        if (incRecords && incGroups) {
+            records.addAll(sortedItems);
+        } else if (incRecords || incGroups) {
+            for (PasswdRecordListData item: sortedItems) {
+                if (item.itsIsRecord == incRecords) {
+                    records.add(item);
                 }
             }
         }
-
-        PasswdRecordListDataComparator comp =
-                new PasswdRecordListDataComparator(itsIsSortCaseSensitive,
-                                                   itsRecordSortOrder);
-        Collections.sort(records, comp);
         return records;
     }
 
@@ -297,7 +300,22 @@ public class PasswdFileDataView
     {
         PasswdRecordFilter filter = null;
         Pattern queryPattern = null;
-        if (!TextUtils.isEmpty(query)) {
+        if (!TextUtils.isEmpty(query) &&
+            PasswdRecordQuery.isStructured(query)) {
+            try {
+                PasswdRecordQuery recordQuery =
+                        PasswdRecordQuery.parse(query,
+                                                itsIsSearchCaseSensitive);
+                filter = new PasswdRecordFilter(
+                        recordQuery, PasswdRecordFilter.OPTS_DEFAULT);
+            } catch (IllegalArgumentException e) {
+                throw new Exception("Invalid query: " + e.getMessage(), e);
+            }
+        } else if (!TextUtils.isEmpty(query) && itsIsSearchFuzzy &&
+                   !itsIsSearchRegex) {
+            filter = PasswdRecordFilter.createFuzzyFilter(
+                    query, PasswdRecordFilter.OPTS_DEFAULT);
+        } else if (!TextUtils.isEmpty(query)) {
             try {
                 int flags = 0;
                 if (!itsIsSearchCaseSensitive) {
@@ -391,7 +409,9 @@ public class PasswdFileDataView
             return;
         }
 
-        List<PwsRecord> records = fileData.getRecords();
+        Collection<PwsRecord> records = (itsFilter != null) ?
+                itsFilter.getCandidateRecords(fileData) :
+                fileData.getRecords();
         if (itsIsGroupRecords) {
             Comparator<String> groupComp = itsIsSortCaseSensitive ?
                     new StringComparator() : String.CASE_INSENSITIVE_ORDER;
@@ -417,14 +437,16 @@ public class PasswdFileDataView
                     }
                     node = groupNode;
                 }
-                node.addRecord(new MatchPwsRecord(rec, fileData, match));
+                node.addRecord(new MatchPwsRecord(rec, fileData, match,
+                                                  getRank(rec)));
              }
         } else {
             for (PwsRecord rec: records) {
                 String match = filterRecord(rec, fileData);
                 if (match != null) {
                     itsRootNode.addRecord(
-                            new MatchPwsRecord(rec, fileData, match));
+                            new MatchPwsRecord(rec, fileData, match,
+                                               getRank(rec)));
                 }
             }
         }
@@ -474,6 +496,15 @@ public class PasswdFileDataView
         return itsFilter.filterRecord(rec, fileData, itsContext);
     }
 
+    /**
+     * Get the rank of a record in the filter's search
+     * @return The rank from 1; 0 if unranked
+     */
+    private int getRank(PwsRecord rec)
+    {
+        return (itsFilter != null) ? itsFilter.getRank(rec) : 0;
+    }
+
     /**
      * Recursively visit all records under a group.  Must be called while
      * synchronized.
@@ -499,6 +530,45 @@ public class PasswdFileDataView
         }
     }
 
+    /**
+     * Sort the child groups and records of a group
+     */
+    private List<PasswdRecordListData> sortGroupItems(GroupNode node)
+    {
+        PasswdRecordListDataComparator comp =
+                new PasswdRecordListDataComparator(itsIsSortCaseSensitive,
+                                                   itsRecordSortOrder);
+        List<PasswdRecordListDataComparator.SortItem> items =
+                new ArrayList<>();
+
+        Map<String, GroupNode> entryGroups = node.getGroups();
+        if (entryGroups != null) {
+            for (Map.Entry<String, GroupNode> entry: entryGroups.entrySet()) {
+                int numItems = entry.getValue().getNumRecords();
+                String str = itsContext.getResources().getQuantityString(
+                        R.plurals.group_items, numItems, numItems);
+
+                items.add(comp.createItem(new PasswdRecordListData(
+                        entry.getKey(), str, null,
+                        null, itsFolderIcon, false)));
+            }
+        }
+
+        List<MatchPwsRecord> entryRecs = node.getRecords();
+        if (entryRecs != null) {
+            for (MatchPwsRecord rec: entryRecs) {
+                items.add(comp.createItem(createListData(rec), rec.itsRank));
+            }
+        }
+
+        Collections.sort(items, comp);
+        List<PasswdRecordListData> sortedItems = new ArrayList<>(items.size());
+        for (PasswdRecordListDataComparator.SortItem item: items) {
+            sortedItems.add(item.itsData);
+        }
+        return sortedItems;
+    }
+
     /**
      * Create a record item for a password record
      */
@@ -525,6 +595,7 @@ public class PasswdFileDataView
     {
         private List<MatchPwsRecord> itsRecords = null;
         private TreeMap<String, GroupNode> itsGroups = null;
+        private List<PasswdRecordListData> itsSortedItems = null;
 
         /** Constructor */
         public GroupNode()
@@ -572,6 +643,18 @@ public class PasswdFileDataView
             return itsGroups;
         }
 
+        /** Get the sorted child groups and records; null if not sorted */
+        public final List<PasswdRecordListData> getSortedItems()
+        {
+            return itsSortedItems;
+        }
+
+        /** Set the sorted child groups and records */
+        public final void setSortedItems(List<PasswdRecordListData> items)
+        {
+            itsSortedItems = items;
+        }
+
         /** Get the number of records */
         public final int getNumRecords()
         {
@@ -598,15 +681,18 @@ public class PasswdFileDataView
         public final String itsUsername;
         public final String itsUuid;
         public final String itsMatch;
+        public final int itsRank;
 
         public MatchPwsRecord(PwsRecord rec,
                               PasswdFileData fileData,
-                              String match)
+                              String match,
+                              int rank)
         {
             itsTitle = fileData.getTitle(rec);
             itsUsername = fileData.getUsername(rec);
             itsUuid = fileData.getUUID(rec);
             itsMatch = match;
+            itsRank = rank;
         }
     }
 
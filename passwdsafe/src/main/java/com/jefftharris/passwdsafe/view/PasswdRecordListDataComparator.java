@@ -1,5 +1,5 @@
 /*
- * Copyright (©) 2015 Jeff Harris <jefftharris@gmail.com>
+ * Copyright (©) 2015-2016 Jeff Harris <jefftharris@gmail.com>
  * All rights reserved. Use of the code is allowed under the
  * Artistic License 2.0 terms, as specified in the LICENSE file
  * distributed with this code, or available from
@@ -12,11 +12,33 @@ import com.jefftharris.passwdsafe.pref.RecordSortOrderPref;
 import java.util.Comparator;
 
 /**
- * Comparator for records
+ * Comparator for records.  The sort keys of an item are computed once when
+ * the item is created so comparisons don't fold the case of its fields.
  */
 public final class PasswdRecordListDataComparator
-        implements Comparator<PasswdRecordListData>
+        implements Comparator<PasswdRecordListDataComparator.SortItem>
 {
+    /**
+     * A list item with its sort keys
+     */
+    public static final class SortItem
+    {
+        public final PasswdRecordListData itsData;
+        private final String itsTitleKey;
+        private final String itsUserKey;
+        private final int itsRank;
+
+        /** Constructor */
+        private SortItem(PasswdRecordListData data, String titleKey,
+                         String userKey, int rank)
+        {
+            itsData = data;
+            itsTitleKey = titleKey;
+            itsUserKey = userKey;
+            itsRank = rank;
+        }
+    }
+
     private final boolean itsIsSortCaseSensitive;
     private final RecordSortOrderPref itsSortOrder;
 
@@ -30,15 +52,32 @@ public final class PasswdRecordListDataComparator
         itsSortOrder = sortOrder;
     }
 
+    /**
+     * Create an item to sort
+     */
+    public SortItem createItem(PasswdRecordListData data)
+    {
+        return createItem(data, 0);
+    }
+
+    /**
+     * Create an item to sort with its rank in a search.  Ranked items sort
+     * before the others from the best rank, 1, down.
+     */
+    public SortItem createItem(PasswdRecordListData data, int rank)
+    {
+        return new SortItem(data, getSortKey(data.itsTitle),
+                            getSortKey(data.itsUser), rank);
+    }
+
     @Override
-    public int compare(PasswdRecordListData arg0,
-                       PasswdRecordListData arg1)
+    public int compare(SortItem arg0, SortItem arg1)
     {
         int rc;
         // Compare group order
         switch (itsSortOrder) {
         case GROUP_FIRST: {
-            rc = compareIsGroup(arg0, arg1);
+            rc = compareIsGroup(arg0.itsData, arg1.itsData);
             if (rc != 0) {
                 return rc;
             }
@@ -48,7 +87,7 @@ public final class PasswdRecordListDataComparator
             break;
         }
         case GROUP_LAST: {
-            rc = -compareIsGroup(arg0, arg1);
+            rc = -compareIsGroup(arg0.itsData, arg1.itsData);
             if (rc != 0) {
                 return rc;
             }
@@ -56,17 +95,39 @@ public final class PasswdRecordListDataComparator
         }
         }
 
-        rc = compareField(arg0.itsTitle, arg1.itsTitle);
+        rc = compareRank(arg0.itsRank, arg1.itsRank);
+        if (rc != 0) {
+            return rc;
+        }
+        rc = compareField(arg0.itsTitleKey, arg1.itsTitleKey);
         if (rc != 0) {
             return rc;
         }
-        return compareField(arg0.itsUser, arg1.itsUser);
+        return compareField(arg0.itsUserKey, arg1.itsUserKey);
+    }
+
+    /**
+     * Get the key to sort a field.  A case-insensitive key folds each
+     * character as String.compareToIgnoreCase does.
+     */
+    private String getSortKey(String field)
+    {
+        if ((field == null) || itsIsSortCaseSensitive) {
+            return field;
+        }
+        int len = field.length();
+        char[] key = new char[len];
+        for (int i = 0; i < len; ++i) {
+            key[i] = Character.toLowerCase(
+                    Character.toUpperCase(field.charAt(i)));
+        }
+        return new String(key);
     }
 
     /**
-     * Compare two string fields
+     * Compare two string field keys
      */
-    private int compareField(String arg0, String arg1)
+    private static int compareField(String arg0, String arg1)
     {
         if ((arg0 == null) && (arg1 == null)) {
             return 0;
@@ -75,19 +136,31 @@ public final class PasswdRecordListDataComparator
         } else if (arg1 == null) {
             return 1;
         } else {
-            if (itsIsSortCaseSensitive) {
-                return arg0.compareTo(arg1);
-            } else {
-                return arg0.compareToIgnoreCase(arg1);
-            }
+            return arg0.compareTo(arg1);
+        }
+    }
+
+    /**
+     * Compare two search ranks where 0 is unranked
+     */
+    private static int compareRank(int arg0, int arg1)
+    {
+        if (arg0 == arg1) {
+            return 0;
+        } else if (arg0 == 0) {
+            return 1;
+        } else if (arg1 == 0) {
+            return -1;
+        } else {
+            return (arg0 < arg1) ? -1 : 1;
         }
     }
 
     /**
      * Compare whether the item is a group or not
      */
-    private int compareIsGroup(PasswdRecordListData arg0,
-                               PasswdRecordListData arg1)
+    private static int compareIsGroup(PasswdRecordListData arg0,
+                                      PasswdRecordListData arg1)
     {
         if (!arg0.itsIsRecord && arg1.itsIsRecord) {
             return -1;
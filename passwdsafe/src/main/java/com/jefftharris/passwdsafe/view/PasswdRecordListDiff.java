@@ -0,0 +1,288 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package com.jefftharris.passwdsafe.view;
+
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The PasswdRecordListDiff class holds the operations which change one list
+ * of record items into another.  Items are matched by their record UUID, or
+ * by their title for groups, using the Myers shortest edit script.  A moved
+ * item is removed from its old position and inserted at its new one.
+ */
+public final class PasswdRecordListDiff
+{
+    /** Type of an operation */
+    public enum OpType
+    {
+        REMOVE,
+        INSERT,
+        CHANGE
+    }
+
+    /** An operation on the list at a position */
+    public static final class Op
+    {
+        public final OpType itsType;
+        public final int itsPos;
+        public final PasswdRecordListData itsItem;
+
+        /** Constructor */
+        private Op(OpType type, int pos, PasswdRecordListData item)
+        {
+            itsType = type;
+            itsPos = pos;
+            itsItem = item;
+        }
+    }
+
+    /**
+     * Maximum number of inserts and removes to search for before the lists
+     * are considered too different for a diff to be useful
+     */
+    private static final int MAX_EDITS = 512;
+
+    /** Edits in a script */
+    private static final byte EDIT_MATCH = 0;
+    private static final byte EDIT_REMOVE = 1;
+    private static final byte EDIT_INSERT = 2;
+
+    private final List<Op> itsOps;
+
+    /** Constructor */
+    private PasswdRecordListDiff(List<Op> ops)
+    {
+        itsOps = ops;
+    }
+
+    /**
+     * Compute the operations to change the old items into the new items
+     * @return The diff; null if the lists are too different
+     */
+    public static PasswdRecordListDiff compute(
+            List<PasswdRecordListData> oldItems,
+            List<PasswdRecordListData> newItems)
+    {
+        int oldSize = oldItems.size();
+        int newSize = newItems.size();
+
+        // Most changes are a single edit, so skip the common ends before
+        // searching for the edits in between
+        int start = 0;
+        while ((start < oldSize) && (start < newSize) &&
+               isSameItem(oldItems.get(start), newItems.get(start))) {
+            ++start;
+        }
+        int oldEnd = oldSize;
+        int newEnd = newSize;
+        while ((oldEnd > start) && (newEnd > start) &&
+               isSameItem(oldItems.get(oldEnd - 1), newItems.get(newEnd - 1))) {
+            --oldEnd;
+            --newEnd;
+        }
+
+        List<PasswdRecordListData> a = oldItems.subList(start, oldEnd);
+        List<PasswdRecordListData> b = newItems.subList(start, newEnd);
+        byte[] script = findEditScript(a, b);
+        if (script == null) {
+            return null;
+        }
+
+        List<Op> ops = new ArrayList<>();
+        int pos = 0;
+        for (; pos < start; ++pos) {
+            addChange(oldItems.get(pos), newItems.get(pos), pos, ops);
+        }
+        int aIdx = 0;
+        int bIdx = 0;
+        for (byte edit: script) {
+            switch (edit) {
+            case EDIT_MATCH: {
+                addChange(a.get(aIdx++), b.get(bIdx++), pos++, ops);
+                break;
+            }
+            case EDIT_REMOVE: {
+                ops.add(new Op(OpType.REMOVE, pos, a.get(aIdx++)));
+                break;
+            }
+            case EDIT_INSERT: {
+                ops.add(new Op(OpType.INSERT, pos++, b.get(bIdx++)));
+                break;
+            }
+            }
+        }
+        for (int i = oldEnd; i < oldSize; ++i) {
+            addChange(oldItems.get(i), newItems.get(i - oldEnd + newEnd),
+                      pos++, ops);
+        }
+        return new PasswdRecordListDiff(ops);
+    }
+
+    /** Get whether the lists are the same */
+    public boolean isEmpty()
+    {
+        return itsOps.isEmpty();
+    }
+
+    /** Get whether the lists only differ in the contents of some items */
+    public boolean isChangesOnly()
+    {
+        for (Op op: itsOps) {
+            if (op.itsType != OpType.CHANGE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Get the operations in the order they are applied */
+    public List<Op> getOps()
+    {
+        return itsOps;
+    }
+
+    /** Apply the operations to the old items */
+    public void apply(List<PasswdRecordListData> items)
+    {
+        for (Op op: itsOps) {
+            switch (op.itsType) {
+            case REMOVE: {
+                items.remove(op.itsPos);
+                break;
+            }
+            case INSERT: {
+                items.add(op.itsPos, op.itsItem);
+                break;
+            }
+            case CHANGE: {
+                items.set(op.itsPos, op.itsItem);
+                break;
+            }
+            }
+        }
+    }
+
+    /**
+     * Find the shortest edit script between the lists
+     * @return The edits in order; null if more than MAX_EDITS are needed
+     */
+    private static byte[] findEditScript(List<PasswdRecordListData> a,
+                                         List<PasswdRecordListData> b)
+    {
+        int n = a.size();
+        int m = b.size();
+        int maxEdits = Math.min(n + m, MAX_EDITS);
+        int offset = maxEdits + 1;
+        int[] v = new int[2 * offset + 1];
+        // The furthest x on each diagonal before each round, kept for
+        // walking back through the edits
+        List<int[]> trace = new ArrayList<>();
+
+        int numEdits = -1;
+        for (int d = 0; (d <= maxEdits) && (numEdits < 0); ++d) {
+            int[] round = new int[2 * d + 1];
+            System.arraycopy(v, offset - d, round, 0, round.length);
+            trace.add(round);
+
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if ((k == -d) ||
+                    ((k != d) && (v[offset + k - 1] < v[offset + k + 1]))) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while ((x < n) && (y < m) && isSameItem(a.get(x), b.get(y))) {
+                    ++x;
+                    ++y;
+                }
+                v[offset + k] = x;
+                if ((x >= n) && (y >= m)) {
+                    numEdits = d;
+                    break;
+                }
+            }
+        }
+        if (numEdits < 0) {
+            return null;
+        }
+
+        int numMatches = (n + m - numEdits) / 2;
+        byte[] script = new byte[numMatches + numEdits];
+        int idx = script.length;
+        int x = n;
+        int y = m;
+        for (int d = numEdits; d >= 0; --d) {
+            int[] round = trace.get(d);
+            int k = x - y;
+            int prevK;
+            if ((k == -d) ||
+                ((k != d) && (round[k - 1 + d] < round[k + 1 + d]))) {
+                prevK = k + 1;
+            } else {
+                prevK = k - 1;
+            }
+            int prevX = (d == 0) ? 0 : round[prevK + d];
+            int prevY = prevX - prevK;
+            int snakeX = (d == 0) ? 0 : ((prevK == k + 1) ? prevX : prevX + 1);
+            while (x > snakeX) {
+                script[--idx] = EDIT_MATCH;
+                --x;
+                --y;
+            }
+            if (d > 0) {
+                script[--idx] = (prevK == k + 1) ? EDIT_INSERT : EDIT_REMOVE;
+                x = prevX;
+                y = prevY;
+            }
+        }
+        return script;
+    }
+
+    /** Add a change operation if a matched item's contents changed */
+    private static void addChange(PasswdRecordListData oldItem,
+                                  PasswdRecordListData newItem,
+                                  int pos, List<Op> ops)
+    {
+        if (!isSameContents(oldItem, newItem)) {
+            ops.add(new Op(OpType.CHANGE, pos, newItem));
+        }
+    }
+
+    /** Get whether two items are for the same record or group */
+    private static boolean isSameItem(PasswdRecordListData item1,
+                                      PasswdRecordListData item2)
+    {
+        if (item1 == item2) {
+            return true;
+        }
+        if (item1.itsIsRecord != item2.itsIsRecord) {
+            return false;
+        }
+        if (item1.itsIsRecord && (item1.itsUuid != null)) {
+            return item1.itsUuid.equals(item2.itsUuid);
+        }
+        return TextUtils.equals(item1.itsUuid, item2.itsUuid) &&
+               TextUtils.equals(item1.itsTitle, item2.itsTitle);
+    }
+
+    /** Get whether two items for the same record or group show the same */
+    private static boolean isSameContents(PasswdRecordListData item1,
+                                          PasswdRecordListData item2)
+    {
+        return (item1 == item2) ||
+               (TextUtils.equals(item1.itsTitle, item2.itsTitle) &&
+                TextUtils.equals(item1.itsUser, item2.itsUser) &&
+                TextUtils.equals(item1.itsMatch, item2.itsMatch) &&
+                (item1.itsIcon == item2.itsIcon));
+    }
+}
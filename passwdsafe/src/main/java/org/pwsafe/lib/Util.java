@@ -355,6 +355,27 @@ public final class Util
         }
     }
 
+    /**
+     * Stretch several passphrases with the same salt together
+     */
+    public static byte[][] stretchPassphrases(byte[][] passphrases,
+                                              byte[] salt, int iter)
+    {
+        byte[][] ps = new byte[passphrases.length][];
+        try {
+            for (int i = 0; i < passphrases.length; ++i) {
+                ps[i] = mergeBytes(passphrases[i], salt);
+            }
+            return SHA256Pws.digestNBatch(ps, iter);
+        } finally {
+            for (byte[] p: ps) {
+                if (p != null) {
+                    clearArray(p);
+                }
+            }
+        }
+    }
+
     /**
      * Clear the contents of a byte array
      */
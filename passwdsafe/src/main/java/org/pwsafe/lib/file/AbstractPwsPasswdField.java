@@ -90,7 +90,9 @@ public abstract class AbstractPwsPasswdField extends PwsField
             if (sealValue == null) {
                 return "";
             } else {
-                return (String)sealValue.getObject(itsReadCipher);
+                synchronized (itsReadCipher) {
+                    return (String)sealValue.getObject(itsReadCipher);
+                }
             }
         } catch (IllegalBlockSizeException | BadPaddingException |
                 ClassNotFoundException e) {
@@ -126,7 +128,9 @@ public abstract class AbstractPwsPasswdField extends PwsField
     private static SealedObject sealValue(String value, Cipher cipher)
     {
         try {
-            return new SealedObject(value, cipher);
+            synchronized (cipher) {
+                return new SealedObject(value, cipher);
+            }
         } catch (IllegalBlockSizeException | IOException e) {
             throw new RuntimeCryptoException(e.getMessage());
         }
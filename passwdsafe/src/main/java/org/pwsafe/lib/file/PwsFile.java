@@ -18,8 +18,9 @@ import org.pwsafe.lib.exception.MemoryKeyException;
 import org.pwsafe.lib.exception.UnsupportedFileVersionException;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -108,23 +109,9 @@ public abstract class PwsFile
     public static final String DEFAULT_PASSWORD_CHARSET = "windows-1252";
 
     /**
-     * List of all charset encodings to try when opening files
+     * List of all charset encodings for passwords, built on first use
      */
-    public static final Collection<String> ALL_PASSWORD_CHARSETS;
-
-    static {
-        ALL_PASSWORD_CHARSETS = new LinkedHashSet<>();
-        ALL_PASSWORD_CHARSETS.add(DEFAULT_PASSWORD_CHARSET);
-        ALL_PASSWORD_CHARSETS.add(Charset.defaultCharset().name());
-        ALL_PASSWORD_CHARSETS.add("US-ASCII");
-        ALL_PASSWORD_CHARSETS.add("ISO-8859-1");
-        ALL_PASSWORD_CHARSETS.add("UTF-8");
-        ALL_PASSWORD_CHARSETS.add("ISO-8859-2");
-        ALL_PASSWORD_CHARSETS.add("windows-1250");
-        ALL_PASSWORD_CHARSETS.add("UTF-16");
-
-        ALL_PASSWORD_CHARSETS.addAll(Charset.availableCharsets().keySet());
-    }
+    private static Collection<String> itsAllPasswordCharsets;
 
     /**
      * Encoding to use for the file's password
@@ -157,10 +144,10 @@ public abstract class PwsFile
     private SealedObject passphrase;
 
     /**
-     * The stream used to read data from the storage.  It is non-null only
+     * The buffer used to read data from the storage.  It is non-null only
      * whilst data are being read from the file.
      */
-    protected InputStream inStream;
+    protected ByteBuffer inBuffer;
 
     /**
      * The stream used to write data to the storage.  It is non-null only
@@ -180,6 +167,11 @@ public abstract class PwsFile
      */
     protected boolean modified = false;
 
+    /**
+     * The number of changes to the records
+     */
+    private volatile int modCount = 0;
+
     /**
      * Flag indicating whether the storage may be changed or saved.
      */
@@ -190,6 +182,7 @@ public abstract class PwsFile
      */
     protected Date lastStorageChange;
 
+    private final Object cipherLock = new Object();
     private InMemoryKey memoryKey;
     private byte[] memoryIv;
 
@@ -242,9 +235,10 @@ public abstract class PwsFile
 
         this.doAdd(rec);
         setModified();
+        recordChanged(rec);
     }
 
-    private void doAdd(final PwsRecord rec)
+    void doAdd(final PwsRecord rec)
     {
         records.add(rec);
     }
@@ -292,10 +286,7 @@ public abstract class PwsFile
      */
     void close() throws IOException
     {
-        if (inStream != null) {
-            inStream.close();
-            inStream = null;
-        }
+        inBuffer = null;
     }
 
     /**
@@ -323,7 +314,23 @@ public abstract class PwsFile
         return getCipher(true);
     }
 
+    /**
+     * Get the cipher for values sealed in memory.  A cipher must be
+     * synchronized on while used as the file may be used from more than one
+     * thread.
+     */
     private Cipher getCipher(boolean forWriting)
+    {
+        synchronized (cipherLock) {
+            return doGetCipher(forWriting);
+        }
+    }
+
+    /**
+     * Get the cipher for values sealed in memory while the cipher lock is
+     * held
+     */
+    private Cipher doGetCipher(boolean forWriting)
     {
         if (memoryIv == null) {
             memoryIv = new byte[CIPHER_KEY_LEN];
@@ -403,10 +410,11 @@ public abstract class PwsFile
      */
     public Owner<PwsPassword> getPassphrase()
     {
+        Cipher cipher = getReadCipher();
         try {
-            return new Owner<>(
-                    PwsPassword.unseal(passphrase,
-                                       getReadCipher()));
+            synchronized (cipher) {
+                return new Owner<>(PwsPassword.unseal(passphrase, cipher));
+            }
         } catch (IllegalBlockSizeException | BadPaddingException |
                 ClassNotFoundException | IOException e) {
             throw new RuntimeCryptoException(e.getMessage());
@@ -475,6 +483,46 @@ public abstract class PwsFile
     {
         records.set(index, aRecord);
         setModified();
+        recordChanged(aRecord);
+    }
+
+    /**
+     * Applies a record change replayed from a journal of the file's changes
+     * without recording it as a new change.
+     *
+     * @param index the index of the record to change, or -1 to add it
+     * @param rec   the new record, or null to remove the record
+     */
+    void replayRecord(int index, PwsRecord rec)
+    {
+        if (index < 0) {
+            records.add(rec);
+        } else if (rec == null) {
+            records.remove(index);
+        } else {
+            records.set(index, rec);
+        }
+    }
+
+    /**
+     * Notification that a record was added or updated.  Subclasses may
+     * override this to track changes.  The default implementation does
+     * nothing.
+     *
+     * @param rec the record
+     */
+    protected void recordChanged(PwsRecord rec)
+    {
+    }
+
+    /**
+     * Notification that a record was removed.  Subclasses may override this
+     * to track changes.  The default implementation does nothing.
+     *
+     * @param rec the record
+     */
+    protected void recordRemoved(PwsRecord rec)
+    {
     }
 
     /**
@@ -547,13 +595,14 @@ public abstract class PwsFile
     public final void readBytes(byte[] bytes)
             throws IOException, EndOfFileException
     {
-        int count = inStream.read(bytes);
+        int count = inBuffer.remaining();
 
-        if (count == -1) {
+        if (count == 0) {
             throw new EndOfFileException();
         } else if (count < bytes.length) {
             throw new IOException("short read");
         }
+        inBuffer.get(bytes);
     }
 
     /**
@@ -616,9 +665,12 @@ public abstract class PwsFile
      */
     public boolean removeRecord(int index)
     {
-        boolean success = records.remove(index) != null;
-        if (success)
+        PwsRecord rec = records.remove(index);
+        boolean success = rec != null;
+        if (success) {
             setModified();
+            recordRemoved(rec);
+        }
         return success;
     }
 
@@ -641,9 +693,19 @@ public abstract class PwsFile
      * when a record is
      * added, changed or removed.
      */
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
     private void setModified()
     {
         modified = true;
+        ++modCount;
+    }
+
+    /**
+     * Get the number of changes to the file's records since it was opened
+     */
+    protected int getModCount()
+    {
+        return modCount;
     }
 
     /**
@@ -654,7 +716,10 @@ public abstract class PwsFile
     {
         Owner<PwsPassword> passwd = passwdParam.use();
         try {
-            passphrase = passwd.get().seal(getWriteCipher());
+            Cipher cipher = getWriteCipher();
+            synchronized (cipher) {
+                passphrase = passwd.get().seal(cipher);
+            }
         } catch (IllegalBlockSizeException | IOException e) {
             throw new RuntimeCryptoException(e.getMessage());
         } finally {
@@ -739,6 +804,86 @@ public abstract class PwsFile
         return Collections.singletonList(itsPasswordEncoding);
     }
 
+    /**
+     * Get the list of all charset encodings for passwords.  The list is built
+     * on first use as finding the available charsets is slow.
+     */
+    public static synchronized Collection<String> getAllPasswordCharsets()
+    {
+        if (itsAllPasswordCharsets == null) {
+            Collection<String> charsets = new LinkedHashSet<>();
+            charsets.add(DEFAULT_PASSWORD_CHARSET);
+            charsets.add(Charset.defaultCharset().name());
+            charsets.add("US-ASCII");
+            charsets.add("ISO-8859-1");
+            charsets.add("UTF-8");
+            charsets.add("ISO-8859-2");
+            charsets.add("windows-1250");
+            charsets.add("UTF-16");
+
+            charsets.addAll(Charset.availableCharsets().keySet());
+            itsAllPasswordCharsets = Collections.unmodifiableCollection(charsets);
+        }
+        return itsAllPasswordCharsets;
+    }
+
+    /**
+     * Get the encodings to try for a password when opening a file.  The
+     * hint, e.g. the encoding which last opened the file, is tried first
+     * and the platform default last.  An encoding which produces the same
+     * bytes for the password as an earlier one is skipped so each distinct
+     * encoding of the password is only checked once.
+     *
+     * @param passwdParam the passphrase
+     * @param hint the encoding to try first (if known)
+     * @return the encodings to try in order
+     */
+    static List<String> getPasswordEncodings(
+            Owner<PwsPassword>.Param passwdParam, String hint)
+    {
+        List<String> charsets = new ArrayList<>();
+        if (hint != null) {
+            charsets.add(hint);
+        }
+        charsets.addAll(getPasswordEncodings());
+        charsets.add(Charset.defaultCharset().name());
+
+        List<String> encodings = new ArrayList<>(charsets.size());
+        List<byte[]> encodedPasswds = new ArrayList<>(charsets.size());
+        Owner<PwsPassword> passwd = passwdParam.use();
+        try {
+            for (String charset: charsets) {
+                byte[] encoded;
+                try {
+                    encoded = passwd.get().getBytes(charset);
+                } catch (UnsupportedEncodingException e) {
+                    // Skip this charset
+                    continue;
+                }
+
+                boolean distinct = true;
+                for (byte[] prevEncoded: encodedPasswds) {
+                    if (Arrays.equals(prevEncoded, encoded)) {
+                        distinct = false;
+                        break;
+                    }
+                }
+                if (distinct) {
+                    encodings.add(charset);
+                    encodedPasswds.add(encoded);
+                } else {
+                    Arrays.fill(encoded, (byte)0);
+                }
+            }
+        } finally {
+            passwd.close();
+            for (byte[] encoded: encodedPasswds) {
+                Arrays.fill(encoded, (byte)0);
+            }
+        }
+        return encodings;
+    }
+
     public static synchronized String getUpdatePasswordEncoding()
     {
         return itsPasswordEncoding;
@@ -763,6 +908,7 @@ public abstract class PwsFile
 
         private final PwsFile file;
         private final Iterator<PwsRecord> recDelegate;
+        private PwsRecord lastRecord;
 
         /**
          * Construct the <code>Iterator</code> linking it to the given
@@ -799,7 +945,8 @@ public abstract class PwsFile
          */
         public final PwsRecord next()
         {
-            return recDelegate.next();
+            lastRecord = recDelegate.next();
+            return lastRecord;
         }
 
         /**
@@ -817,6 +964,7 @@ public abstract class PwsFile
 
             recDelegate.remove();
             file.setModified();
+            file.recordRemoved(lastRecord);
         }
     }
 
@@ -47,14 +47,16 @@ public class PwsFileFactory
      * for the file.  It returns normally if everything is OK or
      * {@link InvalidPassphraseException} if the passphrase is incorrect.
      *
-     * @param header      the file header bytes
-     * @param passwdParam the file's passphrase.
+     * @param header       the file header bytes
+     * @param passwdParam  the file's passphrase.
+     * @param encodingHint the passphrase encoding to try first (if known)
      * @return the password encoding
      * @throws InvalidPassphraseException If the passphrase is not the
      * correct one for the file.
      */
     private static String checkPassword(byte[] header,
-                                        Owner<PwsPassword>.Param passwdParam)
+                                        Owner<PwsPassword>.Param passwdParam,
+                                        String encodingHint)
             throws InvalidPassphraseException
     {
         byte[] phash;
@@ -67,7 +69,8 @@ public class PwsFileFactory
         System.arraycopy(stuff, 0, fudged, 0, PwsFile.STUFF_LENGTH);
 
         boolean validPassword = false;
-        for (String charset : PwsFile.getPasswordEncodings()) {
+        for (String charset :
+                PwsFile.getPasswordEncodings(passwdParam, encodingHint)) {
             try {
                 phash = genRandHash(passwdParam, charset, fudged);
             } catch (UnsupportedEncodingException e) {
@@ -175,8 +178,31 @@ public class PwsFileFactory
             throws EndOfFileException, InvalidPassphraseException, IOException,
                    UnsupportedFileVersionException
     {
-        PwsStorage storage = new PwsFileStorage(filename, filename);
-        return loadFromStorage(storage, passwd);
+        return loadFile(filename, passwd, null);
+    }
+
+    /**
+     * Loads a Password Safe file.  It returns the appropriate subclass of
+     * {@link PwsFile}.
+     *
+     * @param filename     the name of the file to open
+     * @param passwd       the passphrase for the file
+     * @param encodingHint the passphrase encoding to try first (if known)
+     * @return The correct subclass of {@link PwsFile} for the file.
+     * @throws EndOfFileException
+     * @throws FileNotFoundException
+     * @throws InvalidPassphraseException
+     * @throws IOException
+     * @throws UnsupportedFileVersionException
+     */
+    public static PwsFile loadFile(String filename,
+                                   Owner<PwsPassword>.Param passwd,
+                                   String encodingHint)
+            throws EndOfFileException, InvalidPassphraseException, IOException,
+                   UnsupportedFileVersionException
+    {
+        PwsStorage storage = new PwsMappedFileStorage(filename, filename);
+        return loadFromStorage(storage, passwd, encodingHint);
     }
 
     /**
@@ -195,6 +221,28 @@ public class PwsFileFactory
                                           Owner<PwsPassword>.Param passwd)
             throws EndOfFileException, InvalidPassphraseException, IOException,
                    UnsupportedFileVersionException
+    {
+        return loadFromStorage(storage, passwd, null);
+    }
+
+    /**
+     * Loads a Password Safe file.  It returns the appropriate subclass of
+     * {@link PwsFile}.
+     *
+     * @param storage      the password storage
+     * @param passwd       the passphrase for the file
+     * @param encodingHint the passphrase encoding to try first (if known)
+     * @return The correct subclass of {@link PwsFile} for the file.
+     * @throws EndOfFileException
+     * @throws InvalidPassphraseException
+     * @throws IOException
+     * @throws UnsupportedFileVersionException
+     */
+    public static PwsFile loadFromStorage(PwsStorage storage,
+                                          Owner<PwsPassword>.Param passwd,
+                                          String encodingHint)
+            throws EndOfFileException, InvalidPassphraseException, IOException,
+                   UnsupportedFileVersionException
     {
         PwsFile file;
         try {
@@ -203,14 +251,14 @@ public class PwsFileFactory
             // First check for a v3 file...
             byte[] first4Bytes = Util.getBytes(header, 0, 4);
             if (Util.bytesAreEqual("PWS3".getBytes(), first4Bytes)) {
-                file = new PwsFileV3(storage, passwd);
-                file.readAll();
+                file = new PwsFileV3(storage, passwd, encodingHint);
+                readAll(file);
                 file.close();
                 return file;
             }
 
             PwsRecordV1 rec;
-            String encoding = checkPassword(header, passwd);
+            String encoding = checkPassword(header, passwd, encodingHint);
             file = new PwsFileV1(storage, passwd, encoding);
             rec = (PwsRecordV1)file.readRecord();
             file.close();
@@ -226,7 +274,7 @@ public class PwsFileFactory
             } else {
                 file = new PwsFileV1(storage, passwd, encoding);
             }
-            file.readAll();
+            readAll(file);
             file.close();
             return file;
         } finally {
@@ -239,6 +287,17 @@ public class PwsFileFactory
         }
     }
 
+    /**
+     * Reads all records from a file, tracing the time
+     */
+    private static void readAll(PwsFile file)
+            throws IOException, UnsupportedFileVersionException
+    {
+        long start = PwsOpenTrace.start();
+        file.readAll();
+        PwsOpenTrace.endRead(start, file.getRecordCount());
+    }
+
     /**
      * Creates a new, empty PasswordSafe database in memory.  The database will
      * always be the latest version supported by this library which for this
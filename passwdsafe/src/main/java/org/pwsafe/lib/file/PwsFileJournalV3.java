@@ -0,0 +1,435 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package org.pwsafe.lib.file;
+
+import org.pwsafe.lib.Log;
+import org.pwsafe.lib.Util;
+import org.pwsafe.lib.crypto.HmacPws;
+import org.pwsafe.lib.crypto.TwofishPws;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A write-ahead journal of record changes for a V3 file.  Changes are
+ * appended to a sidecar file next to the database so that an edit does not
+ * require the whole database to be re-encrypted and rewritten.  Each entry
+ * is encrypted with the file's record key and authenticated with its HMAC
+ * key.  The journal is bound to the salt and IV of the database it was
+ * written against, is replayed when the database is next opened, and is
+ * removed once its changes are compacted by a full save.
+ * <p/>
+ * Journal layout:
+ * <pre>
+ *   "PWSJ" | salt (32) | IV (16)
+ *   entries: length (4) | IV (16) | ciphertext (length) | HMAC (32)
+ * </pre>
+ * An entry's plaintext is an operation byte followed by the record's fields,
+ * each as length (4) | type (1) | data, ending with an END_OF_RECORD field.
+ */
+final class PwsFileJournalV3
+{
+    private static final Log LOG =
+            Log.getInstance(PwsFileJournalV3.class.getPackage().getName());
+
+    /** File name suffix for the journal of a database */
+    public static final String JOURNAL_EXT = ".wal";
+
+    private static final byte[] ID_STRING = "PWSJ".getBytes();
+    private static final int BLOCK_SIZE = 16;
+    private static final int HMAC_SIZE = 32;
+    private static final int SALT_SIZE = 32;
+    private static final int HEADER_SIZE =
+            ID_STRING.length + SALT_SIZE + BLOCK_SIZE;
+
+    /** Maximum size of a single entry, to reject corrupted lengths */
+    private static final int MAX_ENTRY_SIZE = 16 * 1024 * 1024;
+
+    private static final byte OP_PUT_RECORD = 1;
+    private static final byte OP_REMOVE_RECORD = 2;
+    private static final byte OP_HEADER = 3;
+
+    /** A pending change to be written to the journal */
+    private static final class Change
+    {
+        private final byte itsOp;
+        private final PwsRecord itsRecord;
+
+        private Change(byte op, PwsRecord rec)
+        {
+            itsOp = op;
+            itsRecord = rec;
+        }
+    }
+
+    private final File itsFile;
+    private final List<Change> itsPending = new ArrayList<>();
+    private int itsNumEntries = 0;
+
+    /**
+     * Constructor
+     *
+     * @param file the journal's sidecar file
+     */
+    PwsFileJournalV3(File file)
+    {
+        itsFile = file;
+    }
+
+    /**
+     * Record that a record was added or updated
+     */
+    synchronized void recordChanged(PwsRecord rec)
+    {
+        itsPending.add(new Change(OP_PUT_RECORD, rec));
+    }
+
+    /**
+     * Record that a record was removed
+     */
+    synchronized void recordRemoved(PwsRecord rec)
+    {
+        itsPending.add(new Change(OP_REMOVE_RECORD, rec));
+    }
+
+    /**
+     * Get the number of entries written to the journal since it was last
+     * compacted
+     */
+    int getNumEntries()
+    {
+        return itsNumEntries;
+    }
+
+    /**
+     * Get the size of the journal file
+     */
+    long getSize()
+    {
+        return itsFile.length();
+    }
+
+    /**
+     * Does the journal contain changes not yet compacted into the database
+     */
+    boolean hasEntries()
+    {
+        return itsNumEntries > 0;
+    }
+
+    /**
+     * Append the pending changes and the header record to the journal
+     *
+     * @param file the database being journaled
+     * @throws IOException if the journal can not be written
+     */
+    synchronized void append(PwsFileV3 file) throws IOException
+    {
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        boolean newJournal = !itsFile.exists() || (itsFile.length() == 0);
+        if (newJournal) {
+            entries.write(getBinding(file));
+        }
+
+        for (Change change: itsPending) {
+            writeEntry(change.itsOp, change.itsRecord, file, entries);
+        }
+        writeEntry(OP_HEADER, file.getHeaderRecord(), file, entries);
+
+        FileOutputStream os = new FileOutputStream(itsFile, !newJournal);
+        try {
+            os.write(entries.toByteArray());
+            os.getFD().sync();
+        } finally {
+            os.close();
+        }
+        itsNumEntries += itsPending.size() + 1;
+        itsPending.clear();
+    }
+
+    /**
+     * Replay the journal's changes onto the database.  Entries partially
+     * written when the app stopped are discarded.
+     *
+     * @param file the database to update
+     * @return true if changes were replayed
+     * @throws IOException if the journal is corrupt
+     */
+    @SuppressWarnings("TryFinallyCanBeTryWithResources")
+    boolean replay(PwsFileV3 file) throws IOException
+    {
+        if (!itsFile.exists()) {
+            return false;
+        }
+
+        byte[] data;
+        FileInputStream is = new FileInputStream(itsFile);
+        try {
+            data = new byte[(int)itsFile.length()];
+            int pos = 0;
+            while (pos < data.length) {
+                int count = is.read(data, pos, data.length - pos);
+                if (count == -1) {
+                    break;
+                }
+                pos += count;
+            }
+        } finally {
+            is.close();
+        }
+
+        if ((data.length < HEADER_SIZE) ||
+            !Util.bytesAreEqual(Util.getBytes(data, 0, HEADER_SIZE),
+                                getBinding(file))) {
+            LOG.warn("Discarding journal for a different database version");
+            discard();
+            return false;
+        }
+
+        int pos = HEADER_SIZE;
+        while ((data.length - pos) >= 4 + BLOCK_SIZE + HMAC_SIZE) {
+            int len = Util.getIntFromByteArray(data, pos);
+            if ((len <= 0) || (len > MAX_ENTRY_SIZE) ||
+                ((len % BLOCK_SIZE) != 0)) {
+                throw new IOException("Invalid journal entry length: " + len);
+            }
+            int entryLen = 4 + BLOCK_SIZE + len + HMAC_SIZE;
+            if (entryLen > (data.length - pos)) {
+                break;
+            }
+
+            HmacPws hmac = new HmacPws(file.decryptedHmacKey);
+            hmac.digest(Util.getBytes(data, pos, entryLen - HMAC_SIZE));
+            if (!Util.bytesAreEqual(
+                    hmac.doFinal(),
+                    Util.getBytes(data, pos + entryLen - HMAC_SIZE,
+                                  HMAC_SIZE))) {
+                throw new IOException("Journal HMAC did not match. " +
+                                      "Journal has been tampered");
+            }
+
+            byte[] iv = Util.getBytes(data, pos + 4, BLOCK_SIZE);
+            TwofishPws cipher =
+                    new TwofishPws(file.decryptedRecordKey, false, iv);
+            byte[] plain = new byte[len];
+            int cipherPos = pos + 4 + BLOCK_SIZE;
+            for (int i = 0; i < len; i += BLOCK_SIZE) {
+                byte[] block = cipher.processCBC(
+                        Util.getBytes(data, cipherPos + i, BLOCK_SIZE));
+                System.arraycopy(block, 0, plain, i, BLOCK_SIZE);
+            }
+            try {
+                applyEntry(plain, file);
+            } finally {
+                Util.clearArray(plain);
+            }
+
+            ++itsNumEntries;
+            pos += entryLen;
+        }
+
+        if (pos != data.length) {
+            LOG.warn("Truncating incomplete journal entry");
+            RandomAccessFile raf = new RandomAccessFile(itsFile, "rw");
+            try {
+                raf.setLength(pos);
+            } finally {
+                raf.close();
+            }
+        }
+        Util.clearArray(data);
+        return itsNumEntries > 0;
+    }
+
+    /**
+     * Get the number of changes not yet written to the journal
+     */
+    synchronized int getNumPending()
+    {
+        return itsPending.size();
+    }
+
+    /**
+     * Discard the journal after its changes are saved in the database
+     */
+    void discard()
+    {
+        discard(getNumPending());
+    }
+
+    /**
+     * Discard the journal after its changes and the given number of pending
+     * changes are saved in the database.  Later changes remain pending.
+     */
+    synchronized void discard(int numSaved)
+    {
+        itsPending.subList(0, Math.min(numSaved, itsPending.size())).clear();
+        itsNumEntries = 0;
+        if (itsFile.exists() && !itsFile.delete()) {
+            LOG.error("Error deleting journal: " + itsFile);
+        }
+    }
+
+    /**
+     * Get the bytes binding the journal to the current version of the
+     * database
+     */
+    private static byte[] getBinding(PwsFileV3 file)
+    {
+        PwsFileHeaderV3 hdr = file.getHeaderV3();
+        return Util.mergeBytes(Util.mergeBytes(ID_STRING, hdr.getSalt()),
+                               hdr.getIV());
+    }
+
+    /**
+     * Encrypt and write an entry for a record change
+     */
+    private static void writeEntry(byte op, PwsRecord rec, PwsFileV3 file,
+                                   ByteArrayOutputStream os)
+            throws IOException
+    {
+        ByteArrayOutputStream plainOs = new ByteArrayOutputStream();
+        plainOs.write(op);
+        if (op == OP_REMOVE_RECORD) {
+            writeField(rec.getField(PwsRecordV3.UUID), plainOs);
+        } else {
+            for (Iterator<Integer> iter = rec.getFields(); iter.hasNext(); ) {
+                writeField(rec.getField(iter.next()), plainOs);
+            }
+        }
+        writeField(new PwsStringField(PwsRecordV3.END_OF_RECORD, ""), plainOs);
+
+        int pad = BLOCK_SIZE - (plainOs.size() % BLOCK_SIZE);
+        if (pad != BLOCK_SIZE) {
+            byte[] padBytes = new byte[pad];
+            Util.newRandBytes(padBytes);
+            plainOs.write(padBytes);
+        }
+        byte[] plain = plainOs.toByteArray();
+
+        byte[] lenBytes = new byte[4];
+        Util.putIntToByteArray(lenBytes, plain.length, 0);
+        byte[] iv = new byte[BLOCK_SIZE];
+        Util.newRandBytes(iv);
+
+        TwofishPws cipher = new TwofishPws(file.decryptedRecordKey, true, iv);
+        HmacPws hmac = new HmacPws(file.decryptedHmacKey);
+        hmac.digest(lenBytes);
+        hmac.digest(iv);
+        os.write(lenBytes);
+        os.write(iv);
+        for (int i = 0; i < plain.length; i += BLOCK_SIZE) {
+            byte[] block =
+                    cipher.processCBC(Util.getBytes(plain, i, BLOCK_SIZE));
+            hmac.digest(block);
+            os.write(block);
+        }
+        os.write(hmac.doFinal());
+        Util.clearArray(plain);
+    }
+
+    /**
+     * Write a field to an entry's plaintext
+     */
+    private static void writeField(PwsField field, ByteArrayOutputStream os)
+            throws IOException
+    {
+        byte[] data = field.getBytes();
+        byte[] hdr = new byte[5];
+        Util.putIntToByteArray(hdr, data.length, 0);
+        hdr[4] = (byte)field.getType();
+        os.write(hdr);
+        os.write(data);
+    }
+
+    /**
+     * Apply a decrypted entry to the database
+     */
+    private static void applyEntry(byte[] plain, PwsFileV3 file)
+            throws IOException
+    {
+        byte op = plain[0];
+        boolean isHeader = (op == OP_HEADER);
+        List<PwsField> fields = new ArrayList<>();
+        int pos = 1;
+        for (;;) {
+            if ((pos + 5) > plain.length) {
+                throw new IOException("Invalid journal entry");
+            }
+            int len = Util.getIntFromByteArray(plain, pos);
+            int type = plain[pos + 4] & 0xff;
+            pos += 5;
+            if ((len < 0) || (len > (plain.length - pos))) {
+                throw new IOException("Invalid journal field length: " + len);
+            }
+            if (type == PwsRecordV3.END_OF_RECORD) {
+                break;
+            }
+            byte[] data = Util.getBytes(plain, pos, len);
+            pos += len;
+            fields.add(isHeader ? new PwsUnknownField(type, data) :
+                               PwsRecordV3.createField(type, data, file));
+        }
+
+        switch (op) {
+        case OP_PUT_RECORD: {
+            PwsRecordV3 rec = new PwsRecordV3(fields, false);
+            int idx = findRecord(rec.getField(PwsRecordV3.UUID), file);
+            if (idx >= 0) {
+                file.replayRecord(idx, rec);
+            } else {
+                file.replayRecord(-1, rec);
+            }
+            break;
+        }
+        case OP_REMOVE_RECORD: {
+            if (fields.isEmpty()) {
+                throw new IOException("Invalid journal remove entry");
+            }
+            int idx = findRecord(fields.get(0), file);
+            if (idx >= 0) {
+                file.replayRecord(idx, null);
+            }
+            break;
+        }
+        case OP_HEADER: {
+            file.replayHeader(new PwsRecordV3(fields, true));
+            break;
+        }
+        default: {
+            throw new IOException("Unknown journal entry: " + op);
+        }
+        }
+    }
+
+    /**
+     * Find the index of the record with the given UUID field
+     */
+    private static int findRecord(PwsField uuid, PwsFileV3 file)
+    {
+        if (uuid == null) {
+            return -1;
+        }
+        byte[] uuidBytes = uuid.getBytes();
+        for (int i = 0; i < file.getRecordCount(); ++i) {
+            PwsField recUuid = file.getRecord(i).getField(PwsRecordV3.UUID);
+            if ((recUuid != null) &&
+                Util.bytesAreEqual(recUuid.getBytes(), uuidBytes)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -106,6 +106,22 @@ public class PwsFileStorage extends PwsStreamStorage
         return modified;
     }
 
+    /**
+     * Get the sidecar file used to journal changes to the file
+     */
+    public File getJournalFile()
+    {
+        return getJournalFile(new File(getIdentifier()));
+    }
+
+    /**
+     * Get the sidecar file used to journal changes to the given file
+     */
+    public static File getJournalFile(File file)
+    {
+        return new File(file.getPath() + PwsFileJournalV3.JOURNAL_EXT);
+    }
+
     private String getSaveFileName(File file, boolean isV3)
     {
         if (getSaveHelper() != null) {
@@ -15,7 +15,6 @@ import org.pwsafe.lib.exception.EndOfFileException;
 import org.pwsafe.lib.exception.PasswordSafeException;
 import org.pwsafe.lib.exception.UnsupportedFileVersionException;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -130,7 +129,10 @@ public abstract class PwsFileV1V2 extends PwsFile
         setPassphrase(passwd);
 
         if (storage != null) {
-            inStream = new ByteArrayInputStream(storage.load());
+            long readStart = PwsOpenTrace.start();
+            inBuffer = storage.loadBuffer();
+            PwsOpenTrace.end(PwsOpenTrace.Phase.STORAGE_READ, readStart,
+                             inBuffer.remaining(), 1, null);
             lastStorageChange = storage.getModifiedDate();
         }
         header = new PwsFileHeader(this);
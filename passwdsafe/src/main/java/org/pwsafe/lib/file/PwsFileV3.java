@@ -15,16 +15,25 @@ import org.pwsafe.lib.exception.EndOfFileException;
 import org.pwsafe.lib.exception.MemoryKeyException;
 import org.pwsafe.lib.exception.UnsupportedFileVersionException;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
+import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.SealedObject;
 
@@ -61,6 +70,119 @@ public final class PwsFileV3 extends PwsFile
     HmacPws hasher;
     private PwsRecordV3 headerRecord;
 
+    /**
+     * Maximum size of the journal before changes are compacted into the file
+     */
+    private static final long MAX_JOURNAL_SIZE = 256 * 1024;
+
+    /**
+     * Maximum number of journal entries before changes are compacted into
+     * the file
+     */
+    private static final int MAX_JOURNAL_ENTRIES = 512;
+
+    /**
+     * Number of password encodings stretched together, the vector lanes of
+     * most devices
+     */
+    private static final int STRETCH_GROUP_SIZE = 4;
+
+    private PwsFileJournalV3 journal;
+
+    /**
+     * Whether the key material in memory matches the saved file
+     */
+    private boolean keysMatchStorage = true;
+
+    /**
+     * Length of the unencrypted file header preceding the header record
+     */
+    private static final int FILE_HEADER_LENGTH = 152;
+
+    /**
+     * Offsets and lengths of the salt and IV in the file header, and the
+     * length of the HMAC at the end of the file
+     */
+    private static final int SALT_OFFSET = 4;
+    private static final int SALT_LENGTH = 32;
+    private static final int IV_OFFSET = 136;
+    private static final int IV_LENGTH = 16;
+    private static final int HMAC_LENGTH = 32;
+
+    /**
+     * Fingerprint of the file as last loaded or saved
+     */
+    private byte[] fingerprint;
+
+    /**
+     * Whether incremental saves are enabled
+     */
+    private static boolean itsIncrementalSave = false;
+
+    /**
+     * The encrypted image of the file as last loaded or saved, kept for
+     * incremental saves.  The image's records are in imageRecords with the
+     * offsets of their ciphertext in imageOffsets, followed by the offset of
+     * the end of file marker.
+     */
+    private byte[] saveImage;
+    private ArrayList<PwsRecord> imageRecords;
+    private int[] imageOffsets;
+    private byte[] imageHeaderDigest;
+
+    /**
+     * Records changed since the last snapshot
+     */
+    private final Set<PwsRecord> dirtyRecords =
+            Collections.newSetFromMap(new IdentityHashMap<PwsRecord, Boolean>());
+
+    /**
+     * The copies of the records in the last snapshot, keyed by record
+     */
+    private IdentityHashMap<PwsRecord, PwsRecordV3> snapshotCopies;
+
+    /**
+     * Number of snapshots created but not yet saved
+     */
+    private final AtomicInteger pendingSnapshots = new AtomicInteger();
+
+    /**
+     * Lock held while a snapshot is saved, so saves are written in order
+     * without holding the file's lock while they are encrypted
+     */
+    private final Object saveLock = new Object();
+
+    /**
+     * Number of times the passphrase was set, to detect a change while a
+     * snapshot is encrypted
+     */
+    private int passphraseChanges = 0;
+
+    /**
+     * An immutable copy of the file's records to save.  Records which are
+     * unchanged since the previous snapshot share its copies, so the save
+     * can reuse the ciphertext of records unchanged since the last save.
+     */
+    public static final class Snapshot
+    {
+        private final PwsRecordV3 header;
+        private final ArrayList<PwsRecord> records;
+        private final int modCount;
+        private final int numJournalPending;
+
+        /**
+         * Constructor
+         */
+        private Snapshot(PwsRecordV3 header, ArrayList<PwsRecord> records,
+                         int modCount, int numJournalPending)
+        {
+            this.header = header;
+            this.records = records;
+            this.modCount = modCount;
+            this.numJournalPending = numJournalPending;
+        }
+    }
+
     /**
      * Constructs and initialises a new, empty version 3 PasswordSafe
      * database in memory.
@@ -90,7 +212,26 @@ public final class PwsFileV3 extends PwsFile
             throws EndOfFileException, IOException,
                    UnsupportedFileVersionException
     {
-        super(storage, passwd, null);
+        this(storage, passwd, null);
+    }
+
+    /**
+     * Use of this constructor to load a PasswordSafe database is STRONGLY
+     * discouraged since it's use ties the caller to a particular file version.
+     *
+     * @param storage  the underlying storage to use to open the database.
+     * @param passwd   the passphrase for the database.
+     * @param encoding the passphrase encoding to try first (if known)
+     * @throws EndOfFileException
+     * @throws IOException
+     * @throws UnsupportedFileVersionException
+     */
+    public PwsFileV3(PwsStorage storage, Owner<PwsPassword>.Param passwd,
+                     String encoding)
+            throws EndOfFileException, IOException,
+                   UnsupportedFileVersionException
+    {
+        super(storage, passwd, encoding);
     }
 
 
@@ -100,38 +241,88 @@ public final class PwsFileV3 extends PwsFile
     @Override
     public void dispose()
     {
-        super.dispose();
-        if (stretchedPassword != null)
-            Arrays.fill(stretchedPassword, (byte)0);
-        if (decryptedHmacKey != null)
-            Arrays.fill(decryptedHmacKey, (byte)0);
-        if (decryptedRecordKey != null)
-            Arrays.fill(decryptedRecordKey, (byte)0);
+        synchronized (this) {
+            super.dispose();
+            if (stretchedPassword != null)
+                Arrays.fill(stretchedPassword, (byte)0);
+            if (decryptedHmacKey != null)
+                Arrays.fill(decryptedHmacKey, (byte)0);
+            if (decryptedRecordKey != null)
+                Arrays.fill(decryptedRecordKey, (byte)0);
+        }
     }
 
-    private byte[] checkPassword(Owner<PwsPassword>.Param passwdParam,
-                                 String encoding,
-                                 PwsFileHeaderV3 headerV3,
-                                 int iter)
+    /**
+     * Check the password in each of the encodings.  The stretches for the
+     * encodings are computed together.  The encoded passwords and the
+     * stretches which don't match are cleared.
+     *
+     * @return The stretched password for the first encoding that matches the
+     * header at its index; null entries for the others
+     */
+    private static byte[][] checkPasswords(
+            Owner<PwsPassword>.Param passwdParam,
+            List<String> encodings,
+            PwsFileHeaderV3 headerV3,
+            int iter)
     {
+        byte[][] passwds = new byte[encodings.size()][];
+        Owner<PwsPassword> passwd = passwdParam.use();
         try {
-            Owner<PwsPassword> passwd = passwdParam.use();
-            try {
-                byte[] stretch =
-                        Util.stretchPassphrase(passwd.get().getBytes(encoding),
-                                               headerV3.getSalt(), iter);
-                if (Util.bytesAreEqual(headerV3.getPassword(),
-                                       SHA256Pws.digest(stretch))) {
-                    return stretch;
+            for (int i = 0; i < passwds.length; ++i) {
+                try {
+                    passwds[i] = passwd.get().getBytes(encodings.get(i));
+                } catch (UnsupportedEncodingException e) {
+                    // Skip this charset
+                    passwds[i] = null;
                 }
-            } finally {
-                passwd.close();
             }
-        } catch (UnsupportedEncodingException e) {
-            // Skip this charset
+        } finally {
+            passwd.close();
         }
 
-        return null;
+        int numSupported = 0;
+        for (byte[] p: passwds) {
+            if (p != null) {
+                ++numSupported;
+            }
+        }
+        byte[][] supported = new byte[numSupported][];
+        for (int i = 0, j = 0; i < passwds.length; ++i) {
+            if (passwds[i] != null) {
+                supported[j++] = passwds[i];
+            }
+        }
+
+        byte[][] stretches;
+        try {
+            stretches = Util.stretchPassphrases(supported,
+                                                headerV3.getSalt(), iter);
+        } finally {
+            for (byte[] p: passwds) {
+                if (p != null) {
+                    Arrays.fill(p, (byte)0);
+                }
+            }
+        }
+
+        byte[][] matches = new byte[passwds.length][];
+        boolean matched = false;
+        for (int i = 0, j = 0; i < passwds.length; ++i) {
+            if (passwds[i] == null) {
+                continue;
+            }
+            byte[] stretch = stretches[j++];
+            if (!matched &&
+                Util.bytesAreEqual(headerV3.getPassword(),
+                                   SHA256Pws.digest(stretch))) {
+                matches[i] = stretch;
+                matched = true;
+            } else {
+                Arrays.fill(stretch, (byte)0);
+            }
+        }
+        return matches;
     }
 
     @Override
@@ -142,7 +333,17 @@ public final class PwsFileV3 extends PwsFile
         setPassphrase(passwdParam);
 
         if (storage != null) {
-            inStream = new ByteArrayInputStream(storage.load());
+            long readStart = PwsOpenTrace.start();
+            inBuffer = storage.loadBuffer();
+            PwsOpenTrace.end(PwsOpenTrace.Phase.STORAGE_READ, readStart,
+                             inBuffer.remaining(), 1, null);
+            fingerprint = getFingerprint(inBuffer);
+            if (isIncrementalSave()) {
+                saveImage = new byte[inBuffer.remaining()];
+                inBuffer.duplicate().get(saveImage);
+            } else {
+                saveImage = null;
+            }
             lastStorageChange = storage.getModifiedDate();
         }
         PwsFileHeaderV3 theHeaderV3 = new PwsFileHeaderV3(this);
@@ -152,42 +353,51 @@ public final class PwsFileV3 extends PwsFile
         int iter = theHeaderV3.getIter();
         stretchedPassword = null;
 
-        if (encoding != null) {
-            stretchedPassword = checkPassword(passwdParam, encoding,
-                                              theHeaderV3, iter);
+        // The most likely encoding is tried alone, and the others are
+        // stretched together in groups which fit the vector lanes of most
+        // devices.  No more groups are stretched after a match.  The
+        // platform default is tried last to avoid the asymmetric encoding
+        // bug in V0.8 Beta1.
+        List<String> encodings = getPasswordEncodings(passwdParam, encoding);
+        List<List<String>> batches = new ArrayList<>();
+        int numFirst = Math.min(1, encodings.size());
+        batches.add(encodings.subList(0, numFirst));
+        for (int i = numFirst; i < encodings.size();
+             i += STRETCH_GROUP_SIZE) {
+            batches.add(encodings.subList(
+                    i, Math.min(i + STRETCH_GROUP_SIZE, encodings.size())));
         }
-
-        if (stretchedPassword == null) {
-            for (String charset : PwsFile.getPasswordEncodings()) {
-                stretchedPassword = checkPassword(passwdParam, charset,
-                                                  theHeaderV3, iter);
-                if (stretchedPassword != null) {
-                    encoding = charset;
+        for (List<String> batch: batches) {
+            if (batch.isEmpty()) {
+                continue;
+            }
+            long stretchStart = PwsOpenTrace.start();
+            byte[][] matches = checkPasswords(passwdParam, batch,
+                                              theHeaderV3, iter);
+            PwsOpenTrace.end(PwsOpenTrace.Phase.KEY_STRETCH, stretchStart,
+                             0, batch.size(),
+                             PwsOpenTrace.isEnabled() ?
+                                     ("iter=" + iter + " charsets=" + batch) :
+                                     null);
+            for (int i = 0; i < matches.length; ++i) {
+                if (matches[i] != null) {
+                    stretchedPassword = matches[i];
+                    encoding = batch.get(i);
                     break;
                 }
             }
+            if (stretchedPassword != null) {
+                break;
+            }
         }
 
         if (stretchedPassword == null) {
-            //try another method to avoid asymmetric encoding bug in V0.8 Beta1
-            Owner<PwsPassword> passwd = passwdParam.use();
-            try {
-                stretchedPassword = Util.stretchPassphrase(
-                        passwd.get().getBytes(null),
-                        theHeaderV3.getSalt(), iter);
-                if (Util.bytesAreEqual(theHeaderV3.getPassword(),
-                                       SHA256Pws.digest(stretchedPassword))) {
-                    encoding = Charset.defaultCharset().name();
-                } else {
-                    throw new IOException("Invalid password");
-                }
-            } finally {
-                passwd.close();
-            }
+            throw new IOException("Invalid password");
         }
 
         setOpenPasswordEncoding(encoding);
 
+        long unwrapStart = PwsOpenTrace.start();
         try {
 
             byte[] rka = TwofishPws.processECB(stretchedPassword, false,
@@ -209,63 +419,263 @@ public final class PwsFileV3 extends PwsFile
         }
         twofishCbc = new TwofishPws(decryptedRecordKey, false,
                                     theHeaderV3.getIV());
+        PwsOpenTrace.end(PwsOpenTrace.Phase.KEY_UNWRAP, unwrapStart,
+                         decryptedRecordKey.length + decryptedHmacKey.length,
+                         2, null);
 
         readExtraHeader(this);
     }
 
+    /**
+     * Reads all records from the file and replays any changes from the
+     * file's journal
+     */
+    @Override
+    void readAll() throws IOException, UnsupportedFileVersionException
+    {
+        if (saveImage == null) {
+            super.readAll();
+        } else {
+            // Track the offsets of the records in the image.  The image
+            // holds copies of the records as the first snapshot.
+            ArrayList<PwsRecord> recs = new ArrayList<>();
+            ArrayList<Integer> offsets = new ArrayList<>();
+            snapshotCopies = new IdentityHashMap<>();
+            int offset = 0;
+            try {
+                //noinspection InfiniteLoopStatement
+                for (; ; ) {
+                    offset = inBuffer.position();
+                    final PwsRecord rec = PwsRecord.read(this);
+
+                    if (rec.isValid()) {
+                        doAdd(rec);
+                        PwsRecordV3 copy = copyRecord(rec);
+                        snapshotCopies.put(rec, copy);
+                        recs.add(copy);
+                        offsets.add(offset);
+                    } else {
+                        // Can't recreate the image without the record
+                        saveImage = null;
+                    }
+                }
+            } catch (EndOfFileException e) {
+                // OK
+            }
+
+            if (saveImage != null) {
+                offsets.add(offset);
+                int[] offsetArray = new int[offsets.size()];
+                for (int i = 0; i < offsetArray.length; ++i) {
+                    offsetArray[i] = offsets.get(i);
+                }
+                setSaveImage(saveImage, recs, offsetArray,
+                             getHeaderDigest(headerRecord));
+            }
+        }
+
+        PwsFileJournalV3 fileJournal = getJournal();
+        if (fileJournal != null) {
+            fileJournal.replay(this);
+        }
+    }
+
 
     /**
      * Writes this file back to the filesystem.  If successful the modified
-     * flag is also reset on the file and all records.
+     * flag is also reset on the file and all records.  If incremental saves
+     * are enabled and the key material and header record are unchanged,
+     * the ciphertext of the records before the first changed record is
+     * reused from the last load or save.
      *
      * @throws IOException if the attempt fails.
      */
     @Override
     public void save() throws IOException
     {
-        if (isReadOnly())
-            throw new IOException("File is read only");
+        saveSnapshot(createSnapshot());
+    }
+
+    /**
+     * Create a snapshot of the file's records to save with
+     * {@link #saveSnapshot(Snapshot)}.  The records must not be changed
+     * while the snapshot is created, but they may be changed while it is
+     * saved.  Each snapshot must be saved.
+     */
+    public Snapshot createSnapshot()
+    {
+        IdentityHashMap<PwsRecord, PwsRecordV3> copies =
+                new IdentityHashMap<>(getRecordCount());
+        ArrayList<PwsRecord> recs = new ArrayList<>(getRecordCount());
+        for (Iterator<? extends PwsRecord> iter = getRecords();
+             iter.hasNext(); ) {
+            PwsRecord rec = iter.next();
+            PwsRecordV3 copy =
+                    (snapshotCopies != null) ? snapshotCopies.get(rec) : null;
+            if ((copy == null) || dirtyRecords.contains(rec)) {
+                copy = copyRecord(rec);
+            }
+            copies.put(rec, copy);
+            recs.add(copy);
+        }
+        snapshotCopies = copies;
+        dirtyRecords.clear();
+
+        PwsFileJournalV3 fileJournal = getJournal();
+        pendingSnapshots.incrementAndGet();
+        return new Snapshot(copyRecord(headerRecord), recs, getModCount(),
+                            (fileJournal != null) ?
+                                    fileJournal.getNumPending() : 0);
+    }
+
+    /**
+     * Writes a snapshot of the file to its storage.  The save may run on a
+     * different thread than changes to the records.  The ciphertext of
+     * records unchanged since the last save is reused when possible.  The
+     * file is only locked while the save starts and while the image is
+     * written, so it can be used while the snapshot is encrypted.
+     *
+     * @throws IOException if the attempt fails.
+     */
+    public void saveSnapshot(Snapshot snapshot) throws IOException
+    {
+        try {
+            synchronized (saveLock) {
+                doSaveSnapshot(snapshot);
+            }
+        } finally {
+            pendingSnapshots.decrementAndGet();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the file while the save lock is held.  The
+     * snapshot is encrypted by a writer with copies of the file's key
+     * material, and the file takes the writer's keys once the image is
+     * saved.
+     */
+    private void doSaveSnapshot(Snapshot snapshot) throws IOException
+    {
+        byte[] headerDigest = getHeaderDigest(snapshot.header);
+        PwsFileV3 writer = new PwsFileV3();
+        PwsFileHeaderV3 theHeaderV3 = null;
+        int numPassphraseChanges;
+        synchronized (this) {
+            if (isReadOnly())
+                throw new IOException("File is read only");
 
-        if (lastStorageChange != null && // check for concurrent change
-            storage.getModifiedDate().after(lastStorageChange)) {
-            throw new ConcurrentModificationException(
-                    "Password store was changed independently - no save " +
-                    "possible!");
+            numPassphraseChanges = passphraseChanges;
+            writer.decryptedRecordKey = Util.cloneByteArray(decryptedRecordKey);
+            writer.decryptedHmacKey = Util.cloneByteArray(decryptedHmacKey);
+            if (canSaveIncremental(headerDigest)) {
+                writer.saveImage = saveImage;
+                writer.imageRecords = imageRecords;
+                writer.imageOffsets = imageOffsets;
+            } else {
+                theHeaderV3 = getHeaderV3();
+                Owner<PwsPassword> passwd = getPassphrase();
+                try {
+                    writer.setPassphrase(passwd.pass());
+                } finally {
+                    passwd.close();
+                }
+            }
         }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            ArrayList<PwsRecord> recs = snapshot.records;
+            int[] offsets = new int[recs.size() + 1];
+            byte[] image = writer.writeSnapshot(snapshot, theHeaderV3,
+                                                offsets);
+
+            synchronized (this) {
+                if (lastStorageChange != null && // check for concurrent change
+                    storage.getModifiedDate().after(lastStorageChange)) {
+                    throw new ConcurrentModificationException(
+                            "Password store was changed independently - no " +
+                            "save possible!");
+                }
+
+                if (!storage.save(image, true)) {
+                    throw new IOException("Unable to save file");
+                }
+                if (getModCount() == snapshot.modCount) {
+                    modified = false;
+                }
+                lastStorageChange = storage.getModifiedDate();
+                if (journal != null) {
+                    journal.discard(snapshot.numJournalPending);
+                }
+                if (theHeaderV3 != null) {
+                    // The journal is bound to the new salt and IV
+                    setHeaderV3(theHeaderV3);
+                    decryptedRecordKey =
+                            Util.cloneByteArray(writer.decryptedRecordKey);
+                    decryptedHmacKey =
+                            Util.cloneByteArray(writer.decryptedHmacKey);
+                }
+                keysMatchStorage = true;
+                fingerprint = getFingerprint(ByteBuffer.wrap(image));
+                if (isIncrementalSave() &&
+                    (passphraseChanges == numPassphraseChanges)) {
+                    setSaveImage(image, recs, offsets, headerDigest);
+                } else {
+                    saveImage = null;
+                }
+            }
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Encrypts a snapshot as the writer for a file
+     *
+     * @param theHeaderV3 The file header to save with new key material; null
+     *                    to reuse the ciphertext of the writer's image
+     * @param offsets     The offsets of the records in the image, set by the
+     *                    write
+     * @return The image of the file
+     * @throws IOException if the attempt fails.
+     */
+    private byte[] writeSnapshot(Snapshot snapshot,
+                                 PwsFileHeaderV3 theHeaderV3, int[] offsets)
+            throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(
+                (saveImage != null) ? saveImage.length : 32);
         outStream = baos;
 
         try {
-            PwsFileHeaderV3 theHeaderV3 = getHeaderV3();
-            theHeaderV3.save(this);
+            ArrayList<PwsRecord> recs = snapshot.records;
+            int firstRec = 0;
+            if (theHeaderV3 == null) {
+                firstRec = writeUnchangedRecords(snapshot.header, recs,
+                                                 offsets);
+            } else {
+                theHeaderV3.save(this);
 
-            // Can only be created once the V3 header resets key info
+                // Can only be created once the V3 header resets key info
 
-            twofishCbc = new TwofishPws(decryptedRecordKey, true,
-                                        theHeaderV3.getIV());
+                twofishCbc = new TwofishPws(decryptedRecordKey, true,
+                                            theHeaderV3.getIV());
 
-            writeExtraHeader(this);
+                snapshot.header.saveRecord(this);
+            }
 
-            PwsRecordV3 rec;
-            for (Iterator<? extends PwsRecord> iter = getRecords();
-                 iter.hasNext(); ) {
-                rec = (PwsRecordV3)iter.next();
+            for (int i = firstRec; i < recs.size(); ++i) {
+                PwsRecordV3 rec = (PwsRecordV3)recs.get(i);
+                offsets[i] = baos.size();
                 if (!rec.isHeaderRecord())
                     rec.saveRecord(this);
             }
+            offsets[recs.size()] = baos.size();
 
             outStream.write(PwsRecordV3.EOF_BYTES_RAW);
             outStream.write(hasher.doFinal());
 
             outStream.close();
-
-            if (storage.save(baos.toByteArray(), true)) {
-                modified = false;
-                lastStorageChange = storage.getModifiedDate();
-            } else {
-                throw new IOException("Unable to save file");
-            }
+            return baos.toByteArray();
         } catch (IOException e) {
             try {
                 if (outStream != null) {
@@ -280,6 +690,396 @@ public final class PwsFileV3 extends PwsFile
         }
     }
 
+    /**
+     * Copy a record's fields.  The fields are immutable, so they are shared.
+     */
+    private static PwsRecordV3 copyRecord(PwsRecord rec)
+    {
+        return new PwsRecordV3(rec.attributes.values(),
+                               ((PwsRecordV3)rec).isHeaderRecord());
+    }
+
+    /**
+     * Can the next save reuse the ciphertext from the last load or save
+     */
+    public boolean canSaveIncremental()
+    {
+        synchronized (this) {
+            return canSaveIncremental(getHeaderDigest(headerRecord));
+        }
+    }
+
+    /**
+     * Can the next save of a header reuse the ciphertext from the last load
+     * or save
+     */
+    private boolean canSaveIncremental(byte[] headerDigest)
+    {
+        return isIncrementalSave() && (saveImage != null) &&
+               keysMatchStorage &&
+               Util.bytesAreEqual(imageHeaderDigest, headerDigest);
+    }
+
+    /**
+     * Set whether incremental saves are enabled
+     */
+    public static synchronized void setIncrementalSave(boolean incremental)
+    {
+        itsIncrementalSave = incremental;
+    }
+
+    /**
+     * Get whether incremental saves are enabled
+     */
+    public static synchronized boolean isIncrementalSave()
+    {
+        return itsIncrementalSave;
+    }
+
+    /**
+     * Get the fingerprint of the file as last loaded or saved.  The
+     * fingerprint changes whenever the file is rewritten.
+     *
+     * @return The fingerprint; null if not known
+     */
+    public byte[] getFingerprint()
+    {
+        return fingerprint;
+    }
+
+    /**
+     * Read the fingerprint of a file without loading it.  The size, salt,
+     * IV, and trailing HMAC are read with positioned reads.
+     *
+     * @return The fingerprint; null if the file is too short to be a V3 file
+     */
+    public static byte[] readFingerprint(FileChannel channel)
+            throws IOException
+    {
+        long size = channel.size();
+        if ((size < FILE_HEADER_LENGTH + HMAC_LENGTH) ||
+            (size > Integer.MAX_VALUE)) {
+            return null;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(
+                8 + SALT_LENGTH + IV_LENGTH + HMAC_LENGTH);
+        buf.putLong(size);
+        readFully(channel, buf, SALT_OFFSET, SALT_LENGTH);
+        readFully(channel, buf, IV_OFFSET, IV_LENGTH);
+        readFully(channel, buf, size - HMAC_LENGTH, HMAC_LENGTH);
+        return buf.array();
+    }
+
+    /**
+     * Check whether a passphrase matches the one used to save the file
+     */
+    public boolean checkPassphrase(Owner<PwsPassword>.Param passwdParam)
+    {
+        PwsFileHeaderV3 theHeaderV3 = getHeaderV3();
+        List<String> encodings =
+                getPasswordEncodings(passwdParam, getOpenPasswordEncoding());
+        boolean matches = false;
+        for (byte[] stretch: checkPasswords(passwdParam, encodings,
+                                            theHeaderV3,
+                                            theHeaderV3.getIter())) {
+            if (stretch != null) {
+                Arrays.fill(stretch, (byte)0);
+                matches = true;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Get the fingerprint of a file's contents
+     */
+    private static byte[] getFingerprint(ByteBuffer data)
+    {
+        int size = data.limit() - data.position();
+        if (size < FILE_HEADER_LENGTH + HMAC_LENGTH) {
+            return null;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(
+                8 + SALT_LENGTH + IV_LENGTH + HMAC_LENGTH);
+        buf.putLong(size);
+        int start = data.position();
+        copyBytes(data, start + SALT_OFFSET, SALT_LENGTH, buf);
+        copyBytes(data, start + IV_OFFSET, IV_LENGTH, buf);
+        copyBytes(data, data.limit() - HMAC_LENGTH, HMAC_LENGTH, buf);
+        return buf.array();
+    }
+
+    /**
+     * Copy bytes from an absolute position in a buffer
+     */
+    private static void copyBytes(ByteBuffer src, int pos, int len,
+                                  ByteBuffer dest)
+    {
+        for (int i = 0; i < len; ++i) {
+            dest.put(src.get(pos + i));
+        }
+    }
+
+    /**
+     * Read bytes from a position in a channel
+     */
+    private static void readFully(FileChannel channel, ByteBuffer dest,
+                                  long pos, int len)
+            throws IOException
+    {
+        int limit = dest.limit();
+        dest.limit(dest.position() + len);
+        try {
+            while (dest.hasRemaining()) {
+                int num = channel.read(dest, pos);
+                if (num < 0) {
+                    throw new EOFException();
+                }
+                pos += num;
+            }
+        } finally {
+            dest.limit(limit);
+        }
+    }
+
+    /**
+     * Sets the passphrase that will be used to encrypt the file when it is
+     * saved.  The key material will change, so the next save can't be
+     * incremental.
+     */
+    @Override
+    public void setPassphrase(Owner<PwsPassword>.Param passwdParam)
+    {
+        synchronized (this) {
+            super.setPassphrase(passwdParam);
+            saveImage = null;
+            ++passphraseChanges;
+        }
+    }
+
+    /**
+     * Write the ciphertext of the file up to the first record changed since
+     * the image was saved.  The HMAC is recomputed over the plaintext of the
+     * unchanged records, and the cipher is set to continue the CBC chain
+     * from the end of the reused ciphertext.
+     *
+     * @return The index of the first record which must be written
+     */
+    private int writeUnchangedRecords(PwsRecordV3 header,
+                                      ArrayList<PwsRecord> recs, int[] offsets)
+            throws IOException
+    {
+        // Snapshots share the copies of unchanged records
+        int firstRec = 0;
+        int numImageRecs = imageRecords.size();
+        while ((firstRec < recs.size()) && (firstRec < numImageRecs) &&
+               (recs.get(firstRec) == imageRecords.get(firstRec))) {
+            ++firstRec;
+        }
+        System.arraycopy(imageOffsets, 0, offsets, 0, firstRec);
+
+        int prefixLen = imageOffsets[firstRec];
+        outStream.write(saveImage, 0, prefixLen);
+
+        hasher = new HmacPws(decryptedHmacKey);
+        digestRecord(header);
+        for (int i = 0; i < firstRec; ++i) {
+            PwsRecordV3 rec = (PwsRecordV3)recs.get(i);
+            if (!rec.isHeaderRecord()) {
+                digestRecord(rec);
+            }
+        }
+
+        twofishCbc = new TwofishPws(
+                decryptedRecordKey, true,
+                Util.getBytes(saveImage, prefixLen - getBlockSize(),
+                              getBlockSize()));
+        return firstRec;
+    }
+
+    /**
+     * Add a record's field values to the HMAC as if the record was saved
+     */
+    private void digestRecord(PwsRecord rec)
+    {
+        for (Iterator<Integer> iter = rec.getFields(); iter.hasNext(); ) {
+            hasher.digest(rec.getField(iter.next()).getBytes());
+        }
+    }
+
+    /**
+     * Set the image of the file as last loaded or saved
+     */
+    private void setSaveImage(byte[] image, ArrayList<PwsRecord> recs,
+                              int[] offsets, byte[] headerDigest)
+    {
+        if ((offsets.length == 0) ||
+            (offsets[0] < FILE_HEADER_LENGTH + getBlockSize())) {
+            saveImage = null;
+            return;
+        }
+        saveImage = image;
+        imageRecords = recs;
+        imageOffsets = offsets;
+        imageHeaderDigest = headerDigest;
+    }
+
+    /**
+     * Get a digest of a header record's fields
+     */
+    private static byte[] getHeaderDigest(PwsRecord header)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Iterator<Integer> iter = header.getFields();
+             iter.hasNext(); ) {
+            int type = iter.next();
+            byte[] value = header.getField(type).getBytes();
+            byte[] lenBlock = new byte[5];
+            Util.putIntToByteArray(lenBlock, value.length, 0);
+            lenBlock[4] = (byte)type;
+            bytes.write(lenBlock, 0, lenBlock.length);
+            bytes.write(value, 0, value.length);
+        }
+        return SHA256Pws.digest(bytes.toByteArray());
+    }
+
+
+    /**
+     * Writes the changes since the last save to the file's journal rather
+     * than rewriting the whole file.  The changes are compacted into the file
+     * by the next full {@link #save()}.
+     *
+     * @return true if the changes were journaled; false if the storage does
+     * not support a journal, a snapshot is being saved, or the journal
+     * should be compacted with a full save
+     * @throws IOException if the attempt fails.
+     */
+    public boolean saveJournal() throws IOException
+    {
+        if (isReadOnly())
+            throw new IOException("File is read only");
+
+        // A snapshot being saved will discard the journal
+        if (pendingSnapshots.get() > 0) {
+            return false;
+        }
+
+        synchronized (this) {
+            PwsFileJournalV3 fileJournal = getJournal();
+            if ((fileJournal == null) || !keysMatchStorage ||
+                (lastStorageChange == null) ||
+                (fileJournal.getSize() >= MAX_JOURNAL_SIZE) ||
+                (fileJournal.getNumEntries() >= MAX_JOURNAL_ENTRIES)) {
+                return false;
+            }
+
+            Date storageChange = storage.getModifiedDate();
+            if ((storageChange == null) ||
+                storageChange.after(lastStorageChange)) {
+                throw new ConcurrentModificationException(
+                        "Password store was changed independently - no " +
+                        "save possible!");
+            }
+
+            fileJournal.append(this);
+            modified = false;
+            return true;
+        }
+    }
+
+    /**
+     * Does the file's journal have changes which have not been compacted
+     * into the file
+     */
+    public boolean hasJournalChanges()
+    {
+        return (journal != null) && journal.hasEntries();
+    }
+
+    /**
+     * Loads the file as last saved with the changes from its journal
+     * replayed, such as to compact the journal.  Changes which were not
+     * written to the journal are not included.  The key material of this
+     * file is reused, so the passphrase is not stretched again.
+     *
+     * @return The file with the journaled changes
+     * @throws IOException if the key material no longer matches the saved
+     * file or the file can't be read.
+     */
+    public PwsFileV3 loadJournaled()
+            throws EndOfFileException, IOException,
+                   UnsupportedFileVersionException
+    {
+        PwsFileV3 file = new PwsFileV3();
+        synchronized (this) {
+            if (!keysMatchStorage || !(storage instanceof PwsFileStorage)) {
+                throw new IOException("Journal can't be loaded");
+            }
+            String id = storage.getIdentifier();
+            file.storage = new PwsMappedFileStorage(id, id);
+            Owner<PwsPassword> passwd = getPassphrase();
+            try {
+                file.setPassphrase(passwd.pass());
+            } finally {
+                passwd.close();
+            }
+            file.setOpenPasswordEncoding(getOpenPasswordEncoding());
+            file.decryptedRecordKey = Util.cloneByteArray(decryptedRecordKey);
+            file.decryptedHmacKey = Util.cloneByteArray(decryptedHmacKey);
+        }
+
+        try {
+            file.inBuffer = file.storage.loadBuffer();
+            file.lastStorageChange = file.storage.getModifiedDate();
+            file.fingerprint = getFingerprint(file.inBuffer);
+            PwsFileHeaderV3 theHeaderV3 = new PwsFileHeaderV3(file);
+            file.setHeaderV3(theHeaderV3);
+            file.hasher = new HmacPws(file.decryptedHmacKey);
+            file.twofishCbc = new TwofishPws(file.decryptedRecordKey, false,
+                                             theHeaderV3.getIV());
+            file.readExtraHeader(file);
+            file.readAll();
+            file.close();
+        } catch (EndOfFileException | IOException |
+                UnsupportedFileVersionException e) {
+            file.dispose();
+            throw e;
+        } finally {
+            file.storage.closeAfterLoad();
+        }
+        return file;
+    }
+
+    /**
+     * Get the file's journal; null if the storage does not support one
+     */
+    private PwsFileJournalV3 getJournal()
+    {
+        if ((journal == null) && (storage instanceof PwsFileStorage)) {
+            journal = new PwsFileJournalV3(
+                    ((PwsFileStorage)storage).getJournalFile());
+        }
+        return journal;
+    }
+
+    @Override
+    protected void recordChanged(PwsRecord rec)
+    {
+        dirtyRecords.add(rec);
+        PwsFileJournalV3 fileJournal = getJournal();
+        if (fileJournal != null) {
+            fileJournal.recordChanged(rec);
+        }
+    }
+
+    @Override
+    protected void recordRemoved(PwsRecord rec)
+    {
+        PwsFileJournalV3 fileJournal = getJournal();
+        if (fileJournal != null) {
+            fileJournal.recordRemoved(rec);
+        }
+    }
 
     /**
      * Returns the major version number for the file.
@@ -310,6 +1110,14 @@ public final class PwsFileV3 extends PwsFile
         return headerRecord;
     }
 
+    /**
+     * Replace the header record with one replayed from the journal
+     */
+    void replayHeader(PwsRecordV3 rec)
+    {
+        headerRecord = rec;
+    }
+
     /**
      * Reads the extra header present in version 2 files.
      *
@@ -365,6 +1173,7 @@ public final class PwsFileV3 extends PwsFile
             throw new EndOfFileException();
         }
 
+        long start = PwsOpenTrace.start();
         byte[] decrypted;
         try {
             decrypted = twofishCbc.processCBC(buff);
@@ -373,6 +1182,7 @@ public final class PwsFileV3 extends PwsFile
             throw new IOException("Error decrypting field");
         }
         Util.copyBytes(decrypted, buff);
+        PwsOpenTrace.add(PwsOpenTrace.Phase.BODY_DECRYPT, start, buff.length);
     }
 
     /**
@@ -411,10 +1221,13 @@ public final class PwsFileV3 extends PwsFile
     /**
      * @return the headerV3
      */
-    private PwsFileHeaderV3 getHeaderV3()
+    PwsFileHeaderV3 getHeaderV3()
     {
         try {
-            return (PwsFileHeaderV3)sealedHeaderV3.getObject(getReadCipher());
+            Cipher cipher = getReadCipher();
+            synchronized (cipher) {
+                return (PwsFileHeaderV3)sealedHeaderV3.getObject(cipher);
+            }
         } catch (IllegalBlockSizeException | IOException |
                 ClassNotFoundException | BadPaddingException e) {
             throw new MemoryKeyException(e);
@@ -427,7 +1240,10 @@ public final class PwsFileV3 extends PwsFile
     private void setHeaderV3(PwsFileHeaderV3 headerV3)
     {
         try {
-            sealedHeaderV3 = new SealedObject(headerV3, getWriteCipher());
+            Cipher cipher = getWriteCipher();
+            synchronized (cipher) {
+                sealedHeaderV3 = new SealedObject(headerV3, cipher);
+            }
         } catch (IllegalBlockSizeException | IOException e) {
             throw new MemoryKeyException(e);
         }
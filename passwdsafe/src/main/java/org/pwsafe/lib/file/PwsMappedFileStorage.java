@@ -0,0 +1,82 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package org.pwsafe.lib.file;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An implementation of the PwsStorage class for files which maps the file
+ * into memory when loading rather than copying it through a stream
+ */
+public class PwsMappedFileStorage extends PwsFileStorage
+{
+    private final String itsFileName;
+    private MappedByteBuffer itsLoadBuffer;
+
+    /**
+     * Constructor.  The file is opened when loaded, so no stream is opened
+     * for the base storage.
+     */
+    public PwsMappedFileStorage(String identifier, String fileToOpen)
+            throws IOException
+    {
+        super(identifier, null);
+        itsFileName = fileToOpen;
+    }
+
+    @Override
+    public byte[] openForLoad(int headerLen) throws IOException
+    {
+        ByteBuffer buf = loadBuffer();
+        if (buf.remaining() < headerLen) {
+            throw new IOException("Error reading header from " +
+                                  getIdentifier());
+        }
+        byte[] bytes = new byte[headerLen];
+        buf.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public byte[] load() throws IOException
+    {
+        ByteBuffer buf = loadBuffer();
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    @SuppressWarnings("TryFinallyCanBeTryWithResources")
+    public ByteBuffer loadBuffer() throws IOException
+    {
+        if (itsLoadBuffer == null) {
+            FileInputStream is = new FileInputStream(itsFileName);
+            try {
+                FileChannel channel = is.getChannel();
+                itsLoadBuffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                                            0, channel.size());
+            } finally {
+                // The mapping remains valid after the channel is closed
+                is.close();
+            }
+        }
+        return itsLoadBuffer.duplicate();
+    }
+
+    @Override
+    public void closeAfterLoad() throws IOException
+    {
+        itsLoadBuffer = null;
+        super.closeAfterLoad();
+    }
+}
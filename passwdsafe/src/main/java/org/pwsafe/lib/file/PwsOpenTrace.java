@@ -0,0 +1,313 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+package org.pwsafe.lib.file;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The PwsOpenTrace class records the time spent in each phase of opening a
+ * file when tracing is enabled.  The events are kept in a fixed size ring
+ * buffer which is written without locks so tracing doesn't change the
+ * timings of concurrent opens.
+ * <p>
+ * An open is traced on the thread which starts it, from
+ * {@link #startOpen()} to {@link #endOpen(long, long, long, String)}.  A
+ * probe on that thread is used as:
+ * <pre>
+ *     long start = PwsOpenTrace.start();
+ *     ...
+ *     PwsOpenTrace.end(Phase.X, start, bytes, count, null);
+ * </pre>
+ * and is tagged with the thread's open.  Probes outside of an open are not
+ * recorded unless they are given the id of an open.  A probe costs a
+ * volatile read when tracing is disabled.
+ */
+public final class PwsOpenTrace
+{
+    /** A phase of opening a file */
+    public enum Phase
+    {
+        /** The whole open */
+        OPEN,
+        /** Reading the file from its storage */
+        STORAGE_READ,
+        /** Stretching the password in the tried charsets */
+        KEY_STRETCH,
+        /** Decrypting the record and HMAC keys */
+        KEY_UNWRAP,
+        /** Decrypting the record blocks */
+        BODY_DECRYPT,
+        /** Parsing the records, excluding decryption and the HMAC */
+        RECORD_PARSE,
+        /** Computing and checking the HMAC of the record data */
+        HMAC_VERIFY,
+        /** Indexing the records */
+        INDEX_RECORDS,
+        /** Indexing the password policies */
+        INDEX_POLICIES,
+        /** Building the first view of the records */
+        VIEW_BUILD
+    }
+
+    /** A recorded phase */
+    public static final class Event
+    {
+        public final long seq;
+        public final int openId;
+        public final Phase phase;
+        public final long nanos;
+        public final long bytes;
+        public final long count;
+        public final String detail;
+
+        /** Constructor */
+        private Event(long seq, int openId, Phase phase, long nanos,
+                      long bytes, long count, String detail)
+        {
+            this.seq = seq;
+            this.openId = openId;
+            this.phase = phase;
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.count = count;
+            this.detail = detail;
+        }
+
+        /** Write the event as a JSON object */
+        public void toJson(StringBuilder sb)
+        {
+            sb.append("{\"seq\":").append(seq)
+              .append(",\"open\":").append(openId)
+              .append(",\"phase\":\"").append(phase.name())
+              .append("\",\"ns\":").append(nanos)
+              .append(",\"bytes\":").append(bytes)
+              .append(",\"count\":").append(count);
+            if (detail != null) {
+                sb.append(",\"detail\":\"");
+                for (int i = 0; i < detail.length(); ++i) {
+                    char c = detail.charAt(i);
+                    if ((c == '"') || (c == '\\')) {
+                        sb.append('\\').append(c);
+                    } else if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int)c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+                sb.append('"');
+            }
+            sb.append('}');
+        }
+    }
+
+    /** Number of events kept; a power of two */
+    private static final int NUM_EVENTS = 256;
+
+    private static final AtomicReferenceArray<Event> events =
+            new AtomicReferenceArray<>(NUM_EVENTS);
+    private static final AtomicLong nextSeq = new AtomicLong();
+    private static final AtomicInteger openIdGen = new AtomicInteger();
+    private static volatile boolean enabled = false;
+
+    /** Id of the open in progress on each thread; 0 if none */
+    private static final ThreadLocal<int[]> currentOpen =
+            new ThreadLocal<int[]>()
+            {
+                @Override
+                protected int[] initialValue()
+                {
+                    return new int[1];
+                }
+            };
+
+    /** Time and bytes of phases made of many short steps, per thread */
+    private static final ThreadLocal<long[]> accumulated =
+            new ThreadLocal<long[]>()
+            {
+                @Override
+                protected long[] initialValue()
+                {
+                    return new long[Phase.values().length * 2];
+                }
+            };
+
+    /** Constructor */
+    private PwsOpenTrace()
+    {
+    }
+
+    /** Set whether tracing is enabled */
+    public static void setEnabled(boolean enable)
+    {
+        enabled = enable;
+    }
+
+    /** Get whether tracing is enabled */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Start an open on the current thread.  Events on the thread until the
+     * open ends are tagged with the open's id.
+     * @return The start of the open for {@link #endOpen}
+     */
+    public static long startOpen()
+    {
+        if (!enabled) {
+            return 0;
+        }
+        currentOpen.get()[0] = openIdGen.incrementAndGet();
+        accumulated.remove();
+        return System.nanoTime();
+    }
+
+    /** End the open on the current thread and record its phase */
+    public static void endOpen(long start, long bytes, long count,
+                               String detail)
+    {
+        int[] open = currentOpen.get();
+        if ((start != 0) && (open[0] != 0)) {
+            record(open[0], Phase.OPEN, System.nanoTime() - start,
+                   bytes, count, detail);
+        }
+        open[0] = 0;
+    }
+
+    /**
+     * Get the id of the open in progress on the current thread for probes
+     * on other threads
+     * @return The open id; 0 if none
+     */
+    public static int getOpenId()
+    {
+        return enabled ? currentOpen.get()[0] : 0;
+    }
+
+    /**
+     * Start a probe of the open in progress on the current thread
+     * @return The start time; 0 if tracing is disabled or there is no open
+     */
+    public static long start()
+    {
+        return (enabled && (currentOpen.get()[0] != 0)) ?
+               System.nanoTime() : 0;
+    }
+
+    /**
+     * Start a probe of an open
+     * @return The start time; 0 if tracing is disabled or there is no open
+     */
+    public static long start(int openId)
+    {
+        return (enabled && (openId != 0)) ? System.nanoTime() : 0;
+    }
+
+    /** End a probe and record its phase for the current thread's open */
+    public static void end(Phase phase, long start,
+                           long bytes, long count, String detail)
+    {
+        if (start != 0) {
+            end(phase, currentOpen.get()[0], start, bytes, count, detail);
+        }
+    }
+
+    /** End a probe and record its phase for an open */
+    public static void end(Phase phase, int openId, long start,
+                           long bytes, long count, String detail)
+    {
+        if ((start != 0) && (openId != 0)) {
+            record(openId, phase, System.nanoTime() - start,
+                   bytes, count, detail);
+        }
+    }
+
+    /** End a probe and add its time and bytes to the phase's total */
+    public static void add(Phase phase, long start, long bytes)
+    {
+        if (start != 0) {
+            long[] accum = accumulated.get();
+            accum[phase.ordinal() * 2] += System.nanoTime() - start;
+            accum[phase.ordinal() * 2 + 1] += bytes;
+        }
+    }
+
+    /**
+     * End a probe for reading the records.  The added decryption and HMAC
+     * times are recorded separately from the rest of the parsing.
+     */
+    public static void endRead(long start, long numRecords)
+    {
+        if (start == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        int openId = currentOpen.get()[0];
+        long[] accum = accumulated.get();
+        long bytes = accum[Phase.BODY_DECRYPT.ordinal() * 2 + 1];
+        for (Phase phase: new Phase[] { Phase.BODY_DECRYPT,
+                                        Phase.HMAC_VERIFY }) {
+            int idx = phase.ordinal() * 2;
+            record(openId, phase, accum[idx], accum[idx + 1], numRecords,
+                   null);
+            nanos -= accum[idx];
+            accum[idx] = 0;
+            accum[idx + 1] = 0;
+        }
+        record(openId, Phase.RECORD_PARSE, nanos, bytes, numRecords, null);
+    }
+
+    /** Get the recorded events from oldest to newest */
+    public static List<Event> getEvents()
+    {
+        long next = nextSeq.get();
+        List<Event> recorded = new ArrayList<>();
+        for (long seq = Math.max(0, next - NUM_EVENTS); seq < next; ++seq) {
+            Event event = events.get((int)(seq & (NUM_EVENTS - 1)));
+            // Skip slots not yet written or already reused
+            if ((event != null) && (event.seq == seq)) {
+                recorded.add(event);
+            }
+        }
+        return recorded;
+    }
+
+    /** Dump the recorded events as JSON objects, one per line */
+    public static String dump()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Event event: getEvents()) {
+            event.toJson(sb);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /** Clear the recorded events */
+    public static void clear()
+    {
+        for (int i = 0; i < NUM_EVENTS; ++i) {
+            events.set(i, null);
+        }
+    }
+
+    /** Record an event */
+    private static void record(int openId, Phase phase, long nanos,
+                               long bytes, long count, String detail)
+    {
+        long seq = nextSeq.getAndIncrement();
+        events.set((int)(seq & (NUM_EVENTS - 1)),
+                      new Event(seq, openId, phase, nanos,
+                                bytes, count, detail));
+    }
+}
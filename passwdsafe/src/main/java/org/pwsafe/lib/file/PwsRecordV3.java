@@ -15,6 +15,7 @@ import org.pwsafe.lib.Util;
 import org.pwsafe.lib.exception.EndOfFileException;
 
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.util.Date;
 import java.util.Iterator;
 
@@ -345,6 +346,23 @@ public class PwsRecordV3 extends PwsRecord
         super(file, VALID_TYPES, ignoreFieldTypes);
     }
 
+    /**
+     * Create a record from a set of fields, such as one replayed from a
+     * journal.
+     *
+     * @param fields   the record's fields.
+     * @param isHeader true if the record is the file's header record.
+     */
+    PwsRecordV3(Iterable<PwsField> fields, boolean isHeader)
+    {
+        super(VALID_TYPES, isHeader);
+        for (PwsField field: fields) {
+            setField(field);
+        }
+        setLoaded();
+        resetModified();
+    }
+
     /**
      * The V3 format allows and requires the ability to add formerly unknown
      * fields.
@@ -430,7 +448,9 @@ public class PwsRecordV3 extends PwsRecord
             } catch (EndOfFileException eofe) {
                 data = new byte[32]; // to hold closing HMAC
                 file.readBytes(data);
+                long hmacStart = PwsOpenTrace.start();
                 byte[] hash = file.hasher.doFinal();
+                PwsOpenTrace.add(PwsOpenTrace.Phase.HMAC_VERIFY, hmacStart, 0);
                 if (!Util.bytesAreEqual(data, hash)) {
                     LOG.error("HMAC record did not match. File may have been " +
                               "tampered");
@@ -477,7 +497,10 @@ public class PwsRecordV3 extends PwsRecord
                 data = Util.mergeBytes(remainingDataInRecord, remainingRecords);
             }
             byte[] dataToHash = data;
+            long hmacStart = PwsOpenTrace.start();
             file.hasher.digest(dataToHash);
+            PwsOpenTrace.add(PwsOpenTrace.Phase.HMAC_VERIFY, hmacStart,
+                             dataToHash.length);
         }
     }
 
@@ -508,83 +531,75 @@ public class PwsRecordV3 extends PwsRecord
                         new PwsUnknownField(item.getType(), item.getByteData());
                 attributes.put(item.getType(), itemVal);
             } else {
-
-                switch (item.getType()) {
-                case V3_ID_STRING:
-                    // itemVal = new PwsIntegerField( item.getType(), new byte[]
-                    // {3,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0} );
-                    itemVal = new PwsVersionField(item.getType(),
-                                                  item.getByteData());
-                    break;
-
-                case UUID:
-                    itemVal = new PwsUUIDField(item.getType(),
-                                               item.getByteData());
-                    break;
-
-                case GROUP:
-                case TITLE:
-                case USERNAME:
-                case NOTES:
-                case PASSWORD_POLICY:
-                case PASSWORD_HISTORY:
-                case URL:
-                case AUTOTYPE:
-                case RUN_COMMAND:
-                case EMAIL:
-                case OWN_PASSWORD_SYMBOLS:
-                case PASSWORD_POLICY_NAME:
-                    itemVal = new PwsStringUnicodeField(item.getType(),
-                                                        item.getByteData());
-                    break;
-
-                case PASSWORD:
-                    itemVal = new PwsPasswdUnicodeField(item.getType(),
-                                                        item.getByteData(),
-                                                        file);
+                itemVal = createField(item.getType(), item.getByteData(), file);
+                if (item.getType() == PASSWORD) {
                     item.clear();
-                    break;
-
-                case CREATION_TIME:
-                case PASSWORD_MOD_TIME:
-                case LAST_ACCESS_TIME:
-                case LAST_MOD_TIME:
-                    itemVal = new PwsTimeField(item.getType(),
-                                               item.getByteData());
-                    break;
-
-                case PASSWORD_LIFETIME:
-                    itemVal = new PwsTimeField(item.getType(),
-                                               item.getByteData());
-                    break;
-
-                case PASSWORD_EXPIRY_INTERVAL:
-                case ENTRY_KEYBOARD_SHORTCUT:
-                    itemVal = new PwsIntegerField(item.getType(),
-                                                  item.getByteData());
-                    break;
-
-                case DOUBLE_CLICK_ACTION:
-                case SHIFT_DOUBLE_CLICK_ACTION:
-                    itemVal = new PwsShortField(item.getType(),
-                                                item.getByteData());
-                    break;
-
-                case PROTECTED_ENTRY:
-                    itemVal = new PwsByteField(item.getType(),
-                                               item.getByteData());
-                    break;
-
-                default:
-                    itemVal = new PwsUnknownField(item.getType(),
-                                                  item.getByteData());
-                    break;
                 }
                 setField(itemVal);
             }
         }
     }
 
+    /**
+     * Creates the field object for a field's type and its raw data.
+     *
+     * @param type the field type.
+     * @param data the raw field data.
+     * @param file the file owning the record.
+     * @return The field.
+     * @throws UnsupportedEncodingException If a string field's encoding is
+     * not supported.
+     */
+    static PwsField createField(int type, byte[] data, PwsFile file)
+            throws UnsupportedEncodingException
+    {
+        switch (type) {
+        case V3_ID_STRING:
+            return new PwsVersionField(type, data);
+
+        case UUID:
+            return new PwsUUIDField(type, data);
+
+        case GROUP:
+        case TITLE:
+        case USERNAME:
+        case NOTES:
+        case PASSWORD_POLICY:
+        case PASSWORD_HISTORY:
+        case URL:
+        case AUTOTYPE:
+        case RUN_COMMAND:
+        case EMAIL:
+        case OWN_PASSWORD_SYMBOLS:
+        case PASSWORD_POLICY_NAME:
+            return new PwsStringUnicodeField(type, data);
+
+        case PASSWORD:
+            return new PwsPasswdUnicodeField(type, data, file);
+
+        case CREATION_TIME:
+        case PASSWORD_MOD_TIME:
+        case LAST_ACCESS_TIME:
+        case LAST_MOD_TIME:
+        case PASSWORD_LIFETIME:
+            return new PwsTimeField(type, data);
+
+        case PASSWORD_EXPIRY_INTERVAL:
+        case ENTRY_KEYBOARD_SHORTCUT:
+            return new PwsIntegerField(type, data);
+
+        case DOUBLE_CLICK_ACTION:
+        case SHIFT_DOUBLE_CLICK_ACTION:
+            return new PwsShortField(type, data);
+
+        case PROTECTED_ENTRY:
+            return new PwsByteField(type, data);
+
+        default:
+            return new PwsUnknownField(type, data);
+        }
+    }
+
     /**
      * Saves this record to <code>file</code>.
      *
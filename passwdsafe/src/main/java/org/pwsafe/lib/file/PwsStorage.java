@@ -9,6 +9,7 @@ package org.pwsafe.lib.file;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Date;
 
 /**
@@ -51,6 +52,15 @@ public interface PwsStorage
      */
     byte[] load() throws IOException;
 
+    /**
+     * Get the bytes in the file as a read-only buffer positioned at the start
+     * of the file.  Implementations may map the file rather than copy it.
+     *
+     * @return The buffer of the bytes in the file
+     * @throws IOException
+     */
+    ByteBuffer loadBuffer() throws IOException;
+
     /**
      * Close the file after being loaded
      *
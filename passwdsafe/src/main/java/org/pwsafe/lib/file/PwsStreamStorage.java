@@ -11,6 +11,7 @@ import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Date;
 
 /**
@@ -26,7 +27,8 @@ public class PwsStreamStorage implements PwsStorage
     public PwsStreamStorage(String identifier, InputStream stream)
     {
         itsIdentifier = identifier;
-        itsLoadStream = new BufferedInputStream(stream);
+        itsLoadStream = (stream != null) ?
+                        new BufferedInputStream(stream) : null;
     }
 
     public byte[] openForLoad(int headerLen) throws IOException
@@ -69,6 +71,11 @@ public class PwsStreamStorage implements PwsStorage
         return itsLoadBytes;
     }
 
+    public ByteBuffer loadBuffer() throws IOException
+    {
+        return ByteBuffer.wrap(load()).asReadOnlyBuffer();
+    }
+
     public void closeAfterLoad() throws IOException
     {
         itsLoadBytes = null;
@@ -10,6 +10,7 @@
 
 #include "org_pwsafe_lib_crypto_SHA256Pws.h"
 #include "sha256.h"
+#include "sha256multi.h"
 #include "Util.h"
 
 #include <vector>
@@ -25,6 +26,11 @@ JNIEXPORT jbyteArray JNICALL Java_org_pwsafe_lib_crypto_SHA256Pws_digestNNative
 {
     jsize plen = env->GetArrayLength(p);
     jbyte* pdata = env->GetByteArrayElements(p, nullptr);
+    if (pdata == nullptr)
+    {
+        // OutOfMemoryError is pending
+        return nullptr;
+    }
     unsigned char output[SHA256::HASHLEN];
 
     SHA256 H0;
@@ -39,12 +45,73 @@ JNIEXPORT jbyteArray JNICALL Java_org_pwsafe_lib_crypto_SHA256Pws_digestNNative
     }
 
     burnStack(sizeof(unsigned long) * 74);
+    env->ReleaseByteArrayElements(p, pdata, JNI_ABORT);
 
     jbyteArray outputArray = env->NewByteArray(SHA256::HASHLEN);
-    env->SetByteArrayRegion(outputArray, 0, SHA256::HASHLEN,
-                            reinterpret_cast<jbyte*>(output));
-
-    env->ReleaseByteArrayElements(p, pdata, 0);
+    if (outputArray != nullptr)
+    {
+        env->SetByteArrayRegion(outputArray, 0, SHA256::HASHLEN,
+                                reinterpret_cast<jbyte*>(output));
+    }
+    trashMemory(output, SHA256::HASHLEN);
     return outputArray;
 }
 
+
+JNIEXPORT jobjectArray JNICALL Java_org_pwsafe_lib_crypto_SHA256Pws_digestNBatchNative
+(
+    JNIEnv* env,
+    jclass,
+    jobjectArray ps,
+    jint iter
+)
+{
+    jsize num = env->GetArrayLength(ps);
+    std::vector<unsigned char> outputs(num * SHA256::HASHLEN);
+    unsigned char (*digests)[SHA256::HASHLEN] =
+        reinterpret_cast<unsigned char (*)[SHA256::HASHLEN]>(outputs.data());
+
+    for (jsize i = 0; i < num; ++i)
+    {
+        jbyteArray p = static_cast<jbyteArray>(env->GetObjectArrayElement(ps, i));
+        jsize plen = env->GetArrayLength(p);
+        jbyte* pdata = env->GetByteArrayElements(p, nullptr);
+        if (pdata == nullptr)
+        {
+            // OutOfMemoryError is pending
+            env->DeleteLocalRef(p);
+            trashMemory(outputs.data(), outputs.size());
+            return nullptr;
+        }
+
+        SHA256 H0;
+        H0.Update(reinterpret_cast<unsigned char*>(pdata), plen);
+        H0.Final(digests[i]);
+
+        env->ReleaseByteArrayElements(p, pdata, JNI_ABORT);
+        env->DeleteLocalRef(p);
+    }
+
+    SHA256Multi::IterateDigests(digests, num, iter);
+    burnStack(sizeof(unsigned long) * 74);
+
+    jclass byteArrayClass = env->FindClass("[B");
+    jobjectArray outputArray = (byteArrayClass != nullptr) ?
+        env->NewObjectArray(num, byteArrayClass, nullptr) : nullptr;
+    for (jsize i = 0; (outputArray != nullptr) && (i < num); ++i)
+    {
+        jbyteArray output = env->NewByteArray(SHA256::HASHLEN);
+        if (output == nullptr)
+        {
+            outputArray = nullptr;
+            break;
+        }
+        env->SetByteArrayRegion(output, 0, SHA256::HASHLEN,
+                                reinterpret_cast<jbyte*>(digests[i]));
+        env->SetObjectArrayElement(outputArray, i, output);
+        env->DeleteLocalRef(output);
+    }
+
+    trashMemory(outputs.data(), outputs.size());
+    return outputArray;
+}
@@ -15,6 +15,14 @@ extern "C" {
 JNIEXPORT jbyteArray JNICALL Java_org_pwsafe_lib_crypto_SHA256Pws_digestNNative
   (JNIEnv *, jclass, jbyteArray, jint);
 
+/*
+ * Class:     org_pwsafe_lib_crypto_SHA256Pws
+ * Method:    digestNBatchNative
+ * Signature: ([[BI)[[B
+ */
+JNIEXPORT jobjectArray JNICALL Java_org_pwsafe_lib_crypto_SHA256Pws_digestNBatchNative
+  (JNIEnv *, jclass, jobjectArray, jint);
+
 #ifdef __cplusplus
 }
 #endif
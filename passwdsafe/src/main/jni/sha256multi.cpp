@@ -0,0 +1,174 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+// sha256multi.cpp
+// Iterated SHA256 of several independent digests in lockstep.  The input to
+// each round is a single block of the previous 32-byte digest and the
+// constant padding, so only the compression function is run per round.
+// The lanes use the compiler's generic vectors which map to SSE2/AVX2 on x86
+// and NEON on ARM, and to scalar code elsewhere.
+//-----------------------------------------------------------------------------
+#include "sha256multi.h"
+#include "Util.h"
+
+#include <stdint.h>
+#include <string.h>
+
+#if defined(__AVX2__)
+#define SHA256MULTI_LANES 8
+#elif defined(__SSE2__) || defined(__ARM_NEON__) || defined(__ARM_NEON)
+#define SHA256MULTI_LANES 4
+#else
+#define SHA256MULTI_LANES 1
+#endif
+
+#if SHA256MULTI_LANES > 1
+typedef uint32_t lanes_t
+    __attribute__((vector_size(SHA256MULTI_LANES * sizeof(uint32_t))));
+#else
+typedef uint32_t lanes_t;
+#endif
+
+static const uint32_t K[64] = {
+  0x428a2f98UL, 0x71374491UL, 0xb5c0fbcfUL, 0xe9b5dba5UL, 0x3956c25bUL,
+  0x59f111f1UL, 0x923f82a4UL, 0xab1c5ed5UL, 0xd807aa98UL, 0x12835b01UL,
+  0x243185beUL, 0x550c7dc3UL, 0x72be5d74UL, 0x80deb1feUL, 0x9bdc06a7UL,
+  0xc19bf174UL, 0xe49b69c1UL, 0xefbe4786UL, 0x0fc19dc6UL, 0x240ca1ccUL,
+  0x2de92c6fUL, 0x4a7484aaUL, 0x5cb0a9dcUL, 0x76f988daUL, 0x983e5152UL,
+  0xa831c66dUL, 0xb00327c8UL, 0xbf597fc7UL, 0xc6e00bf3UL, 0xd5a79147UL,
+  0x06ca6351UL, 0x14292967UL, 0x27b70a85UL, 0x2e1b2138UL, 0x4d2c6dfcUL,
+  0x53380d13UL, 0x650a7354UL, 0x766a0abbUL, 0x81c2c92eUL, 0x92722c85UL,
+  0xa2bfe8a1UL, 0xa81a664bUL, 0xc24b8b70UL, 0xc76c51a3UL, 0xd192e819UL,
+  0xd6990624UL, 0xf40e3585UL, 0x106aa070UL, 0x19a4c116UL, 0x1e376c08UL,
+  0x2748774cUL, 0x34b0bcb5UL, 0x391c0cb3UL, 0x4ed8aa4aUL, 0x5b9cca4fUL,
+  0x682e6ff3UL, 0x748f82eeUL, 0x78a5636fUL, 0x84c87814UL, 0x8cc70208UL,
+  0x90befffaUL, 0xa4506cebUL, 0xbef9a3f7UL, 0xc67178f2UL
+};
+
+static const uint32_t IV[8] = {
+  0x6A09E667UL, 0xBB67AE85UL, 0x3C6EF372UL, 0xA54FF53AUL,
+  0x510E527FUL, 0x9B05688CUL, 0x1F83D9ABUL, 0x5BE0CD19UL
+};
+
+/* Set all lanes to a value */
+static inline lanes_t splat(uint32_t x)
+{
+  lanes_t v;
+  for (int i = 0; i < SHA256MULTI_LANES; ++i) {
+    reinterpret_cast<uint32_t*>(&v)[i] = x;
+  }
+  return v;
+}
+
+#define RORV(x, n)      (((x) >> (n)) | ((x) << (32 - (n))))
+#define Ch(x,y,z)       (z ^ (x & (y ^ z)))
+#define Maj(x,y,z)      (((x | y) & z) | (x & y))
+#define Sigma0(x)       (RORV(x, 2) ^ RORV(x, 13) ^ RORV(x, 22))
+#define Sigma1(x)       (RORV(x, 6) ^ RORV(x, 11) ^ RORV(x, 25))
+#define Gamma0(x)       (RORV(x, 7) ^ RORV(x, 18) ^ ((x) >> 3))
+#define Gamma1(x)       (RORV(x, 17) ^ RORV(x, 19) ^ ((x) >> 10))
+
+/* Hash the digests in each lane iter times */
+static void iterateLanes(lanes_t state[8], int iter)
+{
+  lanes_t W[64];
+  lanes_t kv[64];
+  lanes_t ivv[8];
+  for (int i = 0; i < 64; ++i) {
+    kv[i] = splat(K[i]);
+  }
+  for (int i = 0; i < 8; ++i) {
+    ivv[i] = splat(IV[i]);
+  }
+  const lanes_t pad = splat(0x80000000UL);
+  const lanes_t zero = splat(0);
+  const lanes_t len = splat(256);
+
+  for (int round = 0; round < iter; ++round) {
+    for (int i = 0; i < 8; ++i) {
+      W[i] = state[i];
+    }
+    W[8] = pad;
+    for (int i = 9; i < 15; ++i) {
+      W[i] = zero;
+    }
+    W[15] = len;
+    for (int i = 16; i < 64; ++i) {
+      W[i] = Gamma1(W[i - 2]) + W[i - 7] + Gamma0(W[i - 15]) + W[i - 16];
+    }
+
+    lanes_t a = ivv[0], b = ivv[1], c = ivv[2], d = ivv[3];
+    lanes_t e = ivv[4], f = ivv[5], g = ivv[6], h = ivv[7];
+    for (int i = 0; i < 64; ++i) {
+      lanes_t t0 = h + Sigma1(e) + Ch(e, f, g) + kv[i] + W[i];
+      lanes_t t1 = Sigma0(a) + Maj(a, b, c);
+      h = g;
+      g = f;
+      f = e;
+      e = d + t0;
+      d = c;
+      c = b;
+      b = a;
+      a = t0 + t1;
+    }
+
+    state[0] = ivv[0] + a;
+    state[1] = ivv[1] + b;
+    state[2] = ivv[2] + c;
+    state[3] = ivv[3] + d;
+    state[4] = ivv[4] + e;
+    state[5] = ivv[5] + f;
+    state[6] = ivv[6] + g;
+    state[7] = ivv[7] + h;
+  }
+
+  trashMemory(W, sizeof(W));
+}
+
+void SHA256Multi::IterateDigests(unsigned char (*digests)[HASHLEN],
+                                 size_t num, int iter)
+{
+  for (size_t first = 0; first < num; first += SHA256MULTI_LANES) {
+    size_t numLanes = num - first;
+    if (numLanes > SHA256MULTI_LANES) {
+      numLanes = SHA256MULTI_LANES;
+    }
+
+    // Transpose the digests so each state word holds one word per lane.
+    // Unused lanes are hashed along with the others and ignored.
+    lanes_t state[8];
+    memset(state, 0, sizeof(state));
+    for (size_t lane = 0; lane < numLanes; ++lane) {
+      const unsigned char* digest = digests[first + lane];
+      for (int i = 0; i < 8; ++i) {
+        uint32_t word;
+        LOAD32H(word, digest + (4 * i));
+        reinterpret_cast<uint32_t*>(&state[i])[lane] = word;
+      }
+    }
+
+    iterateLanes(state, iter);
+
+    for (size_t lane = 0; lane < numLanes; ++lane) {
+      unsigned char* digest = digests[first + lane];
+      for (int i = 0; i < 8; ++i) {
+        uint32_t word = reinterpret_cast<uint32_t*>(&state[i])[lane];
+        STORE32H(word, digest + (4 * i));
+      }
+    }
+    trashMemory(state, sizeof(state));
+  }
+}
+
+size_t SHA256Multi::NumLanes()
+{
+  return SHA256MULTI_LANES;
+}
+//-----------------------------------------------------------------------------
+// Local variables:
+// mode: c++
+// End:
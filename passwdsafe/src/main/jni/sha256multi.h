@@ -0,0 +1,36 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+// sha256multi.h
+// Iterated SHA256 of several independent digests in lockstep
+//-----------------------------------------------------------------------------
+#ifndef __SHA256MULTI_H
+#define __SHA256MULTI_H
+
+#include <stddef.h>
+
+namespace SHA256Multi
+{
+  enum {HASHLEN = 32};
+
+  /**
+   * Replace each of the num digests with the digest hashed iter times.
+   * Groups of digests are hashed together in the lanes of the platform's
+   * vector registers.
+   */
+  void IterateDigests(unsigned char (*digests)[HASHLEN], size_t num,
+                      int iter);
+
+  /** Number of digests hashed together */
+  size_t NumLanes();
+}
+
+#endif /* __SHA256MULTI_H */
+//-----------------------------------------------------------------------------
+// Local variables:
+// mode: c++
+// End:
@@ -0,0 +1,165 @@
+/*
+ * Copyright (©) 2016 Jeff Harris <jefftharris@gmail.com>
+ * All rights reserved. Use of the code is allowed under the
+ * Artistic License 2.0 terms, as specified in the LICENSE file
+ * distributed with this code, or available from
+ * http://www.opensource.org/licenses/artistic-license-2.0.php
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+
+/**
+ * Generate the trigrams.bin asset read by Trigram.loadFrequencies() from
+ * the text table of trigram frequencies.
+ * <p>
+ * Usage: GenTrigrams trigrams.txt trigrams.bin
+ */
+public final class GenTrigrams
+{
+    private static final int NUM_LETTERS = 26;
+    private static final int NUM_TRIGRAMS =
+            NUM_LETTERS * NUM_LETTERS * NUM_LETTERS;
+    private static final byte[] MAGIC = { 'T', 'R', 'I', '1' };
+
+    /** Constructor */
+    private GenTrigrams()
+    {
+    }
+
+    /** Main entry */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2) {
+            System.err.println("Usage: GenTrigrams <table.txt> <output.bin>");
+            System.exit(1);
+        }
+
+        int[] freqs = readTable(args[0]);
+        long sigma = 0;
+        for (int freq: freqs) {
+            sigma += freq;
+        }
+        writeTable(freqs, args[1]);
+        System.out.println("Trigram sum: " + sigma);
+    }
+
+    /**
+     * Read the frequencies from the text table
+     */
+    @SuppressWarnings("TryFinallyCanBeTryWithResources")
+    private static int[] readTable(String fileName) throws IOException
+    {
+        int[] freqs = new int[NUM_TRIGRAMS];
+        boolean[] seen = new boolean[NUM_LETTERS * NUM_LETTERS];
+        BufferedReader r = new BufferedReader(new InputStreamReader(
+                new FileInputStream(fileName), "UTF-8"));
+        try {
+            String line;
+            int lineNum = 0;
+            while ((line = r.readLine()) != null) {
+                ++lineNum;
+                line = line.trim();
+                if ((line.length() == 0) || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] fields = line.split("\\s+");
+                if ((fields.length != NUM_LETTERS + 1) ||
+                    (fields[0].length() != 2)) {
+                    throw new IOException("Invalid line " + lineNum);
+                }
+                int c1 = letterIdx(fields[0].charAt(0), lineNum);
+                int c2 = letterIdx(fields[0].charAt(1), lineNum);
+                int pair = c1 * NUM_LETTERS + c2;
+                if (seen[pair]) {
+                    throw new IOException("Duplicate line " + lineNum);
+                }
+                seen[pair] = true;
+
+                for (int c3 = 0; c3 < NUM_LETTERS; ++c3) {
+                    int freq;
+                    try {
+                        freq = Integer.parseInt(fields[c3 + 1]);
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Invalid frequency on line " +
+                                              lineNum);
+                    }
+                    if ((freq < 0) || (freq > Short.MAX_VALUE)) {
+                        throw new IOException("Frequency out of range on " +
+                                              "line " + lineNum);
+                    }
+                    freqs[pair * NUM_LETTERS + c3] = freq;
+                }
+            }
+        } finally {
+            r.close();
+        }
+
+        for (int i = 0; i < seen.length; ++i) {
+            if (!seen[i]) {
+                throw new IOException(
+                        "Missing line for " +
+                        (char)('a' + i / NUM_LETTERS) +
+                        (char)('a' + i % NUM_LETTERS));
+            }
+        }
+        return freqs;
+    }
+
+    /**
+     * Write the frequencies as the magic followed by varint pairs of the
+     * zero-frequency trigrams skipped and the frequency
+     */
+    @SuppressWarnings("TryFinallyCanBeTryWithResources")
+    private static void writeTable(int[] freqs, String fileName)
+            throws IOException
+    {
+        OutputStream os =
+                new BufferedOutputStream(new FileOutputStream(fileName));
+        try {
+            os.write(MAGIC);
+            int skip = 0;
+            for (int freq: freqs) {
+                if (freq == 0) {
+                    ++skip;
+                    continue;
+                }
+                writeVarint(skip, os);
+                writeVarint(freq, os);
+                skip = 0;
+            }
+        } finally {
+            os.close();
+        }
+    }
+
+    /**
+     * Write an unsigned LEB128 varint
+     */
+    private static void writeVarint(int val, OutputStream os)
+            throws IOException
+    {
+        while ((val & ~0x7f) != 0) {
+            os.write((val & 0x7f) | 0x80);
+            val >>>= 7;
+        }
+        os.write(val);
+    }
+
+    /**
+     * Get the index of a lower case letter
+     */
+    private static int letterIdx(char c, int lineNum) throws IOException
+    {
+        if ((c < 'a') || (c > 'z')) {
+            throw new IOException("Invalid letter on line " + lineNum);
+        }
+        return c - 'a';
+    }
+}